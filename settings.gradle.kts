@@ -5,6 +5,7 @@ dependencyResolutionManagement {
         create("libs") {
             version("java", providers.gradleProperty("compileJavaVersion").getOrElse("11"))
             version("javadocVersion", providers.gradleProperty("javadocJavaVersion").getOrElse("17"))
+            version("virtualThreadTestJava", providers.gradleProperty("virtualThreadTestJavaVersion").getOrElse("21"))
 
             version("checkstyle", "9.2.1")
             version("jacoco", "0.8.7")
@@ -13,6 +14,10 @@ dependencyResolutionManagement {
             library("slf4jApi", "org.slf4j:slf4j-api:${slf4jVersion}")
             library("slf4jJdk", "org.slf4j:slf4j-jdk14:${slf4jVersion}")
 
+            val jmhVersion = "1.37"
+            library("jmhCore", "org.openjdk.jmh:jmh-core:${jmhVersion}")
+            library("jmhGenerator", "org.openjdk.jmh:jmh-generator-annprocess:${jmhVersion}")
+
             library("junit", "junit:junit:4.13.2")
             library("mockitoCore", "org.mockito:mockito-core:5.4.0")
 
@@ -0,0 +1,23 @@
+plugins {
+    `jtrim-java-internal`
+}
+
+dependencies {
+    implementation(project(":jtrim-executor"))
+
+    implementation(libs.jmhCore)
+    annotationProcessor(libs.jmhGenerator)
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks. JMH arguments can be passed with -PjmhArgs=\"...\"."
+
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+
+    val jmhArgs = providers.gradleProperty("jmhArgs").orNull
+    if (jmhArgs != null) {
+        args(jmhArgs.split(" ").filter { it.isNotBlank() })
+    }
+}
@@ -0,0 +1,114 @@
+package org.jtrim2.benchmarks.cancel;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.executor.CancelableTask;
+import org.jtrim2.executor.TaskExecutorService;
+import org.jtrim2.executor.ThreadPoolTaskExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of creating and combining cancellation tokens, and of submitting tasks
+ * with a cancellation token to a thread pool. These benchmarks are mostly interesting for
+ * the allocated memory, so they should be run with the GC profiler and the
+ * {@code gc.alloc.rate.norm} (bytes per operation) result should be compared:
+ * <pre>
+ * ./gradlew :jtrim-benchmarks:jmh -PjmhArgs="CancellationBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CancellationBenchmark {
+    private static final int MAX_PENDING_TASK_COUNT = 1024;
+
+    private CancellationSource parentSource;
+    private CancellationToken parentToken;
+    private CancellationToken otherToken;
+    private CancellationToken combinedToken;
+    private Runnable listener;
+
+    private TaskExecutorService executor;
+    private Semaphore pendingTaskLimit;
+    private CancelableTask task;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        parentSource = Cancellation.createCancellationSource();
+        parentToken = parentSource.getToken();
+        otherToken = Cancellation.createCancellationSource().getToken();
+        combinedToken = Cancellation.anyToken(parentToken, otherToken);
+        listener = () -> { };
+
+        executor = new ThreadPoolTaskExecutor("benchmark-cancellation", 1);
+        pendingTaskLimit = new Semaphore(MAX_PENDING_TASK_COUNT);
+        task = cancelToken -> pendingTaskLimit.release();
+    }
+
+    @TearDown(Level.Iteration)
+    public void waitForPendingTasks() {
+        pendingTaskLimit.acquireUninterruptibly(MAX_PENDING_TASK_COUNT);
+        pendingTaskLimit.release(MAX_PENDING_TASK_COUNT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+        executor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+    }
+
+    @Benchmark
+    public CancellationToken createSource() {
+        return Cancellation.createCancellationSource().getToken();
+    }
+
+    @Benchmark
+    public CancellationToken createChildSource() {
+        return Cancellation.createChildCancellationSource(parentToken).getToken();
+    }
+
+    @Benchmark
+    public CancellationToken anyTokenOfTwo() {
+        return Cancellation.anyToken(parentToken, otherToken);
+    }
+
+    @Benchmark
+    public CancellationToken anyTokenOfArray() {
+        return Cancellation.anyToken(new CancellationToken[]{parentToken, otherToken});
+    }
+
+    @Benchmark
+    public void addAndRemoveListener() {
+        combinedToken.addCancellationListener(listener).unregister();
+    }
+
+    @Benchmark
+    public void submitUncancelableTask() {
+        pendingTaskLimit.acquireUninterruptibly();
+        executor.execute(Cancellation.UNCANCELABLE_TOKEN, task);
+    }
+
+    @Benchmark
+    public void submitTaskWithChildToken() {
+        pendingTaskLimit.acquireUninterruptibly();
+        CancellationSource taskSource = Cancellation.createChildCancellationSource(parentToken);
+        executor.execute(taskSource.getToken(), task);
+    }
+}
@@ -0,0 +1,16 @@
+package org.jtrim2.benchmarks.collections;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines a common view of the benchmarked queues, so that the same benchmark code
+ * can measure both JTrim and {@code java.util.concurrent} queues.
+ * <P>
+ * The methods wait at most the given timeout, so that producers and consumers cannot
+ * get stuck at the end of a measurement iteration.
+ */
+public interface BenchmarkQueue<T> {
+    public boolean put(T element, long timeout, TimeUnit unit) throws Exception;
+
+    public T take(long timeout, TimeUnit unit) throws Exception;
+}
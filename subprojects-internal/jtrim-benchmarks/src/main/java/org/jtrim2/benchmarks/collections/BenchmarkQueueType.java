@@ -0,0 +1,71 @@
+package org.jtrim2.benchmarks.collections;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.collections.ReservablePollingQueues;
+import org.jtrim2.concurrent.collections.TerminableQueue;
+import org.jtrim2.concurrent.collections.TerminableQueues;
+
+/**
+ * Defines the queues compared by the queue benchmarks.
+ */
+public enum BenchmarkQueueType {
+    JTRIM_TERMINABLE_QUEUE {
+        @Override
+        public <T> BenchmarkQueue<T> create(int capacity) {
+            return fromTerminableQueue(TerminableQueues.withWrappedQueue(
+                    ReservablePollingQueues.createFifoQueue(capacity)));
+        }
+    },
+    JTRIM_ARRAY_TERMINABLE_QUEUE {
+        @Override
+        public <T> BenchmarkQueue<T> create(int capacity) {
+            return fromTerminableQueue(TerminableQueues.createFifoQueue(capacity));
+        }
+    },
+    JUC_ARRAY_BLOCKING_QUEUE {
+        @Override
+        public <T> BenchmarkQueue<T> create(int capacity) {
+            return fromBlockingQueue(new ArrayBlockingQueue<>(capacity));
+        }
+    },
+    JUC_LINKED_BLOCKING_QUEUE {
+        @Override
+        public <T> BenchmarkQueue<T> create(int capacity) {
+            return fromBlockingQueue(new LinkedBlockingQueue<>(capacity));
+        }
+    };
+
+    private static <T> BenchmarkQueue<T> fromTerminableQueue(TerminableQueue<T> queue) {
+        return new BenchmarkQueue<T>() {
+            @Override
+            public boolean put(T element, long timeout, TimeUnit unit) throws Exception {
+                return queue.put(Cancellation.UNCANCELABLE_TOKEN, element, timeout, unit);
+            }
+
+            @Override
+            public T take(long timeout, TimeUnit unit) throws Exception {
+                return queue.tryTake(Cancellation.UNCANCELABLE_TOKEN, timeout, unit);
+            }
+        };
+    }
+
+    private static <T> BenchmarkQueue<T> fromBlockingQueue(BlockingQueue<T> queue) {
+        return new BenchmarkQueue<T>() {
+            @Override
+            public boolean put(T element, long timeout, TimeUnit unit) throws Exception {
+                return queue.offer(element, timeout, unit);
+            }
+
+            @Override
+            public T take(long timeout, TimeUnit unit) throws Exception {
+                return queue.poll(timeout, unit);
+            }
+        };
+    }
+
+    public abstract <T> BenchmarkQueue<T> create(int capacity);
+}
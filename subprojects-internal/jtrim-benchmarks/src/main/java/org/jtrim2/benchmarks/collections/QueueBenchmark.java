@@ -0,0 +1,103 @@
+package org.jtrim2.benchmarks.collections;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of bounded blocking queues with single and multiple producers
+ * and consumers. The results are reported separately for the producers ({@code put}) and
+ * the consumers ({@code take}) of each group.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class QueueBenchmark {
+    private static final long TIMEOUT_MS = 10;
+    private static final Integer ELEMENT = 1;
+
+    @Param({
+        "JTRIM_TERMINABLE_QUEUE",
+        "JTRIM_ARRAY_TERMINABLE_QUEUE",
+        "JUC_ARRAY_BLOCKING_QUEUE",
+        "JUC_LINKED_BLOCKING_QUEUE"
+    })
+    public BenchmarkQueueType queueType;
+
+    @Param("1024")
+    public int capacity;
+
+    private BenchmarkQueue<Integer> queue;
+
+    // A new queue is created for each iteration, so that elements left in the queue
+    // by the previous iteration do not affect the next one.
+    @Setup(Level.Iteration)
+    public void setup() {
+        queue = queueType.create(capacity);
+    }
+
+    private boolean put() throws Exception {
+        return queue.put(ELEMENT, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private Integer take() throws Exception {
+        return queue.take(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public boolean spscPut() throws Exception {
+        return put();
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public Integer spscTake() throws Exception {
+        return take();
+    }
+
+    @Benchmark
+    @Group("mpsc")
+    @GroupThreads(4)
+    public boolean mpscPut() throws Exception {
+        return put();
+    }
+
+    @Benchmark
+    @Group("mpsc")
+    @GroupThreads(1)
+    public Integer mpscTake() throws Exception {
+        return take();
+    }
+
+    @Benchmark
+    @Group("mpmc")
+    @GroupThreads(4)
+    public boolean mpmcPut() throws Exception {
+        return put();
+    }
+
+    @Benchmark
+    @Group("mpmc")
+    @GroupThreads(4)
+    public Integer mpmcTake() throws Exception {
+        return take();
+    }
+}
@@ -0,0 +1,80 @@
+package org.jtrim2.benchmarks.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.jtrim2.event.CopyOnTriggerListenerManager;
+import org.jtrim2.event.CopyOnWriteListenerManager;
+import org.jtrim2.event.EventListeners;
+import org.jtrim2.event.ListenerManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of dispatching events with the {@code ListenerManager}
+ * implementations. Run it with {@code -prof gc} to see the allocated bytes per
+ * dispatched event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenerManagerBenchmark {
+    public enum ListenerManagerType {
+        COPY_ON_TRIGGER(CopyOnTriggerListenerManager::new),
+        COPY_ON_WRITE(CopyOnWriteListenerManager::new);
+
+        private final Supplier<ListenerManager<Runnable>> factory;
+
+        private ListenerManagerType(Supplier<ListenerManager<Runnable>> factory) {
+            this.factory = factory;
+        }
+
+        public ListenerManager<Runnable> create() {
+            return factory.get();
+        }
+    }
+
+    @Param({"COPY_ON_TRIGGER", "COPY_ON_WRITE"})
+    public ListenerManagerType managerType;
+
+    @Param({"1", "8"})
+    public int listenerCount;
+
+    private ListenerManager<Runnable> listeners;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        listeners = managerType.create();
+
+        LongAdder notifiedCount = new LongAdder();
+        for (int i = 0; i < listenerCount; i++) {
+            listeners.registerListener(notifiedCount::increment);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void dispatchSingleThread() {
+        EventListeners.dispatchRunnable(listeners);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void dispatchFourThreads() {
+        EventListeners.dispatchRunnable(listeners);
+    }
+}
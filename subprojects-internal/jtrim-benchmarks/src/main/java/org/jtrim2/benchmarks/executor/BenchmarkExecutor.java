@@ -0,0 +1,56 @@
+package org.jtrim2.benchmarks.executor;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.executor.TaskExecutor;
+import org.jtrim2.executor.TaskExecutorService;
+
+/**
+ * Defines a common view of the benchmarked executors, so that the same benchmark code
+ * can measure both JTrim and {@code java.util.concurrent} executors.
+ */
+public final class BenchmarkExecutor implements Executor {
+    private final Executor executor;
+    private final Runnable shutdownTask;
+
+    private BenchmarkExecutor(Executor executor, Runnable shutdownTask) {
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.shutdownTask = Objects.requireNonNull(shutdownTask, "shutdownTask");
+    }
+
+    public static BenchmarkExecutor fromTaskExecutor(TaskExecutor executor, TaskExecutorService owner) {
+        return new BenchmarkExecutor(executor::execute, () -> {
+            owner.shutdown();
+            owner.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+        });
+    }
+
+    public static BenchmarkExecutor fromTaskExecutorService(TaskExecutorService executor) {
+        return fromTaskExecutor(executor, executor);
+    }
+
+    public static BenchmarkExecutor fromExecutorService(ExecutorService executor) {
+        return new BenchmarkExecutor(executor, () -> {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // Keep waiting, the benchmarks only submit short tasks.
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    public void shutdownAndWait() {
+        shutdownTask.run();
+    }
+}
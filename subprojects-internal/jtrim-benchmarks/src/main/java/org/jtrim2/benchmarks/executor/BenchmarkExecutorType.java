@@ -0,0 +1,51 @@
+package org.jtrim2.benchmarks.executor;
+
+import java.util.concurrent.Executors;
+import org.jtrim2.executor.SingleThreadedExecutor;
+import org.jtrim2.executor.TaskExecutors;
+import org.jtrim2.executor.ThreadPoolTaskExecutor;
+
+/**
+ * Defines the executors compared by the executor benchmarks.
+ */
+public enum BenchmarkExecutorType {
+    JTRIM_THREAD_POOL {
+        @Override
+        public BenchmarkExecutor create(int threadCount) {
+            return BenchmarkExecutor.fromTaskExecutorService(
+                    new ThreadPoolTaskExecutor("benchmark-thread-pool", threadCount));
+        }
+    },
+    JTRIM_SINGLE_THREADED {
+        @Override
+        public BenchmarkExecutor create(int threadCount) {
+            return BenchmarkExecutor.fromTaskExecutorService(
+                    new SingleThreadedExecutor("benchmark-single-threaded"));
+        }
+    },
+    JTRIM_IN_ORDER {
+        @Override
+        public BenchmarkExecutor create(int threadCount) {
+            ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor("benchmark-in-order", threadCount);
+            return BenchmarkExecutor.fromTaskExecutor(TaskExecutors.inOrderExecutor(threadPool), threadPool);
+        }
+    },
+    JUC_THREAD_POOL {
+        @Override
+        public BenchmarkExecutor create(int threadCount) {
+            return BenchmarkExecutor.fromExecutorService(Executors.newFixedThreadPool(threadCount));
+        }
+    },
+    JUC_SINGLE_THREAD {
+        @Override
+        public BenchmarkExecutor create(int threadCount) {
+            return BenchmarkExecutor.fromExecutorService(Executors.newSingleThreadExecutor());
+        }
+    };
+
+    /**
+     * Creates a new executor of this type. Single threaded executors ignore the
+     * {@code threadCount} argument.
+     */
+    public abstract BenchmarkExecutor create(int threadCount);
+}
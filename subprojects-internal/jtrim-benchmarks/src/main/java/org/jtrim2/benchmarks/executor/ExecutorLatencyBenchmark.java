@@ -0,0 +1,67 @@
+package org.jtrim2.benchmarks.executor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time elapsed between submitting a task and the submitter being notified about
+ * its completion. That is, the time needed to hand over a task to a thread of the executor
+ * and back.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorLatencyBenchmark {
+    @Param({"JTRIM_THREAD_POOL", "JTRIM_SINGLE_THREADED", "JTRIM_IN_ORDER", "JUC_THREAD_POOL", "JUC_SINGLE_THREAD"})
+    public BenchmarkExecutorType executorType;
+
+    @Param("4")
+    public int executorThreadCount;
+
+    private BenchmarkExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = executorType.create(executorThreadCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownAndWait();
+    }
+
+    private void roundTrip() throws InterruptedException {
+        CountDownLatch doneSignal = new CountDownLatch(1);
+        executor.execute(doneSignal::countDown);
+        doneSignal.await();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void roundTripSingleProducer() throws InterruptedException {
+        roundTrip();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void roundTripFourProducers() throws InterruptedException {
+        roundTrip();
+    }
+}
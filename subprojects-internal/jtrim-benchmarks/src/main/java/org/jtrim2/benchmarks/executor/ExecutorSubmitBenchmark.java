@@ -0,0 +1,87 @@
+package org.jtrim2.benchmarks.executor;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of submitting trivial tasks from 1, 4 and as many threads as many
+ * processors are available. The number of not yet completed tasks is limited, so that the
+ * queue of the executor does not grow without bounds when the executor cannot keep up with
+ * the producers. That is, the measured throughput is the sustained throughput of the executor,
+ * not just the cost of adding tasks to its queue.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorSubmitBenchmark {
+    @Param({"JTRIM_THREAD_POOL", "JTRIM_SINGLE_THREADED", "JTRIM_IN_ORDER", "JUC_THREAD_POOL", "JUC_SINGLE_THREAD"})
+    public BenchmarkExecutorType executorType;
+
+    @Param("4")
+    public int executorThreadCount;
+
+    @Param("1024")
+    public int maxPendingTaskCount;
+
+    private BenchmarkExecutor executor;
+    private Semaphore pendingTaskLimit;
+    private Runnable task;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = executorType.create(executorThreadCount);
+        pendingTaskLimit = new Semaphore(maxPendingTaskCount);
+        task = pendingTaskLimit::release;
+    }
+
+    @TearDown(Level.Iteration)
+    public void waitForPendingTasks() {
+        pendingTaskLimit.acquireUninterruptibly(maxPendingTaskCount);
+        pendingTaskLimit.release(maxPendingTaskCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownAndWait();
+    }
+
+    private void submit() {
+        pendingTaskLimit.acquireUninterruptibly();
+        executor.execute(task);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void submitSingleProducer() {
+        submit();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void submitFourProducers() {
+        submit();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void submitMaxProducers() {
+        submit();
+    }
+}
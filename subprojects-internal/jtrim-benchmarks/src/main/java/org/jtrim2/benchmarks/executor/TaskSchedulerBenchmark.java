@@ -0,0 +1,183 @@
+package org.jtrim2.benchmarks.executor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import org.jtrim2.executor.TaskScheduler;
+import org.jtrim2.utils.ExceptionHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the {@code scheduleTask} and {@code dispatchTasks} pattern of
+ * {@code TaskScheduler} (as used for event dispatching). The scheduler is compared to the
+ * previous implementation of {@code TaskScheduler}, which was based on a
+ * {@code LinkedBlockingQueue}.
+ * <P>
+ * The {@code dispatchBatch} benchmarks schedule multiple tasks before dispatching them,
+ * which is the case when events are collected while a lock is held and are only dispatched
+ * after releasing the lock.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskSchedulerBenchmark {
+    private static final int BATCH_SIZE = 16;
+
+    public enum SchedulerType {
+        JTRIM {
+            @Override
+            public Scheduler create(Executor executor) {
+                TaskScheduler scheduler = new TaskScheduler(executor);
+                return new Scheduler() {
+                    @Override
+                    public void scheduleTask(Runnable task) {
+                        scheduler.scheduleTask(task);
+                    }
+
+                    @Override
+                    public void dispatchTasks() {
+                        scheduler.dispatchTasks();
+                    }
+                };
+            }
+        },
+        LINKED_BLOCKING_QUEUE {
+            @Override
+            public Scheduler create(Executor executor) {
+                return new BlockingQueueScheduler(executor);
+            }
+        };
+
+        public abstract Scheduler create(Executor executor);
+    }
+
+    public interface Scheduler {
+        public void scheduleTask(Runnable task);
+
+        public void dispatchTasks();
+    }
+
+    @Param({"JTRIM", "LINKED_BLOCKING_QUEUE"})
+    public SchedulerType schedulerType;
+
+    private Scheduler scheduler;
+    private LongAdder executedCount;
+    private Runnable task;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scheduler = schedulerType.create(Runnable::run);
+        executedCount = new LongAdder();
+        task = executedCount::increment;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void dispatchSingleProducer() {
+        scheduler.scheduleTask(task);
+        scheduler.dispatchTasks();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void dispatchFourProducers() {
+        scheduler.scheduleTask(task);
+        scheduler.dispatchTasks();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void dispatchMaxProducers() {
+        scheduler.scheduleTask(task);
+        scheduler.dispatchTasks();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void dispatchBatchSingleProducer() {
+        dispatchBatch();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void dispatchBatchFourProducers() {
+        dispatchBatch();
+    }
+
+    private void dispatchBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            scheduler.scheduleTask(task);
+        }
+        scheduler.dispatchTasks();
+    }
+
+    /**
+     * The previous implementation of {@code TaskScheduler}, kept for comparison.
+     */
+    private static final class BlockingQueueScheduler implements Scheduler {
+        private final Executor executor;
+        private final AtomicReference<Thread> dispatcherThread;
+        private final BlockingQueue<Runnable> toDispatch;
+
+        public BlockingQueueScheduler(Executor executor) {
+            this.executor = executor;
+            this.dispatcherThread = new AtomicReference<>(null);
+            this.toDispatch = new LinkedBlockingQueue<>();
+        }
+
+        @Override
+        public void scheduleTask(Runnable task) {
+            toDispatch.add(task);
+        }
+
+        @Override
+        public void dispatchTasks() {
+            Thread currentThread = Thread.currentThread();
+            if (dispatcherThread.get() == currentThread) {
+                return;
+            }
+
+            Throwable toThrow = null;
+            while (!toDispatch.isEmpty()) {
+                if (dispatcherThread.compareAndSet(null, currentThread)) {
+                    try {
+                        Runnable task = toDispatch.poll();
+                        if (task != null) {
+                            executor.execute(task);
+                        }
+                    } catch (Throwable ex) {
+                        if (toThrow == null) toThrow = ex;
+                        else toThrow.addSuppressed(ex);
+                    } finally {
+                        dispatcherThread.set(null);
+                    }
+                } else {
+                    return;
+                }
+            }
+
+            ExceptionHelper.rethrowIfNotNull(toThrow);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.jtrim2.benchmarks.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import org.jtrim2.executor.GenericUpdateTaskExecutor;
+import org.jtrim2.executor.UpdateTaskExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of submitting tasks to an {@code UpdateTaskExecutor}. There is no
+ * {@code java.util.concurrent} equivalent of {@code UpdateTaskExecutor}, so it is compared to
+ * the simplest {@code AtomicReference} based implementation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UpdateTaskExecutorBenchmark {
+    public enum UpdateExecutorType {
+        JTRIM_GENERIC {
+            @Override
+            public UpdateTaskExecutor create(Executor executor) {
+                return new GenericUpdateTaskExecutor(executor);
+            }
+        },
+        ATOMIC_REFERENCE {
+            @Override
+            public UpdateTaskExecutor create(Executor executor) {
+                return new AtomicReferenceUpdateTaskExecutor(executor);
+            }
+        };
+
+        public abstract UpdateTaskExecutor create(Executor executor);
+    }
+
+    @Param({"JTRIM_GENERIC", "ATOMIC_REFERENCE"})
+    public UpdateExecutorType updateExecutorType;
+
+    @Param({"JTRIM_SINGLE_THREADED", "JUC_SINGLE_THREAD"})
+    public BenchmarkExecutorType executorType;
+
+    private BenchmarkExecutor executor;
+    private UpdateTaskExecutor updateExecutor;
+    private LongAdder executedCount;
+    private Runnable task;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = executorType.create(1);
+        updateExecutor = updateExecutorType.create(executor);
+        executedCount = new LongAdder();
+        task = executedCount::increment;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownAndWait();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void submitSingleProducer() {
+        updateExecutor.execute(task);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void submitFourProducers() {
+        updateExecutor.execute(task);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void submitMaxProducers() {
+        updateExecutor.execute(task);
+    }
+
+    private static final class AtomicReferenceUpdateTaskExecutor implements UpdateTaskExecutor {
+        private final Executor executor;
+        private final AtomicReference<Runnable> pendingTask;
+
+        public AtomicReferenceUpdateTaskExecutor(Executor executor) {
+            this.executor = executor;
+            this.pendingTask = new AtomicReference<>(null);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (pendingTask.getAndSet(task) == null) {
+                executor.execute(this::runPendingTask);
+            }
+        }
+
+        private void runPendingTask() {
+            Runnable task = pendingTask.getAndSet(null);
+            if (task != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -104,6 +104,41 @@ public final class Cancellation {
         return new CombinedTokenAny(tokens);
     }
 
+    /**
+     * Returns a {@code CancellationToken} which signals cancellation if and
+     * only if at least one of the specified tokens are in canceled state.
+     * <P>
+     * This method is equivalent to the variable argument
+     * {@link #anyToken(CancellationToken[]) anyToken} method but is cheaper
+     * for the very common case of combining two tokens (e.g.: combining the
+     * token of a submitted task with the token of the executor). Also, if
+     * one of the tokens is {@link #UNCANCELABLE_TOKEN} or {@link #CANCELED_TOKEN},
+     * this method does not create a new token.
+     *
+     * @param token1 the first {@code CancellationToken} checked for
+     *   cancellation. This argument cannot be {@code null}.
+     * @param token2 the second {@code CancellationToken} checked for
+     *   cancellation. This argument cannot be {@code null}.
+     * @return the {@code CancellationToken} which signals cancellation if and
+     *   only if at least one of the specified tokens is in canceled state. This
+     *   method never returns {@code null}.
+     *
+     * @throws NullPointerException thrown if any of the arguments is
+     *   {@code null}
+     */
+    public static CancellationToken anyToken(CancellationToken token1, CancellationToken token2) {
+        Objects.requireNonNull(token1, "token1");
+        Objects.requireNonNull(token2, "token2");
+
+        if (token1 == UNCANCELABLE_TOKEN || token2 == CANCELED_TOKEN) {
+            return token2;
+        }
+        if (token2 == UNCANCELABLE_TOKEN || token1 == CANCELED_TOKEN) {
+            return token1;
+        }
+        return new CombinedTokenAnyOfTwo(token1, token2);
+    }
+
     /**
      * Returns a {@code CancellationToken} which signals cancellation if and
      * only if all of the specified tokens are in canceled state.
@@ -0,0 +1,84 @@
+package org.jtrim2.cancel;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import org.jtrim2.event.ListenerRef;
+
+/**
+ * Defines the same token as {@link CombinedTokenAny} for the common case of two tokens,
+ * but without allocating arrays and with a single object being both the run-once listener
+ * registered with the tokens and the returned {@code ListenerRef}.
+ *
+ * @see Cancellation#anyToken(CancellationToken, CancellationToken)
+ */
+final class CombinedTokenAnyOfTwo implements CancellationToken {
+    private final CancellationToken token1;
+    private final CancellationToken token2;
+
+    public CombinedTokenAnyOfTwo(CancellationToken token1, CancellationToken token2) {
+        this.token1 = Objects.requireNonNull(token1, "token1");
+        this.token2 = Objects.requireNonNull(token2, "token2");
+    }
+
+    @Override
+    public ListenerRef addCancellationListener(Runnable listener) {
+        CombinedListener combinedListener = new CombinedListener(listener);
+
+        ListenerRef ref1 = token1.addCancellationListener(combinedListener);
+        ListenerRef ref2;
+        try {
+            ref2 = token2.addCancellationListener(combinedListener);
+        } catch (Throwable ex) {
+            try {
+                ref1.unregister();
+            } catch (Throwable subEx) {
+                ex.addSuppressed(subEx);
+            }
+            throw ex;
+        }
+
+        combinedListener.init(ref1, ref2);
+        return combinedListener;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return token1.isCanceled() || token2.isCanceled();
+    }
+
+    private static final class CombinedListener implements Runnable, ListenerRef {
+        private static final AtomicIntegerFieldUpdater<CombinedListener> CALLED
+                = AtomicIntegerFieldUpdater.newUpdater(CombinedListener.class, "called");
+
+        private final Runnable listener;
+        private volatile int called;
+        private ListenerRef ref1;
+        private ListenerRef ref2;
+
+        public CombinedListener(Runnable listener) {
+            this.listener = Objects.requireNonNull(listener, "listener");
+            this.called = 0;
+        }
+
+        public void init(ListenerRef ref1, ListenerRef ref2) {
+            this.ref1 = ref1;
+            this.ref2 = ref2;
+        }
+
+        @Override
+        public void run() {
+            if (CALLED.compareAndSet(this, 0, 1)) {
+                listener.run();
+            }
+        }
+
+        @Override
+        public void unregister() {
+            try {
+                ref1.unregister();
+            } finally {
+                ref2.unregister();
+            }
+        }
+    }
+}
@@ -1,75 +1,93 @@
 package org.jtrim2.cancel;
 
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.jtrim2.event.EventListeners;
 import org.jtrim2.event.ListenerRef;
+import org.jtrim2.event.ListenerRefs;
 import org.jtrim2.event.OneShotListenerManager;
 
 /**
+ * Implements the source, the controller and the token in a single object, because
+ * cancellation sources are usually created for each task. For the same reason, the
+ * storage for listeners is only allocated when the first listener is added, since most
+ * tokens are never listened to.
+ *
  * @see Cancellation#createCancellationSource()
  */
-final class SimpleCancellationSource implements CancellationSource {
-    private final CancellationControllerImpl impl;
+final class SimpleCancellationSource
+implements
+        CancellationSource,
+        CancellationController,
+        CancellationToken {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<SimpleCancellationSource, OneShotListenerManager> LISTENERS
+            = AtomicReferenceFieldUpdater.newUpdater(
+                    SimpleCancellationSource.class,
+                    OneShotListenerManager.class,
+                    "listeners");
+
+    private volatile boolean canceled;
+    private volatile OneShotListenerManager<Runnable, Void> listeners;
 
     public SimpleCancellationSource() {
-        this.impl = new CancellationControllerImpl();
+        this.canceled = false;
+        this.listeners = null;
     }
 
     @Override
     public CancellationController getController() {
-        return impl;
-
+        return this;
     }
 
     @Override
     public CancellationToken getToken() {
-        return impl.getToken();
+        return this;
     }
 
-    private static class CancellationControllerImpl
-    implements
-            CancellationController {
-
-        private final CancellationTokenImpl impl;
-
-        public CancellationControllerImpl() {
-            this.impl = new CancellationTokenImpl();
-        }
+    @Override
+    public void cancel() {
+        canceled = true;
 
-        public CancellationToken getToken() {
-            return impl;
+        OneShotListenerManager<Runnable, Void> currentListeners = listeners;
+        if (currentListeners != null) {
+            EventListeners.dispatchRunnable(currentListeners);
         }
+    }
 
-        @Override
-        public void cancel() {
-            impl.cancel();
+    private OneShotListenerManager<Runnable, Void> getListeners() {
+        OneShotListenerManager<Runnable, Void> result = listeners;
+        if (result == null) {
+            LISTENERS.compareAndSet(this, null, new OneShotListenerManager<Runnable, Void>());
+            result = listeners;
         }
+        return result;
     }
 
-    private static class CancellationTokenImpl
-    implements
-            CancellationToken {
-
-        private volatile boolean canceled;
-        private final OneShotListenerManager<Runnable, Void> listeners;
+    @Override
+    public ListenerRef addCancellationListener(Runnable task) {
+        Objects.requireNonNull(task, "task");
 
-        public CancellationTokenImpl() {
-            this.listeners = new OneShotListenerManager<>();
-            this.canceled = false;
+        if (canceled) {
+            task.run();
+            return ListenerRefs.unregistered();
         }
 
-        public void cancel() {
-            canceled = true;
-            EventListeners.dispatchRunnable(listeners);
-        }
+        OneShotListenerManager<Runnable, Void> currentListeners = getListeners();
+        ListenerRef result = currentListeners.registerOrNotifyListener(task);
 
-        @Override
-        public ListenerRef addCancellationListener(final Runnable task) {
-            return listeners.registerOrNotifyListener(task);
+        // If cancel() did not see the listener storage, then we must see the
+        // canceled flag. Listeners are not notified multiple times, so it is not
+        // a problem if both cancel() and this method notifies them.
+        if (canceled) {
+            EventListeners.dispatchRunnable(currentListeners);
         }
+        return result;
+    }
 
-        @Override
-        public boolean isCanceled() {
-            return canceled;
-        }
+    @Override
+    public boolean isCanceled() {
+        return canceled;
     }
 }
@@ -12,9 +12,9 @@ final class SimpleChildCancellationSource implements CancellationSource {
     public SimpleChildCancellationSource(CancellationToken parentToken) {
         Objects.requireNonNull(parentToken, "parentToken");
 
-        CancellationSource cancelSource = Cancellation.createCancellationSource();
-        this.token = Cancellation.anyToken(parentToken, cancelSource.getToken());
-        this.controller = cancelSource.getController();
+        SimpleCancellationSource cancelSource = new SimpleCancellationSource();
+        this.token = Cancellation.anyToken(parentToken, cancelSource);
+        this.controller = cancelSource;
     }
 
     @Override
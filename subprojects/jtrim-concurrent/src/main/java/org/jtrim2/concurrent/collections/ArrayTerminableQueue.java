@@ -0,0 +1,475 @@
+package org.jtrim2.concurrent.collections;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.collections.ReservedElementRef;
+import org.jtrim2.utils.ExceptionHelper;
+
+/**
+ * @see TerminableQueues#createFifoQueue(int)
+ */
+final class ArrayTerminableQueue<T> implements TerminableQueue<T> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<QueueReservationRefImpl> RELEASED_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(QueueReservationRefImpl.class, "released");
+
+    private final Object[] elements;
+
+    // Guards putIndex, and adding elements to the queue.
+    private final ReentrantLock putLock;
+    private final Condition checkNotFullSignal;
+    private final Condition checkEmptySignal;
+
+    // Guards takeIndex, and removing elements from the queue.
+    private final ReentrantLock takeLock;
+    private final Condition checkNotEmptySignal;
+
+    // The number of elements which can be taken from the queue.
+    private final AtomicInteger count;
+    // The number of elements in the queue plus the number of not yet released reservations.
+    private final AtomicInteger occupied;
+
+    // Only written while both locks are held.
+    private volatile boolean closed;
+
+    private int putIndex;
+    private int takeIndex;
+
+    public ArrayTerminableQueue(int maxCapacity) {
+        this.elements = new Object[maxCapacity];
+
+        this.putLock = new ReentrantLock();
+        this.checkNotFullSignal = putLock.newCondition();
+        this.checkEmptySignal = putLock.newCondition();
+
+        this.takeLock = new ReentrantLock();
+        this.checkNotEmptySignal = takeLock.newCondition();
+
+        this.count = new AtomicInteger(0);
+        this.occupied = new AtomicInteger(0);
+        this.closed = false;
+        this.putIndex = 0;
+        this.takeIndex = 0;
+    }
+
+    private int nextIndex(int index) {
+        int result = index + 1;
+        return result < elements.length ? result : 0;
+    }
+
+    @Override
+    public void put(CancellationToken cancelToken, T entry) throws TerminatedQueueException {
+        tryPut(cancelToken, entry, SignalWaiters.endless());
+    }
+
+    @Override
+    public boolean put(CancellationToken cancelToken, T entry, long timeout, TimeUnit timeoutUnit)
+            throws TerminatedQueueException {
+
+        return tryPut(cancelToken, entry, SignalWaiters.withTimeout(timeout, timeoutUnit));
+    }
+
+    private boolean tryPut(CancellationToken cancelToken, T entry, SignalWaiter waiter)
+            throws TerminatedQueueException {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        Objects.requireNonNull(entry, "entry");
+
+        int capacity = elements.length;
+        int prevCount;
+
+        putLock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw TerminatedQueueException.withoutStackTrace();
+                }
+                if (occupied.get() < capacity) {
+                    break;
+                }
+
+                if (!waiter.waitForSignal(cancelToken, checkNotFullSignal)) {
+                    return false;
+                }
+            }
+
+            elements[putIndex] = entry;
+            putIndex = nextIndex(putIndex);
+            occupied.incrementAndGet();
+            prevCount = count.getAndIncrement();
+        } finally {
+            // Releasing reservations only signals a single producer, so we have to
+            // pass the signal to the next producer if there is still space left (or
+            // if we have given up waiting after being signaled).
+            if (occupied.get() < capacity) {
+                checkNotFullSignal.signal();
+            }
+            putLock.unlock();
+        }
+
+        if (prevCount == 0) {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    @Override
+    public void putAll(CancellationToken cancelToken, Collection<? extends T> entries)
+            throws TerminatedQueueException {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullElements(entries, "entries");
+
+        Iterator<? extends T> entriesItr = entries.iterator();
+        if (!entriesItr.hasNext()) {
+            return;
+        }
+
+        SignalWaiter waiter = SignalWaiters.endless();
+        int capacity = elements.length;
+
+        putLock.lock();
+        try {
+            while (entriesItr.hasNext()) {
+                if (closed) {
+                    throw TerminatedQueueException.withoutStackTrace();
+                }
+
+                // Only we can increase the number of occupied slots, so the free slots
+                // can only increase concurrently.
+                int freeCount = capacity - occupied.get();
+                if (freeCount <= 0) {
+                    waiter.waitForSignal(cancelToken, checkNotFullSignal);
+                    continue;
+                }
+
+                int addedCount = 0;
+                while (addedCount < freeCount && entriesItr.hasNext()) {
+                    elements[putIndex] = entriesItr.next();
+                    putIndex = nextIndex(putIndex);
+                    addedCount++;
+                }
+                occupied.addAndGet(addedCount);
+                int prevCount = count.getAndAdd(addedCount);
+
+                // We might have to wait for free space again, so consumers must be
+                // notified before that.
+                if (prevCount == 0) {
+                    signalNotEmpty();
+                }
+            }
+        } finally {
+            if (occupied.get() < capacity) {
+                checkNotFullSignal.signal();
+            }
+            putLock.unlock();
+        }
+    }
+
+    private void signalNotEmpty() {
+        takeLock.lock();
+        try {
+            checkNotEmptySignal.signal();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    @Override
+    public ReservedElementRef<T> tryTakeButKeepReserved() throws TerminatedQueueException {
+        return reserve(pollElement(Cancellation.UNCANCELABLE_TOKEN, SignalWaiters.noWait()));
+    }
+
+    @Override
+    public ReservedElementRef<T> tryTakeButKeepReserved(
+            CancellationToken cancelToken,
+            long timeout,
+            TimeUnit timeoutUnit) throws TerminatedQueueException {
+
+        return reserve(pollElement(cancelToken, SignalWaiters.withTimeout(timeout, timeoutUnit)));
+    }
+
+    @Override
+    public ReservedElementRef<T> takeButKeepReserved(CancellationToken cancelToken)
+            throws TerminatedQueueException {
+
+        return reserve(pollElement(cancelToken, SignalWaiters.endless()));
+    }
+
+    @Override
+    public T tryTake() throws TerminatedQueueException {
+        return release(pollElement(Cancellation.UNCANCELABLE_TOKEN, SignalWaiters.noWait()));
+    }
+
+    @Override
+    public T tryTake(CancellationToken cancelToken, long timeout, TimeUnit timeoutUnit)
+            throws TerminatedQueueException {
+
+        return release(pollElement(cancelToken, SignalWaiters.withTimeout(timeout, timeoutUnit)));
+    }
+
+    @Override
+    public T take(CancellationToken cancelToken) throws TerminatedQueueException {
+        return release(pollElement(cancelToken, SignalWaiters.endless()));
+    }
+
+    @Override
+    public ReservedElementRef<List<T>> tryTakeBatchButKeepReserved(
+            CancellationToken cancelToken,
+            int maxElements,
+            long timeout,
+            TimeUnit timeoutUnit) throws TerminatedQueueException {
+
+        return reserveBatch(pollElements(cancelToken, maxElements, SignalWaiters.withTimeout(timeout, timeoutUnit)));
+    }
+
+    @Override
+    public ReservedElementRef<List<T>> takeBatchButKeepReserved(CancellationToken cancelToken, int maxElements)
+            throws TerminatedQueueException {
+
+        return reserveBatch(pollElements(cancelToken, maxElements, SignalWaiters.endless()));
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> target, int maxElements) throws TerminatedQueueException {
+        Objects.requireNonNull(target, "target");
+
+        List<T> batch = pollElements(Cancellation.UNCANCELABLE_TOKEN, maxElements, SignalWaiters.noWait());
+        if (batch == null) {
+            return 0;
+        }
+
+        releaseSpace(batch.size());
+        target.addAll(batch);
+        return batch.size();
+    }
+
+    private ReservedElementRef<T> reserve(T element) {
+        return element != null ? new QueueReservationRefImpl<>(this, element, 1) : null;
+    }
+
+    private ReservedElementRef<List<T>> reserveBatch(List<T> batch) {
+        if (batch == null) {
+            return null;
+        }
+        return new QueueReservationRefImpl<>(this, Collections.unmodifiableList(batch), batch.size());
+    }
+
+    private T release(T element) {
+        if (element != null) {
+            releaseSpace(1);
+        }
+        return element;
+    }
+
+    /**
+     * Removes the head of the queue, but does not release the space it occupied.
+     */
+    private T pollElement(CancellationToken cancelToken, SignalWaiter waiter)
+            throws TerminatedQueueException {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+
+        takeLock.lock();
+        try {
+            while (true) {
+                // The state must be read before the count, because elements might be added
+                // after reading the count, but not after the shutdown.
+                boolean terminated = closed;
+                if (count.get() > 0) {
+                    break;
+                }
+                if (terminated) {
+                    throw TerminatedQueueException.withoutStackTrace();
+                }
+
+                if (!waiter.waitForSignal(cancelToken, checkNotEmptySignal)) {
+                    return null;
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            T element = (T) elements[takeIndex];
+            elements[takeIndex] = null;
+            takeIndex = nextIndex(takeIndex);
+            count.decrementAndGet();
+            return element;
+        } finally {
+            // Producers only signal a single consumer when the queue becomes non-empty,
+            // so we have to pass the signal to the next consumer if there are elements left.
+            if (count.get() > 0) {
+                checkNotEmptySignal.signal();
+            }
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the available elements from the head of the queue (at most the given number
+     * of elements), but does not release the space they occupied.
+     */
+    private List<T> pollElements(CancellationToken cancelToken, int maxElements, SignalWaiter waiter)
+            throws TerminatedQueueException {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkArgumentInRange(maxElements, 1, Integer.MAX_VALUE, "maxElements");
+
+        takeLock.lock();
+        try {
+            int availableCount;
+            while (true) {
+                boolean terminated = closed;
+                availableCount = count.get();
+                if (availableCount > 0) {
+                    break;
+                }
+                if (terminated) {
+                    throw TerminatedQueueException.withoutStackTrace();
+                }
+
+                if (!waiter.waitForSignal(cancelToken, checkNotEmptySignal)) {
+                    return null;
+                }
+            }
+
+            int batchSize = Math.min(availableCount, maxElements);
+            List<T> result = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                @SuppressWarnings("unchecked")
+                T element = (T) elements[takeIndex];
+                result.add(element);
+                elements[takeIndex] = null;
+                takeIndex = nextIndex(takeIndex);
+            }
+            count.addAndGet(-batchSize);
+            return result;
+        } finally {
+            if (count.get() > 0) {
+                checkNotEmptySignal.signal();
+            }
+            takeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        int removedCount;
+
+        takeLock.lock();
+        try {
+            removedCount = count.get();
+            for (int i = 0; i < removedCount; i++) {
+                elements[takeIndex] = null;
+                takeIndex = nextIndex(takeIndex);
+            }
+            count.addAndGet(-removedCount);
+        } finally {
+            takeLock.unlock();
+        }
+
+        if (removedCount > 0) {
+            releaseSpace(removedCount);
+        }
+    }
+
+    private void releaseSpace(int releasedCount) {
+        int prevOccupied = occupied.getAndAdd(-releasedCount);
+        boolean wasFull = prevOccupied >= elements.length;
+        boolean becameEmpty = prevOccupied == releasedCount && closed;
+        if (!wasFull && !becameEmpty) {
+            return;
+        }
+
+        putLock.lock();
+        try {
+            if (wasFull) {
+                checkNotFullSignal.signal();
+            }
+            if (becameEmpty) {
+                checkEmptySignal.signalAll();
+            }
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        putLock.lock();
+        try {
+            takeLock.lock();
+            try {
+                closed = true;
+                checkNotEmptySignal.signalAll();
+            } finally {
+                takeLock.unlock();
+            }
+            checkNotFullSignal.signalAll();
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdownAndWaitUntilEmpty(CancellationToken cancelToken) {
+        shutdownAndWaitUntilEmpty(cancelToken, SignalWaiters.endless());
+    }
+
+    @Override
+    public boolean shutdownAndTryWaitUntilEmpty(CancellationToken cancelToken, long timeout, TimeUnit timeoutUnit) {
+        return shutdownAndWaitUntilEmpty(cancelToken, SignalWaiters.withTimeout(timeout, timeoutUnit));
+    }
+
+    private boolean shutdownAndWaitUntilEmpty(CancellationToken cancelToken, SignalWaiter waiter) {
+        shutdown();
+
+        putLock.lock();
+        try {
+            while (occupied.get() > 0) {
+                if (!waiter.waitForSignal(cancelToken, checkEmptySignal)) {
+                    return false;
+                }
+            }
+        } finally {
+            putLock.unlock();
+        }
+        return true;
+    }
+
+    private static final class QueueReservationRefImpl<T> implements ReservedElementRef<T> {
+        private final ArrayTerminableQueue<?> queue;
+        private final T element;
+        private final int reservedCount;
+        private volatile int released;
+
+        public QueueReservationRefImpl(ArrayTerminableQueue<?> queue, T element, int reservedCount) {
+            this.queue = queue;
+            this.element = element;
+            this.reservedCount = reservedCount;
+            this.released = 0;
+        }
+
+        @Override
+        public T element() {
+            return element;
+        }
+
+        @Override
+        public void release() {
+            if (RELEASED_UPDATER.compareAndSet(this, 0, 1)) {
+                queue.releaseSpace(reservedCount);
+            }
+        }
+    }
+}
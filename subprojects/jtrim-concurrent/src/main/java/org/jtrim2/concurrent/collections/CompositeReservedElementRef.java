@@ -0,0 +1,62 @@
+package org.jtrim2.concurrent.collections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.jtrim2.collections.ReservedElementRef;
+
+/**
+ * Defines a reservation of multiple elements built from the reservations of the single
+ * elements. This is used by the default implementations of the batch methods of
+ * {@link TerminableQueue}.
+ */
+final class CompositeReservedElementRef<T> implements ReservedElementRef<List<T>> {
+    private final List<ReservedElementRef<T>> refs;
+    private final List<T> elements;
+
+    private CompositeReservedElementRef(List<ReservedElementRef<T>> refs) {
+        this.refs = refs;
+
+        List<T> newElements = new ArrayList<>(refs.size());
+        refs.forEach(ref -> newElements.add(ref.element()));
+        this.elements = Collections.unmodifiableList(newElements);
+    }
+
+    /**
+     * Returns a reservation of the given (already removed) element, and all the elements
+     * which can be removed from the given queue without waiting (up to the given limit).
+     */
+    public static <T> ReservedElementRef<List<T>> collectAvailable(
+            TerminableQueue<T> queue,
+            ReservedElementRef<T> first,
+            int maxElements) {
+
+        List<ReservedElementRef<T>> refs = new ArrayList<>();
+        refs.add(first);
+        try {
+            while (refs.size() < maxElements) {
+                ReservedElementRef<T> ref = queue.tryTakeButKeepReserved();
+                if (ref == null) {
+                    break;
+                }
+                refs.add(ref);
+            }
+        } catch (TerminatedQueueException ex) {
+            // The elements removed so far must still be returned.
+        } catch (Throwable ex) {
+            refs.forEach(ReservedElementRef::release);
+            throw ex;
+        }
+        return new CompositeReservedElementRef<>(refs);
+    }
+
+    @Override
+    public List<T> element() {
+        return elements;
+    }
+
+    @Override
+    public void release() {
+        refs.forEach(ReservedElementRef::release);
+    }
+}
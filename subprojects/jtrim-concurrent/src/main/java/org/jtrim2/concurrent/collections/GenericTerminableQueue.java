@@ -1,13 +1,18 @@
 package org.jtrim2.concurrent.collections;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
-import org.jtrim2.cancel.CancelableWaits;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.collections.ReservablePollingQueue;
 import org.jtrim2.collections.ReservedElementRef;
+import org.jtrim2.utils.ExceptionHelper;
 
 final class GenericTerminableQueue<T> implements TerminableQueue<T> {
     private final ReentrantLock queueLock;
@@ -28,14 +33,14 @@ final class GenericTerminableQueue<T> implements TerminableQueue<T> {
 
     @Override
     public void put(CancellationToken cancelToken, T entry) throws TerminatedQueueException {
-        tryPut(cancelToken, entry, EndlessSignalWaiter.ENDLESS_SIGNAL_WAITER);
+        tryPut(cancelToken, entry, SignalWaiters.endless());
     }
 
     @Override
     public boolean put(CancellationToken cancelToken, T entry, long timeout, TimeUnit timeoutUnit)
             throws TerminatedQueueException {
 
-        return tryPut(cancelToken, entry, new TimeoutSignalWaiter(timeout, timeoutUnit));
+        return tryPut(cancelToken, entry, SignalWaiters.withTimeout(timeout, timeoutUnit));
     }
 
     private boolean tryPut(CancellationToken cancelToken, T entry, SignalWaiter waiter)
@@ -69,6 +74,43 @@ final class GenericTerminableQueue<T> implements TerminableQueue<T> {
         return true;
     }
 
+    @Override
+    public void putAll(CancellationToken cancelToken, Collection<? extends T> entries)
+            throws TerminatedQueueException {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullElements(entries, "entries");
+
+        Iterator<? extends T> entriesItr = entries.iterator();
+        if (!entriesItr.hasNext()) {
+            return;
+        }
+
+        T entry = entriesItr.next();
+        SignalWaiter waiter = SignalWaiters.endless();
+
+        queueLock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw TerminatedQueueException.withoutStackTrace();
+                }
+
+                if (queue.offer(entry)) {
+                    checkNotEmptySignal.signal();
+                    if (!entriesItr.hasNext()) {
+                        break;
+                    }
+                    entry = entriesItr.next();
+                } else {
+                    waiter.waitForSignal(cancelToken, checkNotFullSignal);
+                }
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
     @Override
     public ReservedElementRef<T> tryTakeButKeepReserved() throws TerminatedQueueException {
         ReservedElementRef<T> result;
@@ -95,7 +137,7 @@ final class GenericTerminableQueue<T> implements TerminableQueue<T> {
             long timeout,
             TimeUnit timeoutUnit) throws TerminatedQueueException {
 
-        return takeButReserve(cancelToken, new TimeoutSignalWaiter(timeout, timeoutUnit));
+        return takeButReserve(cancelToken, SignalWaiters.withTimeout(timeout, timeoutUnit));
     }
 
     private ReservedElementRef<T> takeButReserve(CancellationToken cancelToken, SignalWaiter waiter)
@@ -127,6 +169,108 @@ final class GenericTerminableQueue<T> implements TerminableQueue<T> {
         return new QueueReservationRefImpl(result);
     }
 
+    @Override
+    public ReservedElementRef<List<T>> tryTakeBatchButKeepReserved(
+            CancellationToken cancelToken,
+            int maxElements,
+            long timeout,
+            TimeUnit timeoutUnit) throws TerminatedQueueException {
+
+        return takeBatchButReserve(cancelToken, maxElements, SignalWaiters.withTimeout(timeout, timeoutUnit));
+    }
+
+    @Override
+    public ReservedElementRef<List<T>> takeBatchButKeepReserved(CancellationToken cancelToken, int maxElements)
+            throws TerminatedQueueException {
+
+        return takeBatchButReserve(cancelToken, maxElements, SignalWaiters.endless());
+    }
+
+    private ReservedElementRef<List<T>> takeBatchButReserve(
+            CancellationToken cancelToken,
+            int maxElements,
+            SignalWaiter waiter) throws TerminatedQueueException {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkArgumentInRange(maxElements, 1, Integer.MAX_VALUE, "maxElements");
+
+        List<ReservedElementRef<T>> result;
+
+        queueLock.lock();
+        try {
+            ReservedElementRef<T> first;
+            while (true) {
+                first = queue.pollButKeepReserved();
+                if (first != null) {
+                    break;
+                }
+                if (closed) {
+                    throw TerminatedQueueException.withoutStackTrace();
+                }
+
+                if (!waiter.waitForSignal(cancelToken, checkNotEmptySignal)) {
+                    return null;
+                }
+            }
+
+            result = new ArrayList<>();
+            result.add(first);
+            while (result.size() < maxElements) {
+                ReservedElementRef<T> ref = queue.pollButKeepReserved();
+                if (ref == null) {
+                    break;
+                }
+                result.add(ref);
+            }
+        } finally {
+            queueLock.unlock();
+        }
+
+        return new QueueBatchReservationRefImpl(result);
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> target, int maxElements) throws TerminatedQueueException {
+        Objects.requireNonNull(target, "target");
+        ExceptionHelper.checkArgumentInRange(maxElements, 1, Integer.MAX_VALUE, "maxElements");
+
+        queueLock.lock();
+        try {
+            int drainedCount = 0;
+            while (drainedCount < maxElements) {
+                T element = queue.poll();
+                if (element == null) {
+                    break;
+                }
+                target.add(element);
+                drainedCount++;
+            }
+
+            if (drainedCount == 0) {
+                if (closed) {
+                    throw TerminatedQueueException.withoutStackTrace();
+                }
+                return 0;
+            }
+
+            signalReleased(drainedCount);
+            return drainedCount;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void signalReleased(int releasedCount) {
+        assert queueLock.isHeldByCurrentThread();
+
+        for (int i = 0; i < releasedCount; i++) {
+            checkNotFullSignal.signal();
+        }
+        if (queue.isEmptyAndNoReserved()) {
+            checkEmptySignal.signalAll();
+        }
+    }
+
     @Override
     public void clear() {
         queueLock.lock();
@@ -159,12 +303,12 @@ final class GenericTerminableQueue<T> implements TerminableQueue<T> {
 
     @Override
     public void shutdownAndWaitUntilEmpty(CancellationToken cancelToken) {
-        shutdownAndWaitUntilEmpty(cancelToken, EndlessSignalWaiter.ENDLESS_SIGNAL_WAITER);
+        shutdownAndWaitUntilEmpty(cancelToken, SignalWaiters.endless());
     }
 
     @Override
     public boolean shutdownAndTryWaitUntilEmpty(CancellationToken cancelToken, long timeout, TimeUnit timeoutUnit) {
-        return shutdownAndWaitUntilEmpty(cancelToken, new TimeoutSignalWaiter(timeout, timeoutUnit));
+        return shutdownAndWaitUntilEmpty(cancelToken, SignalWaiters.withTimeout(timeout, timeoutUnit));
     }
 
     private boolean shutdownAndWaitUntilEmpty(CancellationToken cancelToken, SignalWaiter waiter) {
@@ -183,66 +327,53 @@ final class GenericTerminableQueue<T> implements TerminableQueue<T> {
         return true;
     }
 
-    private enum EndlessSignalWaiter implements SignalWaiter {
-        ENDLESS_SIGNAL_WAITER;
-
-        @Override
-        public boolean waitForSignal(CancellationToken cancelToken, Condition signal) {
-            cancelToken.checkCanceled();
-            CancelableWaits.await(cancelToken, signal);
-            return true;
-        }
-    }
-
-    private static final class TimeoutSignalWaiter implements SignalWaiter {
-        private final long startTime;
-        private final long waitNanos;
+    private final class QueueReservationRefImpl implements ReservedElementRef<T> {
+        private final ReservedElementRef<T> wrapped;
 
-        public TimeoutSignalWaiter(long timeout, TimeUnit timeoutUnit) {
-            this(timeoutUnit.toNanos(timeout));
+        public QueueReservationRefImpl(ReservedElementRef<T> wrapped) {
+            this.wrapped = Objects.requireNonNull(wrapped, "wrapped");
         }
 
-        public TimeoutSignalWaiter(long waitNanos) {
-            this.startTime = System.nanoTime();
-            this.waitNanos = waitNanos;
+        @Override
+        public T element() {
+            return wrapped.element();
         }
 
         @Override
-        public boolean waitForSignal(CancellationToken cancelToken, Condition signal) {
-            cancelToken.checkCanceled();
-            long remainingNanos = waitNanos - (System.nanoTime() - startTime);
-            if (remainingNanos <= 0) {
-                return false;
+        public void release() {
+            queueLock.lock();
+            try {
+                wrapped.release();
+                signalReleased(1);
+            } finally {
+                queueLock.unlock();
             }
-            return CancelableWaits.await(cancelToken, remainingNanos, TimeUnit.NANOSECONDS, signal);
         }
     }
 
-    private interface SignalWaiter {
-        public boolean waitForSignal(CancellationToken cancelToken, Condition signal);
-    }
+    private final class QueueBatchReservationRefImpl implements ReservedElementRef<List<T>> {
+        private final List<ReservedElementRef<T>> wrapped;
+        private final List<T> elements;
 
-    private final class QueueReservationRefImpl implements ReservedElementRef<T> {
-        private final ReservedElementRef<T> wrapped;
+        public QueueBatchReservationRefImpl(List<ReservedElementRef<T>> wrapped) {
+            this.wrapped = wrapped;
 
-        public QueueReservationRefImpl(ReservedElementRef<T> wrapped) {
-            this.wrapped = Objects.requireNonNull(wrapped, "wrapped");
+            List<T> newElements = new ArrayList<>(wrapped.size());
+            wrapped.forEach(ref -> newElements.add(ref.element()));
+            this.elements = Collections.unmodifiableList(newElements);
         }
 
         @Override
-        public T element() {
-            return wrapped.element();
+        public List<T> element() {
+            return elements;
         }
 
         @Override
         public void release() {
             queueLock.lock();
             try {
-                wrapped.release();
-                checkNotFullSignal.signal();
-                if (queue.isEmptyAndNoReserved()) {
-                    checkEmptySignal.signalAll();
-                }
+                wrapped.forEach(ReservedElementRef::release);
+                signalReleased(wrapped.size());
             } finally {
                 queueLock.unlock();
             }
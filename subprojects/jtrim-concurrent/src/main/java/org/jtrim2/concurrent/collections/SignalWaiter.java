@@ -0,0 +1,24 @@
+package org.jtrim2.concurrent.collections;
+
+import java.util.concurrent.locks.Condition;
+import org.jtrim2.cancel.CancellationToken;
+
+/**
+ * Defines how long the {@code TerminableQueue} implementations may wait for a signal
+ * before giving up.
+ *
+ * @see SignalWaiters
+ */
+interface SignalWaiter {
+    /**
+     * Waits for the given signal (or a spurious wakeup). The lock of the signal must be held
+     * by the calling thread.
+     *
+     * @param cancelToken the {@code CancellationToken} which is checked if the wait should
+     *   be abandoned. This argument cannot be {@code null}.
+     * @param signal the signal to wait for. This argument cannot be {@code null}.
+     * @return {@code true} if the caller should check its condition and may wait again,
+     *   {@code false} if it must not wait anymore (because the timeout elapsed)
+     */
+    public boolean waitForSignal(CancellationToken cancelToken, Condition signal);
+}
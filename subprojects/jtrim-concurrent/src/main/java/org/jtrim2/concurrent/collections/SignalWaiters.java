@@ -0,0 +1,77 @@
+package org.jtrim2.concurrent.collections;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import org.jtrim2.cancel.CancelableWaits;
+import org.jtrim2.cancel.CancellationToken;
+
+final class SignalWaiters {
+    public static SignalWaiter noWait() {
+        return NoWaitSignalWaiter.NO_WAIT_SIGNAL_WAITER;
+    }
+
+    public static SignalWaiter endless() {
+        return EndlessSignalWaiter.ENDLESS_SIGNAL_WAITER;
+    }
+
+    public static SignalWaiter withTimeout(long timeout, TimeUnit timeoutUnit) {
+        return new TimeoutSignalWaiter(timeoutUnit.toNanos(timeout));
+    }
+
+    private enum EndlessSignalWaiter implements SignalWaiter {
+        ENDLESS_SIGNAL_WAITER;
+
+        @Override
+        public boolean waitForSignal(CancellationToken cancelToken, Condition signal) {
+            cancelToken.checkCanceled();
+            CancelableWaits.await(cancelToken, signal);
+            return true;
+        }
+    }
+
+    private enum NoWaitSignalWaiter implements SignalWaiter {
+        NO_WAIT_SIGNAL_WAITER;
+
+        @Override
+        public boolean waitForSignal(CancellationToken cancelToken, Condition signal) {
+            return false;
+        }
+    }
+
+    private static final class TimeoutSignalWaiter implements SignalWaiter {
+        private final long waitNanos;
+        private boolean started;
+        private long startTime;
+
+        public TimeoutSignalWaiter(long waitNanos) {
+            this.waitNanos = waitNanos;
+            this.started = false;
+            this.startTime = 0;
+        }
+
+        @Override
+        public boolean waitForSignal(CancellationToken cancelToken, Condition signal) {
+            cancelToken.checkCanceled();
+
+            // The clock is only read when we actually have to wait, because most of
+            // the time there is no need to wait at all.
+            if (!started) {
+                if (waitNanos <= 0) {
+                    return false;
+                }
+                started = true;
+                startTime = System.nanoTime();
+            }
+
+            long remainingNanos = waitNanos - (System.nanoTime() - startTime);
+            if (remainingNanos <= 0) {
+                return false;
+            }
+            return CancelableWaits.await(cancelToken, remainingNanos, TimeUnit.NANOSECONDS, signal);
+        }
+    }
+
+    private SignalWaiters() {
+        throw new AssertionError();
+    }
+}
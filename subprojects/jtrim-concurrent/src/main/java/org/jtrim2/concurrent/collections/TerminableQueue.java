@@ -1,9 +1,13 @@
 package org.jtrim2.concurrent.collections;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.collections.ReservedElementRef;
+import org.jtrim2.utils.ExceptionHelper;
 
 /**
  * Defines a simple queue which can be stopped from accepting any new elements. Unlike
@@ -134,6 +138,52 @@ public interface TerminableQueue<T> {
         return put(Cancellation.UNCANCELABLE_TOKEN, entry, 0, TimeUnit.NANOSECONDS);
     }
 
+    /**
+     * Adds all the given elements to this queue in the iteration order of the given collection,
+     * waiting if necessary. This method will wait until any of the following conditions are met:
+     * <ul>
+     *  <li>All the given elements were added to this queue.</li>
+     *  <li>
+     *   The given {@code cancelToken} signals cancellation before all the elements could
+     *   have been added.
+     *  </li>
+     *  <li>This queue was shut down.</li>
+     * </ul>
+     * <P>
+     * Implementations are recommended to add as many elements at once as possible, so that
+     * the cost of synchronization is shared by the added elements. Note however, that the elements
+     * are not added atomically: Other threads might remove some of the elements before this method
+     * adds the rest of them (or even add other elements between them).
+     * <P>
+     * <I>Default implementation</I>: The default implementation calls the
+     * {@link #put(CancellationToken, Object) put(CancellationToken, T)} method for each element.
+     *
+     * @param cancelToken the {@code CancellationToken} which is checked if the wait should
+     *   be abandoned. It is guaranteed, that if cancellation was requested, then this method
+     *   will not wait forever. However, there is no stronger guarantee on the timeliness
+     *   of the cancellation. This argument cannot be {@code null}.
+     * @param entries the new elements to be added to this queue. This argument cannot be
+     *   {@code null}, and cannot contain {@code null} elements.
+     *
+     * @throws TerminatedQueueException thrown if adding the elements was canceled, because
+     *   this queue was shut down. If this exception is thrown, then some of the first elements
+     *   might have been added to this queue, but the rest of them were not.
+     * @throws org.jtrim2.cancel.OperationCanceledException thrown if cancellation request
+     *   was detected before all the elements could have been added to this queue. If this exception
+     *   is thrown, then some of the first elements might have been added to this queue, but the rest
+     *   of them were not.
+     */
+    public default void putAll(CancellationToken cancelToken, Collection<? extends T> entries)
+            throws TerminatedQueueException {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullElements(entries, "entries");
+
+        for (T entry : entries) {
+            put(cancelToken, entry);
+        }
+    }
+
     /**
      * Removes the current head of the queue and returns it waiting the given the time if necessary,
      * but keeps reserving the space for the removed element until the returned element is
@@ -383,6 +433,174 @@ public interface TerminableQueue<T> {
         return ref.element();
     }
 
+    /**
+     * Removes the elements from the head of the queue (at most the given number of elements) waiting the
+     * given time if necessary, but keeps reserving the space for the removed elements until the returned
+     * reference is {@link ReservedElementRef#release() released}; or returns {@code null} if the timeout
+     * elapses before any element could have been retrieved. The returned reference covers all the removed
+     * elements, so releasing it releases the space of all the removed elements at once.
+     * <P>
+     * This method waits only until at least one element can be removed, and then removes as many of
+     * the currently available elements as allowed. That is, this method will wait until any of the
+     * following conditions are met:
+     * <ul>
+     *  <li>At least one element was removed from this queue.</li>
+     *  <li>
+     *   The given timeout was reached before any element could have been retrieved.
+     *  </li>
+     *  <li>
+     *   The given {@code cancelToken} signals cancellation before any element could have
+     *   been removed.
+     *  </li>
+     *  <li>This queue was shut down and no new elements will be allowed to be added to this list.</li>
+     * </ul>
+     * <P>
+     * This method is intended for consumers wanting to share the cost of synchronization among multiple
+     * elements. However, note that the removed elements cannot be processed by other consumers, and
+     * they keep occupying the space of the queue until released. So, consumers should limit the size
+     * of the batches if they want the elements of the queue to be spread among them.
+     * <P>
+     * <I>Default implementation</I>: The default implementation removes the first element via the
+     * {@link #tryTakeButKeepReserved(CancellationToken, long, TimeUnit) tryTakeButKeepReserved(CancellationToken, long, TimeUnit)}
+     * method, and then removes the other elements via the
+     * {@link #tryTakeButKeepReserved() tryTakeButKeepReserved()} method. Implementations are recommended
+     * to override this method to remove all the elements at once.
+     *
+     * @param cancelToken the {@code CancellationToken} which is checked if the wait should
+     *   be abandoned. It is guaranteed, that if cancellation was requested, then this method
+     *   will not wait forever. However, there is no stronger guarantee on the timeliness
+     *   of the cancellation. This argument cannot be {@code null}.
+     * @param maxElements the maximum number of elements to be removed from this queue. This argument
+     *   must be greater than or equal to 1.
+     * @param timeout the maximum time to wait in the given time unit to remove the head of
+     *   the queue. A best effort is made to honor the given timeout, but there is no strong
+     *   guarantee on the accuracy. This argument must be greater than or equal to zero.
+     * @param timeoutUnit the time unit in which the {@code timeout} argument is to be
+     *   interpreted. This argument cannot be {@code null}.
+     * @return the reference to the now removed elements in the order they were removed, or {@code null} if
+     *   the timeout elapsed before any element could have been removed. The returned list is never empty,
+     *   and cannot be modified.
+     *
+     * @throws TerminatedQueueException thrown if this queue was shut down, and is empty. Throwing this
+     *   exception guarantees that this queue is empty, and that it will stay empty forever. Note that this queue
+     *   is empty only in the sense that no more elements can be removed from it. That is, there is no guarantee
+     *   that all elements were already {@link ReservedElementRef#release() released}.
+     * @throws org.jtrim2.cancel.OperationCanceledException thrown if cancellation request
+     *   was detected before an element could have been removed from this queue. If this exception
+     *   is thrown, then it is guaranteed that this queue was not modified by this method. Note however that there
+     *   is no guarantee that this exception is thrown even if the token was canceled before calling this method.
+     */
+    public default ReservedElementRef<List<T>> tryTakeBatchButKeepReserved(
+            CancellationToken cancelToken,
+            int maxElements,
+            long timeout,
+            TimeUnit timeoutUnit) throws TerminatedQueueException {
+
+        ExceptionHelper.checkArgumentInRange(maxElements, 1, Integer.MAX_VALUE, "maxElements");
+
+        ReservedElementRef<T> first = tryTakeButKeepReserved(cancelToken, timeout, timeoutUnit);
+        if (first == null) {
+            return null;
+        }
+        return CompositeReservedElementRef.collectAvailable(this, first, maxElements);
+    }
+
+    /**
+     * Removes the elements from the head of the queue (at most the given number of elements) waiting until
+     * at least one element becomes available if the queue is currently empty, but keeps reserving the space
+     * for the removed elements until the returned reference is {@link ReservedElementRef#release() released}.
+     * The returned reference covers all the removed elements, so releasing it releases the space of all the
+     * removed elements at once.
+     * <P>
+     * This method will wait until any of the following conditions are met:
+     * <ul>
+     *  <li>At least one element was removed from this queue.</li>
+     *  <li>
+     *   The given {@code cancelToken} signals cancellation before any element could have
+     *   been removed.
+     *  </li>
+     *  <li>This queue was shut down and no new elements will be allowed to be added to this list.</li>
+     * </ul>
+     * <P>
+     * See the {@link #tryTakeBatchButKeepReserved(CancellationToken, int, long, TimeUnit) tryTakeBatchButKeepReserved}
+     * method for considerations about the size of the batches.
+     * <P>
+     * <I>Default implementation</I>: The default implementation loops on
+     * {@link #tryTakeBatchButKeepReserved(CancellationToken, int, long, TimeUnit) tryTakeBatchButKeepReserved},
+     * until it returns a non-null object.
+     *
+     * @param cancelToken the {@code CancellationToken} which is checked if the wait should
+     *   be abandoned. It is guaranteed, that if cancellation was requested, then this method
+     *   will not wait forever. However, there is no stronger guarantee on the timeliness
+     *   of the cancellation. This argument cannot be {@code null}.
+     * @param maxElements the maximum number of elements to be removed from this queue. This argument
+     *   must be greater than or equal to 1.
+     * @return the reference to the now removed elements in the order they were removed. This method never
+     *   returns {@code null}. The returned list is never empty, and cannot be modified.
+     *
+     * @throws TerminatedQueueException thrown if this queue was shut down, and is empty. Throwing this
+     *   exception guarantees that this queue is empty, and that it will stay empty forever. Note that this queue
+     *   is empty only in the sense that no more elements can be removed from it. That is, there is no guarantee
+     *   that all elements were already {@link ReservedElementRef#release() released}.
+     * @throws org.jtrim2.cancel.OperationCanceledException thrown if cancellation request
+     *   was detected before an element could have been removed from this queue. If this exception
+     *   is thrown, then it is guaranteed that this queue was not modified by this method. Note however that there
+     *   is no guarantee that this exception is thrown even if the token was canceled before calling this method.
+     */
+    public default ReservedElementRef<List<T>> takeBatchButKeepReserved(CancellationToken cancelToken, int maxElements)
+            throws TerminatedQueueException {
+
+        ReservedElementRef<List<T>> result;
+        do {
+            result = tryTakeBatchButKeepReserved(cancelToken, maxElements, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } while (result == null);
+        return result;
+    }
+
+    /**
+     * Removes the currently available elements from the head of the queue (at most the given number of
+     * elements), and adds them to the given collection. This method immediately releases the space the
+     * removed elements take up in the queue.
+     * <P>
+     * This method never blocks, and if the queue is currently empty, this method will return immediately.
+     * <P>
+     * <I>Default implementation</I>: The default implementation calls the {@link #tryTake() tryTake()}
+     * method until it returns {@code null} or the given number of elements were removed.
+     *
+     * @param target the collection to which the removed elements are added in the order they were removed.
+     *   This argument cannot be {@code null}.
+     * @param maxElements the maximum number of elements to be removed from this queue. This argument
+     *   must be greater than or equal to 1.
+     * @return the number of elements removed from this queue and added to the given collection. This
+     *   method returns zero, if this queue was empty.
+     *
+     * @throws TerminatedQueueException thrown if this queue was shut down, and is empty. Throwing this
+     *   exception guarantees that this queue is empty, and that it will stay empty forever. Note that this queue
+     *   is empty only in the sense that no more elements can be removed from it. That is, there is no guarantee
+     *   that all elements were already {@link ReservedElementRef#release() released}.
+     */
+    public default int drainTo(Collection<? super T> target, int maxElements) throws TerminatedQueueException {
+        Objects.requireNonNull(target, "target");
+        ExceptionHelper.checkArgumentInRange(maxElements, 1, Integer.MAX_VALUE, "maxElements");
+
+        int drainedCount = 0;
+        try {
+            while (drainedCount < maxElements) {
+                T element = tryTake();
+                if (element == null) {
+                    break;
+                }
+                target.add(element);
+                drainedCount++;
+            }
+        } catch (TerminatedQueueException ex) {
+            if (drainedCount == 0) {
+                throw ex;
+            }
+        }
+        return drainedCount;
+    }
+
     /**
      * Removes all the elements from this queue. Note that reservations might still remain after this call.
      * <P>
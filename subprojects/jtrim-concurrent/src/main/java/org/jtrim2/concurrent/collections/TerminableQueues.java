@@ -1,6 +1,7 @@
 package org.jtrim2.concurrent.collections;
 
 import org.jtrim2.collections.ReservablePollingQueue;
+import org.jtrim2.utils.ExceptionHelper;
 
 /**
  * Defines factory methods for {@link TerminableQueue}.
@@ -28,6 +29,31 @@ public final class TerminableQueues {
         return new GenericTerminableQueue<>(queue);
     }
 
+    /**
+     * Returns a new empty {@code TerminableQueue} with FIFO retrieving order, storing its
+     * elements in an array of the given capacity. Element reserved by the
+     * {@code takeButKeepReserved} methods count against the capacity of the returned queue,
+     * until they are released.
+     * <P>
+     * Unlike the queue returned by {@link #withWrappedQueue(ReservablePollingQueue) withWrappedQueue},
+     * the returned queue uses separate locks for adding and removing elements, so producers
+     * do not have to wait for consumers (and vice versa) unless the queue is empty or full.
+     * Therefore, the returned queue is recommended when there are many producers and
+     * consumers concurrently accessing the queue. Note however, that the array of the
+     * returned queue is allocated immediately, so the capacity should be reasonably low.
+     *
+     * @param <T> the type of the elements of the created queue
+     * @param maxCapacity the maximum number of elements (including the reserved ones) the
+     *   returned queue may hold. This argument must be greater than or equal to 1.
+     *
+     * @return a new empty {@code TerminableQueue} with FIFO retrieving order. This method
+     *   never returns {@code null}.
+     */
+    public static <T> TerminableQueue<T> createFifoQueue(int maxCapacity) {
+        ExceptionHelper.checkArgumentInRange(maxCapacity, 1, Integer.MAX_VALUE, "maxCapacity");
+        return new ArrayTerminableQueue<>(maxCapacity);
+    }
+
     private TerminableQueues() {
         throw new AssertionError();
     }
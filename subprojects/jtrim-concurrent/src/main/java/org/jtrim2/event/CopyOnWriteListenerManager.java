@@ -0,0 +1,176 @@
+package org.jtrim2.event;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link ListenerManager} implementation which creates a new copy of the
+ * registered listeners every time a listener is added or removed. That is, the
+ * {@link #onEvent(EventDispatcher, java.lang.Object) onEvent} method can
+ * simply dispatch the event to the listeners of the most recent copy without
+ * any locking or copying.
+ * <P>
+ * This implementation allows to register the same listener multiple times and
+ * listeners registered multiple times will be notified multiple times as well
+ * when dispatching events. Unregistering one of the registrations of such
+ * listener leaves the other registrations in effect. Listeners are notified
+ * in the order they were registered.
+ * <P>
+ * Dispatching events requires linear time in the number of registered
+ * listeners (plus the time the listeners need), but does not allocate any
+ * memory. However, adding and removing listeners are also linear time operations.
+ * Therefore, this implementation is recommended when events are dispatched much
+ * more frequently than listeners are added or removed. If this is not the case,
+ * consider using {@link CopyOnTriggerListenerManager}.
+ *
+ * <h2>Thread safety</h2>
+ * As required by {@code ListenerManager}, the methods of this class are
+ * safe to be accessed concurrently by multiple threads.
+ *
+ * <h3>Synchronization transparency</h3>
+ * As required by {@code ListenerManager}, except for the {@code onEvent}
+ * method, methods of this class are <I>synchronization transparent</I>.
+ *
+ * @param <ListenerType> the type of the event handlers can possibly be added
+ *   to the container
+ *
+ * @see CopyOnTriggerListenerManager
+ */
+public final class CopyOnWriteListenerManager<ListenerType>
+implements
+        ListenerManager<ListenerType> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CopyOnWriteListenerManager.class);
+
+    private static final Object[] NO_LISTENERS = new Object[0];
+
+    private final Lock writeLock;
+    private volatile Object[] listeners;
+
+    /**
+     * Creates a new {@code CopyOnWriteListenerManager} with no
+     * listeners registered.
+     */
+    public CopyOnWriteListenerManager() {
+        this.writeLock = new ReentrantLock();
+        this.listeners = NO_LISTENERS;
+    }
+
+    /**
+     * {@inheritDoc }
+     * <P>
+     * <B>Implementation note</B>: Adding and removing (using the returned
+     * reference) a listener is a linear time operation in the number of
+     * registered listeners.
+     */
+    @Override
+    public ListenerRef registerListener(ListenerType listener) {
+        Objects.requireNonNull(listener, "listener");
+
+        writeLock.lock();
+        try {
+            Object[] currentListeners = listeners;
+            Object[] newListeners = Arrays.copyOf(currentListeners, currentListeners.length + 1);
+            newListeners[currentListeners.length] = listener;
+            listeners = newListeners;
+        } finally {
+            writeLock.unlock();
+        }
+
+        AtomicBoolean registered = new AtomicBoolean(true);
+        return () -> {
+            if (registered.compareAndSet(true, false)) {
+                removeListener(listener);
+            }
+        };
+    }
+
+    private void removeListener(Object listener) {
+        writeLock.lock();
+        try {
+            Object[] currentListeners = listeners;
+
+            // Every registration of the same listener is equivalent, so it does not
+            // matter which one we remove.
+            int index = currentListeners.length - 1;
+            while (index >= 0 && currentListeners[index] != listener) {
+                index--;
+            }
+            if (index < 0) {
+                throw new AssertionError("Internal error: Missing listener registration.");
+            }
+
+            if (currentListeners.length == 1) {
+                listeners = NO_LISTENERS;
+                return;
+            }
+
+            Object[] newListeners = new Object[currentListeners.length - 1];
+            System.arraycopy(currentListeners, 0, newListeners, 0, index);
+            System.arraycopy(currentListeners, index + 1, newListeners, index, newListeners.length - index);
+            listeners = newListeners;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     * <P>
+     * <B>Implementation note</B>: In case an exception is thrown by a
+     * registered listener, other listeners will still be invoked. The thrown
+     * exception will be logged on a {@code SEVERE} log level.
+     */
+    @Override
+    public <ArgType> void onEvent(
+            EventDispatcher<? super ListenerType, ? super ArgType> eventDispatcher,
+            ArgType arg) {
+        Objects.requireNonNull(eventDispatcher, "eventDispatcher");
+
+        for (Object listener: listeners) {
+            try {
+                @SuppressWarnings("unchecked")
+                ListenerType typedListener = (ListenerType) listener;
+                eventDispatcher.onEvent(typedListener, arg);
+            } catch (Throwable ex) {
+                LOGGER.error("Unexpected exception in listener.", ex);
+            }
+        }
+    }
+
+    /**
+     * Returns the collection of listeners
+     * {@link #registerListener(Object) added} but not yet
+     * {@link ListenerRef#unregister() removed} in the order they were added.
+     * <P>
+     * The returned collection is a read-only snapshot of the currently
+     * added listeners. Retrieving the listeners is a constant time operation.
+     *
+     * @return the collection of listeners
+     *   {@link #registerListener(Object) added} but not yet
+     *   {@link ListenerRef#unregister() removed} in the order they were added.
+     *   This method never returns {@code null}.
+     */
+    Collection<ListenerType> getListeners() {
+        @SuppressWarnings("unchecked")
+        ListenerType[] currentListeners = (ListenerType[]) listeners;
+        return Collections.unmodifiableList(Arrays.asList(currentListeners));
+    }
+
+    /**
+     * {@inheritDoc }
+     * <P>
+     * <B>Implementation note</B>: Retrieving the number of listeners is a
+     * constant time operation.
+     */
+    @Override
+    public int getListenerCount() {
+        return listeners.length;
+    }
+}
@@ -40,6 +40,7 @@ package org.jtrim2.event;
  *   to the container
  *
  * @see CopyOnTriggerListenerManager
+ * @see CopyOnWriteListenerManager
  * @see OneShotListenerManager
  */
 public interface ListenerManager<ListenerType>
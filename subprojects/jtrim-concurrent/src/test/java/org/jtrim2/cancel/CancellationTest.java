@@ -30,6 +30,43 @@ public class CancellationTest {
         assertTrue(token.isCanceled());
     }
 
+    @Test
+    public void testAnyTokenOfTwo() {
+        CancellationSource cancelSource1 = Cancellation.createCancellationSource();
+        CancellationSource cancelSource2 = Cancellation.createCancellationSource();
+
+        CancellationToken token = Cancellation.anyToken(cancelSource1.getToken(), cancelSource2.getToken());
+        assertTrue(token instanceof CombinedTokenAnyOfTwo);
+        assertFalse(token.isCanceled());
+
+        cancelSource2.getController().cancel();
+        assertTrue(token.isCanceled());
+    }
+
+    @Test
+    public void testAnyTokenOfTwoUncancelable() {
+        CancellationToken other = Cancellation.createCancellationSource().getToken();
+        assertSame(other, Cancellation.anyToken(Cancellation.UNCANCELABLE_TOKEN, other));
+        assertSame(other, Cancellation.anyToken(other, Cancellation.UNCANCELABLE_TOKEN));
+    }
+
+    @Test
+    public void testAnyTokenOfTwoCanceled() {
+        CancellationToken other = Cancellation.createCancellationSource().getToken();
+        assertSame(Cancellation.CANCELED_TOKEN, Cancellation.anyToken(Cancellation.CANCELED_TOKEN, other));
+        assertSame(Cancellation.CANCELED_TOKEN, Cancellation.anyToken(other, Cancellation.CANCELED_TOKEN));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAnyTokenOfTwoIllegal1() {
+        Cancellation.anyToken(Cancellation.UNCANCELABLE_TOKEN, null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAnyTokenOfTwoIllegal2() {
+        Cancellation.anyToken(null, Cancellation.UNCANCELABLE_TOKEN);
+    }
+
     @Test
     public void testAllToken() {
         CancellationToken token = Cancellation.allTokens(Cancellation.UNCANCELABLE_TOKEN);
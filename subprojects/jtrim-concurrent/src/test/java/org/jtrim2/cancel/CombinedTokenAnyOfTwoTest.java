@@ -0,0 +1,148 @@
+package org.jtrim2.cancel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim2.concurrent.Tasks;
+import org.jtrim2.event.ListenerRef;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CombinedTokenAnyOfTwoTest {
+    private static CancellationToken canceledToken() {
+        CancellationSource cancelSource = Cancellation.createCancellationSource();
+        cancelSource.getController().cancel();
+        return cancelSource.getToken();
+    }
+
+    private static CancellationToken uncanceledToken() {
+        return Cancellation.createCancellationSource().getToken();
+    }
+
+    private void checkNotCanceled(CombinedTokenAnyOfTwo token) {
+        AtomicInteger invoked = new AtomicInteger(0);
+
+        ListenerRef listenerRef = token.addCancellationListener(invoked::incrementAndGet);
+
+        assertFalse(token.isCanceled());
+        token.checkCanceled();
+
+        assertEquals(0, invoked.get());
+
+        listenerRef.unregister();
+    }
+
+    private void checkCanceled(CombinedTokenAnyOfTwo token) {
+        AtomicInteger invoked = new AtomicInteger(0);
+
+        ListenerRef listenerRef = token.addCancellationListener(invoked::incrementAndGet);
+        assertEquals(1, invoked.get());
+
+        assertTrue(token.isCanceled());
+
+        try {
+            token.checkCanceled();
+            fail("Expected: OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+        }
+
+        listenerRef.unregister();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testIllegalConstructor1() {
+        new CombinedTokenAnyOfTwo(Cancellation.CANCELED_TOKEN, null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testIllegalConstructor2() {
+        new CombinedTokenAnyOfTwo(null, Cancellation.CANCELED_TOKEN);
+    }
+
+    @Test
+    public void testBuggySecondToken() {
+        AtomicInteger unregistered = new AtomicInteger(0);
+        TestException ex1 = new TestException();
+
+        CancellationToken token1 = new CancellationToken() {
+            @Override
+            public ListenerRef addCancellationListener(Runnable listener) {
+                return unregistered::incrementAndGet;
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return false;
+            }
+        };
+        CancellationToken token2 = new CancellationToken() {
+            @Override
+            public ListenerRef addCancellationListener(Runnable listener) {
+                throw ex1;
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return false;
+            }
+        };
+
+        CombinedTokenAnyOfTwo token = new CombinedTokenAnyOfTwo(token1, token2);
+        try {
+            token.addCancellationListener(Tasks.noOpTask());
+            fail("Exception expected.");
+        } catch (TestException ex) {
+            assertSame(ex1, ex);
+        }
+        assertEquals(1, unregistered.get());
+    }
+
+    @Test
+    public void testListenerRef() {
+        CancellationSource cancelSource = Cancellation.createCancellationSource();
+
+        CombinedTokenAnyOfTwo token = new CombinedTokenAnyOfTwo(cancelSource.getToken(), uncanceledToken());
+
+        AtomicInteger invoked1 = new AtomicInteger(0);
+        AtomicInteger invoked2 = new AtomicInteger(0);
+
+        ListenerRef listenerRef1 = token.addCancellationListener(invoked1::incrementAndGet);
+        token.addCancellationListener(invoked2::incrementAndGet);
+
+        listenerRef1.unregister();
+
+        cancelSource.getController().cancel();
+        assertEquals(0, invoked1.get());
+        assertEquals(1, invoked2.get());
+    }
+
+    @Test
+    public void testListenerNotifiedOnceWhenBothCanceled() {
+        CancellationSource cancelSource1 = Cancellation.createCancellationSource();
+        CancellationSource cancelSource2 = Cancellation.createCancellationSource();
+
+        CombinedTokenAnyOfTwo token = new CombinedTokenAnyOfTwo(cancelSource1.getToken(), cancelSource2.getToken());
+
+        AtomicInteger invoked = new AtomicInteger(0);
+        token.addCancellationListener(invoked::incrementAndGet);
+
+        cancelSource2.getController().cancel();
+        cancelSource1.getController().cancel();
+        assertEquals(1, invoked.get());
+    }
+
+    @Test
+    public void testNotCanceled() {
+        checkNotCanceled(new CombinedTokenAnyOfTwo(uncanceledToken(), uncanceledToken()));
+    }
+
+    @Test
+    public void testCanceled() {
+        checkCanceled(new CombinedTokenAnyOfTwo(canceledToken(), uncanceledToken()));
+        checkCanceled(new CombinedTokenAnyOfTwo(uncanceledToken(), canceledToken()));
+        checkCanceled(new CombinedTokenAnyOfTwo(canceledToken(), canceledToken()));
+    }
+
+    private static class TestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
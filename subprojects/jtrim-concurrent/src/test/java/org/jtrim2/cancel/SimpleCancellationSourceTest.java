@@ -1,6 +1,7 @@
 package org.jtrim2.cancel;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim2.concurrent.Tasks;
 import org.jtrim2.event.ListenerRef;
 import org.junit.Test;
 
@@ -81,4 +82,25 @@ public class SimpleCancellationSourceTest {
 
         assertEquals(0, invoked.get());
     }
+
+    @Test
+    public void testSingleObject() {
+        CancellationSource cancelSource = Cancellation.createCancellationSource();
+        assertSame(cancelSource, cancelSource.getToken());
+        assertSame(cancelSource, cancelSource.getController());
+    }
+
+    @Test(timeout = 20000)
+    public void testListenerAddedConcurrentlyWithCancel() {
+        for (int i = 0; i < 1000; i++) {
+            final AtomicInteger invoked = new AtomicInteger(0);
+            CancellationSource cancelSource = Cancellation.createCancellationSource();
+
+            Tasks.runConcurrently(
+                    cancelSource.getController()::cancel,
+                    () -> cancelSource.getToken().addCancellationListener(invoked::incrementAndGet));
+
+            assertEquals(1, invoked.get());
+        }
+    }
 }
@@ -1,6 +1,9 @@
 package org.jtrim2.concurrent.collections;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
@@ -11,6 +14,7 @@ import java.util.stream.IntStream;
 import org.jtrim2.cancel.CancelableWaits;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.cancel.OperationCanceledException;
 import org.jtrim2.cancel.OperationTimeoutException;
 import org.jtrim2.collections.ReservablePollingQueues;
@@ -21,12 +25,30 @@ import org.jtrim2.testutils.TestUtils;
 import org.jtrim2.testutils.UnsafeRunnable;
 import org.jtrim2.utils.ExceptionHelper;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
 import static org.junit.Assert.*;
 
+@RunWith(Parameterized.class)
 public class TerminableQueuesTest {
-    private static <T> TerminableQueue<T> createFifoQueue(int capacity) {
-        return TerminableQueues.withWrappedQueue(ReservablePollingQueues.createFifoQueue(capacity));
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> queueTypes() {
+        return Arrays.asList(new Object[][] {
+            {FifoQueueType.WRAPPED},
+            {FifoQueueType.ARRAY},
+            {FifoQueueType.DEFAULT_METHODS},
+        });
+    }
+
+    private final FifoQueueType queueType;
+
+    public TerminableQueuesTest(FifoQueueType queueType) {
+        this.queueType = queueType;
+    }
+
+    private <T> TerminableQueue<T> createFifoQueue(int capacity) {
+        return queueType.create(capacity);
     }
 
     private static int testThreadCount() {
@@ -79,6 +101,11 @@ public class TerminableQueuesTest {
         assertEquals("result", expected, result);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalArrayCapacity() {
+        TerminableQueues.createFifoQueue(0);
+    }
+
     @Test
     public void testUtilityClass() {
         TestUtils.testUtilityClass(TerminableQueues.class);
@@ -270,6 +297,138 @@ public class TerminableQueuesTest {
         assertNull(queue.tryTakeButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 5, TimeUnit.MILLISECONDS));
     }
 
+    @Test(timeout = 30000)
+    public void testTryTakeBatchFromEmptyWithTimeout() throws TerminatedQueueException {
+        TerminableQueue<Integer> queue = createFifoQueue(1);
+        assertNull(queue.tryTakeBatchButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 5, 5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 30000)
+    public void testDrainToFromEmpty() throws TerminatedQueueException {
+        TerminableQueue<Integer> queue = createFifoQueue(1);
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(0, queue.drainTo(drained, 5));
+        assertEquals(Collections.emptyList(), drained);
+    }
+
+    @Test(timeout = 30000)
+    public void testPutAllAndTakeBatch() throws TerminatedQueueException {
+        TerminableQueue<Integer> queue = createFifoQueue(5);
+        queue.putAll(Cancellation.UNCANCELABLE_TOKEN, Arrays.asList(1, 2, 3, 4));
+
+        ReservedElementRef<List<Integer>> batchRef = queue.takeBatchButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 3);
+        assertEquals(Arrays.asList(1, 2, 3), batchRef.element());
+
+        assertTrue("offer1", queue.offer(5));
+        assertFalse("offer on reserved", queue.offer(6));
+
+        batchRef.release();
+        batchRef.release();
+
+        queue.putAll(Cancellation.UNCANCELABLE_TOKEN, Arrays.asList(6, 7, 8));
+        assertFalse("offer on full", queue.offer(9));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals(Arrays.asList(4, 5), drained);
+
+        ReservedElementRef<List<Integer>> batchRef2 = queue
+                .tryTakeBatchButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 10, 5, TimeUnit.MILLISECONDS);
+        assertEquals(Arrays.asList(6, 7, 8), batchRef2.element());
+        batchRef2.release();
+
+        assertTrue(queue.shutdownAndTryWaitUntilEmpty(Cancellation.UNCANCELABLE_TOKEN, 5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 30000)
+    public void testBatchReservationPreventsShutdownCompletion() throws TerminatedQueueException {
+        TerminableQueue<Integer> queue = createFifoQueue(3);
+        queue.putAll(Cancellation.UNCANCELABLE_TOKEN, Arrays.asList(1, 2));
+
+        ReservedElementRef<List<Integer>> batchRef = queue.takeBatchButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 3);
+        assertEquals(Arrays.asList(1, 2), batchRef.element());
+
+        assertFalse(queue.shutdownAndTryWaitUntilEmpty(Cancellation.UNCANCELABLE_TOKEN, 5, TimeUnit.MILLISECONDS));
+        batchRef.release();
+        assertTrue(queue.shutdownAndTryWaitUntilEmpty(Cancellation.UNCANCELABLE_TOKEN, 5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 30000)
+    public void testPutAllAfterShutdownFails() {
+        TerminableQueue<Integer> queue = createFifoQueue(3);
+        queue.shutdown();
+
+        try {
+            queue.putAll(Cancellation.UNCANCELABLE_TOKEN, Arrays.asList(1, 2));
+            throw new AssertionError("Expected TerminatedQueueException");
+        } catch (TerminatedQueueException ex) {
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testBatchTakeAfterShutdownFailsOnEmpty() {
+        TerminableQueue<Integer> queue = createFifoQueue(3);
+        queue.shutdown();
+
+        try {
+            queue.takeBatchButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 3);
+            throw new AssertionError("Expected TerminatedQueueException");
+        } catch (TerminatedQueueException ex) {
+        }
+
+        try {
+            queue.drainTo(new ArrayList<>(), 3);
+            throw new AssertionError("Expected TerminatedQueueException");
+        } catch (TerminatedQueueException ex) {
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentPutAllAndTakeBatch() {
+        int elementCount = 1000;
+        for (int testIndex = 0; testIndex < 20; testIndex++) {
+            TerminableQueue<Integer> queue = createFifoQueue(3);
+
+            List<Integer> added = IntStream.range(0, elementCount)
+                    .mapToObj(value -> value)
+                    .collect(Collectors.toList());
+            List<Integer> taken = new ArrayList<>(elementCount);
+
+            Tasks.runConcurrently(toSafe(() -> {
+                queue.putAll(Cancellation.UNCANCELABLE_TOKEN, added);
+                queue.shutdown();
+            }), toSafe(() -> {
+                try {
+                    while (true) {
+                        ReservedElementRef<List<Integer>> batchRef
+                                = queue.takeBatchButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 2);
+                        taken.addAll(batchRef.element());
+                        batchRef.release();
+                    }
+                } catch (TerminatedQueueException ex) {
+                    // Expected when all elements are taken.
+                }
+            }));
+
+            assertEquals(added, taken);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testPutAllDetectsDelayedCancellation() throws TerminatedQueueException {
+        TerminableQueue<Integer> queue = createFifoQueue(1);
+        CancellationSource cancellation = Cancellation.createCancellationSource();
+
+        Tasks.runConcurrently(() -> {
+            expectCanellation(() -> queue.putAll(cancellation.getToken(), Arrays.asList(1, 2)));
+        }, () -> {
+            CancelableWaits.sleep(Cancellation.UNCANCELABLE_TOKEN, 5, TimeUnit.MILLISECONDS);
+            cancellation.getController().cancel();
+        });
+
+        assertEquals(1, (Object) queue.tryTake());
+    }
+
     private void testTakeWorksAfterShutdown(
             int concurrentTakeCount,
             NonFullPutMethod putMethod,
@@ -683,6 +842,25 @@ public class TerminableQueuesTest {
                 assertNotNull("elementRef", result);
                 return result;
             }
+        },
+        TAKE_BATCH_RESERVE {
+            @Override
+            public <T> ReservedElementRef<T> take(TerminableQueue<T> queue) throws TerminatedQueueException {
+                ReservedElementRef<List<T>> result = queue.takeBatchButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 1);
+                assertNotNull("elementRef", result);
+                assertEquals("batchSize", 1, result.element().size());
+                return new ReservedElementRef<T>() {
+                    @Override
+                    public T element() {
+                        return result.element().get(0);
+                    }
+
+                    @Override
+                    public void release() {
+                        result.release();
+                    }
+                };
+            }
         };
 
         public abstract <T> ReservedElementRef<T> take(TerminableQueue<T> queue) throws TerminatedQueueException;
@@ -764,6 +942,17 @@ public class TerminableQueuesTest {
                 resultRef.release();
                 return resultRef.element();
             }
+        },
+        DRAIN_TO {
+            @Override
+            public <T> T tryTake(TerminableQueue<T> queue) throws TerminatedQueueException {
+                List<T> result = new ArrayList<>(1);
+                if (queue.drainTo(result, 1) == 0) {
+                    return null;
+                }
+                assertEquals("drainedCount", 1, result.size());
+                return result.get(0);
+            }
         };
 
         public abstract <T> T tryTake(TerminableQueue<T> queue) throws TerminatedQueueException;
@@ -800,6 +989,16 @@ public class TerminableQueuesTest {
                 resultRef.release();
                 return resultRef.element();
             }
+        },
+        TAKE_BATCH_RESERVE_TIMEOUT {
+            @Override
+            public <T> T take(TerminableQueue<T> queue) throws TerminatedQueueException {
+                ReservedElementRef<List<T>> resultRef = queue
+                        .tryTakeBatchButKeepReserved(Cancellation.UNCANCELABLE_TOKEN, 1, 60, TimeUnit.SECONDS);
+                assertNotNull("elementRef", resultRef);
+                resultRef.release();
+                return resultRef.element().get(0);
+            }
         };
 
         public abstract <T> T take(TerminableQueue<T> queue) throws TerminatedQueueException;
@@ -843,8 +1042,88 @@ public class TerminableQueuesTest {
                 boolean succeed = queue.offer(element);
                 assertTrue("offer", succeed);
             }
+        },
+        PUT_ALL {
+            @Override
+            public <T> void put(TerminableQueue<T> queue, T element) throws TerminatedQueueException {
+                queue.putAll(Cancellation.UNCANCELABLE_TOKEN, Collections.singletonList(element));
+            }
         };
 
         public abstract <T> void put(TerminableQueue<T> queue, T element) throws TerminatedQueueException;
     }
+
+    public enum FifoQueueType {
+        WRAPPED {
+            @Override
+            public <T> TerminableQueue<T> create(int capacity) {
+                return TerminableQueues.withWrappedQueue(ReservablePollingQueues.createFifoQueue(capacity));
+            }
+        },
+        ARRAY {
+            @Override
+            public <T> TerminableQueue<T> create(int capacity) {
+                return TerminableQueues.createFifoQueue(capacity);
+            }
+        },
+        DEFAULT_METHODS {
+            @Override
+            public <T> TerminableQueue<T> create(int capacity) {
+                return new DefaultMethodsQueue<>(WRAPPED.create(capacity));
+            }
+        };
+
+        public abstract <T> TerminableQueue<T> create(int capacity);
+    }
+
+    /**
+     * Only forwards the abstract methods to test the default methods of {@code TerminableQueue}.
+     */
+    private static final class DefaultMethodsQueue<T> implements TerminableQueue<T> {
+        private final TerminableQueue<T> wrapped;
+
+        public DefaultMethodsQueue(TerminableQueue<T> wrapped) {
+            this.wrapped = wrapped;
+        }
+
+        @Override
+        public void put(CancellationToken cancelToken, T entry) throws TerminatedQueueException {
+            wrapped.put(cancelToken, entry);
+        }
+
+        @Override
+        public boolean put(CancellationToken cancelToken, T entry, long timeout, TimeUnit timeoutUnit)
+                throws TerminatedQueueException {
+
+            return wrapped.put(cancelToken, entry, timeout, timeoutUnit);
+        }
+
+        @Override
+        public ReservedElementRef<T> tryTakeButKeepReserved(
+                CancellationToken cancelToken,
+                long timeout,
+                TimeUnit timeoutUnit) throws TerminatedQueueException {
+
+            return wrapped.tryTakeButKeepReserved(cancelToken, timeout, timeoutUnit);
+        }
+
+        @Override
+        public void shutdown() {
+            wrapped.shutdown();
+        }
+
+        @Override
+        public void shutdownAndWaitUntilEmpty(CancellationToken cancelToken) {
+            wrapped.shutdownAndWaitUntilEmpty(cancelToken);
+        }
+
+        @Override
+        public boolean shutdownAndTryWaitUntilEmpty(
+                CancellationToken cancelToken,
+                long timeout,
+                TimeUnit timeoutUnit) {
+
+            return wrapped.shutdownAndTryWaitUntilEmpty(cancelToken, timeout, timeoutUnit);
+        }
+    }
 }
@@ -0,0 +1,114 @@
+package org.jtrim2.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jtrim2.testutils.event.ListenerManagerTests;
+import org.jtrim2.testutils.event.TestManagerFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CopyOnWriteListenerManagerTest {
+    public static class GenericTests extends ListenerManagerTests {
+        public GenericTests() {
+            super(Arrays.asList(createFactory()));
+        }
+
+        @Test
+        public void testFailedListener() throws Throwable {
+            testAll(ListenerManagerTests::testFailedListener);
+        }
+    }
+
+    private static TestManagerFactory createFactory() {
+        return new TestManagerFactory() {
+            @Override
+            public <ListenerType> ListenerManager<ListenerType> createEmpty(
+                    Class<ListenerType> listenerClass, Class<?> argClass) {
+                return create();
+            }
+        };
+    }
+
+    private static <ListenerType> CopyOnWriteListenerManager<ListenerType> create() {
+        return new CopyOnWriteListenerManager<>();
+    }
+
+    @Test
+    public void testGetListeners() {
+        CopyOnWriteListenerManager<Runnable> listeners = create();
+
+        Runnable listener1 = () -> { };
+        Runnable listener2 = () -> { };
+        Runnable listener3 = () -> { };
+
+        assertEquals(Collections.emptyList(), listeners.getListeners());
+
+        ListenerRef listenerRef1 = listeners.registerListener(listener1);
+        assertEquals(Arrays.asList(listener1), listeners.getListeners());
+
+        ListenerRef listenerRef2 = listeners.registerListener(listener2);
+        assertEquals(Arrays.asList(listener1, listener2), listeners.getListeners());
+
+        ListenerRef listenerRef3 = listeners.registerListener(listener3);
+        assertEquals(Arrays.asList(listener1, listener2, listener3), listeners.getListeners());
+
+        listenerRef2.unregister();
+        assertEquals(Arrays.asList(listener1, listener3), listeners.getListeners());
+
+        listenerRef2 = listeners.registerListener(listener2);
+        assertEquals(Arrays.asList(listener1, listener3, listener2), listeners.getListeners());
+
+        listenerRef1.unregister();
+        assertEquals(Arrays.asList(listener3, listener2), listeners.getListeners());
+
+        listenerRef2.unregister();
+        assertEquals(Arrays.asList(listener3), listeners.getListeners());
+
+        listenerRef3.unregister();
+        assertEquals(Collections.emptyList(), listeners.getListeners());
+    }
+
+    @Test
+    public void testMultipleRegistrations() {
+        CopyOnWriteListenerManager<Runnable> listeners = create();
+
+        List<String> notified = new ArrayList<>();
+        Runnable listener = () -> notified.add("listener");
+
+        ListenerRef listenerRef1 = listeners.registerListener(listener);
+        ListenerRef listenerRef2 = listeners.registerListener(listener);
+        assertEquals(2, listeners.getListenerCount());
+
+        EventListeners.dispatchRunnable(listeners);
+        assertEquals(Arrays.asList("listener", "listener"), notified);
+
+        listenerRef1.unregister();
+        listenerRef1.unregister();
+        assertEquals(1, listeners.getListenerCount());
+
+        notified.clear();
+        EventListeners.dispatchRunnable(listeners);
+        assertEquals(Arrays.asList("listener"), notified);
+
+        listenerRef2.unregister();
+        assertEquals(0, listeners.getListenerCount());
+    }
+
+    @Test
+    public void testListenerAddedDuringDispatch() {
+        CopyOnWriteListenerManager<Runnable> listeners = create();
+
+        List<String> notified = new ArrayList<>();
+        listeners.registerListener(() -> {
+            notified.add("listener1");
+            listeners.registerListener(() -> notified.add("listener2"));
+        });
+
+        EventListeners.dispatchRunnable(listeners);
+        assertEquals(Arrays.asList("listener1"), notified);
+        assertEquals(2, listeners.getListenerCount());
+    }
+}
@@ -1,14 +1,23 @@
 package org.jtrim2.event.track;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.concurrent.AsyncTasks;
 import org.jtrim2.event.CopyOnTriggerListenerManager;
 import org.jtrim2.event.ListenerManager;
 import org.jtrim2.event.ListenerRef;
@@ -17,6 +26,7 @@ import org.jtrim2.executor.CancelableTask;
 import org.jtrim2.executor.DelegatedTaskExecutorService;
 import org.jtrim2.executor.TaskExecutor;
 import org.jtrim2.executor.TaskExecutorService;
+import org.jtrim2.utils.ExceptionHelper;
 
 /**
  * An {@link EventTracker} implementations which stores the causes in a singly
@@ -26,6 +36,38 @@ import org.jtrim2.executor.TaskExecutorService;
  * This implementations can recognize the causality between events only by
  * the mandatory ways defined by the {@code EventTracker} interface.
  *
+ * <h2>Asynchronous event dispatching</h2>
+ * By default, the {@code onEvent} method of the {@code TrackedListenerManager}
+ * instances of this tracker notifies the listeners synchronously. However,
+ * a {@code LinkedEventTracker} can also be
+ * {@link #LinkedEventTracker(TaskExecutor, int) created} to notify the
+ * listeners on a {@code TaskExecutor}. In this case, the events of each
+ * event kind (and argument type) are queued separately, and the events of
+ * the same kind are dispatched one after another in the order they were
+ * triggered. Events of different kinds might be dispatched concurrently
+ * (if the executor allows it). The causes of events are propagated to
+ * the listeners the same way as if they were notified synchronously.
+ * <P>
+ * When dispatching asynchronously, the events queued for the same kind are
+ * dispatched in batches: Each listener is notified of all the events of the
+ * batch before the next listener is notified. So, each listener is notified
+ * of the events of the same kind in the order they were triggered, but there
+ * is no ordering guarantee between the notifications of different listeners.
+ * Listeners are notified of the events of a batch, if they were registered
+ * when the dispatching of the batch started.
+ *
+ * <h2>Limiting the cost of tracking</h2>
+ * By default, {@code LinkedEventTracker} remembers every cause of an event,
+ * and every task submitted to a tracked executor propagates the causes. Since
+ * long chains of events keep all their causes reachable, the memory retained
+ * might grow without bound. To keep event tracking enabled in production,
+ * a {@code LinkedEventTracker} can be created by a
+ * {@link LinkedEventTrackerBuilder} to only remember the most recent causes
+ * of events, and to only propagate the causes through a fraction of the
+ * tasks submitted to tracked executors. The causes of an event remembered by
+ * such tracker are always a subset of its real causes, so if a tracker
+ * detects that an event was caused by another one, then it is true.
+ *
  * <h2>Thread safety</h2>
  * Methods of this class are safe to be accessed by multiple threads
  * concurrently.
@@ -41,6 +83,20 @@ implements
 
     private final ThreadLocal<LinkedCauses> currentCauses;
 
+    // The executor on which the listeners are notified, or null if listeners
+    // are notified synchronously in the onEvent method.
+    private final TaskExecutor eventExecutor;
+    private final int maxQueuedEventsPerKind;
+    // Set while the current thread notifies listeners asynchronously, so
+    // that events triggered by listeners never wait for a full event queue.
+    private final ThreadLocal<Boolean> dispatchingEvents;
+
+    private final int maxCauseDepth;
+    // The length of a cause chain after which the chain is truncated to
+    // maxCauseDepth (to avoid copying the chain for every new event).
+    private final int causeChainTruncateLength;
+    private final double trackedExecutionRatio;
+
     // This map stores the container of registered listeners to be notified
     // when event triggers. The map maps the arguments of getContainerOfType
     // to the listener. If a key does not contain a listener registered
@@ -63,9 +119,66 @@ implements
      * registered to any event and does not know about any event to be a cause.
      */
     public LinkedEventTracker() {
+        this(null, 0, Integer.MAX_VALUE, 1.0);
+    }
+
+    /**
+     * Creates a new {@code LinkedEventTracker} which does not have a listener
+     * registered to any event and does not know about any event to be a cause,
+     * and notifies the listeners asynchronously on the given executor.
+     * <P>
+     * The {@code onEvent} method of the {@code TrackedListenerManager}
+     * instances of the new tracker only queue the event, and submit a task
+     * to the given executor to notify the listeners (if there is no such task
+     * pending already). If there are already {@code maxQueuedEventsPerKind}
+     * events waiting to be dispatched for the kind of the event, then
+     * {@code onEvent} waits until the queued events are dispatched. The only
+     * exception is when {@code onEvent} is called by a listener notified by
+     * this tracker. In this case, {@code onEvent} never waits, so listeners
+     * cannot dead-lock by triggering events. Note that this means that the
+     * given executor must not execute the submitted tasks synchronously on
+     * the calling thread, if the events might be triggered while holding a
+     * lock.
+     * <P>
+     * If the given executor does not execute a submitted task (e.g., because
+     * the executor was shut down or its {@code execute} method threw an exception),
+     * the events queued for the kind are discarded. A thread waiting in
+     * {@code onEvent} stops waiting if it is interrupted: The event is queued
+     * regardless of the limit, and the interrupted status of the thread is
+     * preserved.
+     *
+     * @param eventExecutor the executor on which the listeners are notified.
+     *   This argument cannot be {@code null}.
+     * @param maxQueuedEventsPerKind the maximum number of events of the same
+     *   kind waiting to be dispatched, after which triggering new events
+     *   waits. This argument must be greater than or equal to 1.
+     */
+    public LinkedEventTracker(TaskExecutor eventExecutor, int maxQueuedEventsPerKind) {
+        this(
+                Objects.requireNonNull(eventExecutor, "eventExecutor"),
+                ExceptionHelper.checkArgumentInRange(
+                        maxQueuedEventsPerKind, 1, Integer.MAX_VALUE, "maxQueuedEventsPerKind"),
+                Integer.MAX_VALUE,
+                1.0);
+    }
+
+    LinkedEventTracker(
+            TaskExecutor eventExecutor,
+            int maxQueuedEventsPerKind,
+            int maxCauseDepth,
+            double trackedExecutionRatio) {
+
         this.registerLock = new ReentrantLock();
         this.currentCauses = new ThreadLocal<>();
         this.managers = new ConcurrentHashMap<>();
+        this.eventExecutor = eventExecutor;
+        this.maxQueuedEventsPerKind = maxQueuedEventsPerKind;
+        this.dispatchingEvents = eventExecutor != null ? new ThreadLocal<>() : null;
+        this.maxCauseDepth = maxCauseDepth;
+        this.causeChainTruncateLength = maxCauseDepth <= Integer.MAX_VALUE / 2
+                ? 2 * maxCauseDepth
+                : Integer.MAX_VALUE;
+        this.trackedExecutionRatio = trackedExecutionRatio;
     }
 
     /**
@@ -98,6 +211,37 @@ implements
         return new TaskWrapperExecutor(executor);
     }
 
+    private boolean isTrackedExecution() {
+        return trackedExecutionRatio >= 1.0
+                || ThreadLocalRandom.current().nextDouble() < trackedExecutionRatio;
+    }
+
+    private LinkedCauses newCauses(LinkedCauses prevCauses, TriggeredEvent<?> currentCause) {
+        if (prevCauses != null && prevCauses.chainLength >= causeChainTruncateLength) {
+            return new LinkedCauses(truncateCauses(prevCauses, maxCauseDepth - 1), currentCause, maxCauseDepth);
+        }
+        return new LinkedCauses(prevCauses, currentCause, maxCauseDepth);
+    }
+
+    private LinkedCauses truncateCauses(LinkedCauses causes, int depth) {
+        if (depth <= 0) {
+            return null;
+        }
+
+        TriggeredEvent<?>[] kept = new TriggeredEvent<?>[depth];
+        LinkedCauses current = causes;
+        for (int i = 0; i < depth; i++) {
+            kept[i] = current.getCurrentCause();
+            current = current.prevCauses;
+        }
+
+        LinkedCauses result = null;
+        for (int i = depth - 1; i >= 0; i--) {
+            result = new LinkedCauses(result, kept[i], maxCauseDepth);
+        }
+        return result;
+    }
+
     private LinkedCauses getCausesIfAny() {
         LinkedCauses result = currentCauses.get();
         if (result == null) {
@@ -157,11 +301,16 @@ implements
         }
     }
 
-    private static final class ManagerHolder<ArgType> {
+    private final class ManagerHolder<ArgType> {
         private final ListenerManager<TrackedEventListener<ArgType>> manager;
+        // null if the listeners are notified synchronously
+        private final AsyncEventQueue<ArgType> eventQueue;
 
         public ManagerHolder() {
             this.manager = new CopyOnTriggerListenerManager<>();
+            this.eventQueue = eventExecutor != null
+                    ? new AsyncEventQueue<>(manager)
+                    : null;
         }
 
         public int getListenerCount() {
@@ -177,9 +326,168 @@ implements
             return manager.getListenerCount() == 0;
         }
 
+        public boolean isAsync() {
+            return eventQueue != null;
+        }
+
         public void dispatchEvent(TrackedEvent<ArgType> arg) {
             manager.onEvent(TrackedEventListener::onEvent, arg);
         }
+
+        public void queueEvent(LinkedCauses eventCauses, TrackedEvent<ArgType> arg) {
+            eventQueue.add(new QueuedEvent<>(eventCauses, arg));
+        }
+    }
+
+    private static final class QueuedEvent<ArgType> {
+        // The causes including the event itself.
+        private final LinkedCauses eventCauses;
+        private final TrackedEvent<ArgType> event;
+
+        public QueuedEvent(LinkedCauses eventCauses, TrackedEvent<ArgType> event) {
+            this.eventCauses = eventCauses;
+            this.event = event;
+        }
+    }
+
+    private final class AsyncEventQueue<ArgType> {
+        private final ListenerManager<TrackedEventListener<ArgType>> manager;
+
+        private final Lock queueLock;
+        private final Condition checkNotFullSignal;
+        private final Deque<QueuedEvent<ArgType>> queue;
+        private boolean drainScheduled;
+
+        public AsyncEventQueue(ListenerManager<TrackedEventListener<ArgType>> manager) {
+            this.manager = manager;
+            this.queueLock = new ReentrantLock();
+            this.checkNotFullSignal = queueLock.newCondition();
+            this.queue = new ArrayDeque<>();
+            this.drainScheduled = false;
+        }
+
+        public void add(QueuedEvent<ArgType> event) {
+            boolean scheduleDrain;
+
+            queueLock.lock();
+            try {
+                while (queue.size() >= maxQueuedEventsPerKind && dispatchingEvents.get() == null) {
+                    try {
+                        checkNotFullSignal.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+
+                queue.add(event);
+                scheduleDrain = !drainScheduled;
+                drainScheduled = true;
+            } finally {
+                queueLock.unlock();
+            }
+
+            if (scheduleDrain) {
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            AtomicBoolean drainStarted = new AtomicBoolean(false);
+            CompletionStage<Void> drainFuture;
+            try {
+                drainFuture = eventExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> {
+                    drainStarted.set(true);
+                    drainBatch();
+                });
+            } catch (Throwable ex) {
+                discardEvents();
+                throw ex;
+            }
+
+            drainFuture.whenComplete((result, failure) -> {
+                if (!drainStarted.get()) {
+                    // Nothing else would drain the queue, and the event sources would wait forever.
+                    discardEvents();
+                }
+                if (!AsyncTasks.isCanceled(failure)) {
+                    AsyncTasks.expectNoError(failure);
+                }
+            });
+        }
+
+        private void discardEvents() {
+            queueLock.lock();
+            try {
+                queue.clear();
+                drainScheduled = false;
+                checkNotFullSignal.signalAll();
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        private void drainBatch() {
+            List<QueuedEvent<ArgType>> batch;
+
+            queueLock.lock();
+            try {
+                batch = new ArrayList<>(queue);
+                queue.clear();
+                checkNotFullSignal.signalAll();
+            } finally {
+                queueLock.unlock();
+            }
+
+            // The executor might execute tasks synchronously, so this might be
+            // a nested call.
+            boolean nestedDispatch = dispatchingEvents.get() != null;
+            try {
+                dispatchingEvents.set(Boolean.TRUE);
+                manager.onEvent(this::dispatchBatch, batch);
+            } finally {
+                if (!nestedDispatch) {
+                    dispatchingEvents.remove();
+                }
+                finishBatch();
+            }
+        }
+
+        private void finishBatch() {
+            boolean scheduleDrain;
+
+            queueLock.lock();
+            try {
+                scheduleDrain = !queue.isEmpty();
+                drainScheduled = scheduleDrain;
+            } finally {
+                queueLock.unlock();
+            }
+
+            // Events queued in the meantime are dispatched by a new task, so that
+            // the events of other kinds sharing the same executor are not delayed.
+            if (scheduleDrain) {
+                scheduleDrain();
+            }
+        }
+
+        private void dispatchBatch(TrackedEventListener<ArgType> listener, List<QueuedEvent<ArgType>> batch) {
+            Throwable toThrow = null;
+            for (QueuedEvent<ArgType> queuedEvent: batch) {
+                LinkedCauses prevCauses = currentCauses.get();
+                try {
+                    currentCauses.set(queuedEvent.eventCauses);
+                    listener.onEvent(queuedEvent.event);
+                } catch (Throwable ex) {
+                    if (toThrow == null) toThrow = ex;
+                    else toThrow.addSuppressed(ex);
+                } finally {
+                    setAsCurrentCause(prevCauses);
+                }
+            }
+            // The listener manager logs the failure of the listener.
+            ExceptionHelper.rethrowIfNotNull(toThrow);
+        }
     }
 
     private final class TrackedListenerManagerImpl<ArgType>
@@ -219,7 +527,13 @@ implements
                         ? new TrackedEvent<>(causes, arg)
                         : new TrackedEvent<>(arg);
 
-                currentCauses.set(new LinkedCauses(causes, triggeredEvent));
+                LinkedCauses eventCauses = newCauses(causes, triggeredEvent);
+                if (managerHolder.isAsync()) {
+                    managerHolder.queueEvent(eventCauses, trackedEvent);
+                    return;
+                }
+
+                currentCauses.set(eventCauses);
                 managerHolder.dispatchEvent(trackedEvent);
             } finally {
                 setAsCurrentCause(causes);
@@ -312,19 +626,23 @@ implements
     }
 
     private static final class LinkedCauses extends AbstractEventCauses {
+        // The number of elements in the linked list, which might be more
+        // than the number of causes visible through this instance.
+        private final int chainLength;
         private final int numberOfCauses;
         private final LinkedCauses prevCauses;
         private final TriggeredEvent<?> currentCause;
         private volatile Iterable<TriggeredEvent<?>> causeIterable;
 
         public LinkedCauses(
-                LinkedCauses prevCauses, TriggeredEvent<?> currentCause) {
+                LinkedCauses prevCauses, TriggeredEvent<?> currentCause, int maxCauseDepth) {
             this.prevCauses = prevCauses;
             this.currentCause = currentCause;
             this.causeIterable = null;
-            this.numberOfCauses = prevCauses != null
-                    ? prevCauses.getNumberOfCauses() + 1
+            this.chainLength = prevCauses != null
+                    ? prevCauses.chainLength + 1
                     : 1;
+            this.numberOfCauses = Math.min(chainLength, maxCauseDepth);
         }
 
         @Override
@@ -336,7 +654,7 @@ implements
         public Iterable<TriggeredEvent<?>> getCauses() {
             Iterable<TriggeredEvent<?>> result = causeIterable;
             if (result == null) {
-                result = () -> new LinkedCausesIterator<>(LinkedCauses.this);
+                result = () -> new LinkedCausesIterator<>(LinkedCauses.this, numberOfCauses);
                 causeIterable = result;
             }
             return result;
@@ -352,14 +670,16 @@ implements
             Iterator<TriggeredEvent<?>> {
 
         private LinkedCauses currentCauses;
+        private int remainingCount;
 
-        public LinkedCausesIterator(LinkedCauses currentCauses) {
+        public LinkedCausesIterator(LinkedCauses currentCauses, int remainingCount) {
             this.currentCauses = currentCauses;
+            this.remainingCount = remainingCount;
         }
 
         @Override
         public boolean hasNext() {
-            return currentCauses != null;
+            return remainingCount > 0;
         }
 
         @Override
@@ -370,6 +690,7 @@ implements
 
             TriggeredEvent<?> result = currentCauses.getCurrentCause();
             currentCauses = currentCauses.prevCauses;
+            remainingCount--;
             return result;
         }
 
@@ -455,12 +776,21 @@ implements
 
         @Override
         public void execute(Runnable command) {
+            if (!isTrackedExecution()) {
+                wrappedExecutor.execute(command);
+                return;
+            }
+
             LinkedCauses causes = getCausesIfAny();
             wrappedExecutor.execute(new RunnableWrapper(causes, command));
         }
 
         @Override
         public CompletionStage<Void> execute(CancellationToken cancelToken, CancelableTask task) {
+            if (!isTrackedExecution()) {
+                return wrappedExecutor.execute(cancelToken, task);
+            }
+
             LinkedCauses causes = getCausesIfAny();
             return wrappedExecutor.execute(cancelToken, new TaskWrapper(causes, task));
         }
@@ -470,6 +800,10 @@ implements
                 CancellationToken cancelToken,
                 CancelableFunction<? extends V> function) {
 
+            if (!isTrackedExecution()) {
+                return wrappedExecutor.executeFunction(cancelToken, function);
+            }
+
             LinkedCauses causes = getCausesIfAny();
             return wrappedExecutor.executeFunction(cancelToken, new FunctionWrapper<>(causes, function));
         }
@@ -487,6 +821,10 @@ implements
                 CancellationToken cancelToken,
                 CancelableFunction<? extends V> function) {
 
+            if (!isTrackedExecution()) {
+                return executor.executeFunction(cancelToken, function);
+            }
+
             LinkedCauses cause = getCausesIfAny();
             return executor.executeFunction(cancelToken, new FunctionWrapper<>(cause, function));
         }
@@ -0,0 +1,150 @@
+package org.jtrim2.event.track;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import org.jtrim2.executor.TaskExecutor;
+import org.jtrim2.utils.ExceptionHelper;
+
+/**
+ * Defines a builder to create {@link LinkedEventTracker} instances with a
+ * non-default configuration. In particular, this builder allows to limit the
+ * cost of tracking the causes of events, so that event tracking can remain
+ * enabled even when a lot of events are triggered.
+ * <P>
+ * If you want to create the tracker in a single expression, then consider
+ * using the {@link #create(Consumer) create} factory method.
+ *
+ * <h2>Thread safety</h2>
+ * Instances of this class cannot be accessed from multiple threads
+ * concurrently. Concurrent access to instances of this class must be
+ * externally synchronized.
+ *
+ * <h3>Synchronization transparency</h3>
+ * Methods of this class are <I>synchronization transparent</I>.
+ *
+ * @see LinkedEventTracker
+ */
+public final class LinkedEventTrackerBuilder {
+    private TaskExecutor eventExecutor;
+    private int maxQueuedEventsPerKind;
+    private int maxCauseDepth;
+    private double trackedExecutionRatio;
+
+    /**
+     * Creates and initializes the builder with the following configuration:
+     * <ul>
+     *   <li>{@link #setEventExecutor(TaskExecutor, int) eventExecutor} = none (synchronous notification)</li>
+     *   <li>{@link #setMaxCauseDepth(int) maxCauseDepth} = {@code Integer.MAX_VALUE}</li>
+     *   <li>{@link #setTrackedExecutionRatio(double) trackedExecutionRatio} = 1.0</li>
+     * </ul>
+     * This configuration creates a tracker equivalent to the one created by
+     * the {@link LinkedEventTracker#LinkedEventTracker() default constructor}
+     * of {@code LinkedEventTracker}.
+     */
+    public LinkedEventTrackerBuilder() {
+        this.eventExecutor = null;
+        this.maxQueuedEventsPerKind = 0;
+        this.maxCauseDepth = Integer.MAX_VALUE;
+        this.trackedExecutionRatio = 1.0;
+    }
+
+    /**
+     * Creates a {@code LinkedEventTracker} using a {@code LinkedEventTrackerBuilder}.
+     * This method is useful to create the tracker in a single expression.
+     * <P>
+     * This method call is effectively equivalent to
+     * <pre>{@code
+     * LinkedEventTrackerBuilder builder = new LinkedEventTrackerBuilder();
+     * config.accept(builder);
+     * return builder.build();
+     * }</pre>
+     *
+     * @param config the action called by this method to configure the
+     *   {@code LinkedEventTrackerBuilder}. This argument cannot be {@code null}.
+     * @return the tracker with the configuration set by the configuration
+     *   action. This method never returns {@code null}.
+     */
+    public static LinkedEventTracker create(Consumer<? super LinkedEventTrackerBuilder> config) {
+        Objects.requireNonNull(config, "config");
+        LinkedEventTrackerBuilder builder = new LinkedEventTrackerBuilder();
+        config.accept(builder);
+        return builder.build();
+    }
+
+    /**
+     * Sets the executor on which the created tracker notifies the listeners
+     * asynchronously. See the
+     * {@link LinkedEventTracker#LinkedEventTracker(TaskExecutor, int) constructor}
+     * of {@code LinkedEventTracker} for the details of asynchronous event
+     * dispatching.
+     *
+     * @param eventExecutor the executor on which the listeners are notified.
+     *   This argument cannot be {@code null}.
+     * @param maxQueuedEventsPerKind the maximum number of events of the same
+     *   kind waiting to be dispatched, after which triggering new events
+     *   waits. This argument must be greater than or equal to 1.
+     */
+    public void setEventExecutor(TaskExecutor eventExecutor, int maxQueuedEventsPerKind) {
+        this.eventExecutor = Objects.requireNonNull(eventExecutor, "eventExecutor");
+        this.maxQueuedEventsPerKind = ExceptionHelper
+                .checkArgumentInRange(maxQueuedEventsPerKind, 1, Integer.MAX_VALUE, "maxQueuedEventsPerKind");
+    }
+
+    /**
+     * Sets the maximum number of causes the created tracker remembers for a
+     * single event. If an event has more causes than this limit, only the
+     * most recent causes are remembered (i.e., the events which triggered
+     * it most directly), and the older causes are forgotten and might be
+     * garbage collected.
+     * <P>
+     * Note that detecting that an event was caused by the same kind of event
+     * (e.g., to avoid infinite loops) requires the limit to be at least the
+     * length of the event chain between the two events.
+     *
+     * @param maxCauseDepth the maximum number of causes the created tracker
+     *   remembers for a single event. This argument must be greater than or
+     *   equal to 1.
+     */
+    public void setMaxCauseDepth(int maxCauseDepth) {
+        this.maxCauseDepth = ExceptionHelper
+                .checkArgumentInRange(maxCauseDepth, 1, Integer.MAX_VALUE, "maxCauseDepth");
+    }
+
+    /**
+     * Sets the ratio of the tasks submitted to the executors
+     * {@link LinkedEventTracker#createTrackedExecutor(TaskExecutor) tracked}
+     * by the created tracker which propagate the causes of the events
+     * triggered by them. The tasks to be tracked are selected randomly.
+     * The tasks not selected are submitted to the wrapped executor as is,
+     * and events triggered by them will not know about the events causing
+     * the submission of the task.
+     * <P>
+     * Not tracking a task saves wrapping the task and setting up the causes
+     * when the task is executed.
+     *
+     * @param trackedExecutionRatio the ratio of the tasks submitted to tracked
+     *   executors propagating the causes of the events. This argument must be
+     *   within the range [0, 1]. Zero means that causes are not propagated
+     *   through executors at all, and one means that causes are propagated
+     *   by every task.
+     */
+    public void setTrackedExecutionRatio(double trackedExecutionRatio) {
+        if (!(trackedExecutionRatio >= 0.0 && trackedExecutionRatio <= 1.0)) {
+            throw new IllegalArgumentException(
+                    "trackedExecutionRatio must be within [0, 1]: " + trackedExecutionRatio);
+        }
+        this.trackedExecutionRatio = trackedExecutionRatio;
+    }
+
+    /**
+     * Creates a new {@code LinkedEventTracker} with the currently set
+     * configuration. Subsequent modifications of this builder have no effect
+     * on the returned tracker.
+     *
+     * @return a new {@code LinkedEventTracker} with the currently set
+     *   configuration. This method never returns {@code null}.
+     */
+    public LinkedEventTracker build() {
+        return new LinkedEventTracker(eventExecutor, maxQueuedEventsPerKind, maxCauseDepth, trackedExecutionRatio);
+    }
+}
@@ -37,7 +37,11 @@ extends
     /**
      * Invokes the {@link TrackedEventListener#onEvent(TrackedEvent) onEvent}
      * method of the registered {@link TrackedEventListener} instances. The
-     * {@code onEvent} method is called synchronously in the current thread.
+     * {@code onEvent} method is called synchronously in the current thread,
+     * unless the {@link EventTracker} providing this manager is set up to
+     * notify listeners asynchronously (as
+     * {@link LinkedEventTracker#LinkedEventTracker(org.jtrim2.executor.TaskExecutor, int) LinkedEventTracker}
+     * can be).
      * <P>
      * Adding new listeners to this container will have no effect on the
      * current call and the listeners being notified. That is, if a notified
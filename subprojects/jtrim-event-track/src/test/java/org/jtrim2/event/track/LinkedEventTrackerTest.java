@@ -1,6 +1,17 @@
 package org.jtrim2.event.track;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.executor.CancelableFunction;
+import org.jtrim2.executor.ManualTaskExecutor;
+import org.jtrim2.executor.SyncTaskExecutor;
+import org.jtrim2.executor.TaskExecutor;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -12,6 +23,21 @@ public class LinkedEventTrackerTest {
         }
     }
 
+    public static class AsyncGenericTests extends EventTrackerTests {
+        public AsyncGenericTests() {
+            super(Arrays.asList(() -> new LinkedEventTracker(SyncTaskExecutor.getSimpleExecutor(), 16)));
+        }
+    }
+
+    public static class LimitedGenericTests extends EventTrackerTests {
+        public LimitedGenericTests() {
+            super(Arrays.asList(() -> LinkedEventTrackerBuilder.create(builder -> {
+                builder.setMaxCauseDepth(4);
+                builder.setTrackedExecutionRatio(1.0);
+            })));
+        }
+    }
+
     // Since we implemented the equals and hashCode methods of the managers of
     // LinkedEventTracker, test them as well.
 
@@ -41,4 +67,310 @@ public class LinkedEventTrackerTest {
         assertEquals(tracker.getManagerOfType(eventKind, Object.class).hashCode(),
                 tracker.getManagerOfType(eventKind, Object.class).hashCode());
     }
+
+    @Test(timeout = 20000)
+    public void testAsyncDispatchOnExecutor() {
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        EventTracker tracker = new LinkedEventTracker(executor, 16);
+
+        List<Object> received = new ArrayList<>();
+        TrackedListenerManager<Object> manager = tracker.getManagerOfType(new Object(), Object.class);
+        manager.registerListener(event -> received.add(event.getEventArg()));
+        manager.registerListener(event -> received.add("listener2-" + event.getEventArg()));
+
+        manager.onEvent(1);
+        manager.onEvent(2);
+        assertEquals(Collections.emptyList(), received);
+
+        assertEquals(1, executor.executeCurrentlySubmitted());
+        assertEquals(Arrays.asList(1, 2, "listener2-1", "listener2-2"), received);
+        assertEquals(0, executor.executeCurrentlySubmitted());
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncCausesArePropagated() {
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        EventTracker tracker = new LinkedEventTracker(executor, 16);
+
+        Object eventKind1 = new Object();
+        Object eventKind2 = new Object();
+        TrackedListenerManager<Object> manager1 = tracker.getManagerOfType(eventKind1, Object.class);
+        TrackedListenerManager<Object> manager2 = tracker.getManagerOfType(eventKind2, Object.class);
+
+        List<TrackedEvent<Object>> received = new ArrayList<>();
+        manager1.registerListener(event -> manager2.onEvent("event2"));
+        manager2.registerListener(received::add);
+
+        manager1.onEvent("event1");
+        while (executor.executeCurrentlySubmitted() > 0) {
+            // Keep executing until all events are dispatched.
+        }
+
+        assertEquals(1, received.size());
+        TrackedEvent<Object> event = received.get(0);
+        assertEquals("event2", event.getEventArg());
+        assertEquals(1, event.getCauses().getNumberOfCauses());
+        assertTrue(event.getCauses().isCausedByEvent(new TriggeredEvent<>(eventKind1, "event1")));
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncFullQueueWaits() throws InterruptedException {
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        EventTracker tracker = new LinkedEventTracker(executor, 1);
+
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        TrackedListenerManager<Object> manager = tracker.getManagerOfType(new Object(), Object.class);
+        manager.registerListener(event -> received.add(event.getEventArg()));
+
+        manager.onEvent(1);
+
+        Thread eventThread = new Thread(() -> manager.onEvent(2));
+        eventThread.start();
+        try {
+            while (eventThread.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            assertTrue(eventThread.isAlive());
+        } finally {
+            executor.executeCurrentlySubmitted();
+            eventThread.join();
+        }
+
+        executor.executeCurrentlySubmitted();
+        assertEquals(Arrays.asList(1, 2), received);
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncListenerDoesNotWaitForFullQueue() {
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        EventTracker tracker = new LinkedEventTracker(executor, 1);
+
+        List<Object> received = new ArrayList<>();
+        TrackedListenerManager<Object> manager = tracker.getManagerOfType(new Object(), Object.class);
+        manager.registerListener(event -> {
+            received.add(event.getEventArg());
+            if ("first".equals(event.getEventArg())) {
+                manager.onEvent("second");
+                manager.onEvent("third");
+            }
+        });
+
+        manager.onEvent("first");
+        while (executor.executeCurrentlySubmitted() > 0) {
+            // Keep executing until all events are dispatched.
+        }
+
+        assertEquals(Arrays.asList("first", "second", "third"), received);
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncEventsAreDiscardedIfNotExecuted() {
+        TaskExecutor executor = new TaskExecutor() {
+            @Override
+            public <V> CompletionStage<V> executeFunction(
+                    CancellationToken cancelToken,
+                    CancelableFunction<? extends V> function) {
+
+                CompletableFuture<V> result = new CompletableFuture<>();
+                result.completeExceptionally(new OperationCanceledException());
+                return result;
+            }
+        };
+        EventTracker tracker = new LinkedEventTracker(executor, 1);
+
+        List<Object> received = new ArrayList<>();
+        TrackedListenerManager<Object> manager = tracker.getManagerOfType(new Object(), Object.class);
+        manager.registerListener(event -> received.add(event.getEventArg()));
+
+        manager.onEvent(1);
+        manager.onEvent(2);
+        assertEquals(Collections.emptyList(), received);
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncEventsAreDiscardedIfExecutorThrows() {
+        RuntimeException executeFailure = new RuntimeException("executeFailure");
+        boolean[] failExecute = {true};
+        TaskExecutor executor = new TaskExecutor() {
+            @Override
+            public <V> CompletionStage<V> executeFunction(
+                    CancellationToken cancelToken,
+                    CancelableFunction<? extends V> function) {
+
+                if (failExecute[0]) {
+                    throw executeFailure;
+                }
+                return SyncTaskExecutor.getSimpleExecutor().executeFunction(cancelToken, function);
+            }
+        };
+        EventTracker tracker = new LinkedEventTracker(executor, 1);
+
+        List<Object> received = new ArrayList<>();
+        TrackedListenerManager<Object> manager = tracker.getManagerOfType(new Object(), Object.class);
+        manager.registerListener(event -> received.add(event.getEventArg()));
+
+        try {
+            manager.onEvent(1);
+            fail("Expected execute failure.");
+        } catch (RuntimeException ex) {
+            assertSame(executeFailure, ex);
+        }
+
+        failExecute[0] = false;
+        // Would wait forever if the failed submit left the first event in the queue.
+        manager.onEvent(2);
+        assertEquals(Arrays.asList(2), received);
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncEventsAreDiscardedIfExecutorFails() {
+        TaskExecutor executor = new TaskExecutor() {
+            @Override
+            public <V> CompletionStage<V> executeFunction(
+                    CancellationToken cancelToken,
+                    CancelableFunction<? extends V> function) {
+
+                CompletableFuture<V> result = new CompletableFuture<>();
+                result.completeExceptionally(new RuntimeException("Rejected"));
+                return result;
+            }
+        };
+        EventTracker tracker = new LinkedEventTracker(executor, 1);
+
+        List<Object> received = new ArrayList<>();
+        TrackedListenerManager<Object> manager = tracker.getManagerOfType(new Object(), Object.class);
+        manager.registerListener(event -> received.add(event.getEventArg()));
+
+        manager.onEvent(1);
+        manager.onEvent(2);
+        assertEquals(Collections.emptyList(), received);
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncFullQueueWaitIsInterruptible() throws InterruptedException {
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        EventTracker tracker = new LinkedEventTracker(executor, 1);
+
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        TrackedListenerManager<Object> manager = tracker.getManagerOfType(new Object(), Object.class);
+        manager.registerListener(event -> received.add(event.getEventArg()));
+
+        manager.onEvent(1);
+
+        boolean[] interruptedAfterEvent = new boolean[1];
+        Thread eventThread = new Thread(() -> {
+            manager.onEvent(2);
+            interruptedAfterEvent[0] = Thread.currentThread().isInterrupted();
+        });
+        eventThread.start();
+        while (eventThread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        eventThread.interrupt();
+        eventThread.join();
+
+        assertTrue("interruptedAfterEvent", interruptedAfterEvent[0]);
+        executor.executeCurrentlySubmitted();
+        assertEquals(Arrays.asList(1, 2), received);
+    }
+
+    private static List<Object> causeArgs(EventCauses causes) {
+        List<Object> result = new ArrayList<>();
+        causes.getCauses().forEach(cause -> result.add(cause.getEventArg()));
+        return result;
+    }
+
+    @Test
+    public void testMaxCauseDepth() {
+        int maxDepth = 3;
+        LinkedEventTracker tracker = LinkedEventTrackerBuilder.create(builder -> builder.setMaxCauseDepth(maxDepth));
+
+        int eventCount = 20;
+        List<EventCauses> receivedCauses = new ArrayList<>();
+        TrackedListenerManager<Integer> manager = tracker.getManagerOfType(new Object(), Integer.class);
+        manager.registerListener(event -> {
+            receivedCauses.add(event.getCauses());
+            if (event.getEventArg() < eventCount - 1) {
+                manager.onEvent(event.getEventArg() + 1);
+            }
+        });
+
+        manager.onEvent(0);
+
+        assertEquals(eventCount, receivedCauses.size());
+        for (int i = 0; i < eventCount; i++) {
+            EventCauses causes = receivedCauses.get(i);
+            int expectedCount = Math.min(i, maxDepth);
+
+            List<Object> expectedArgs = new ArrayList<>();
+            for (int j = 0; j < expectedCount; j++) {
+                expectedArgs.add(i - j - 1);
+            }
+
+            assertEquals("causes[" + i + "]", expectedCount, causes.getNumberOfCauses());
+            assertEquals("causes[" + i + "]", expectedArgs, causeArgs(causes));
+        }
+    }
+
+    @Test
+    public void testNotTrackedExecution() {
+        LinkedEventTracker tracker = LinkedEventTrackerBuilder.create(builder -> {
+            builder.setTrackedExecutionRatio(0.0);
+        });
+
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        TaskExecutor trackedExecutor = tracker.createTrackedExecutor(executor);
+
+        List<EventCauses> receivedCauses = new ArrayList<>();
+        TrackedListenerManager<Object> manager1 = tracker.getManagerOfType(new Object(), Object.class);
+        TrackedListenerManager<Object> manager2 = tracker.getManagerOfType(new Object(), Object.class);
+        manager1.registerListener(event -> trackedExecutor.execute(() -> manager2.onEvent("event2")));
+        manager2.registerListener(event -> receivedCauses.add(event.getCauses()));
+
+        manager1.onEvent("event1");
+        executor.executeCurrentlySubmitted();
+
+        assertEquals(1, receivedCauses.size());
+        assertEquals(0, receivedCauses.get(0).getNumberOfCauses());
+    }
+
+    @Test
+    public void testTrackedExecutionWithMaxCauseDepth() {
+        LinkedEventTracker tracker = LinkedEventTrackerBuilder.create(builder -> {
+            builder.setMaxCauseDepth(1);
+            builder.setTrackedExecutionRatio(1.0);
+        });
+
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        TaskExecutor trackedExecutor = tracker.createTrackedExecutor(executor);
+
+        List<EventCauses> receivedCauses = new ArrayList<>();
+        TrackedListenerManager<Object> manager1 = tracker.getManagerOfType(new Object(), Object.class);
+        TrackedListenerManager<Object> manager2 = tracker.getManagerOfType(new Object(), Object.class);
+        TrackedListenerManager<Object> manager3 = tracker.getManagerOfType(new Object(), Object.class);
+        manager1.registerListener(event -> trackedExecutor.execute(() -> manager2.onEvent("event2")));
+        manager2.registerListener(event -> manager3.onEvent("event3"));
+        manager3.registerListener(event -> receivedCauses.add(event.getCauses()));
+
+        manager1.onEvent("event1");
+        executor.executeCurrentlySubmitted();
+
+        assertEquals(1, receivedCauses.size());
+        assertEquals(Arrays.asList("event2"), causeArgs(receivedCauses.get(0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalMaxCauseDepth() {
+        new LinkedEventTrackerBuilder().setMaxCauseDepth(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalTrackedExecutionRatio() {
+        new LinkedEventTrackerBuilder().setTrackedExecutionRatio(1.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaNTrackedExecutionRatio() {
+        new LinkedEventTrackerBuilder().setTrackedExecutionRatio(Double.NaN);
+    }
 }
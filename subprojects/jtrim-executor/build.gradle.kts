@@ -11,3 +11,22 @@ dependencies {
     implementation(libs.slf4jApi)
     testImplementation(project(":test-jtrim-concurrent"))
 }
+
+// Virtual threads are only available on newer runtimes than the one used for the other tests.
+val virtualThreadTest = tasks.register<Test>("virtualThreadTest") {
+    description = "Runs the virtual thread specific tests on a runtime supporting virtual threads."
+    group = LifecycleBasePlugin.VERIFICATION_GROUP
+
+    javaLauncher.set(javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of(libs.versions.virtualThreadTestJava.get()))
+    })
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    filter {
+        includeTestsMatching("org.jtrim2.executor.VirtualThread*")
+    }
+}
+
+tasks.named("check") {
+    dependsOn(virtualThreadTest)
+}
@@ -1,11 +1,14 @@
 package org.jtrim2.executor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicReference;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.utils.ExceptionHelper;
 
 /**
  * Defines a convenient abstract base class for {@link TaskExecutor} implementations.
@@ -49,6 +52,44 @@ public abstract class AbstractTaskExecutor implements TaskExecutor {
      */
     protected abstract void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask);
 
+    /**
+     * Submits the given tasks in the order they were specified. The requirements for
+     * implementations are the same as for the
+     * {@link #submitTask(CancellationToken, SubmittedTask) submitTask} method for each
+     * submitted task. Implementations may override this method to submit the tasks more
+     * efficiently than submitting them one by one.
+     * <P>
+     * Implementations may throw an exception only if they were not able to submit all the tasks.
+     * In this case, the tasks not submitted must be completed exceptionally with the
+     * thrown exception.
+     * <P>
+     * The default implementation calls {@code submitTask} for each task.
+     *
+     * @param cancelToken the {@code CancellationToken} which can be checked by
+     *   implementations if the currently submitted tasks have been canceled.
+     *   Also this is the {@code CancellationToken} implementations should pass
+     *   to the tasks. This argument cannot be {@code null}.
+     * @param submittedTasks the tasks to be executed. This argument cannot be {@code null}.
+     */
+    protected void submitTasks(CancellationToken cancelToken, List<SubmittedTask<?>> submittedTasks) {
+        int taskCount = submittedTasks.size();
+        for (int i = 0; i < taskCount; i++) {
+            try {
+                submitTask(cancelToken, submittedTasks.get(i));
+            } catch (Throwable ex) {
+                completeAllExceptionally(submittedTasks, i, ex);
+                throw ex;
+            }
+        }
+    }
+
+    static void completeAllExceptionally(List<SubmittedTask<?>> submittedTasks, int startIndex, Throwable ex) {
+        int taskCount = submittedTasks.size();
+        for (int i = startIndex; i < taskCount; i++) {
+            submittedTasks.get(i).completeExceptionally(ex);
+        }
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -69,6 +110,42 @@ public abstract class AbstractTaskExecutor implements TaskExecutor {
         return submittedTask.getFuture();
     }
 
+    /**
+     * {@inheritDoc }
+     * <P>
+     * This implementation relies on the
+     * {@link #submitTasks(CancellationToken, List) submitTasks} method.
+     */
+    @Override
+    public <V> List<CompletionStage<V>> executeFunctions(
+            CancellationToken cancelToken,
+            List<? extends CancelableFunction<? extends V>> functions) {
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullElements(functions, "functions");
+
+        int functionCount = functions.size();
+        List<CompletionStage<V>> result = new ArrayList<>(functionCount);
+
+        if (cancelToken.isCanceled()) {
+            for (int i = 0; i < functionCount; i++) {
+                result.add(CancelableTasks.canceledComplationStage());
+            }
+            return result;
+        }
+
+        List<SubmittedTask<?>> submittedTasks = new ArrayList<>(functionCount);
+        for (CancelableFunction<? extends V> function : functions) {
+            SubmittedTask<V> submittedTask = new SubmittedTask<>(function);
+            submittedTasks.add(submittedTask);
+            result.add(submittedTask.getFuture());
+        }
+
+        if (functionCount > 0) {
+            submitTasks(cancelToken, submittedTasks);
+        }
+        return result;
+    }
+
     /**
      * Defines the submitted task to be executed by subclasses of {@link AbstractTaskExecutor}.
      * <P>
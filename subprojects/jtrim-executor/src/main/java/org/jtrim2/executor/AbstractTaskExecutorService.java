@@ -1,8 +1,11 @@
 package org.jtrim2.executor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletionStage;
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.utils.ExceptionHelper;
 
 /**
  * Defines a convenient abstract base class for {@link TaskExecutorService}
@@ -34,4 +37,26 @@ implements
 
         return super.executeFunction(cancelToken, function);
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <V> List<CompletionStage<V>> executeFunctions(
+            CancellationToken cancelToken,
+            List<? extends CancelableFunction<? extends V>> functions) {
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullElements(functions, "functions");
+
+        if (isShutdown()) {
+            int functionCount = functions.size();
+            List<CompletionStage<V>> result = new ArrayList<>(functionCount);
+            for (int i = 0; i < functionCount; i++) {
+                result.add(CancelableTasks.canceledComplationStage());
+            }
+            return result;
+        }
+
+        return super.executeFunctions(cancelToken, functions);
+    }
 }
@@ -0,0 +1,184 @@
+package org.jtrim2.executor;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim2.utils.ExceptionHelper;
+
+/**
+ * Selects the number of threads of a thread pool by hill-climbing: The thread count is changed
+ * by one after each sample, and the throughput measured after the change decides whether to
+ * continue in the same direction or to turn back.
+ * <ul>
+ *   <li>
+ *     If there is no backlog (the queue was empty and tasks barely waited in the queue),
+ *     then the thread count is not the bottleneck, so a thread is released.
+ *   </li>
+ *   <li>
+ *     If there is a backlog but no task completed since the previous sample, then all the
+ *     threads are likely blocked, so a new thread is added.
+ *   </li>
+ *   <li>
+ *     Otherwise, if the throughput improved since the previous change, then the thread count
+ *     is changed again in the same direction, if it got worse, then in the opposite direction.
+ *     If the throughput did not change significantly, then a thread is released, because fewer
+ *     threads can do the same work.
+ *   </li>
+ * </ul>
+ *
+ * <h2>Thread safety</h2>
+ * Methods of this class are safely accessible from multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * Methods of this class are <I>synchronization transparent</I>.
+ */
+final class AdaptiveThreadCountController {
+    // Throughput changes within this ratio are considered to be noise.
+    private static final double THROUGHPUT_TOLERANCE = 0.05;
+
+    private final int minThreadCount;
+    private final long sampleIntervalNanos;
+    private final long backlogQueueWaitNanos;
+
+    private final Lock sampleLock;
+    private volatile long nextSampleNanos;
+    private volatile int threadCount;
+
+    // Guarded by sampleLock
+    private long lastSampleNanos;
+    private long lastCompletedCount;
+    private long lastQueueWaitCount;
+    private long lastQueueWaitTotalNanos;
+    private double lastThroughput;
+    private int direction;
+
+    public AdaptiveThreadCountController(
+            int minThreadCount,
+            int initialThreadCount,
+            long sampleIntervalNanos,
+            long backlogQueueWaitNanos,
+            long nowNanos) {
+
+        this.minThreadCount = ExceptionHelper
+                .checkArgumentInRange(minThreadCount, 1, Integer.MAX_VALUE, "minThreadCount");
+        this.sampleIntervalNanos = ExceptionHelper
+                .checkArgumentInRange(sampleIntervalNanos, 1, Long.MAX_VALUE, "sampleIntervalNanos");
+        this.backlogQueueWaitNanos = ExceptionHelper
+                .checkArgumentInRange(backlogQueueWaitNanos, 0, Long.MAX_VALUE, "backlogQueueWaitNanos");
+
+        this.sampleLock = new ReentrantLock();
+        this.threadCount = Math.max(minThreadCount, initialThreadCount);
+        this.nextSampleNanos = nowNanos + sampleIntervalNanos;
+        this.lastSampleNanos = nowNanos;
+        this.lastCompletedCount = -1;
+        this.lastQueueWaitCount = 0;
+        this.lastQueueWaitTotalNanos = 0;
+        this.lastThroughput = -1.0;
+        this.direction = 1;
+    }
+
+    public int getMinThreadCount() {
+        return minThreadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public long getSampleIntervalNanos() {
+        return sampleIntervalNanos;
+    }
+
+    public boolean isSampleDue(long nowNanos) {
+        return nowNanos - nextSampleNanos >= 0;
+    }
+
+    /**
+     * Adjusts the thread count, if the sample interval has elapsed since the previous sample,
+     * and another thread is not sampling concurrently.
+     *
+     * @return {@code true} if a sample was taken, {@code false} otherwise
+     */
+    public boolean trySample(
+            long nowNanos,
+            long completedCount,
+            long queueWaitCount,
+            long queueWaitTotalNanos,
+            long queuedTaskCount,
+            int maxThreadCount) {
+
+        if (!sampleLock.tryLock()) {
+            return false;
+        }
+        try {
+            if (!isSampleDue(nowNanos)) {
+                return false;
+            }
+            nextSampleNanos = nowNanos + sampleIntervalNanos;
+
+            sample(nowNanos, completedCount, queueWaitCount, queueWaitTotalNanos, queuedTaskCount, maxThreadCount);
+            return true;
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    private void sample(
+            long nowNanos,
+            long completedCount,
+            long queueWaitCount,
+            long queueWaitTotalNanos,
+            long queuedTaskCount,
+            int maxThreadCount) {
+
+        long elapsedNanos = Math.max(1, nowNanos - lastSampleNanos);
+        long completedDelta = lastCompletedCount >= 0 ? completedCount - lastCompletedCount : -1;
+        long queueWaitCountDelta = queueWaitCount - lastQueueWaitCount;
+        long queueWaitNanosDelta = queueWaitTotalNanos - lastQueueWaitTotalNanos;
+
+        lastSampleNanos = nowNanos;
+        lastCompletedCount = completedCount;
+        lastQueueWaitCount = queueWaitCount;
+        lastQueueWaitTotalNanos = queueWaitTotalNanos;
+
+        boolean backlog = queuedTaskCount > 0
+                || (queueWaitCountDelta > 0 && queueWaitNanosDelta / queueWaitCountDelta > backlogQueueWaitNanos);
+
+        int currentThreadCount = threadCount;
+
+        if (!backlog) {
+            // The throughput is limited by the submitters, so it tells nothing
+            // about the optimal thread count.
+            lastThroughput = -1.0;
+            direction = -1;
+        } else if (completedDelta == 0) {
+            lastThroughput = 0.0;
+            direction = 1;
+        } else if (completedDelta < 0 || lastThroughput < 0.0) {
+            lastThroughput = completedDelta < 0 ? -1.0 : (double) completedDelta / elapsedNanos;
+            direction = 1;
+        } else {
+            double throughput = (double) completedDelta / elapsedNanos;
+            double change = lastThroughput > 0.0
+                    ? (throughput - lastThroughput) / lastThroughput
+                    : 1.0;
+            lastThroughput = throughput;
+
+            if (change < -THROUGHPUT_TOLERANCE) {
+                direction = -direction;
+            } else if (change <= THROUGHPUT_TOLERANCE) {
+                direction = -1;
+            }
+        }
+
+        int upperBound = Math.max(minThreadCount, maxThreadCount);
+        int newThreadCount = Math.min(upperBound, Math.max(minThreadCount, currentThreadCount + direction));
+        threadCount = newThreadCount;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveThreadCount{"
+                + "minThreadCount=" + minThreadCount
+                + ", threadCount=" + threadCount + '}';
+    }
+}
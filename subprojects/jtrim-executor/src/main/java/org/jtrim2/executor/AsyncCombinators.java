@@ -0,0 +1,433 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.cancel.OperationTimeoutException;
+import org.jtrim2.collections.CollectionsEx;
+import org.jtrim2.concurrent.AsyncFunction;
+import org.jtrim2.concurrent.AsyncTasks;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * Defines static methods to combine {@link AsyncFunction asynchronous computations}. The
+ * combined computations propagate cancellation to the computations they are composed of:
+ * When the result of a computation is no longer needed (because the combined computation
+ * has already completed), the computation is canceled, so that it does not waste resources
+ * on a result nobody waits for.
+ * <P>
+ * Note that the {@code CompletionStage} of a combined computation might complete before
+ * the computations canceled by it actually stop. The canceled computations are only notified
+ * through their {@code CancellationToken}.
+ * <P>
+ * If you have a synchronous task, you can convert it to an {@code AsyncFunction} using
+ * {@link CancelableTasks#toAsync(TaskExecutor, CancelableFunction) CancelableTasks.toAsync}.
+ * <P>
+ * This class cannot be inherited nor instantiated.
+ *
+ * <h2>Thread safety</h2>
+ * Methods of this class are safe to be accessed from multiple threads
+ * concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * Methods of this class are <I>synchronization transparent</I>. However, the
+ * {@code AsyncFunction} instances returned by them are not.
+ */
+public final class AsyncCombinators {
+    /**
+     * Returns a computation executing all the given computations concurrently, and
+     * completing with the list of their results. The results are in the same order as
+     * the computations producing them.
+     * <P>
+     * If any of the given computations fails (or is canceled), the returned computation
+     * completes exceptionally with the same exception immediately, and the other
+     * computations are canceled.
+     *
+     * @param <R> the type of the results of the computations
+     * @param tasks the computations to be executed. This argument cannot be {@code null}
+     *   and cannot contain {@code null} elements. However, it might be empty, in which
+     *   case the returned computation completes with an empty list.
+     * @return the computation executing all the given computations concurrently. This
+     *   method never returns {@code null}.
+     */
+    public static <R> AsyncFunction<List<R>> allOf(List<? extends AsyncFunction<? extends R>> tasks) {
+        List<AsyncFunction<? extends R>> taskList = CollectionsEx.readOnlyCopy(tasks);
+        ExceptionHelper.checkNotNullElements(taskList, "tasks");
+
+        return cancelToken -> {
+            Objects.requireNonNull(cancelToken, "cancelToken");
+
+            int taskCount = taskList.size();
+            if (taskCount == 0) {
+                return CompletableFuture.completedFuture(Collections.emptyList());
+            }
+
+            CancellationSource cancelSource = Cancellation.createChildCancellationSource(cancelToken);
+            CompletableFuture<List<R>> result = new CompletableFuture<>();
+            AtomicReferenceArray<R> results = new AtomicReferenceArray<>(taskCount);
+            AtomicInteger remainingCount = new AtomicInteger(taskCount);
+
+            for (int i = 0; i < taskCount; i++) {
+                int taskIndex = i;
+                startSafely(taskList.get(i), cancelSource.getToken()).whenComplete((taskResult, failure) -> {
+                    if (failure != null) {
+                        if (result.completeExceptionally(AsyncTasks.unwrap(failure))) {
+                            cancelSource.getController().cancel();
+                        }
+                        return;
+                    }
+
+                    results.set(taskIndex, taskResult);
+                    if (remainingCount.decrementAndGet() == 0) {
+                        List<R> resultList = new ArrayList<>(taskCount);
+                        for (int j = 0; j < taskCount; j++) {
+                            resultList.add(results.get(j));
+                        }
+                        result.complete(Collections.unmodifiableList(resultList));
+                    }
+                });
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns a computation executing all the given computations concurrently, and
+     * completing with the result of the first computation completing successfully.
+     * After a computation completed successfully, the other computations are canceled.
+     * <P>
+     * If all the computations fail, the returned computation completes exceptionally
+     * with the exception of one of the failed computations, and the exceptions of the
+     * other failed computations are added to it as suppressed exceptions. Cancellation
+     * is only reported if all the computations were canceled.
+     *
+     * @param <R> the type of the results of the computations
+     * @param tasks the computations to be executed. This argument cannot be {@code null}
+     *   and cannot contain {@code null} elements. This argument must contain at least
+     *   one computation.
+     * @return the computation executing all the given computations concurrently. This
+     *   method never returns {@code null}.
+     */
+    public static <R> AsyncFunction<R> anyOf(List<? extends AsyncFunction<? extends R>> tasks) {
+        List<AsyncFunction<? extends R>> taskList = CollectionsEx.readOnlyCopy(tasks);
+        ExceptionHelper.checkNotNullElements(taskList, "tasks");
+        ExceptionHelper.checkArgumentInRange(taskList.size(), 1, Integer.MAX_VALUE, "tasks.size()");
+
+        return cancelToken -> {
+            Objects.requireNonNull(cancelToken, "cancelToken");
+
+            FirstResultCollector<R> collector = new FirstResultCollector<>(cancelToken);
+            for (AsyncFunction<? extends R> task: taskList) {
+                collector.startAttempt(task);
+            }
+            collector.finishStarting();
+            return collector.getResult();
+        };
+    }
+
+    /**
+     * Returns a computation executing the given computation, and executing it again
+     * if the previous executions do not complete within the given delay (i.e., it sends
+     * hedged requests). The returned computation completes with the result of the first
+     * execution completing successfully, and cancels the other executions.
+     * <P>
+     * If an execution fails, the next execution is started immediately (without waiting
+     * for the delay to elapse). If all the executions fail, the returned computation
+     * completes exceptionally with the exception of one of the failed executions, and
+     * the exceptions of the other failed executions are added to it as suppressed
+     * exceptions.
+     *
+     * @param <R> the type of the result of the computation
+     * @param scheduler the executor used to wait for the delay between the executions.
+     *   The executions themselves are not submitted to this executor. This argument cannot
+     *   be {@code null}.
+     * @param hedgeDelay the time to wait for the previous executions to complete before
+     *   starting a new execution. This argument cannot be {@code null}.
+     * @param maxAttempts the maximum number of times the given computation is executed.
+     *   This argument must be greater than or equal to 1.
+     * @param task the computation to be executed. This argument cannot be {@code null}.
+     * @return the computation executing the given computation one or more times. This
+     *   method never returns {@code null}.
+     */
+    public static <R> AsyncFunction<R> hedged(
+            ScheduledTaskExecutor scheduler,
+            TimeDuration hedgeDelay,
+            int maxAttempts,
+            AsyncFunction<? extends R> task) {
+
+        Objects.requireNonNull(scheduler, "scheduler");
+        Objects.requireNonNull(hedgeDelay, "hedgeDelay");
+        ExceptionHelper.checkArgumentInRange(maxAttempts, 1, Integer.MAX_VALUE, "maxAttempts");
+        Objects.requireNonNull(task, "task");
+
+        return cancelToken -> {
+            Objects.requireNonNull(cancelToken, "cancelToken");
+
+            HedgedExecution<R> execution = new HedgedExecution<>(scheduler, hedgeDelay, maxAttempts, task, cancelToken);
+            execution.startAttempt(0);
+            return execution.getResult();
+        };
+    }
+
+    /**
+     * Returns a computation executing the given computation, but completing exceptionally
+     * with an {@link OperationTimeoutException} if the given computation does not complete
+     * within the given time. In case of a timeout, the given computation is canceled.
+     *
+     * @param <R> the type of the result of the computation
+     * @param scheduler the executor used to wait for the timeout. The computation itself is
+     *   not submitted to this executor. This argument cannot be {@code null}.
+     * @param timeout the maximum time to wait for the given computation to complete.
+     *   This argument cannot be {@code null}.
+     * @param task the computation to be executed. This argument cannot be {@code null}.
+     * @return the computation executing the given computation with a timeout. This
+     *   method never returns {@code null}.
+     */
+    public static <R> AsyncFunction<R> withTimeout(
+            ScheduledTaskExecutor scheduler,
+            TimeDuration timeout,
+            AsyncFunction<? extends R> task) {
+
+        Objects.requireNonNull(scheduler, "scheduler");
+        Objects.requireNonNull(timeout, "timeout");
+        Objects.requireNonNull(task, "task");
+
+        return cancelToken -> {
+            Objects.requireNonNull(cancelToken, "cancelToken");
+
+            CancellationSource taskCancelSource = Cancellation.createChildCancellationSource(cancelToken);
+            CancellationSource timerCancelSource = Cancellation.createCancellationSource();
+            CompletableFuture<R> result = new CompletableFuture<>();
+
+            scheduler.schedule(timerCancelSource.getToken(), timeout, timerCancelToken -> {
+                if (result.completeExceptionally(OperationTimeoutException.withoutStackTrace())) {
+                    taskCancelSource.getController().cancel();
+                }
+            }).exceptionally(AsyncTasks::expectNoError);
+
+            startSafely(task, taskCancelSource.getToken()).whenComplete((taskResult, failure) -> {
+                timerCancelSource.getController().cancel();
+                AsyncTasks.complete(taskResult, AsyncTasks.unwrap(failure), result);
+            });
+            return result;
+        };
+    }
+
+    private static <R> CompletionStage<? extends R> startSafely(
+            AsyncFunction<? extends R> task,
+            CancellationToken cancelToken) {
+
+        try {
+            return task.executeAsync(cancelToken);
+        } catch (Throwable ex) {
+            CompletableFuture<R> result = new CompletableFuture<>();
+            result.completeExceptionally(ex);
+            return result;
+        }
+    }
+
+    private static Throwable combineFailures(List<Throwable> failures) {
+        // Prefer reporting a real failure over cancellation.
+        Throwable mainFailure = null;
+        for (Throwable failure: failures) {
+            if (!AsyncTasks.isCanceled(failure)) {
+                mainFailure = failure;
+                break;
+            }
+        }
+        if (mainFailure == null) {
+            return failures.isEmpty()
+                    ? OperationCanceledException.withoutStackTrace()
+                    : failures.get(0);
+        }
+
+        for (Throwable failure: failures) {
+            if (failure != mainFailure && !AsyncTasks.isCanceled(failure)) {
+                mainFailure.addSuppressed(failure);
+            }
+        }
+        return mainFailure;
+    }
+
+    // Collects the first successful result of the started attempts, and
+    // cancels the other attempts after a successful result is available.
+    private static class FirstResultCollector<R> {
+        private final CancellationSource cancelSource;
+        private final CompletableFuture<R> result;
+
+        private final Lock failuresLock;
+        private final List<Throwable> failures;
+        private int startedCount;
+        private boolean startingFinished;
+
+        public FirstResultCollector(CancellationToken cancelToken) {
+            this.cancelSource = Cancellation.createChildCancellationSource(cancelToken);
+            this.result = new CompletableFuture<>();
+            this.failuresLock = new ReentrantLock();
+            this.failures = new ArrayList<>();
+            this.startedCount = 0;
+            this.startingFinished = false;
+        }
+
+        public CompletableFuture<R> getResult() {
+            return result;
+        }
+
+        public CancellationToken getCancelToken() {
+            return cancelSource.getToken();
+        }
+
+        public void startAttempt(AsyncFunction<? extends R> task) {
+            failuresLock.lock();
+            try {
+                startedCount++;
+            } finally {
+                failuresLock.unlock();
+            }
+
+            startSafely(task, cancelSource.getToken()).whenComplete(this::onAttemptCompleted);
+        }
+
+        // Must be called after no more attempts are going to be started, so that
+        // the result can be completed after all the started attempts failed.
+        public void finishStarting() {
+            Throwable toReport;
+            failuresLock.lock();
+            try {
+                startingFinished = true;
+                toReport = tryGetFinalFailure();
+            } finally {
+                failuresLock.unlock();
+            }
+
+            if (toReport != null) {
+                result.completeExceptionally(toReport);
+            }
+        }
+
+        public boolean isStartingFinished() {
+            failuresLock.lock();
+            try {
+                return startingFinished;
+            } finally {
+                failuresLock.unlock();
+            }
+        }
+
+        private Throwable tryGetFinalFailure() {
+            if (!startingFinished || failures.size() < startedCount) {
+                return null;
+            }
+            return combineFailures(failures);
+        }
+
+        protected void onAttemptFailed() {
+        }
+
+        private void onAttemptCompleted(R attemptResult, Throwable failure) {
+            if (failure == null) {
+                if (result.complete(attemptResult)) {
+                    cancelSource.getController().cancel();
+                }
+                return;
+            }
+
+            Throwable toReport;
+            failuresLock.lock();
+            try {
+                failures.add(AsyncTasks.unwrap(failure));
+                toReport = tryGetFinalFailure();
+            } finally {
+                failuresLock.unlock();
+            }
+
+            if (toReport != null) {
+                result.completeExceptionally(toReport);
+            } else {
+                onAttemptFailed();
+            }
+        }
+    }
+
+    private static final class HedgedExecution<R> extends FirstResultCollector<R> {
+        private final ScheduledTaskExecutor scheduler;
+        private final TimeDuration hedgeDelay;
+        private final int maxAttempts;
+        private final AsyncFunction<? extends R> task;
+        // The number of attempts started or being started.
+        private final AtomicInteger attemptCount;
+
+        public HedgedExecution(
+                ScheduledTaskExecutor scheduler,
+                TimeDuration hedgeDelay,
+                int maxAttempts,
+                AsyncFunction<? extends R> task,
+                CancellationToken cancelToken) {
+
+            super(cancelToken);
+
+            this.scheduler = scheduler;
+            this.hedgeDelay = hedgeDelay;
+            this.maxAttempts = maxAttempts;
+            this.task = task;
+            this.attemptCount = new AtomicInteger(0);
+        }
+
+        // Starts the attempt with the given index, unless it was already started
+        // (because a previous attempt failed before the delay elapsed).
+        public void startAttempt(int attemptIndex) {
+            if (attemptIndex >= maxAttempts || getResult().isDone()) {
+                return;
+            }
+            if (!attemptCount.compareAndSet(attemptIndex, attemptIndex + 1)) {
+                return;
+            }
+
+            boolean lastAttempt = attemptIndex + 1 >= maxAttempts;
+            if (!lastAttempt) {
+                scheduleNextAttempt(attemptIndex + 1);
+            }
+
+            startAttempt(task);
+
+            if (lastAttempt) {
+                finishStarting();
+            }
+        }
+
+        private void scheduleNextAttempt(int attemptIndex) {
+            scheduler.schedule(getCancelToken(), hedgeDelay, timerCancelToken -> startAttempt(attemptIndex))
+                    .exceptionally(AsyncTasks::expectNoError);
+        }
+
+        @Override
+        protected void onAttemptFailed() {
+            if (getCancelToken().isCanceled()) {
+                // Do not start new attempts, since they would be canceled anyway.
+                if (!isStartingFinished()) {
+                    attemptCount.set(maxAttempts);
+                    finishStarting();
+                }
+                return;
+            }
+
+            startAttempt(attemptCount.get());
+        }
+    }
+
+    private AsyncCombinators() {
+        throw new AssertionError();
+    }
+}
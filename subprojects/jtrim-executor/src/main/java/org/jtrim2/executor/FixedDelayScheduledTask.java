@@ -0,0 +1,53 @@
+package org.jtrim2.executor;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.utils.TimeDuration;
+
+final class FixedDelayScheduledTask {
+    private final ScheduledTaskExecutor executor;
+    private final CancellationToken cancelToken;
+    private final TimeDuration delay;
+    private final CancelableTask task;
+    private final CompletableFuture<Void> result;
+
+    private FixedDelayScheduledTask(
+            ScheduledTaskExecutor executor,
+            CancellationToken cancelToken,
+            TimeDuration delay,
+            CancelableTask task) {
+
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.cancelToken = Objects.requireNonNull(cancelToken, "cancelToken");
+        this.delay = Objects.requireNonNull(delay, "delay");
+        this.task = Objects.requireNonNull(task, "task");
+        this.result = new CompletableFuture<>();
+    }
+
+    public static CompletionStage<Void> start(
+            ScheduledTaskExecutor executor,
+            CancellationToken cancelToken,
+            TimeDuration initialDelay,
+            TimeDuration delay,
+            CancelableTask task) {
+
+        Objects.requireNonNull(initialDelay, "initialDelay");
+
+        FixedDelayScheduledTask repeatingTask = new FixedDelayScheduledTask(executor, cancelToken, delay, task);
+        repeatingTask.scheduleNext(initialDelay);
+        return repeatingTask.result;
+    }
+
+    private void scheduleNext(TimeDuration currentDelay) {
+        executor.schedule(cancelToken, currentDelay, task)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        scheduleNext(delay);
+                    }
+                });
+    }
+}
@@ -1,6 +1,10 @@
 package org.jtrim2.executor;
 
+import java.util.Objects;
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.cancel.OperationTimeoutException;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
 
 /**
  * Defines a handler to create a custom exception, when a thread pool finds its task queue full.
@@ -30,6 +34,42 @@ public interface FullQueueHandler {
         return cancelToken -> null;
     }
 
+    /**
+     * Returns a handler instructing the executor to block and wait, but only for at most the given
+     * amount of time. If the task still cannot be added to the queue of the executor after the given
+     * time elapses, the executor gives up on the task: The task will not be executed, and its
+     * {@code CompletionStage} is completed exceptionally with an {@link OperationTimeoutException}
+     * (the same way as if the task was canceled while waiting for the queue).
+     * <P>
+     * This handler allows to keep the latency of the task submission bounded when the executor
+     * is overloaded. Note that a zero timeout means that tasks are dropped immediately when the
+     * queue is full.
+     *
+     * @param maxBlockTime the maximum time to wait for the queue of the executor to have space
+     *   for the task. This argument cannot be {@code null} and cannot be negative.
+     * @return a handler instructing the executor to block and wait, but only for at most the given
+     *   amount of time. This method never returns {@code null}.
+     *
+     * @see #getMaxBlockNanos()
+     */
+    public static FullQueueHandler blockWithTimeoutHandler(TimeDuration maxBlockTime) {
+        Objects.requireNonNull(maxBlockTime, "maxBlockTime");
+        long maxBlockNanos = ExceptionHelper.checkArgumentInRange(
+                maxBlockTime.toNanos(), 0, Long.MAX_VALUE, "maxBlockTime");
+
+        return new FullQueueHandler() {
+            @Override
+            public RuntimeException tryGetFullQueueException(CancellationToken cancelToken) {
+                return null;
+            }
+
+            @Override
+            public long getMaxBlockNanos() {
+                return maxBlockNanos;
+            }
+        };
+    }
+
     /**
      * Creates an exception to be thrown to signal that the executor queue is full, or returns {@code null}
      * to instruct the executor to block and wait until it can execute the task. This method is
@@ -49,4 +89,24 @@ public interface FullQueueHandler {
      *   as returning the exception
      */
     public RuntimeException tryGetFullQueueException(CancellationToken cancelToken);
+
+    /**
+     * Returns the maximum time the executor is allowed to block and wait for its queue to have
+     * space for the task, after {@link #tryGetFullQueueException(CancellationToken) tryGetFullQueueException}
+     * instructed it to block. If the task still cannot be added to the queue after this time elapses,
+     * the executor does not execute the task, and completes its {@code CompletionStage} exceptionally
+     * with an {@link OperationTimeoutException}. The time is
+     * measured from when the executor first observed that its queue was full (including the time
+     * spent in {@code tryGetFullQueueException}).
+     * <P>
+     * The default implementation returns {@code Long.MAX_VALUE}, which means that the executor
+     * might block for an unbounded amount of time.
+     *
+     * @return the maximum time in nanoseconds the executor is allowed to block and wait for its
+     *   queue to have space for the task, or {@code Long.MAX_VALUE} if there is no such limit.
+     *   This method must never return a negative value.
+     */
+    public default long getMaxBlockNanos() {
+        return Long.MAX_VALUE;
+    }
 }
@@ -0,0 +1,351 @@
+package org.jtrim2.executor;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.concurrent.AsyncTasks;
+import org.jtrim2.event.ListenerRef;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * Defines a {@code ScheduledTaskExecutor} based on a hashed timing wheel.
+ * <P>
+ * The timing wheel is an array of buckets, where each bucket covers a single tick
+ * of time. A scheduled task is put into the bucket of the tick in which its delay elapses
+ * (modulo the number of buckets), so adding and removing a task are constant time
+ * operations regardless of the number of scheduled tasks. A dedicated timer thread visits
+ * the buckets one after another, and submits the tasks whose delay has elapsed to the
+ * wrapped executor.
+ * <P>
+ * The timer thread is the only thread accessing the buckets. Other threads only add
+ * newly scheduled tasks and cancellation requests to lock-free queues which are processed
+ * by the timer thread on each tick. The timer thread is started when needed and stops if
+ * there were no scheduled tasks for a while.
+ *
+ * <h2>Thread safety</h2>
+ * Methods of this class are safely accessible from multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * Method of this class are not <I>synchronization transparent</I>.
+ */
+final class HashedWheelScheduledTaskExecutor implements ScheduledTaskExecutor {
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_DELAY_NANOS = Long.MAX_VALUE >> 2;
+    private static final int MAX_WHEEL_SIZE = 1 << 30;
+
+    private final TaskExecutor executor;
+    private final ThreadFactory threadFactory;
+    private final long tickNanos;
+    private final TimerBucket[] wheel;
+    private final int wheelMask;
+
+    private final IntrusiveMpscQueue<TimerEntry<?>> addedEntries;
+    private final IntrusiveMpscQueue<CancelRequest> cancelRequests;
+    private final AtomicInteger addedEntriesCount;
+    private final AtomicBoolean workerRunning;
+    private volatile Thread idleWorker;
+
+    // Only accessed by the timer thread.
+    private int wheelEntryCount;
+
+    public HashedWheelScheduledTaskExecutor(
+            TaskExecutor executor,
+            ThreadFactory threadFactory,
+            TimeDuration tickDuration,
+            int wheelSize) {
+
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.threadFactory = Objects.requireNonNull(threadFactory, "threadFactory");
+        this.tickNanos = tickDuration.toNanos();
+        ExceptionHelper.checkArgumentInRange(tickNanos, 1, Long.MAX_VALUE, "tickDuration");
+        ExceptionHelper.checkArgumentInRange(wheelSize, 1, MAX_WHEEL_SIZE, "wheelSize");
+
+        int normalizedWheelSize = Integer.highestOneBit(wheelSize);
+        if (normalizedWheelSize < wheelSize) {
+            normalizedWheelSize <<= 1;
+        }
+
+        this.wheel = new TimerBucket[normalizedWheelSize];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new TimerBucket();
+        }
+        this.wheelMask = normalizedWheelSize - 1;
+
+        this.addedEntries = new IntrusiveMpscQueue<>();
+        this.cancelRequests = new IntrusiveMpscQueue<>();
+        this.addedEntriesCount = new AtomicInteger(0);
+        this.workerRunning = new AtomicBoolean(false);
+        this.idleWorker = null;
+        this.wheelEntryCount = 0;
+    }
+
+    @Override
+    public <V> CompletionStage<V> executeFunction(
+            CancellationToken cancelToken,
+            CancelableFunction<? extends V> function) {
+        return executor.executeFunction(cancelToken, function);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public <V> CompletionStage<V> scheduleFunction(
+            CancellationToken cancelToken,
+            TimeDuration delay,
+            CancelableFunction<? extends V> function) {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        Objects.requireNonNull(delay, "delay");
+        Objects.requireNonNull(function, "function");
+
+        if (cancelToken.isCanceled()) {
+            return CancelableTasks.canceledComplationStage();
+        }
+
+        long delayNanos = Math.min(Math.max(delay.toNanos(), 0), MAX_DELAY_NANOS);
+        long deadlineNanos = System.nanoTime() + delayNanos;
+
+        TimerEntry<V> entry = new TimerEntry<>(cancelToken, function, deadlineNanos);
+        entry.cancelRef = cancelToken.addCancellationListener(entry::cancel);
+
+        addedEntries.offer(entry);
+        addedEntriesCount.incrementAndGet();
+        startOrWakeWorker();
+
+        return entry.future;
+    }
+
+    private void startOrWakeWorker() {
+        if (!workerRunning.get() && workerRunning.compareAndSet(false, true)) {
+            try {
+                Thread thread = threadFactory.newThread(this::runWorker);
+                Objects.requireNonNull(thread, "threadFactory.newThread");
+                thread.start();
+            } catch (Throwable ex) {
+                workerRunning.set(false);
+                throw ex;
+            }
+            return;
+        }
+
+        Thread currentIdleWorker = idleWorker;
+        if (currentIdleWorker != null) {
+            LockSupport.unpark(currentIdleWorker);
+        }
+    }
+
+    private void runWorker() {
+        Thread currentThread = Thread.currentThread();
+        while (true) {
+            runTicks();
+            // All the remaining requests belong to entries already removed.
+            processCancelRequests();
+
+            idleWorker = currentThread;
+            try {
+                long idleStartNanos = System.nanoTime();
+                long remainingNanos = IDLE_TIMEOUT_NANOS;
+                while (remainingNanos > 0 && addedEntriesCount.get() <= 0) {
+                    LockSupport.parkNanos(this, remainingNanos);
+                    remainingNanos = IDLE_TIMEOUT_NANOS - (System.nanoTime() - idleStartNanos);
+                }
+            } finally {
+                idleWorker = null;
+            }
+
+            if (addedEntriesCount.get() > 0) {
+                continue;
+            }
+
+            workerRunning.set(false);
+            if (addedEntriesCount.get() <= 0 || !workerRunning.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Processes ticks until there are no more scheduled tasks. Buckets are always empty
+     * when this method is called and when it returns, so the ticks can be counted from zero.
+     */
+    private void runTicks() {
+        long startNanos = System.nanoTime();
+        long tick = 0;
+
+        do {
+            long tickEndNanos = startNanos + (tick + 1) * tickNanos;
+            long waitNanos = tickEndNanos - System.nanoTime();
+            while (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                waitNanos = tickEndNanos - System.nanoTime();
+            }
+
+            transferAddedEntries(startNanos, tick);
+            processCancelRequests();
+            expireBucket(wheel[(int) (tick & wheelMask)]);
+            tick++;
+        } while (wheelEntryCount > 0 || addedEntriesCount.get() > 0);
+    }
+
+    private void transferAddedEntries(long startNanos, long currentTick) {
+        TimerEntry<?> entry = addedEntries.poll();
+        for (; entry != null; entry = addedEntries.poll()) {
+            addedEntriesCount.decrementAndGet();
+            if (entry.isDone()) {
+                continue;
+            }
+
+            long expireTick = ceilDiv(entry.deadlineNanos - startNanos, tickNanos) - 1;
+            long ticksToWait = Math.max(expireTick - currentTick, 0);
+
+            entry.remainingRounds = ticksToWait / wheel.length;
+            wheel[(int) ((currentTick + ticksToWait) & wheelMask)].add(entry);
+            wheelEntryCount++;
+        }
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        if (value <= 0) {
+            return 0;
+        }
+        return (value - 1) / divisor + 1;
+    }
+
+    private void processCancelRequests() {
+        CancelRequest request = cancelRequests.poll();
+        for (; request != null; request = cancelRequests.poll()) {
+            TimerEntry<?> entry = request.entry;
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+                wheelEntryCount--;
+            }
+        }
+    }
+
+    private void expireBucket(TimerBucket bucket) {
+        TimerEntry<?> entry = bucket.head;
+        while (entry != null) {
+            TimerEntry<?> next = entry.next;
+            if (entry.remainingRounds <= 0) {
+                bucket.remove(entry);
+                wheelEntryCount--;
+                entry.expire(executor);
+            } else {
+                entry.remainingRounds--;
+            }
+            entry = next;
+        }
+    }
+
+    private final class TimerEntry<V> extends IntrusiveMpscQueue.Node {
+        private final CancellationToken cancelToken;
+        private final AtomicReference<CancelableFunction<? extends V>> functionRef;
+        private final CompletableFuture<V> future;
+        private final long deadlineNanos;
+        private volatile ListenerRef cancelRef;
+
+        // The following fields are only accessed by the timer thread.
+        private long remainingRounds;
+        private TimerBucket bucket;
+        private TimerEntry<?> prev;
+        private TimerEntry<?> next;
+
+        public TimerEntry(CancellationToken cancelToken, CancelableFunction<? extends V> function, long deadlineNanos) {
+            this.cancelToken = cancelToken;
+            this.functionRef = new AtomicReference<>(function);
+            this.future = new CompletableFuture<>();
+            this.deadlineNanos = deadlineNanos;
+            this.cancelRef = null;
+        }
+
+        public boolean isDone() {
+            return functionRef.get() == null;
+        }
+
+        public void cancel() {
+            if (functionRef.getAndSet(null) == null) {
+                return;
+            }
+
+            cancelRequests.offer(new CancelRequest(this));
+            future.completeExceptionally(OperationCanceledException.withoutStackTrace());
+        }
+
+        public void expire(TaskExecutor targetExecutor) {
+            CancelableFunction<? extends V> function = functionRef.getAndSet(null);
+            if (function == null) {
+                return;
+            }
+
+            ListenerRef currentCancelRef = cancelRef;
+            if (currentCancelRef != null) {
+                currentCancelRef.unregister();
+            }
+
+            try {
+                targetExecutor.executeFunction(cancelToken, function)
+                        .whenComplete(AsyncTasks.completeForwarder(future));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+    }
+
+    private static final class CancelRequest extends IntrusiveMpscQueue.Node {
+        private final TimerEntry<?> entry;
+
+        public CancelRequest(TimerEntry<?> entry) {
+            this.entry = entry;
+        }
+    }
+
+    private static final class TimerBucket {
+        private TimerEntry<?> head;
+        private TimerEntry<?> tail;
+
+        public void add(TimerEntry<?> entry) {
+            entry.bucket = this;
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+        }
+
+        public void remove(TimerEntry<?> entry) {
+            TimerEntry<?> prev = entry.prev;
+            TimerEntry<?> next = entry.next;
+
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.next = next;
+            }
+
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prev = prev;
+            }
+
+            entry.bucket = null;
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+}
@@ -1,17 +1,11 @@
 package org.jtrim2.executor;
 
-import java.util.LinkedList;
 import java.util.Objects;
-import java.util.Queue;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.event.ListenerRef;
-import org.jtrim2.utils.ExceptionHelper;
 
 /**
  * @see TaskExecutors#inOrderExecutor(TaskExecutor)
@@ -22,102 +16,41 @@ extends
 implements
         MonitorableTaskExecutor {
     private final TaskExecutor executor;
-    private final Lock queueLock;
-    private final AtomicReference<Thread> dispatcherThread; // null means that noone is dispatching
-    private final Queue<TaskDef> taskQueue;
+    private final SerialDispatchQueue<TaskDef> taskQueue;
 
     public InOrderTaskExecutor(TaskExecutor executor) {
         Objects.requireNonNull(executor, "executor");
         this.executor = executor;
-        this.queueLock = new ReentrantLock();
-        this.dispatcherThread = new AtomicReference<>(null);
-        this.taskQueue = new LinkedList<>();
-    }
-
-    private boolean isCurrentThreadDispatching() {
-        return dispatcherThread.get() == Thread.currentThread();
-    }
-
-    private boolean isQueueEmpty() {
-        queueLock.lock();
-        try {
-            return taskQueue.isEmpty();
-        } finally {
-            queueLock.unlock();
-        }
-    }
-
-    private TaskDef pollFromQueue() {
-        queueLock.lock();
-        try {
-            return taskQueue.poll();
-        } finally {
-            queueLock.unlock();
-        }
+        this.taskQueue = new SerialDispatchQueue<>();
     }
 
     private void dispatchTasks(CancellationToken cancelToken) {
-        if (isCurrentThreadDispatching()) {
-            // Tasks will be dispatched there.
-            return;
-        }
-
-        Thread currentThread = Thread.currentThread();
-        Throwable toThrow = null;
-        while (!isQueueEmpty()) {
-            if (dispatcherThread.compareAndSet(null, currentThread)) {
-                try {
-                    TaskDef taskDef = pollFromQueue();
-                    if (taskDef != null) {
-                        taskDef.doTask(cancelToken);
-                    }
-                } catch (Throwable ex) {
-                    // Only in a case of a very serious error (like OutOfMemory)
-                    // will this block be executed because exceptions thrown
-                    // by the task is caught and logged.
-                    if (toThrow == null) toThrow = ex;
-                    else toThrow.addSuppressed(ex);
-                } finally {
-                    dispatcherThread.set(null);
-                }
-            } else {
-                return;
-            }
-        }
-
-        ExceptionHelper.rethrowIfNotNull(toThrow);
+        // Exceptions are only propagated in a case of a very serious error
+        // (like OutOfMemory) because exceptions thrown by the task is caught
+        // and logged.
+        taskQueue.dispatch(taskDef -> taskDef.doTask(cancelToken));
     }
 
     @Override
     public long getNumberOfQueuedTasks() {
-        queueLock.lock();
-        try {
-            return taskQueue.size();
-        } finally {
-            queueLock.unlock();
-        }
+        return taskQueue.size();
     }
 
     @Override
     public long getNumberOfExecutingTasks() {
-        return dispatcherThread.get() != null ? 1 : 0;
+        return taskQueue.isDispatching() ? 1 : 0;
     }
 
     @Override
     public boolean isExecutingInThis() {
-        return isCurrentThreadDispatching();
+        return taskQueue.isCurrentThreadDispatching();
     }
 
     @Override
     protected void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask) {
         final TaskDef taskDef = new TaskDef(cancelToken, submittedTask);
 
-        queueLock.lock();
-        try {
-            taskQueue.add(taskDef);
-        } finally {
-            queueLock.unlock();
-        }
+        taskQueue.add(taskDef);
 
         final ListenerRef cancelRef = cancelToken.addCancellationListener(taskDef::removeTask);
 
@@ -144,7 +77,7 @@ implements
         });
     }
 
-    private static class TaskDef {
+    private static final class TaskDef extends IntrusiveMpscQueue.Node {
         private volatile CancellationToken cancelToken;
         private volatile SubmittedTask<?> submittedTask;
 
@@ -0,0 +1,31 @@
+package org.jtrim2.executor;
+
+/**
+ * Defines a {@code MonitorableTaskExecutor} which also collects statistics about the tasks
+ * submitted to it. These statistics are meant to help tuning the configuration of thread pools
+ * (like the maximum thread count and queue size) based on data collected from production.
+ *
+ * <h2>Thread safety</h2>
+ * Implementations of this interface are required to be safely accessible from
+ * multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * The {@link #getMetrics() getMetrics} method is required to be <I>synchronization transparent</I>.
+ *
+ * @see ThreadPoolBuilder
+ */
+public interface InstrumentedTaskExecutor extends MonitorableTaskExecutor {
+    /**
+     * Returns the statistics collected by this executor since it was created. The returned
+     * object is updated as tasks are submitted to this executor, so it is enough to call this
+     * method once.
+     * <P>
+     * Collecting the statistics is disabled by default, in which case this method returns a
+     * {@link ThreadPoolMetrics#isEnabled() disabled} instance only reporting zeros. The statistics
+     * can be enabled by {@link ThreadPoolBuilder#setMetricsEnabled(boolean)}.
+     *
+     * @return the statistics collected by this executor since it was created. This method
+     *   never returns {@code null}.
+     */
+    public ThreadPoolMetrics getMetrics();
+}
@@ -0,0 +1,157 @@
+package org.jtrim2.executor;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Defines an unbounded, lock-free, intrusive multi-producer single-consumer FIFO queue.
+ * The elements of the queue are the nodes themselves, so adding an element to this queue
+ * does not allocate anything. As a consequence, an element can only be in a single
+ * {@code IntrusiveMpscQueue} at a time, and it may only be added once.
+ * <P>
+ * The implementation is based on the algorithm of Dmitry Vyukov: Producers only need a
+ * single atomic exchange to add an element. Note that the queue is not linearizable
+ * for the consumer: The consumer might not see an element (even the first element) for a
+ * short period of time, if the producer adding it has not yet completed its {@code offer}
+ * call. Therefore, a consumer relying on the producer to notify it about new elements
+ * must only be notified after the {@code offer} method returned.
+ *
+ * <h2>Thread safety</h2>
+ * The {@link #offer(Node) offer} method can be called concurrently from multiple threads,
+ * but the {@link #poll() poll} and {@link #removeIf(Predicate) removeIf} methods may only be called
+ * by a single thread at a time (or calls must be externally synchronized).
+ *
+ * <h3>Synchronization transparency</h3>
+ * The methods of this class are <I>synchronization transparent</I>.
+ *
+ * @param <E> the type of the elements of the queue
+ */
+final class IntrusiveMpscQueue<E extends IntrusiveMpscQueue.Node> {
+    private final Node stub;
+    private final AtomicReference<Node> tail;
+    // Only accessed by the consumer.
+    private Node head;
+
+    public IntrusiveMpscQueue() {
+        this.stub = new Node();
+        this.tail = new AtomicReference<>(stub);
+        this.head = stub;
+    }
+
+    /**
+     * Adds the given element to the end of this queue. The element must not have been
+     * added to any {@code IntrusiveMpscQueue} before.
+     *
+     * @param element the element to be added to this queue. This argument cannot be
+     *   {@code null}.
+     */
+    public void offer(E element) {
+        offerNode(element);
+    }
+
+    private void offerNode(Node node) {
+        node.next = null;
+        Node prev = tail.getAndSet(node);
+        prev.next = node;
+    }
+
+    /**
+     * Removes and returns the first element of this queue, or returns {@code null} if there
+     * is no element available. This method may only be called by the single consumer.
+     *
+     * @return the removed first element of this queue, or {@code null} if there is no
+     *   element available
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        Node currentHead = head;
+        Node next = currentHead.next;
+
+        if (currentHead == stub) {
+            if (next == null) {
+                return null;
+            }
+            head = next;
+            currentHead = next;
+            next = next.next;
+        }
+
+        if (next != null) {
+            head = next;
+            currentHead.next = null;
+            return (E) currentHead;
+        }
+
+        if (currentHead != tail.get()) {
+            // A producer is in the middle of adding a new element.
+            return null;
+        }
+
+        offerNode(stub);
+
+        next = currentHead.next;
+        if (next != null) {
+            head = next;
+            currentHead.next = null;
+            return (E) currentHead;
+        }
+        return null;
+    }
+
+    /**
+     * Removes the elements of this queue satisfying the given predicate, and returns the number of
+     * removed elements. The last element of the queue is never removed by this method, because
+     * producers might concurrently link a new element after it. This method may only be called by
+     * the single consumer.
+     *
+     * @param filter the predicate returning {@code true} for the elements to be removed. This
+     *   argument cannot be {@code null}.
+     * @return the number of elements removed by this method. This value is always greater than
+     *   or equal to zero.
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(Predicate<? super E> filter) {
+        int removedCount = 0;
+        Node prev = null;
+        Node current = head;
+        while (true) {
+            Node next = current.next;
+            if (next == null) {
+                return removedCount;
+            }
+
+            // Nodes having a successor are never modified by producers, so they can be unlinked safely.
+            if (current != stub && filter.test((E) current)) {
+                if (prev == null) {
+                    head = next;
+                } else {
+                    prev.next = next;
+                }
+                current.next = null;
+                removedCount++;
+            } else {
+                prev = current;
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * Returns {@code true} if this queue has no elements which have been completely added.
+     * This method may only be called by the single consumer.
+     *
+     * @return {@code true} if this queue has no elements which have been completely added,
+     *   {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        Node currentHead = head;
+        return currentHead == stub && currentHead.next == null;
+    }
+
+    /**
+     * Defines the base class for the elements of an {@code IntrusiveMpscQueue}.
+     */
+    public static class Node {
+        private volatile Node next;
+    }
+}
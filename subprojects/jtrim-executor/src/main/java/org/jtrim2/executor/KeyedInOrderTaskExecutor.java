@@ -0,0 +1,202 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationToken;
+
+/**
+ * Each active key has a queue in the {@code queues} map. The queue of a key is created
+ * (and is added to the map) by the submitter finding no queue for the key, and this
+ * submitter is responsible for starting to dispatch the tasks of the queue. The dispatcher
+ * removes the queue from the map when it finds it empty, so the next submitter will create
+ * a new queue and start a new dispatcher. Tasks are only added to the queue and the queue
+ * is only removed within the atomic {@code compute} methods of the map, so there is
+ * always at most one dispatcher for each key.
+ *
+ * @see TaskExecutors#keyedInOrderExecutor(TaskExecutor)
+ */
+final class KeyedInOrderTaskExecutor<K> implements KeyedTaskExecutor<K> {
+    // The maximum number of tasks a dispatcher executes before giving the thread back to
+    // the underlying executor, so that keys having lots of tasks cannot starve other keys.
+    private static final int MAX_TASKS_PER_DISPATCH = 64;
+
+    private final TaskExecutor executor;
+    private final ConcurrentMap<K, Queue<TaskDef>> queues;
+
+    public KeyedInOrderTaskExecutor(TaskExecutor executor) {
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.queues = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public TaskExecutor getExecutor(K key) {
+        return new KeyExecutor(key);
+    }
+
+    @Override
+    public long getNumberOfActiveKeys() {
+        return queues.size();
+    }
+
+    private void enqueueTasks(K key, List<TaskDef> taskDefs) {
+        Enqueuer enqueuer = new Enqueuer(taskDefs);
+        Queue<TaskDef> queue = queues.compute(key, enqueuer);
+        if (enqueuer.createdQueue) {
+            startDispatch(key, queue);
+        }
+    }
+
+    private void startDispatch(K key, Queue<TaskDef> queue) {
+        AtomicBoolean executorCancellation = new AtomicBoolean(true);
+        CompletionStage<Void> future;
+        try {
+            future = executor.execute(Cancellation.UNCANCELABLE_TOKEN, taskCancelToken -> {
+                executorCancellation.set(false);
+                if (dispatchTasks(key, queue, taskCancelToken, MAX_TASKS_PER_DISPATCH)) {
+                    startDispatch(key, queue);
+                }
+            });
+        } catch (Throwable ex) {
+            // There is no dispatcher to complete the queued tasks, so we must
+            // complete them, otherwise the key would remain active forever.
+            failTasks(key, queue, ex);
+            throw ex;
+        }
+
+        future.whenComplete((result, error) -> {
+            // If the executor did not execute our task, this is our last chance
+            // to complete the queued tasks. Since we pass CANCELED_TOKEN, the
+            // tasks will only be completed but not executed.
+            if (executorCancellation.get()) {
+                dispatchTasks(key, queue, Cancellation.CANCELED_TOKEN, Integer.MAX_VALUE);
+            }
+        });
+    }
+
+    /**
+     * Executes the tasks of the given queue until the queue becomes empty or the given number
+     * of tasks were executed.
+     *
+     * @return {@code true} if there are still tasks in the queue to be dispatched,
+     *   {@code false} if the queue was removed
+     */
+    private boolean dispatchTasks(
+            K key,
+            Queue<TaskDef> queue,
+            CancellationToken executorCancelToken,
+            int maxTaskCount) {
+
+        for (int i = 0; i < maxTaskCount; i++) {
+            TaskDef taskDef = pollOrRemoveQueue(key, queue);
+            if (taskDef == null) {
+                return false;
+            }
+            taskDef.execute(executorCancelToken);
+        }
+        return true;
+    }
+
+    private void failTasks(K key, Queue<TaskDef> queue, Throwable error) {
+        TaskDef taskDef = pollOrRemoveQueue(key, queue);
+        while (taskDef != null) {
+            taskDef.submittedTask.completeExceptionally(error);
+            taskDef = pollOrRemoveQueue(key, queue);
+        }
+    }
+
+    private TaskDef pollOrRemoveQueue(K key, Queue<TaskDef> queue) {
+        while (true) {
+            TaskDef result = queue.poll();
+            if (result != null) {
+                return result;
+            }
+
+            // Tasks are only added within compute, so if the queue is still empty here,
+            // then the next submitter will see no queue and will start a new dispatcher.
+            Queue<TaskDef> remainingQueue = queues.computeIfPresent(key, (currentKey, currentQueue) -> {
+                return currentQueue.isEmpty() ? null : currentQueue;
+            });
+            if (remainingQueue == null) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KeyedInOrderTaskExecutor{"
+                + "executor=" + executor
+                + ", activeKeys=" + queues.size() + '}';
+    }
+
+    private final class Enqueuer implements BiFunction<K, Queue<TaskDef>, Queue<TaskDef>> {
+        private final List<TaskDef> taskDefs;
+        private boolean createdQueue;
+
+        public Enqueuer(List<TaskDef> taskDefs) {
+            this.taskDefs = taskDefs;
+            this.createdQueue = false;
+        }
+
+        @Override
+        public Queue<TaskDef> apply(K key, Queue<TaskDef> queue) {
+            Queue<TaskDef> result = queue;
+            if (result == null) {
+                result = new ConcurrentLinkedQueue<>();
+                createdQueue = true;
+            }
+            result.addAll(taskDefs);
+            return result;
+        }
+    }
+
+    private final class KeyExecutor extends AbstractTaskExecutor {
+        private final K key;
+
+        public KeyExecutor(K key) {
+            this.key = Objects.requireNonNull(key, "key");
+        }
+
+        @Override
+        protected void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask) {
+            enqueueTasks(key, List.of(new TaskDef(cancelToken, submittedTask)));
+        }
+
+        @Override
+        protected void submitTasks(CancellationToken cancelToken, List<SubmittedTask<?>> submittedTasks) {
+            List<TaskDef> taskDefs = new ArrayList<>(submittedTasks.size());
+            for (SubmittedTask<?> submittedTask : submittedTasks) {
+                taskDefs.add(new TaskDef(cancelToken, submittedTask));
+            }
+            enqueueTasks(key, taskDefs);
+        }
+
+        @Override
+        public String toString() {
+            return "KeyedInOrderTaskExecutor.KeyExecutor{" + "key=" + key + '}';
+        }
+    }
+
+    private static final class TaskDef {
+        private final CancellationToken cancelToken;
+        private final AbstractTaskExecutor.SubmittedTask<?> submittedTask;
+
+        public TaskDef(CancellationToken cancelToken, AbstractTaskExecutor.SubmittedTask<?> submittedTask) {
+            this.cancelToken = Objects.requireNonNull(cancelToken, "cancelToken");
+            this.submittedTask = Objects.requireNonNull(submittedTask, "submittedTask");
+        }
+
+        public void execute(CancellationToken executorCancelToken) {
+            submittedTask.execute(Cancellation.anyToken(executorCancelToken, cancelToken));
+        }
+    }
+}
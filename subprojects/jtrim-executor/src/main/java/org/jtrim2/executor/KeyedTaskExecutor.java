@@ -0,0 +1,52 @@
+package org.jtrim2.executor;
+
+/**
+ * Defines a set of executors identified by keys, where tasks submitted with the same key
+ * are executed in the order they were submitted and never concurrently, while tasks
+ * submitted with different keys may run concurrently. This is useful when the tasks
+ * must be serialized per entity (e.g.: per account or per document) but there are too
+ * many entities to dedicate a separate executor to each of them.
+ * <P>
+ * Keys are compared by their {@code equals} and {@code hashCode} methods.
+ *
+ * <h2>Thread safety</h2>
+ * Implementations of this interface are required to be safely accessible from
+ * multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * The {@link #getExecutor(Object) getExecutor} and the
+ * {@link #getNumberOfActiveKeys() getNumberOfActiveKeys} methods are required to be
+ * <I>synchronization transparent</I>.
+ *
+ * @param <K> the type of the keys identifying the serialized groups of tasks
+ *
+ * @see TaskExecutors#keyedInOrderExecutor(TaskExecutor)
+ */
+public interface KeyedTaskExecutor<K> {
+    /**
+     * Returns the executor executing the submitted tasks in the order they were submitted,
+     * without running them concurrently with other tasks submitted with the same key
+     * (regardless which executor returned by this method they were submitted to).
+     * <P>
+     * This method is cheap and the returned executor does not retain any resources (other than
+     * the key) when there are no tasks submitted to it, so this method might be called for
+     * each submitted task.
+     *
+     * @param key the key identifying the group of tasks which must be executed in order.
+     *   This argument cannot be {@code null}.
+     * @return the executor executing the submitted tasks in order with other tasks submitted
+     *   with the same key. This method never returns {@code null}.
+     */
+    public TaskExecutor getExecutor(K key);
+
+    /**
+     * Returns the approximate number of keys with tasks currently queued or executing.
+     * <P>
+     * Note that the value returned by this method should be considered
+     * unreliable and cannot be used for synchronization purposes.
+     *
+     * @return the approximate number of keys with tasks currently queued or executing.
+     *   This method always returns a value greater than or equal to zero.
+     */
+    public long getNumberOfActiveKeys();
+}
@@ -0,0 +1,166 @@
+package org.jtrim2.executor;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * Defines a set of {@code UpdateTaskExecutor} instances identified by keys, where each key
+ * behaves as a separate {@link ThrottledUpdateTaskExecutor}. That is, each key has its own
+ * slot for the latest submitted task, and tasks of a key are coalesced within the given
+ * interval independently of the tasks of other keys. This is useful to collapse the refresh
+ * requests of many entities (e.g.: widgets) into at most one refresh per entity in each
+ * interval.
+ * <P>
+ * The slot of a key only exists while it has a task to be executed (or while
+ * its interval has not elapsed yet in {@link UpdateThrottleMode#THROTTLE THROTTLE} mode), so
+ * the memory retained by this executor is proportional to the number of recently updated
+ * keys and not to the number of keys ever used. Keys are compared by their
+ * {@code equals} and {@code hashCode} methods.
+ *
+ * <h2>Thread safety</h2>
+ * The methods of this class are safe to use by multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * The methods of this class are not <I>synchronization transparent</I>, except for
+ * {@link #getExecutor(Object) getExecutor} and
+ * {@link #getNumberOfActiveKeys() getNumberOfActiveKeys}.
+ *
+ * @param <K> the type of the keys identifying the slots of the tasks
+ *
+ * @see ThrottledUpdateTaskExecutor
+ */
+public final class KeyedThrottledUpdateTaskExecutor<K> {
+    private final ScheduledTaskExecutor executor;
+    private final long intervalNanos;
+    private final UpdateThrottleMode mode;
+    private final ConcurrentMap<K, UpdateTaskSlot> slots;
+
+    /**
+     * Creates a new {@code KeyedThrottledUpdateTaskExecutor} which executes the submitted
+     * tasks on the given executor, coalescing tasks of the same key submitted within the given
+     * interval.
+     *
+     * @param executor the executor to which tasks will be forwarded to. This argument cannot
+     *   be {@code null}.
+     * @param interval the interval within which tasks submitted with the same key are
+     *   coalesced into a single execution. This argument cannot be {@code null} and cannot be
+     *   negative.
+     * @param mode the way tasks are coalesced within an interval. This argument cannot be
+     *   {@code null}.
+     *
+     * @throws NullPointerException thrown if any of the arguments is {@code null}
+     * @throws IllegalArgumentException thrown if the interval is negative
+     */
+    public KeyedThrottledUpdateTaskExecutor(
+            ScheduledTaskExecutor executor,
+            TimeDuration interval,
+            UpdateThrottleMode mode) {
+
+        Objects.requireNonNull(interval, "interval");
+
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.intervalNanos = ExceptionHelper
+                .checkArgumentInRange(interval.toNanos(), 0, Long.MAX_VALUE, "interval");
+        this.mode = Objects.requireNonNull(mode, "mode");
+        this.slots = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Submits a task for the given key. The submitted task might cause previously submitted
+     * tasks of the same key to be discarded and never run, but does not affect the tasks of
+     * other keys.
+     *
+     * @param key the key identifying the slot of the task. This argument cannot be
+     *   {@code null}.
+     * @param task the task to be executed. This argument cannot be {@code null}.
+     */
+    public void execute(K key, Runnable task) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(task, "task");
+
+        SlotUpdater updater = new SlotUpdater(task);
+        UpdateTaskSlot slot = slots.compute(key, updater);
+        if (updater.activated) {
+            slot.start();
+        }
+    }
+
+    /**
+     * Returns the {@code UpdateTaskExecutor} submitting its tasks with the given key to this
+     * executor. This method is cheap and the returned executor does not retain any resources
+     * (other than the key), so it might be called for each submitted task.
+     *
+     * @param key the key identifying the slot of the tasks submitted to the returned
+     *   executor. This argument cannot be {@code null}.
+     * @return the {@code UpdateTaskExecutor} submitting its tasks with the given key to this
+     *   executor. This method never returns {@code null}.
+     */
+    public UpdateTaskExecutor getExecutor(K key) {
+        Objects.requireNonNull(key, "key");
+        return task -> execute(key, task);
+    }
+
+    /**
+     * Returns the approximate number of keys whose slot currently exists.
+     * <P>
+     * Note that the value returned by this method should be considered
+     * unreliable and cannot be used for synchronization purposes.
+     *
+     * @return the approximate number of keys whose slot currently exists. This method
+     *   always returns a value greater than or equal to zero.
+     */
+    public long getNumberOfActiveKeys() {
+        return slots.size();
+    }
+
+    private UpdateTaskSlot.Deactivator deactivator(K key) {
+        // The slot must be removed atomically with its deactivation, otherwise
+        // a submitter might add a task to an already removed slot.
+        return slot -> {
+            UpdateTaskSlot remainingSlot = slots.computeIfPresent(key, (currentKey, currentSlot) -> {
+                return currentSlot.tryDeactivate() ? null : currentSlot;
+            });
+            return remainingSlot == null;
+        };
+    }
+
+    /**
+     * Returns the string representation of this executor in no particular
+     * format.
+     * <P>
+     * This method is intended to be used for debugging only.
+     *
+     * @return the string representation of this object in no particular format.
+     *   This method never returns {@code null}.
+     */
+    @Override
+    public String toString() {
+        return "KeyedThrottledUpdateTaskExecutor{"
+                + "mode=" + mode
+                + ", interval=" + intervalNanos + " ns"
+                + ", activeKeys=" + slots.size() + '}';
+    }
+
+    private final class SlotUpdater implements BiFunction<K, UpdateTaskSlot, UpdateTaskSlot> {
+        private final Runnable task;
+        private boolean activated;
+
+        public SlotUpdater(Runnable task) {
+            this.task = task;
+            this.activated = false;
+        }
+
+        @Override
+        public UpdateTaskSlot apply(K key, UpdateTaskSlot slot) {
+            UpdateTaskSlot result = slot != null
+                    ? slot
+                    : new UpdateTaskSlot(executor, intervalNanos, mode, deactivator(key));
+            activated = result.setTask(task);
+            return result;
+        }
+    }
+}
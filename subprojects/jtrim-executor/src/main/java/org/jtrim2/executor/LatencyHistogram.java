@@ -0,0 +1,188 @@
+package org.jtrim2.executor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Defines a histogram of durations with a bounded relative error. The histogram uses
+ * log-linear buckets: Each power of two range is split into 32 equal sized buckets, so the
+ * relative error of the reported values is less than about 3%, regardless of the magnitude of
+ * the recorded values. The memory footprint of the histogram is fixed (about 15 kilobytes), and
+ * {@link #record(long) recording} a value does not allocate memory.
+ * <P>
+ * Note that values are recorded without any synchronization between the buckets, so querying
+ * the histogram concurrently with recording values might see some of the concurrently
+ * recorded values but not others.
+ *
+ * <h2>Thread safety</h2>
+ * Methods of this class are safely accessible from multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * Methods of this class are <I>synchronization transparent</I>.
+ *
+ * @see ThreadPoolMetrics
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+    // Values less than SUB_BUCKET_COUNT have their own bucket, then every exponent
+    // up to 62 (the highest exponent of a positive long) has SUB_BUCKET_COUNT buckets.
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts;
+    private final LongAdder totalNanos;
+    private final AtomicLong maxNanos;
+
+    /**
+     * Creates a new empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new AtomicLong(0);
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucketIndex = (int) (value >>> shift) & SUB_BUCKET_MASK;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucketIndex;
+    }
+
+    static long getHighestValueOfBucket(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+
+        int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+        long subBucketIndex = bucketIndex & SUB_BUCKET_MASK;
+        long lowestValue = (SUB_BUCKET_COUNT + subBucketIndex) << shift;
+        return lowestValue + ((1L << shift) - 1);
+    }
+
+    /**
+     * Records the given duration. Negative values are recorded as zero.
+     *
+     * @param nanos the duration to be recorded in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(getBucketIndex(value));
+        totalNanos.add(value);
+
+        long prevMax = maxNanos.get();
+        while (prevMax < value && !maxNanos.compareAndSet(prevMax, value)) {
+            prevMax = maxNanos.get();
+        }
+    }
+
+    private long[] snapshotCounts() {
+        long[] result = new long[BUCKET_COUNT];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values. This method never returns a negative value.
+     */
+    public long getCount() {
+        long result = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of the recorded durations.
+     *
+     * @param unit the time unit in which the result is to be returned. This argument cannot be
+     *   {@code null}.
+     * @return the sum of the recorded durations. This method never returns a negative value.
+     */
+    public long getTotal(TimeUnit unit) {
+        return unit.convert(totalNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the highest recorded duration. The returned value is exact (not subject to
+     * the error of the buckets of this histogram).
+     *
+     * @param unit the time unit in which the result is to be returned. This argument cannot be
+     *   {@code null}.
+     * @return the highest recorded duration, or zero if there were no values recorded.
+     *   This method never returns a negative value.
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the duration at the given percentile of the recorded values. That is, the given
+     * percent of the recorded values are less than or equal to the returned value (up to the error
+     * of this histogram). For example, {@code getValueAtPercentile(99.0, TimeUnit.MILLISECONDS)}
+     * returns the 99th percentile in milliseconds.
+     *
+     * @param percentile the percentile to be returned. This argument must be within the
+     *   [0, 100] range.
+     * @param unit the time unit in which the result is to be returned. This argument cannot be
+     *   {@code null}.
+     * @return the duration at the given percentile of the recorded values, or zero if there were
+     *   no values recorded. This method never returns a negative value.
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit unit) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException("percentile must be within [0, 100]: " + percentile);
+        }
+
+        long[] currentCounts = snapshotCounts();
+        long count = 0;
+        for (long bucketCount : currentCounts) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long targetCount = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long cumulativeCount = 0;
+        int bucketIndex = 0;
+        for (; bucketIndex < currentCounts.length - 1; bucketIndex++) {
+            cumulativeCount += currentCounts[bucketIndex];
+            if (cumulativeCount >= targetCount) {
+                break;
+            }
+        }
+
+        long resultNanos = Math.min(getHighestValueOfBucket(bucketIndex), maxNanos.get());
+        return unit.convert(resultNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the string representation of this histogram in no particular format.
+     * <P>
+     * This method is intended to be used for debugging only.
+     *
+     * @return the string representation of this object in no particular format.
+     *   This method never returns {@code null}.
+     */
+    @Override
+    public String toString() {
+        return "LatencyHistogram{"
+                + "count=" + getCount()
+                + ", p50=" + getValueAtPercentile(50.0, TimeUnit.MICROSECONDS) + " us"
+                + ", p99=" + getValueAtPercentile(99.0, TimeUnit.MICROSECONDS) + " us"
+                + ", max=" + getMax(TimeUnit.MICROSECONDS) + " us}";
+    }
+}
@@ -0,0 +1,68 @@
+package org.jtrim2.executor;
+
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * Defines a {@code TaskExecutorService} executing the submitted tasks in order of their
+ * priority instead of the order they were submitted. Tasks submitted directly to this executor
+ * have the priority zero. To submit tasks with a different priority, use the executor returned by the
+ * {@link #withPriority(int) withPriority} method.
+ * <P>
+ * To prevent starvation of low priority tasks, the priority of queued tasks increases as they wait
+ * in the queue (aging). That is, a task submitted with priority {@code p} is treated as if it was
+ * submitted with priority zero {@code p * agingStep} earlier, where {@code agingStep} is a property
+ * of the executor. So, when a task has been waiting for {@code agingStep} time, it will be executed
+ * before tasks submitted with a priority one higher after this point in time.
+ * <P>
+ * Tasks can also be submitted with a deadline, limiting how long the task can be delayed by
+ * tasks having a higher priority than the task: Such task is treated as if it was submitted
+ * with priority zero at its deadline, if that is earlier than what its priority would imply.
+ * This is mostly useful for background tasks having negative priority, which still have to
+ * be executed in a timely manner. Note that the deadline only affects the order of the queued
+ * tasks: This executor does not cancel tasks missing their deadline.
+ *
+ * <h2>Thread safety</h2>
+ * Implementations of this interface are required to be safely accessible from
+ * multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * The methods of this interface are not required to be
+ * <I>synchronization transparent</I> because they may execute tasks, handlers added
+ * to {@code CompletionStage}, etc.
+ *
+ * @see ThreadPoolBuilder#buildPrioritized()
+ */
+public interface PriorityTaskExecutorService extends MonitorableTaskExecutorService {
+    /**
+     * Returns an executor submitting tasks to this executor with the given priority. Tasks
+     * with higher priority are executed before tasks with lower priority (subject to the aging
+     * of queued tasks as described in the class documentation).
+     * <P>
+     * Submitting tasks to the returned executor is otherwise equivalent to submitting them directly
+     * to this executor. For example, tasks submitted to the returned executor are canceled by the
+     * {@link #shutdownAndCancel() shutdownAndCancel} method of this executor.
+     *
+     * @param priority the priority of the tasks submitted to the returned executor. Tasks
+     *   submitted directly to this executor have the priority zero. Negative priorities are allowed
+     *   for tasks less important than the default.
+     * @return an executor submitting tasks to this executor with the given priority.
+     *   This method never returns {@code null}.
+     */
+    public TaskExecutor withPriority(int priority);
+
+    /**
+     * Returns an executor submitting tasks to this executor with the given priority and deadline.
+     * This method is the same as the {@link #withPriority(int) withPriority(priority)} method,
+     * except that tasks submitted to the returned executor are never executed after tasks of
+     * the default priority submitted later than the deadline of the task.
+     *
+     * @param priority the priority of the tasks submitted to the returned executor. Tasks
+     *   submitted directly to this executor have the priority zero. Negative priorities are allowed
+     *   for tasks less important than the default.
+     * @param deadline the deadline of the submitted tasks relative to the time they were submitted.
+     *   This argument cannot be {@code null} and cannot be negative.
+     * @return an executor submitting tasks to this executor with the given priority and deadline.
+     *   This method never returns {@code null}.
+     */
+    public TaskExecutor withPriority(int priority, TimeDuration deadline);
+}
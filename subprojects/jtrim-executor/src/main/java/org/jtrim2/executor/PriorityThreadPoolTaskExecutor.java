@@ -0,0 +1,220 @@
+package org.jtrim2.executor;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * Defines a thread pool executing the queued tasks in order of their priority (with aging)
+ * instead of FIFO order. See {@link PriorityTaskExecutorService} for the exact ordering.
+ * <P>
+ * The threads are managed by a {@link ThreadPoolTaskExecutor} with an
+ * {@link ThreadPoolTaskExecutor.QueueOrder#SORT_KEY ordered queue}: The priority of a task is
+ * converted to a head start in the queue, so a task with priority {@code p} is executed as if it
+ * had been submitted {@code p * priorityAging} earlier.
+ */
+final class PriorityThreadPoolTaskExecutor
+extends
+        DelegatedTaskExecutorService
+implements
+        PriorityTaskExecutorService {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    // Keeps the sort keys far enough from overflowing.
+    private static final long MAX_HEAD_START_NANOS = Long.MAX_VALUE >> 2;
+
+    private final ThreadPoolTaskExecutor pool;
+    private final long agingNanos;
+
+    public PriorityThreadPoolTaskExecutor(
+            String poolName,
+            int maxThreadCount,
+            int maxQueueSize,
+            TimeDuration idleTimeout,
+            TimeDuration priorityAging,
+            ThreadFactory threadFactory) {
+
+        this(
+                new ThreadPoolTaskExecutor(
+                        poolName,
+                        maxThreadCount,
+                        maxQueueSize,
+                        idleTimeout,
+                        threadFactory,
+                        ThreadPoolTaskExecutor.QueueOrder.SORT_KEY
+                ),
+                ExceptionHelper.checkArgumentInRange(priorityAging.toNanos(), 1, Long.MAX_VALUE, "priorityAging")
+        );
+    }
+
+    private PriorityThreadPoolTaskExecutor(ThreadPoolTaskExecutor pool, long agingNanos) {
+        super(pool);
+        this.pool = pool;
+        this.agingNanos = agingNanos;
+    }
+
+    String getPoolName() {
+        return pool.getPoolName();
+    }
+
+    int getMaxThreadCount() {
+        return pool.getMaxThreadCount();
+    }
+
+    int getMaxQueueSize() {
+        return pool.getMaxQueueSize();
+    }
+
+    long getIdleTimeout(TimeUnit timeUnit) {
+        return pool.getIdleTimeout(timeUnit);
+    }
+
+    long getPriorityAging(TimeUnit timeUnit) {
+        return timeUnit.convert(agingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    ThreadFactory getThreadFactory() {
+        return pool.getThreadFactory();
+    }
+
+    boolean isFinalized() {
+        return pool.isFinalized();
+    }
+
+    void setFullQueueHandler(FullQueueHandler fullQueueHandler) {
+        pool.setFullQueueHandler(fullQueueHandler);
+    }
+
+    FullQueueHandler getFullQueueHandler() {
+        return pool.getFullQueueHandler();
+    }
+
+    @Override
+    public TaskExecutor withPriority(int priority) {
+        return new PriorityView(priority, NO_DEADLINE);
+    }
+
+    @Override
+    public TaskExecutor withPriority(int priority, TimeDuration deadline) {
+        long deadlineNanos = ExceptionHelper.checkArgumentInRange(
+                deadline.toNanos(),
+                0,
+                Long.MAX_VALUE,
+                "deadline"
+        );
+        return new PriorityView(priority, deadlineNanos);
+    }
+
+    private long getHeadStartNanos(int priority, long deadlineNanos) {
+        long priorityHeadStart;
+        try {
+            priorityHeadStart = Math.multiplyExact((long) priority, agingNanos);
+        } catch (ArithmeticException ex) {
+            priorityHeadStart = priority > 0 ? MAX_HEAD_START_NANOS : -MAX_HEAD_START_NANOS;
+        }
+        priorityHeadStart = Math.max(-MAX_HEAD_START_NANOS, Math.min(MAX_HEAD_START_NANOS, priorityHeadStart));
+
+        // A task must not be queued behind the tasks submitted after its deadline.
+        return Math.max(priorityHeadStart, -Math.min(deadlineNanos, MAX_HEAD_START_NANOS));
+    }
+
+    // The FullQueueHandler set by ThreadPoolBuilder.setFullQueueHandlerToFallback throws
+    // FallbackException, which we have to handle here, because wrapping this executor
+    // in FallbackExecutor would hide the PriorityTaskExecutorService interface.
+
+    @Override
+    public <V> CompletionStage<V> executeFunction(
+            CancellationToken cancelToken,
+            CancelableFunction<? extends V> function) {
+
+        try {
+            return pool.executeFunction(cancelToken, function);
+        } catch (FallbackExecutor.FallbackException ex) {
+            return ex.fallback(this).executeFunction(cancelToken, function);
+        }
+    }
+
+    @Override
+    public CompletionStage<Void> execute(CancellationToken cancelToken, CancelableTask task) {
+        try {
+            return pool.execute(cancelToken, task);
+        } catch (FallbackExecutor.FallbackException ex) {
+            return ex.fallback(this).execute(cancelToken, task);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        try {
+            pool.execute(command);
+        } catch (FallbackExecutor.FallbackException ex) {
+            ex.fallback(this).execute(command);
+        }
+    }
+
+    @Override
+    public CompletionStage<Void> executeStaged(Runnable task) {
+        try {
+            return pool.executeStaged(task);
+        } catch (FallbackExecutor.FallbackException ex) {
+            return ex.fallback(this).executeStaged(task);
+        }
+    }
+
+    @Override
+    public boolean isExecutingInThis() {
+        return pool.isExecutingInThis();
+    }
+
+    @Override
+    public long getNumberOfQueuedTasks() {
+        return pool.getNumberOfQueuedTasks();
+    }
+
+    @Override
+    public long getNumberOfExecutingTasks() {
+        return pool.getNumberOfExecutingTasks();
+    }
+
+    public void dontNeedShutdown() {
+        pool.dontNeedShutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "PriorityThreadPoolTaskExecutor{"
+                + "priorityAging=" + TimeUnit.NANOSECONDS.toMillis(agingNanos) + " ms"
+                + ", pool=" + pool + '}';
+    }
+
+    private final class PriorityView implements TaskExecutor {
+        private final long headStartNanos;
+        private final int priority;
+
+        public PriorityView(int priority, long deadlineNanos) {
+            this.headStartNanos = getHeadStartNanos(priority, deadlineNanos);
+            this.priority = priority;
+        }
+
+        @Override
+        public <V> CompletionStage<V> executeFunction(
+                CancellationToken cancelToken,
+                CancelableFunction<? extends V> function) {
+
+            try {
+                return pool.executeFunction(cancelToken, function, headStartNanos);
+            } catch (FallbackExecutor.FallbackException ex) {
+                return ex.fallback(PriorityThreadPoolTaskExecutor.this).executeFunction(cancelToken, function);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "PriorityView{priority=" + priority + ", executor=" + pool + '}';
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.jtrim2.executor;
+
+import org.jtrim2.utils.ExceptionHelper;
+
+/**
+ * Detects if a task queue is overloaded based on how long tasks wait in the queue (CoDel-style):
+ * The queue is considered to be overloaded, if during a whole interval, the queue was never
+ * emptied enough for the oldest task to wait less than the target delay. That is, a short
+ * burst filling the queue is not considered to be an overload, only a standing queue is.
+ * <P>
+ * While the queue is overloaded, tasks waiting more than twice the target delay are unlikely
+ * to be useful for anyone anymore, so they are supposed to be dropped.
+ *
+ * <h2>Thread safety</h2>
+ * Methods of this class may not be accessed concurrently, the owner must synchronize
+ * access to instances of this class.
+ *
+ * <h3>Synchronization transparency</h3>
+ * Methods of this class are <I>synchronization transparent</I>.
+ */
+final class QueueOverloadDetector {
+    private final long targetDelayNanos;
+    private final long intervalNanos;
+
+    private long intervalEndNanos;
+    private long minDelayNanos;
+    private boolean overloaded;
+
+    public QueueOverloadDetector(long targetDelayNanos, long intervalNanos, long nowNanos) {
+        this.targetDelayNanos = ExceptionHelper
+                .checkArgumentInRange(targetDelayNanos, 0, Long.MAX_VALUE / 2, "targetDelayNanos");
+        this.intervalNanos = ExceptionHelper
+                .checkArgumentInRange(intervalNanos, 1, Long.MAX_VALUE, "intervalNanos");
+
+        this.intervalEndNanos = nowNanos + intervalNanos;
+        this.minDelayNanos = Long.MAX_VALUE;
+        this.overloaded = false;
+    }
+
+    /**
+     * Records how long the oldest task has been waiting in the queue when a task is about to be
+     * removed from the queue. If the queue is empty, then zero must be recorded.
+     *
+     * @return {@code true} if the queue is currently overloaded, {@code false} otherwise
+     */
+    public boolean recordOldestDelay(long nowNanos, long oldestDelayNanos) {
+        minDelayNanos = Math.min(minDelayNanos, oldestDelayNanos);
+        if (nowNanos - intervalEndNanos >= 0) {
+            overloaded = minDelayNanos > targetDelayNanos;
+            minDelayNanos = Long.MAX_VALUE;
+            intervalEndNanos = nowNanos + intervalNanos;
+        }
+        return overloaded;
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * Returns {@code true} if a task waiting for the given time should be dropped.
+     * Tasks are only dropped if the queue is overloaded.
+     */
+    public boolean shouldDrop(long delayNanos) {
+        return overloaded && delayNanos > 2 * targetDelayNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueOverloadDetector{"
+                + "targetDelay=" + targetDelayNanos + " ns"
+                + ", interval=" + intervalNanos + " ns"
+                + ", overloaded=" + overloaded + '}';
+    }
+}
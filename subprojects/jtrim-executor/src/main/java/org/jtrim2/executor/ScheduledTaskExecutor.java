@@ -0,0 +1,121 @@
+package org.jtrim2.executor;
+
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * Defines a {@link TaskExecutor} which is also able to execute tasks after a given delay.
+ * Tasks executed via the methods inherited from {@code TaskExecutor} are executed as soon as
+ * possible (just like tasks scheduled with zero delay).
+ * <P>
+ * Canceling a task which is waiting for its delay to elapse removes the task from the
+ * scheduler and completes the associated {@code CompletionStage} exceptionally
+ * with an {@link org.jtrim2.cancel.OperationCanceledException OperationCanceledException}.
+ *
+ * <h2>Thread safety</h2>
+ * Implementations of this interface are required to be safely accessible from
+ * multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * The methods of this interface are not required to be
+ * <I>synchronization transparent</I> because they may execute tasks, handlers added
+ * to {@code CompletionStage}, etc.
+ *
+ * @see TaskExecutors#newScheduledExecutor(TaskExecutor)
+ */
+public interface ScheduledTaskExecutor extends TaskExecutor {
+    /**
+     * Executes the function after (approximately) the given delay elapses. The
+     * function might be executed somewhat later than requested, but it will never be
+     * executed earlier.
+     *
+     * @param <V> the type of the result of the submitted function
+     * @param cancelToken the {@code CancellationToken} which is to be checked
+     *   if the submitted task is to be canceled. If this {@code CancellationToken}
+     *   signals a cancellation request before the delay elapses, the function will
+     *   not be executed. This argument may not be {@code null}.
+     * @param delay the time to wait before executing the given function. This argument
+     *   cannot be {@code null}. A negative delay is treated as if it was zero.
+     * @param function the function to be executed by this {@code ScheduledTaskExecutor}. This
+     *   argument cannot be {@code null}.
+     * @return the {@code CompletionStage} which can be used to execute tasks
+     *   after the completion of the submitted function and process the result of
+     *   the submitted function. This method never returns {@code null}.
+     *
+     * @throws NullPointerException thrown if any of the arguments is {@code null}
+     */
+    public <V> CompletionStage<V> scheduleFunction(
+            CancellationToken cancelToken,
+            TimeDuration delay,
+            CancelableFunction<? extends V> function);
+
+    /**
+     * Executes the task after (approximately) the given delay elapses. The
+     * task might be executed somewhat later than requested, but it will never be
+     * executed earlier.
+     * <P>
+     * The default implementation delegates the call to
+     * {@link #scheduleFunction(CancellationToken, TimeDuration, CancelableFunction) scheduleFunction}.
+     *
+     * @param cancelToken the {@code CancellationToken} which is to be checked
+     *   if the submitted task is to be canceled. If this {@code CancellationToken}
+     *   signals a cancellation request before the delay elapses, the task will
+     *   not be executed. This argument may not be {@code null}.
+     * @param delay the time to wait before executing the given task. This argument
+     *   cannot be {@code null}. A negative delay is treated as if it was zero.
+     * @param task the task to be executed by this {@code ScheduledTaskExecutor}. This
+     *   argument cannot be {@code null}.
+     * @return the {@code CompletionStage} which can be used to execute tasks
+     *   after the completion of the submitted task. This method never returns {@code null}.
+     *
+     * @throws NullPointerException thrown if any of the arguments is {@code null}
+     */
+    public default CompletionStage<Void> schedule(
+            CancellationToken cancelToken,
+            TimeDuration delay,
+            CancelableTask task) {
+
+        Objects.requireNonNull(task, "task");
+        return scheduleFunction(cancelToken, delay, (taskCancelToken) -> {
+            task.execute(taskCancelToken);
+            return null;
+        });
+    }
+
+    /**
+     * Executes the task repeatedly until canceled, waiting the given delay between the
+     * completion of an execution and the start of the next one. The first execution
+     * happens after the given initial delay.
+     * <P>
+     * The repetition stops if the task throws an exception (including
+     * {@link org.jtrim2.cancel.OperationCanceledException OperationCanceledException}), or
+     * the given {@code CancellationToken} signals a cancellation request. In either case, the
+     * returned {@code CompletionStage} is completed exceptionally, so it is never completed
+     * normally.
+     * <P>
+     * The default implementation repeatedly calls the
+     * {@link #schedule(CancellationToken, TimeDuration, CancelableTask) schedule} method.
+     *
+     * @param cancelToken the {@code CancellationToken} signaling that the task should no
+     *   longer be executed. This argument may not be {@code null}.
+     * @param initialDelay the time to wait before the first execution of the given task.
+     *   This argument cannot be {@code null}.
+     * @param delay the time to wait after an execution of the task completes before starting
+     *   the next one. This argument cannot be {@code null}.
+     * @param task the task to be executed repeatedly. This argument cannot be {@code null}.
+     * @return the {@code CompletionStage} completed when the task is no longer rescheduled.
+     *   This method never returns {@code null}.
+     *
+     * @throws NullPointerException thrown if any of the arguments is {@code null}
+     */
+    public default CompletionStage<Void> scheduleWithFixedDelay(
+            CancellationToken cancelToken,
+            TimeDuration initialDelay,
+            TimeDuration delay,
+            CancelableTask task) {
+
+        return FixedDelayScheduledTask.start(this, cancelToken, initialDelay, delay, task);
+    }
+}
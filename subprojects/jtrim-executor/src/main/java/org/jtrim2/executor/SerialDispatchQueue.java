@@ -0,0 +1,163 @@
+package org.jtrim2.executor;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.jtrim2.utils.ExceptionHelper;
+
+/**
+ * Defines a lock-free queue of elements which are processed by at most one thread at a time
+ * in the order they were added. Elements can be added by any thread, and they are processed
+ * by the threads calling the {@link #dispatch(Consumer) dispatch} method: Whichever thread
+ * manages to become the dispatcher processes all the elements available (even the ones
+ * added while it was dispatching), and the other threads return immediately.
+ * <P>
+ * The elements are stored in an {@link IntrusiveMpscQueue}, so adding an element requires
+ * no locking and no allocation. The dispatcher processes the elements in batches: It only
+ * has to update the shared state once per batch, instead of once per element.
+ *
+ * <h2>Thread safety</h2>
+ * The methods of this class are safe to use by multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * The methods of this class are <I>synchronization transparent</I>, except for the
+ * {@code dispatch} method which is only <I>synchronization transparent</I>, if the
+ * processing of the elements is.
+ *
+ * @param <E> the type of the elements of the queue
+ *
+ * @see TaskScheduler
+ */
+final class SerialDispatchQueue<E extends IntrusiveMpscQueue.Node> {
+    private final IntrusiveMpscQueue<E> queue;
+    // The number of completely added elements not yet removed by a dispatcher.
+    private final AtomicLong size;
+    // The number of elements removed from the current batch. Only written by the
+    // dispatcher, and only used to make the result of the size() method more accurate.
+    private final AtomicLong removedFromBatch;
+    private final AtomicReference<Thread> dispatcherThread; // null means that noone is dispatching
+
+    public SerialDispatchQueue() {
+        this.queue = new IntrusiveMpscQueue<>();
+        this.size = new AtomicLong(0);
+        this.removedFromBatch = new AtomicLong(0);
+        this.dispatcherThread = new AtomicReference<>(null);
+    }
+
+    /**
+     * Adds an element to the end of this queue. The element must not have been added to any
+     * {@code IntrusiveMpscQueue} before.
+     *
+     * @param element the element to be added. This argument cannot be {@code null}.
+     */
+    public void add(E element) {
+        queue.offer(element);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Processes the elements of this queue with the given action on the calling thread,
+     * unless there is already a thread processing the elements of this queue. If there is
+     * another thread processing the elements, then that thread will process the elements
+     * added before this call as well, so this method returns immediately.
+     * <P>
+     * If the given action throws an exception, the remaining elements are still processed,
+     * and the exception is rethrown after processing them. If more than one exception is
+     * thrown, the exceptions after the first one will be suppressed.
+     *
+     * @param action the action processing a single element. This argument cannot be
+     *   {@code null}.
+     */
+    public void dispatch(Consumer<? super E> action) {
+        Objects.requireNonNull(action, "action");
+
+        if (isCurrentThreadDispatching()) {
+            // Elements will be processed there.
+            return;
+        }
+
+        Thread currentThread = Thread.currentThread();
+        Throwable toThrow = null;
+        while (size.get() > 0) {
+            if (!dispatcherThread.compareAndSet(null, currentThread)) {
+                return;
+            }
+
+            try {
+                toThrow = dispatchBatches(action, toThrow);
+            } finally {
+                dispatcherThread.set(null);
+            }
+        }
+
+        ExceptionHelper.rethrowIfNotNull(toThrow);
+    }
+
+    private Throwable dispatchBatches(Consumer<? super E> action, Throwable prevToThrow) {
+        Throwable toThrow = prevToThrow;
+
+        long batchSize = size.get();
+        while (batchSize > 0) {
+            for (long i = 0; i < batchSize; i++) {
+                E element = pollCounted();
+                removedFromBatch.lazySet(i + 1);
+                try {
+                    action.accept(element);
+                } catch (Throwable ex) {
+                    if (toThrow == null) toThrow = ex;
+                    else toThrow.addSuppressed(ex);
+                }
+            }
+            batchSize = size.addAndGet(-batchSize);
+            removedFromBatch.lazySet(0);
+        }
+        return toThrow;
+    }
+
+    private E pollCounted() {
+        // The element must be there, since it was counted, but a producer adding an
+        // element before it might not have completed linking its element yet.
+        E element = queue.poll();
+        while (element == null) {
+            Thread.onSpinWait();
+            element = queue.poll();
+        }
+        return element;
+    }
+
+    /**
+     * Returns {@code true} if the calling thread is currently processing the elements of
+     * this queue (i.e., this method is called from the action passed to the
+     * {@code dispatch} method).
+     *
+     * @return {@code true} if the calling thread is currently processing the elements of
+     *   this queue, {@code false} otherwise
+     */
+    public boolean isCurrentThreadDispatching() {
+        return dispatcherThread.get() == Thread.currentThread();
+    }
+
+    /**
+     * Returns {@code true} if there is a thread currently processing the elements of this
+     * queue.
+     *
+     * @return {@code true} if there is a thread currently processing the elements of this
+     *   queue, {@code false} otherwise
+     */
+    public boolean isDispatching() {
+        return dispatcherThread.get() != null;
+    }
+
+    /**
+     * Returns the approximate number of elements not yet passed to the action of the
+     * {@code dispatch} method.
+     *
+     * @return the approximate number of elements not yet passed to the action of the
+     *   {@code dispatch} method. This method always returns a value greater than or
+     *   equal to zero.
+     */
+    public long size() {
+        return Math.max(0, size.get() - removedFromBatch.get());
+    }
+}
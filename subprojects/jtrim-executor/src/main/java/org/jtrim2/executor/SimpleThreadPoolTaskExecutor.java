@@ -13,6 +13,7 @@ import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationSource;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.cancel.OperationTimeoutException;
 import org.jtrim2.collections.RefCollection;
 import org.jtrim2.collections.RefLinkedList;
 import org.jtrim2.collections.RefList;
@@ -26,7 +27,8 @@ final class SimpleThreadPoolTaskExecutor
 extends
         DelegatedTaskExecutorService
 implements
-        MonitorableTaskExecutorService {
+        MonitorableTaskExecutorService,
+        InstrumentedTaskExecutor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SimpleThreadPoolTaskExecutor.class);
 
@@ -76,6 +78,10 @@ implements
         impl.fullQueueHandler = fullQueueHandler;
     }
 
+    void enableMetrics() {
+        impl.metrics = new ThreadPoolMetrics();
+    }
+
     FullQueueHandler getFullQueueHandler() {
         return impl.fullQueueHandler;
     }
@@ -85,6 +91,11 @@ implements
         return impl.isExecutingInThis();
     }
 
+    @Override
+    public ThreadPoolMetrics getMetrics() {
+        return impl.metrics;
+    }
+
     @Override
     public long getNumberOfQueuedTasks() {
         return impl.getNumberOfQueuedTasks();
@@ -140,6 +151,7 @@ implements
         private int activeWorkerCount;
         private final CancellationSource executorCancelSource;
         private FullQueueHandler fullQueueHandler;
+        private ThreadPoolMetrics metrics;
 
         public Impl(
                 String poolName,
@@ -162,6 +174,7 @@ implements
             this.executorCancelSource = Cancellation.createCancellationSource();
             this.createdThreadCount = 0;
             this.activeWorkerCount = 0;
+            this.metrics = ThreadPoolMetrics.disabled();
         }
 
         private static int positive(int value, String name) {
@@ -201,6 +214,7 @@ implements
 
         @Override
         protected void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask) {
+            metrics.recordSubmitted(1);
             CancellationToken combinedToken = Cancellation.anyToken(cancelToken, executorCancelSource.getToken());
             QueuedItem newItem = new QueuedItem(combinedToken, submittedTask);
 
@@ -209,10 +223,17 @@ implements
                 queueRef = tryAddToQueue(combinedToken, newItem);
                 if (queueRef == null) {
                     // Don't even bother to start a new thread.
+                    metrics.recordCanceled();
                     newItem.cancel();
                     return;
                 }
+            } catch (OperationTimeoutException ex) {
+                // The full queue handler gave up waiting for the queue, which is a rejection.
+                metrics.recordRejected();
+                newItem.submittedTask.completeExceptionally(ex);
+                return;
             } catch (OperationCanceledException ex) {
+                metrics.recordCanceled();
                 newItem.submittedTask.completeExceptionally(ex);
                 return;
             }
@@ -239,6 +260,7 @@ implements
                 }
 
                 if (!removed) {
+                    metrics.recordCanceled();
                     try {
                         task.cancel();
                     } finally {
@@ -253,6 +275,8 @@ implements
                 QueuedItem newItem) {
 
             FullQueueHandler currentFullQueueHandler = fullQueueHandler;
+            long blockStartNanos = 0;
+            boolean blocked = false;
 
             mainLock.lock();
             try {
@@ -263,17 +287,35 @@ implements
                         return queueRef;
                     }
 
+                    if (!blocked) {
+                        blocked = true;
+                        blockStartNanos = System.nanoTime();
+                    }
+
                     if (currentFullQueueHandler != null) {
-                        ThreadPoolTaskExecutor.handleFullQueue(mainLock, currentFullQueueHandler, cancelToken);
+                        ThreadPoolTaskExecutor.handleFullQueue(
+                                mainLock,
+                                currentFullQueueHandler,
+                                cancelToken,
+                                metrics
+                        );
                         currentFullQueueHandler = null;
                         continue;
                     }
 
-                    CancelableWaits.await(cancelToken, checkAddToQueueSignal);
+                    ThreadPoolTaskExecutor.awaitQueueNotFull(
+                            cancelToken,
+                            checkAddToQueueSignal,
+                            fullQueueHandler,
+                            blockStartNanos
+                    );
                 }
                 return null;
             } finally {
                 mainLock.unlock();
+                if (blocked) {
+                    metrics.recordFullQueueBlocked(blockStartNanos);
+                }
             }
         }
 
@@ -509,13 +551,16 @@ implements
 
             private void execute(QueuedItem itemToProcess) {
                 if (state.ordinal() < ExecutorState.TERMINATING.ordinal()) {
+                    long startNanos = metrics.recordTaskStarted(itemToProcess.submitNanos);
                     currentlyExecuting.getAndIncrement();
                     try {
                         itemToProcess.runTask();
                     } finally {
                         currentlyExecuting.getAndDecrement();
+                        metrics.recordTaskCompleted(startNanos);
                     }
                 } else {
+                    metrics.recordCanceled();
                     itemToProcess.cancel();
                 }
             }
@@ -547,6 +592,7 @@ implements
 
             public void startThread() {
                 ownerThread.start();
+                metrics.recordThreadCreated();
             }
         }
     }
@@ -554,6 +600,7 @@ implements
     private static final class QueuedItem {
         public final CancellationToken cancelToken;
         public final AbstractTaskExecutor.SubmittedTask<?> submittedTask;
+        public final long submitNanos;
 
         public QueuedItem(
                 CancellationToken cancelToken,
@@ -561,6 +608,7 @@ implements
 
             this.cancelToken = cancelToken;
             this.submittedTask = submittedTask;
+            this.submitNanos = System.nanoTime();
         }
 
         public void runTask() {
@@ -1,19 +1,22 @@
 package org.jtrim2.executor;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim2.cancel.CancelableWaits;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationSource;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.cancel.OperationCanceledException;
-import org.jtrim2.collections.RefLinkedList;
-import org.jtrim2.collections.RefList;
+import org.jtrim2.cancel.OperationTimeoutException;
 import org.jtrim2.concurrent.WaitableSignal;
 import org.jtrim2.event.ListenerRef;
 import org.jtrim2.utils.ExceptionHelper;
@@ -41,6 +44,10 @@ import org.slf4j.LoggerFactory;
  * <P>
  * If the queue for tasks is full, the {@code submit} or {@code execute} method
  * will block and wait until the task can be added to the queue.
+ * <P>
+ * Submitting a task does not acquire any lock unless the queue is full, so
+ * concurrently submitting tasks from multiple threads does not cause the
+ * submitting threads to block each other.
  *
  * <h2>Cancellation of tasks</h2>
  * Canceling a task which was not yet started and is still in the queue will
@@ -87,7 +94,8 @@ public final class SingleThreadedExecutor
 extends
         DelegatedTaskExecutorService
 implements
-        MonitorableTaskExecutorService {
+        MonitorableTaskExecutorService,
+        InstrumentedTaskExecutor {
     private static final Logger LOGGER = LoggerFactory.getLogger(SingleThreadedExecutor.class);
     private static final long DEFAULT_THREAD_TIMEOUT_MS = 5000;
 
@@ -245,6 +253,19 @@ implements
         finalizer.markFinalized();
     }
 
+    /**
+     * {@inheritDoc }
+     * <P>
+     * <B>Implementation note</B>: The worker thread is only notified once
+     * about the new tasks (unless the queue becomes full).
+     */
+    @Override
+    public <V> List<CompletionStage<V>> executeFunctions(
+            CancellationToken cancelToken,
+            List<? extends CancelableFunction<? extends V>> functions) {
+        return wrappedExecutor.executeFunctions(cancelToken, functions);
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -402,6 +423,14 @@ implements
         return impl.isExecutingInThis();
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ThreadPoolMetrics getMetrics() {
+        return impl.metrics;
+    }
+
     /**
      * Returns the string representation of this executor in no particular
      * format.
@@ -420,6 +449,10 @@ implements
         impl.fullQueueHandler = fullQueueHandler;
     }
 
+    void enableMetrics() {
+        impl.metrics = new ThreadPoolMetrics();
+    }
+
     FullQueueHandler getFullQueueHandler() {
         return impl.fullQueueHandler;
     }
@@ -432,6 +465,10 @@ implements
         return finalizer.isFinalized();
     }
 
+    int getNumberOfCanceledQueueItems() {
+        return impl.canceledQueueItemCount.get();
+    }
+
     private static final class Impl
     extends
             AbstractTerminateNotifierTaskExecutorService
@@ -439,10 +476,20 @@ implements
             MonitorableTaskExecutor {
 
         private static final ThreadLocal<Impl> OWNER_EXECUTOR = new ThreadLocal<>();
+        // The number of canceled items allowed to remain in the queue regardless of the queue size.
+        private static final int CANCELED_ITEM_SWEEP_THRESHOLD = 64;
 
         private final AtomicReference<Worker> currentWorker;
+        // The lock is only needed when the queue is full or when terminating.
         private final ReentrantLock mainLock;
-        private final RefList<QueuedItem> taskQueue;
+        private final IntrusiveMpscQueue<QueuedItem> taskQueue;
+        // Held by the thread acting as the consumer of the queue (normally the worker).
+        private final ReentrantLock queueConsumerLock;
+        // The number of canceled items still linked into the queue.
+        private final AtomicInteger canceledQueueItemCount;
+        // The number of not yet taken and not canceled tasks in the queue
+        // (including the tasks which are currently being added to the queue).
+        private final AtomicInteger queuedTaskCount;
         private final String poolName;
         private volatile int maxQueueSize;
         private volatile long idleTimeoutNanos;
@@ -452,8 +499,12 @@ implements
         private volatile ThreadFactory threadFactory;
         private volatile ExecutorState state;
         private volatile boolean active;
+        // Guarded by mainLock for writes.
+        private volatile int waitingSubmitterCount;
+        // The thread of the worker, if it might be parked waiting for new tasks.
+        private volatile Thread idleWorkerThread;
+        private ThreadPoolMetrics metrics;
 
-        private final Condition checkQueueSignal;
         private final Condition checkAddToQueueSignal;
 
         public Impl(
@@ -475,13 +526,18 @@ implements
                     "idleTimeout"
             );
             this.mainLock = new ReentrantLock();
-            this.checkQueueSignal = mainLock.newCondition();
             this.checkAddToQueueSignal = mainLock.newCondition();
-            this.taskQueue = new RefLinkedList<>();
+            this.taskQueue = new IntrusiveMpscQueue<>();
+            this.queueConsumerLock = new ReentrantLock();
+            this.canceledQueueItemCount = new AtomicInteger(0);
+            this.queuedTaskCount = new AtomicInteger(0);
             this.globalCancel = Cancellation.createCancellationSource();
             this.currentWorker = new AtomicReference<>(null);
             this.active = false;
+            this.waitingSubmitterCount = 0;
+            this.idleWorkerThread = null;
             this.terminateSignal = new WaitableSignal();
+            this.metrics = ThreadPoolMetrics.disabled();
             this.threadFactory = Objects.requireNonNull(threadFactory, "threadFactory");
         }
 
@@ -528,88 +584,256 @@ implements
         public void setIdleTimeout(long idleTimeout, TimeUnit timeUnit) {
             ExceptionHelper.checkArgumentInRange(idleTimeout, 0, Long.MAX_VALUE, "idleTimeout");
             this.idleTimeoutNanos = timeUnit.toNanos(idleTimeout);
-            mainLock.lock();
-            try {
-                checkQueueSignal.signalAll();
-            } finally {
-                mainLock.unlock();
+            wakeIdleWorker();
+        }
+
+        private void wakeIdleWorker() {
+            Thread workerThread = idleWorkerThread;
+            if (workerThread != null) {
+                LockSupport.unpark(workerThread);
+            }
+        }
+
+        private boolean tryReserveQueueSlot() {
+            int currentMaxQueueSize = maxQueueSize;
+            if (currentMaxQueueSize == Integer.MAX_VALUE) {
+                queuedTaskCount.incrementAndGet();
+                return true;
+            }
+
+            while (true) {
+                int currentCount = queuedTaskCount.get();
+                if (currentCount >= currentMaxQueueSize) {
+                    return false;
+                }
+                if (queuedTaskCount.compareAndSet(currentCount, currentCount + 1)) {
+                    return true;
+                }
             }
         }
 
-        private RefList.ElementRef<?> tryAddToQueue(CancellationToken cancelToken, QueuedItem queuedTask) {
+        private boolean reserveQueueSlot(CancellationToken cancelToken) {
+            if (tryReserveQueueSlot()) {
+                return true;
+            }
+
             FullQueueHandler currentFullQueueHandler = fullQueueHandler;
+            long blockStartNanos = System.nanoTime();
 
             mainLock.lock();
             try {
                 while (true) {
                     if (isShutdown()) {
-                        return null;
+                        return false;
                     }
 
-                    if (taskQueue.size() < maxQueueSize) {
-                        RefList.ElementRef<?> result = taskQueue.addLastGetReference(queuedTask);
-                        checkQueueSignal.signalAll();
-                        return result;
+                    if (tryReserveQueueSlot()) {
+                        return true;
                     }
 
                     if (currentFullQueueHandler != null) {
-                        ThreadPoolTaskExecutor.handleFullQueue(mainLock, currentFullQueueHandler, cancelToken);
+                        ThreadPoolTaskExecutor.handleFullQueue(
+                                mainLock,
+                                currentFullQueueHandler,
+                                cancelToken,
+                                metrics
+                        );
                         currentFullQueueHandler = null;
                         continue;
                     }
-                    CancelableWaits.await(cancelToken, checkAddToQueueSignal);
+
+                    waitingSubmitterCount++;
+                    try {
+                        // Must recheck after publishing that we are waiting, because
+                        // the worker does not lock to check if we are waiting.
+                        if (tryReserveQueueSlot()) {
+                            return true;
+                        }
+                        ThreadPoolTaskExecutor.awaitQueueNotFull(
+                                cancelToken,
+                                checkAddToQueueSignal,
+                                fullQueueHandler,
+                                blockStartNanos
+                        );
+                    } finally {
+                        waitingSubmitterCount--;
+                    }
                 }
             } finally {
                 mainLock.unlock();
+                metrics.recordFullQueueBlocked(blockStartNanos);
             }
         }
 
-        private void setRemoveFromQueueOnCancel(
-                final QueuedItem task,
-                final RefList.ElementRef<?> queueRef) {
-            task.onCancel(() -> {
-                boolean removed;
+        private void releaseQueueSlot() {
+            queuedTaskCount.decrementAndGet();
+            if (waitingSubmitterCount > 0) {
                 mainLock.lock();
                 try {
-                    removed = queueRef.isRemoved();
-                    if (!removed) {
-                        queueRef.remove();
-                        checkAddToQueueSignal.signal();
-                    }
+                    checkAddToQueueSignal.signal();
                 } finally {
                     mainLock.unlock();
                 }
+            }
+        }
 
-                if (!removed) {
+        private void setRemoveFromQueueOnCancel(final QueuedItem task) {
+            task.onCancel(() -> {
+                AbstractTaskExecutor.SubmittedTask<?> submittedTask = task.tryRemove();
+                if (submittedTask != null) {
+                    // The item itself remains in the queue but it no longer
+                    // references the task and will be skipped by the worker,
+                    // unless it is unlinked earlier by sweepCanceledQueueItems.
+                    releaseQueueSlot();
+                    metrics.recordCanceled();
                     try {
-                        task.submittedTask.cancel();
+                        submittedTask.cancel();
                     } finally {
-                        tryTerminateNowAndNotify();
+                        try {
+                            addCanceledQueueItem();
+                        } finally {
+                            tryTerminateNowAndNotify();
+                        }
                     }
                 }
             });
         }
 
+        private void addCanceledQueueItem() {
+            int canceledCount = canceledQueueItemCount.incrementAndGet();
+            if (canceledCount > Math.max(CANCELED_ITEM_SWEEP_THRESHOLD, queuedTaskCount.get())) {
+                sweepCanceledQueueItems();
+            }
+        }
+
+        // Unlinks the canceled items from the queue, so that repeatedly submitting and canceling
+        // tasks while the worker is busy cannot grow the queue without limit.
+        private void sweepCanceledQueueItems() {
+            if (!queueConsumerLock.tryLock()) {
+                // The worker (or another sweeper) is currently removing items from the queue,
+                // and a later cancellation will retry the sweep if it is still necessary.
+                return;
+            }
+            try {
+                int removedCount = taskQueue.removeIf(QueuedItem::isRemoved);
+                canceledQueueItemCount.addAndGet(-removedCount);
+            } finally {
+                queueConsumerLock.unlock();
+            }
+        }
+
         @Override
         protected void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask) {
+            metrics.recordSubmitted(1);
             CancellationToken combinedToken = Cancellation.anyToken(globalCancel.getToken(), cancelToken);
+            if (enqueueTask(combinedToken, submittedTask)) {
+                startOrWakeWorker();
+            }
+        }
+
+        @Override
+        protected void submitTasks(CancellationToken cancelToken, List<SubmittedTask<?>> submittedTasks) {
+            CancellationToken combinedToken = Cancellation.anyToken(globalCancel.getToken(), cancelToken);
+            int taskCount = submittedTasks.size();
+            metrics.recordSubmitted(taskCount);
+
+            if (maxQueueSize == Integer.MAX_VALUE) {
+                enqueueTasksUnbounded(combinedToken, submittedTasks);
+                return;
+            }
+
+            boolean needWake = false;
+            int index = 0;
+            try {
+                for (; index < taskCount; index++) {
+                    // We might have to wait for the worker to remove tasks from the queue,
+                    // so it must be notified about the tasks we have already added.
+                    if (needWake && queuedTaskCount.get() >= maxQueueSize) {
+                        startOrWakeWorker();
+                        needWake = false;
+                    }
+
+                    if (enqueueTask(combinedToken, submittedTasks.get(index))) {
+                        needWake = true;
+                    }
+                }
+            } catch (Throwable ex) {
+                completeAllExceptionally(submittedTasks, index, ex);
+                throw ex;
+            } finally {
+                if (needWake) {
+                    startOrWakeWorker();
+                }
+            }
+        }
+
+        private void enqueueTasksUnbounded(CancellationToken combinedToken, List<SubmittedTask<?>> submittedTasks) {
+            int taskCount = submittedTasks.size();
+            queuedTaskCount.addAndGet(taskCount);
+
+            if (isShutdown()) {
+                metrics.recordCanceled(taskCount);
+                for (SubmittedTask<?> submittedTask : submittedTasks) {
+                    releaseQueueSlot();
+                    submittedTask.cancel();
+                }
+                tryTerminateNowAndNotify();
+                return;
+            }
+
+            for (SubmittedTask<?> submittedTask : submittedTasks) {
+                QueuedItem queuedTask = new QueuedItem(combinedToken, submittedTask);
+                taskQueue.offer(queuedTask);
+                setRemoveFromQueueOnCancel(queuedTask);
+            }
+
+            startOrWakeWorker();
+        }
+
+        // Adds the task to the queue without notifying the worker. Returns true if
+        // the task was added (and so the worker needs to be notified).
+        private boolean enqueueTask(CancellationToken combinedToken, SubmittedTask<?> submittedTask) {
             QueuedItem queuedTask = new QueuedItem(combinedToken, submittedTask);
 
-            RefList.ElementRef<?> queueRef;
             try {
-                queueRef = tryAddToQueue(combinedToken, queuedTask);
-                if (queueRef == null) {
+                if (!reserveQueueSlot(combinedToken)) {
+                    metrics.recordCanceled();
                     submittedTask.cancel();
-                    return;
+                    return false;
                 }
+            } catch (OperationTimeoutException ex) {
+                // The full queue handler gave up waiting for the queue, which is a rejection.
+                metrics.recordRejected();
+                submittedTask.completeExceptionally(ex);
+                return false;
             } catch (OperationCanceledException ex) {
+                metrics.recordCanceled();
                 submittedTask.completeExceptionally(ex);
-                return;
+                return false;
+            }
+
+            if (isShutdown()) {
+                releaseQueueSlot();
+                metrics.recordCanceled();
+                try {
+                    submittedTask.cancel();
+                } finally {
+                    tryTerminateNowAndNotify();
+                }
+                return false;
             }
 
-            setRemoveFromQueueOnCancel(queuedTask, queueRef);
+            taskQueue.offer(queuedTask);
+            setRemoveFromQueueOnCancel(queuedTask);
+            return true;
+        }
 
-            startNewWorkerIfNeeded();
+        private void startOrWakeWorker() {
+            if (currentWorker.get() == null) {
+                startNewWorkerIfNeeded();
+            } else {
+                wakeIdleWorker();
+            }
         }
 
         private void startNewWorkerIfNeeded() {
@@ -625,7 +849,7 @@ implements
         private boolean tryTerminateNow() {
             assert mainLock.isHeldByCurrentThread();
 
-            if (state == ExecutorState.SHUTTING_DOWN && taskQueue.isEmpty()) {
+            if (state == ExecutorState.SHUTTING_DOWN && queuedTaskCount.get() == 0) {
                 if (currentWorker.get() == null) {
                     // 1. Subsequent tasks added to the queue will recognize that
                     //    the executor was shut down and will not be executed.
@@ -654,8 +878,10 @@ implements
                 // This is a rare case, if there is no worker, we could
                 // retry terminating now but the caller already did so.
                 // Instead of retrying we start a worker which is bound
-                // to do the work for us.
+                // to do the work for us. If there is a worker, it might
+                // wait for the last task to be removed, so wake it up.
                 startNewWorkerIfNeeded();
+                wakeIdleWorker();
             }
         }
 
@@ -684,7 +910,6 @@ implements
                     return;
                 }
                 state = ExecutorState.SHUTTING_DOWN;
-                checkQueueSignal.signalAll();
                 checkAddToQueueSignal.signalAll();
                 terminatedNow = tryTerminateNow();
             } finally {
@@ -717,12 +942,7 @@ implements
 
         @Override
         public long getNumberOfQueuedTasks() {
-            mainLock.lock();
-            try {
-                return taskQueue.size();
-            } finally {
-                mainLock.unlock();
-            }
+            return queuedTaskCount.get();
         }
 
         @Override
@@ -742,19 +962,12 @@ implements
 
         @Override
         public String toString() {
-            int currentQueueSize;
-            mainLock.lock();
-            try {
-                currentQueueSize = taskQueue.size();
-            } finally {
-                mainLock.unlock();
-            }
             return "SingleThreadedExecutor{"
                     + "poolName=" + poolName
                     + ", state=" + state
                     + ", maxQueueSize=" + maxQueueSize
                     + ", idleTimeout=" + TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) + " ms"
-                    + ", queue=" + currentQueueSize + '}';
+                    + ", queue=" + queuedTaskCount.get() + '}';
         }
 
         private final class Worker implements Runnable {
@@ -787,74 +1000,88 @@ implements
 
                     ownerThread = workerThread;
                     workerThread.start();
+                    metrics.recordThreadCreated();
                 }
             }
 
-            private boolean isQueueEmpty() {
-                mainLock.lock();
+            private QueuedItem tryPollFromQueue() {
+                QueuedItem result;
+                queueConsumerLock.lock();
                 try {
-                    return taskQueue.isEmpty();
+                    result = pollNotCanceled();
                 } finally {
-                    mainLock.unlock();
+                    queueConsumerLock.unlock();
+                }
+
+                if (result != null) {
+                    releaseQueueSlot();
                 }
+                return result;
+            }
+
+            private QueuedItem pollNotCanceled() {
+                QueuedItem result = taskQueue.poll();
+                while (result != null) {
+                    if (result.tryTake()) {
+                        return result;
+                    }
+                    // The task was canceled while in the queue.
+                    canceledQueueItemCount.decrementAndGet();
+                    result = taskQueue.poll();
+                }
+                return null;
             }
 
             private QueuedItem pollFromQueue() {
+                QueuedItem result = tryPollFromQueue();
+                if (result != null) {
+                    return result;
+                }
+
                 long startTime = System.nanoTime();
-                long usedIdleTimeoutNanos = idleTimeoutNanos;
-                long toWaitNanos = usedIdleTimeoutNanos;
 
-                mainLock.lock();
+                // Submitters must see this before we recheck the queue, so that they
+                // are guaranteed to wake us after adding a new task.
+                idleWorkerThread = Thread.currentThread();
                 try {
-                    do {
-                        if (!taskQueue.isEmpty()) {
-                            QueuedItem result = taskQueue.remove(0);
-                            checkAddToQueueSignal.signal();
+                    while (true) {
+                        result = tryPollFromQueue();
+                        if (result != null) {
                             return result;
                         }
 
                         // If we have been shutted down and there is no task
                         // in the queue, then we are done.
-                        if (isShutdown()) {
+                        if (isShutdown() && queuedTaskCount.get() == 0) {
                             return null;
                         }
 
-                        try {
-                            toWaitNanos = checkQueueSignal.awaitNanos(toWaitNanos);
-                            if (usedIdleTimeoutNanos != idleTimeoutNanos) {
-                                long inc;
-                                inc = idleTimeoutNanos - usedIdleTimeoutNanos;
-                                long prevToWaitNanos = toWaitNanos;
-                                toWaitNanos += inc;
-                                // Check for overflow in the above addition
-                                if (inc > 0) {
-                                    if (toWaitNanos < 0) {
-                                        toWaitNanos = Long.MAX_VALUE;
-                                    }
-                                } else {
-                                    if (prevToWaitNanos < toWaitNanos) {
-                                        toWaitNanos = 0;
-                                    }
-                                }
-                            }
-                        } catch (InterruptedException ex) {
-                            // In this thread, we don't care about interrupts but
-                            // we need to recalculate the allowed waiting time.
-                            toWaitNanos = idleTimeoutNanos - (System.nanoTime() - startTime);
+                        // Reading the timeout in each loop allows it to be
+                        // adjusted while we are waiting.
+                        long toWaitNanos = idleTimeoutNanos - (System.nanoTime() - startTime);
+                        if (toWaitNanos <= 0) {
+                            metrics.recordIdleTimeout();
+                            return null;
                         }
-                    } while (toWaitNanos > 0);
+
+                        LockSupport.parkNanos(this, toWaitNanos);
+                        // In this thread, we don't care about interrupts but we must
+                        // clear it, otherwise we would not be able to park again.
+                        Thread.interrupted();
+                    }
                 } finally {
-                    mainLock.unlock();
+                    idleWorkerThread = null;
                 }
-                return null;
             }
 
             private void executeTask(QueuedItem queuedItem) throws Exception {
+                long startNanos = metrics.recordTaskStarted(queuedItem.submitNanos);
                 try {
                     active = true;
                     queuedItem.runTask();
                 } finally {
                     active = false;
+                    metrics.recordTaskCompleted(startNanos);
                 }
             }
 
@@ -905,7 +1132,9 @@ implements
 
             private void exitWorker() {
                 currentWorker.set(null);
-                if (!isQueueEmpty()) {
+                // Submitters increment the counter before checking if there is a worker,
+                // so either they start a new worker or we will see the new task.
+                if (queuedTaskCount.get() > 0) {
                     new Worker().tryStart();
                 }
             }
@@ -928,24 +1157,52 @@ implements
         }
     }
 
-    private static final class QueuedItem {
+    private static final class QueuedItem extends IntrusiveMpscQueue.Node {
         public final CancellationToken cancelToken;
-        public final AbstractTaskExecutor.SubmittedTask<?> submittedTask;
+        public final long submitNanos;
+        // Set to null when the task is removed from the queue by either the worker or
+        // cancellation, so canceled tasks are not retained by the queue.
+        private final AtomicReference<AbstractTaskExecutor.SubmittedTask<?>> submittedTaskRef;
+        // Only accessed by the worker thread.
+        private AbstractTaskExecutor.SubmittedTask<?> takenTask;
 
         public QueuedItem(
                 CancellationToken cancelToken,
                 AbstractTaskExecutor.SubmittedTask<?> submittedTask) {
 
             this.cancelToken = cancelToken;
-            this.submittedTask = submittedTask;
+            this.submitNanos = System.nanoTime();
+            this.submittedTaskRef = new AtomicReference<>(submittedTask);
+            this.takenTask = null;
+        }
+
+        public AbstractTaskExecutor.SubmittedTask<?> tryRemove() {
+            return submittedTaskRef.getAndSet(null);
+        }
+
+        public boolean isRemoved() {
+            return submittedTaskRef.get() == null;
+        }
+
+        public boolean tryTake() {
+            takenTask = tryRemove();
+            return takenTask != null;
         }
 
         private void runTask() {
+            AbstractTaskExecutor.SubmittedTask<?> submittedTask = takenTask;
+            takenTask = null;
+
             Thread.interrupted();
             submittedTask.execute(cancelToken);
         }
 
         public void onCancel(Runnable cancelTask) {
+            AbstractTaskExecutor.SubmittedTask<?> submittedTask = submittedTaskRef.get();
+            if (submittedTask == null) {
+                return;
+            }
+
             ListenerRef listenerRef = cancelToken.addCancellationListener(cancelTask);
             submittedTask.getFuture().whenComplete((result, error) -> listenerRef.unregister());
         }
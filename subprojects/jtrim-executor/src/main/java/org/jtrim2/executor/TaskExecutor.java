@@ -1,11 +1,14 @@
 package org.jtrim2.executor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.concurrent.AsyncTasks;
+import org.jtrim2.utils.ExceptionHelper;
 
 /**
  * Executes tasks at some time in the future. This interface defines a more
@@ -96,6 +99,85 @@ public interface TaskExecutor extends Executor {
         });
     }
 
+    /**
+     * Executes all the given functions at some time in the future. This method is
+     * equivalent to calling {@link #executeFunction(CancellationToken, CancelableFunction) executeFunction}
+     * for each function in the order they were specified, except that implementations might
+     * submit the functions more efficiently as a single batch.
+     * <P>
+     * If this method throws an exception, then some of the functions might have been
+     * submitted, but the functions not submitted are never executed.
+     * <P>
+     * The default implementation calls {@code executeFunction} for each function.
+     *
+     * @param <V> the type of the result of the submitted functions
+     * @param cancelToken the {@code CancellationToken} which is to be checked
+     *   if the submitted tasks are to be canceled. This argument may not be {@code null}.
+     * @param functions the functions to be executed by this {@code TaskExecutor}. This
+     *   argument cannot be {@code null} and cannot contain {@code null} elements.
+     * @return the {@code CompletionStage} for each of the submitted functions in the
+     *   same order as the functions were specified. This method never returns {@code null}.
+     *
+     * @throws NullPointerException thrown if the {@code CancellationToken}
+     *   or any of the functions is {@code null}
+     *
+     * @see #executeFunction(CancellationToken, CancelableFunction)
+     */
+    public default <V> List<CompletionStage<V>> executeFunctions(
+            CancellationToken cancelToken,
+            List<? extends CancelableFunction<? extends V>> functions) {
+
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullElements(functions, "functions");
+
+        List<CompletionStage<V>> result = new ArrayList<>(functions.size());
+        for (CancelableFunction<? extends V> function : functions) {
+            result.add(executeFunction(cancelToken, function));
+        }
+        return result;
+    }
+
+    /**
+     * Executes all the given tasks at some time in the future. This method is
+     * equivalent to calling {@link #execute(CancellationToken, CancelableTask) execute}
+     * for each task in the order they were specified, except that implementations might
+     * submit the tasks more efficiently as a single batch. For example, thread pools might
+     * add all the tasks to their queue in a single step.
+     * <P>
+     * If this method throws an exception, then some of the tasks might have been
+     * submitted, but the tasks not submitted are never executed.
+     * <P>
+     * The default implementation delegates the call to
+     * {@link #executeFunctions(CancellationToken, List) executeFunctions}.
+     *
+     * @param cancelToken the {@code CancellationToken} which is to be checked
+     *   if the submitted tasks are to be canceled. This argument may not be {@code null}.
+     * @param tasks the tasks to be executed by this {@code TaskExecutor}. This
+     *   argument cannot be {@code null} and cannot contain {@code null} elements.
+     * @return the {@code CompletionStage} for each of the submitted tasks in the
+     *   same order as the tasks were specified. This method never returns {@code null}.
+     *
+     * @throws NullPointerException thrown if the {@code CancellationToken}
+     *   or any of the tasks is {@code null}
+     *
+     * @see #execute(CancellationToken, CancelableTask)
+     */
+    public default List<CompletionStage<Void>> executeAll(
+            CancellationToken cancelToken,
+            List<? extends CancelableTask> tasks) {
+
+        ExceptionHelper.checkNotNullElements(tasks, "tasks");
+
+        List<CancelableFunction<Void>> functions = new ArrayList<>(tasks.size());
+        for (CancelableTask task : tasks) {
+            functions.add((taskCancelToken) -> {
+                task.execute(taskCancelToken);
+                return null;
+            });
+        }
+        return executeFunctions(cancelToken, functions);
+    }
+
     /**
      * Executes an non-cancelable task at some time in the future. When and on what thread,
      * the task is to be executed is completely implementation dependent. Implementations may
@@ -3,6 +3,8 @@ package org.jtrim2.executor;
 import java.util.Objects;
 import java.util.concurrent.ThreadFactory;
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
 
 /**
  * Contains static helper and factory methods for various useful
@@ -21,6 +23,9 @@ import org.jtrim2.cancel.CancellationToken;
  * @see ThreadPoolBuilder
  */
 public final class TaskExecutors {
+    private static final TimeDuration DEFAULT_TIMER_TICK = TimeDuration.millis(10);
+    private static final int DEFAULT_TIMER_WHEEL_SIZE = 512;
+
     /**
      * Returns a {@code TaskExecutor} creating a new dedicated thread for each submitted task.
      *
@@ -67,6 +72,107 @@ public final class TaskExecutors {
         return new DedicatedThreadTaskExecutor(threadFactory);
     }
 
+    /**
+     * Returns a {@code TaskExecutorService} executing tasks on virtual threads, allowing
+     * at most the given number of tasks to be executed concurrently. Tasks submitted
+     * when the limit has been reached are queued and executed in the order they were
+     * submitted when the currently executing tasks complete.
+     * <P>
+     * Virtual threads require Java 21 or later. On older runtimes, the returned executor
+     * uses daemon platform threads instead, so it behaves as a thread pool with the given
+     * maximum number of threads, where idle threads stop immediately.
+     * <P>
+     * Note that blocking on the waits of this library (e.g., {@link org.jtrim2.cancel.CancelableWaits})
+     * does not pin the carrier thread of a virtual thread, because they do not rely on
+     * object monitors.
+     * <P>
+     * The returned executor must be shut down when no longer needed, like any other
+     * thread pool created by {@link ThreadPoolBuilder}.
+     *
+     * @param poolName the string to be contained in the name of the threads running the tasks
+     *   of the returned executor. This argument cannot be {@code null}.
+     * @param maxConcurrency the maximum number of tasks executed concurrently by the returned
+     *   executor. This argument must be greater than or equal to 1.
+     * @return a {@code TaskExecutorService} executing tasks on virtual threads. This method
+     *   never returns {@code null}.
+     *
+     * @throws IllegalArgumentException thrown if {@code maxConcurrency} is less than 1
+     */
+    public static MonitorableTaskExecutorService newVirtualThreadExecutor(String poolName, int maxConcurrency) {
+        ExceptionHelper.checkArgumentInRange(maxConcurrency, 1, Integer.MAX_VALUE, "maxConcurrency");
+        VirtualThreadFactory threadFactory = new VirtualThreadFactory(poolName);
+
+        return ThreadPoolBuilder.create(poolName, config -> {
+            config.setMaxThreadCount(maxConcurrency);
+            // Virtual threads are cheap to create, so there is no reason to keep them.
+            config.setIdleTimeout(TimeDuration.nanos(0));
+            config.setThreadFactory(threadFactory);
+        });
+    }
+
+    /**
+     * Returns a {@code ScheduledTaskExecutor} submitting the scheduled tasks to the given
+     * executor when their delay elapses. The returned executor has a resolution of
+     * 10 milliseconds, and uses a timing wheel of 512 buckets.
+     * <P>
+     * This method is equivalent to calling
+     * {@code newScheduledExecutor(executor, TimeDuration.millis(10), 512)}.
+     *
+     * @param executor the executor to which the scheduled tasks are submitted to when their
+     *   delay elapses. This argument cannot be {@code null}.
+     * @return a {@code ScheduledTaskExecutor} submitting the scheduled tasks to the given
+     *   executor when their delay elapses. This method never returns {@code null}.
+     *
+     * @see #newScheduledExecutor(TaskExecutor, TimeDuration, int)
+     */
+    public static ScheduledTaskExecutor newScheduledExecutor(TaskExecutor executor) {
+        return newScheduledExecutor(executor, DEFAULT_TIMER_TICK, DEFAULT_TIMER_WHEEL_SIZE);
+    }
+
+    /**
+     * Returns a {@code ScheduledTaskExecutor} submitting the scheduled tasks to the given
+     * executor when their delay elapses. Tasks submitted to the returned executor without a
+     * delay are submitted directly to the given executor.
+     * <P>
+     * The returned executor is based on a hashed timing wheel, so scheduling and canceling
+     * a task takes constant time regardless of the number of currently scheduled tasks. This
+     * makes it suitable for a very large number of timeouts which are usually canceled before
+     * their delay elapses. The price is that the delays are measured in ticks: A scheduled task
+     * might be submitted up to a tick later than requested. Note that the wheel only limits the
+     * efficiency, not the length of the delays: Tasks whose delay exceeds a full rotation of the
+     * wheel stay in their bucket for multiple rotations.
+     * <P>
+     * The returned executor uses a daemon thread to count the ticks, which is only
+     * running while there are scheduled tasks (or there were scheduled tasks recently),
+     * so the returned executor does not need to be shut down. Note that if the given executor
+     * executes tasks synchronously, then the scheduled tasks will be executed on this timer
+     * thread, delaying other scheduled tasks.
+     *
+     * @param executor the executor to which the scheduled tasks are submitted to when their
+     *   delay elapses. This argument cannot be {@code null}.
+     * @param tickDuration the resolution of the returned executor. This argument cannot be
+     *   {@code null} and must be at least one nanosecond.
+     * @param wheelSize the number of buckets of the timing wheel. This number is rounded up
+     *   to the nearest power of two. This argument must be greater than or equal to 1 and
+     *   must not be greater than {@code 2^30}.
+     * @return a {@code ScheduledTaskExecutor} submitting the scheduled tasks to the given
+     *   executor when their delay elapses. This method never returns {@code null}.
+     *
+     * @throws IllegalArgumentException thrown if {@code tickDuration} or {@code wheelSize} is
+     *   out of the allowed range
+     */
+    public static ScheduledTaskExecutor newScheduledExecutor(
+            TaskExecutor executor,
+            TimeDuration tickDuration,
+            int wheelSize) {
+
+        return new HashedWheelScheduledTaskExecutor(
+                executor,
+                new ExecutorsEx.NamedThreadFactory(true, "ScheduledTaskExecutor-timer"),
+                tickDuration,
+                wheelSize);
+    }
+
     /**
      * Returns an {@code TaskExecutorService} forwarding all of its methods to
      * the given {@code TaskExecutorService} but the returned
@@ -287,6 +393,46 @@ public final class TaskExecutors {
         return inOrderExecutor(SyncTaskExecutor.getSimpleExecutor());
     }
 
+    /**
+     * Returns a {@code KeyedTaskExecutor} which forwards tasks to the given executor, and
+     * executes tasks submitted with the same key in the order they were submitted without
+     * running them concurrently, while tasks submitted with different keys might run
+     * concurrently. That is, each key behaves as if it had its own
+     * {@link #inOrderExecutor(TaskExecutor) in-order executor}, but all of them share the
+     * given executor.
+     * <P>
+     * The queue of a key is only created when a task is submitted with the key and is removed
+     * when all the tasks of the key have been executed. So, the memory retained by the
+     * returned executor is proportional to the number of keys with queued or executing tasks
+     * and not to the number of keys ever used. Also, the returned executor forwards only one
+     * task to the given executor for each key having queued tasks, and a single forwarded task
+     * executes a limited number of tasks of a key, so that keys having lots of tasks do
+     * not starve other keys.
+     * <P>
+     * The same restrictions apply to tasks sharing the same key as to the tasks of the
+     * {@link #inOrderExecutor(TaskExecutor) inOrderExecutor}. That is, a task must not
+     * wait for another task submitted with the same key, otherwise it will dead-lock.
+     * <P>
+     * <B>Warning</B>: Just like {@code inOrderExecutor}, the returned executor queues tasks
+     * without limits. So, if tasks are submitted faster than they can be executed, then it
+     * will eventually run out of memory.
+     *
+     * @param <K> the type of the keys identifying the serialized groups of tasks
+     * @param executor the executor to which tasks will be eventually forwarded
+     *   to. This argument cannot be {@code null}.
+     * @return a {@code KeyedTaskExecutor} which forwards tasks to the given executor, and
+     *   executes tasks submitted with the same key without running them concurrently. This
+     *   method never returns {@code null}.
+     *
+     * @throws NullPointerException thrown if the specified executor is
+     *   {@code null}
+     *
+     * @see #inOrderExecutor(TaskExecutor)
+     */
+    public static <K> KeyedTaskExecutor<K> keyedInOrderExecutor(TaskExecutor executor) {
+        return new KeyedInOrderTaskExecutor<>(executor);
+    }
+
     /**
      * Returns a {@code TaskExecutorService} which upgrades the specified
      * {@link TaskExecutor TaskExecutor} to provide all the features of a
@@ -2,10 +2,8 @@ package org.jtrim2.executor;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import org.jtrim2.utils.ExceptionHelper;
 
 /**
@@ -109,8 +107,8 @@ public final class TaskScheduler {
     }
 
     private final Executor executor;
-    private final AtomicReference<Thread> dispatcherThread; // null means that noone is dispatching
-    private final BlockingQueue<Runnable> toDispatch;
+    private final SerialDispatchQueue<TaskNode> toDispatch;
+    private final Consumer<TaskNode> submitAction;
 
     /**
      * Creates a new task scheduler (without any task scheduled) with the given
@@ -127,8 +125,8 @@ public final class TaskScheduler {
         Objects.requireNonNull(executor, "executor");
 
         this.executor = executor;
-        this.dispatcherThread = new AtomicReference<>(null);
-        this.toDispatch = new LinkedBlockingQueue<>();
+        this.toDispatch = new SerialDispatchQueue<>();
+        this.submitAction = taskNode -> executor.execute(taskNode.task);
     }
 
     /**
@@ -146,7 +144,7 @@ public final class TaskScheduler {
     public void scheduleTask(Runnable task) {
         Objects.requireNonNull(task, "task");
 
-        toDispatch.add(task);
+        toDispatch.add(new TaskNode(task));
     }
 
     /**
@@ -186,32 +184,7 @@ public final class TaskScheduler {
      * suppressed (See: {@link Throwable#addSuppressed(Throwable)}).
      */
     public void dispatchTasks() {
-        if (isCurrentThreadDispatching()) {
-            // Tasks will be dispatched there.
-            return;
-        }
-
-        Thread currentThread = Thread.currentThread();
-        Throwable toThrow = null;
-        while (!toDispatch.isEmpty()) {
-            if (dispatcherThread.compareAndSet(null, currentThread)) {
-                try {
-                    Runnable task = toDispatch.poll();
-                    if (task != null) {
-                        executor.execute(task);
-                    }
-                } catch (Throwable ex) {
-                    if (toThrow == null) toThrow = ex;
-                    else toThrow.addSuppressed(ex);
-                } finally {
-                    dispatcherThread.set(null);
-                }
-            } else {
-                return;
-            }
-        }
-
-        ExceptionHelper.rethrowIfNotNull(toThrow);
+        toDispatch.dispatch(submitAction);
     }
 
     /**
@@ -223,7 +196,7 @@ public final class TaskScheduler {
      *   {@code dispatchTasks()}, {@code false} otherwise
      */
     public boolean isCurrentThreadDispatching() {
-        return dispatcherThread.get() == Thread.currentThread();
+        return toDispatch.isCurrentThreadDispatching();
     }
 
     /**
@@ -240,4 +213,12 @@ public final class TaskScheduler {
     public String toString() {
         return "TaskScheduler{Tasks to be executed: " + toDispatch.size() + '}';
     }
+
+    private static final class TaskNode extends IntrusiveMpscQueue.Node {
+        private final Runnable task;
+
+        public TaskNode(Runnable task) {
+            this.task = task;
+        }
+    }
 }
@@ -30,6 +30,7 @@ import org.jtrim2.utils.TimeDuration;
  */
 public final class ThreadPoolBuilder {
     private static final TimeDuration DEFAULT_IDLE_TIMEOUT = TimeDuration.seconds(5);
+    private static final TimeDuration DEFAULT_PRIORITY_AGING = TimeDuration.millis(10);
 
     private final String poolName;
 
@@ -38,8 +39,14 @@ public final class ThreadPoolBuilder {
     private TimeDuration idleTimeout;
     private ThreadFactory threadFactory;
     private boolean manualShutdownRequired;
+    private boolean workStealing;
+    private TimeDuration priorityAging;
     private Function<MonitorableTaskExecutorService, FullQueueHandler> fullQueueHandlerFactory;
     private Function<MonitorableTaskExecutorService, MonitorableTaskExecutorService> fullQueueHandlerDecorator;
+    private boolean dropOldestOnFullQueue;
+    private TimeDuration adaptiveLifoTargetDelay;
+    private TimeDuration adaptiveLifoInterval;
+    private boolean metricsEnabled;
 
     /**
      * Creates and initializes the build with the given pool name, and
@@ -48,6 +55,9 @@ public final class ThreadPoolBuilder {
      *   <li>{@link #setMaxQueueSize(int) maxQueueSize} = {@code Integer.MAX_VALUE}</li>
      *   <li>{@link #setIdleTimeout(TimeDuration) idleTimeout} = 5 seconds</li>
      *   <li>{@link #setManualShutdownRequired(boolean) manualShutdownRequired} = true</li>
+     *   <li>{@link #setWorkStealing(boolean) workStealing} = false</li>
+     *   <li>{@link #setPriorityAging(TimeDuration) priorityAging} = 10 milliseconds</li>
+     *   <li>{@link #setMetricsEnabled(boolean) metricsEnabled} = false</li>
      *   <li>{@link #setThreadFactory(ThreadFactory) threadFactory} = a factory creating non-daemon threads.</li>
      * </ul>
      *
@@ -62,8 +72,14 @@ public final class ThreadPoolBuilder {
         this.idleTimeout = DEFAULT_IDLE_TIMEOUT;
         this.threadFactory = new ExecutorsEx.NamedThreadFactory(false, poolName);
         this.manualShutdownRequired = true;
+        this.workStealing = false;
+        this.priorityAging = DEFAULT_PRIORITY_AGING;
         this.fullQueueHandlerFactory = executor -> FullQueueHandler.blockAlwaysHandler();
         this.fullQueueHandlerDecorator = Function.identity();
+        this.dropOldestOnFullQueue = false;
+        this.adaptiveLifoTargetDelay = null;
+        this.adaptiveLifoInterval = null;
+        this.metricsEnabled = false;
     }
 
     /**
@@ -93,6 +109,37 @@ public final class ThreadPoolBuilder {
         return builder.build();
     }
 
+    /**
+     * Creates a priority-aware thread pool executor using a {@code ThreadPoolBuilder}. This method is
+     * useful to create the thread pool in a single expression.
+     * <P>
+     * This method call is effectively equivalent to
+     * <pre>{@code
+     * ThreadPoolBuilder builder = new ThreadPoolBuilder(poolName);
+     * config.accept(builder);
+     * return builder.buildPrioritized();
+     * }</pre>
+     *
+     * @param poolName the name of the thread pool to be created. Unless you overwrite the
+     *   thread factory with a custom implementation, this string will be part of the name
+     *   of the threads of the thread pool. This argument cannot be {@code null}.
+     * @param config the action called by this method to configure the
+     *   {@code ThreadPoolBuilder}. This argument cannot be {@code null}.
+     * @return the executor with configuration set by the configuration action. This method
+     *   never returns {@code null}.
+     *
+     * @see #buildPrioritized()
+     */
+    public static PriorityTaskExecutorService createPrioritized(
+            String poolName,
+            Consumer<? super ThreadPoolBuilder> config) {
+
+        Objects.requireNonNull(config, "config");
+        ThreadPoolBuilder builder = new ThreadPoolBuilder(poolName);
+        config.accept(builder);
+        return builder.buildPrioritized();
+    }
+
     private static int positive(int value, String name) {
         return ExceptionHelper.checkArgumentInRange(value, 1, Integer.MAX_VALUE, name);
     }
@@ -202,6 +249,50 @@ public final class ThreadPoolBuilder {
         this.manualShutdownRequired = manualShutdownRequired;
     }
 
+    /**
+     * Sets and overwrites previously set value selecting a work-stealing implementation or not.
+     * If work-stealing is enabled, then each worker thread of the executor has its own local
+     * queue: Tasks submitted from a worker thread of the executor are added to the local queue
+     * of the submitting thread, and idle workers steal tasks from the local queue of other workers.
+     * Only tasks submitted from outside the executor are added to the shared queue. This greatly
+     * reduces contention, if tasks are mostly submitted from the tasks of the executor.
+     * <P>
+     * Note that a work-stealing executor does not execute tasks in any particular order.
+     * Also, the {@link #setMaxQueueSize(int) maximum queue size} is only enforced for tasks
+     * submitted from outside the executor, because blocking a worker thread of the executor
+     * could dead-lock it. This property is ignored if the {@link #setMaxThreadCount(int) maxThreadCount}
+     * is 1, since there is nobody to steal from.
+     * <P>
+     * The default value for this property is {@code false}.
+     *
+     * @param workStealing {@code true} if the built executor should rely on work-stealing,
+     *   {@code false} otherwise
+     */
+    public void setWorkStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+    }
+
+    /**
+     * Sets and overwrites previously set aging step of executors created by the
+     * {@link #buildPrioritized() buildPrioritized} method. A task waiting in the queue for the
+     * given amount of time is executed before tasks submitted after this point in time with a
+     * priority one higher. That is, the lower this value is, the less the priority of the task matters
+     * compared to how long it has been waiting. This property is ignored by the {@link #build() build} method.
+     * <P>
+     * The default value for this property is 10 milliseconds.
+     *
+     * @param priorityAging the amount of time after a queued task is considered to have a priority one
+     *   higher than tasks submitted after this time. This argument cannot be {@code null} and must be
+     *   positive.
+     *
+     * @see PriorityTaskExecutorService
+     */
+    public void setPriorityAging(TimeDuration priorityAging) {
+        Objects.requireNonNull(priorityAging, "priorityAging");
+        ExceptionHelper.checkArgumentInRange(priorityAging.toNanos(), 1, Long.MAX_VALUE, "priorityAging");
+        this.priorityAging = priorityAging;
+    }
+
     /**
      * Sets and overwrites previously set handler defining a custom exception to be thrown
      * in case the task queue of the executor is full. Setting this property will overwrite
@@ -217,6 +308,7 @@ public final class ThreadPoolBuilder {
         Objects.requireNonNull(fullQueueHandler, "fullQueueHandler");
         this.fullQueueHandlerFactory = executor -> fullQueueHandler;
         this.fullQueueHandlerDecorator = Function.identity();
+        this.dropOldestOnFullQueue = false;
     }
 
     /**
@@ -241,6 +333,105 @@ public final class ThreadPoolBuilder {
             return cancelToken -> new FallbackExecutor.FallbackException(executor, fallbackExecutor);
         };
         this.fullQueueHandlerDecorator = FallbackExecutor::new;
+        this.dropOldestOnFullQueue = false;
+    }
+
+    /**
+     * Sets and overwrites previously set handler to execute the submitted task synchronously on the
+     * submitting thread when the task queue of the built executor is full. That is, this is a
+     * convenience method equivalent to
+     * {@code setFullQueueHandlerToFallback(SyncTaskExecutor.getSimpleExecutor())}.
+     * <P>
+     * This handler provides natural backpressure: The thread submitting the tasks cannot submit
+     * further tasks while it is busy executing the task the executor could not accept. However,
+     * the submitting thread might hold locks or might be a thread which must not be blocked for long
+     * (e.g., a UI thread), in which case this handler is not appropriate.
+     *
+     * @see #setFullQueueHandlerToFallback(TaskExecutor)
+     */
+    public void setFullQueueHandlerToCallerRuns() {
+        setFullQueueHandlerToFallback(SyncTaskExecutor.getSimpleExecutor());
+    }
+
+    /**
+     * Sets and overwrites previously set handler to make room for the submitted task by removing
+     * the oldest task from the task queue of the built executor when the queue is full. The removed
+     * task is canceled: It will not be executed, and its {@code CompletionStage} is completed
+     * exceptionally with an {@link org.jtrim2.cancel.OperationCanceledException OperationCanceledException}.
+     * This feature relies on the {@link #setFullQueueHandler(FullQueueHandler) fullQueueHandler}, thus
+     * overwrites the value set for it.
+     * <P>
+     * This handler never blocks the submitting thread, and prefers fresh tasks over tasks which
+     * have been waiting for long (and so are more likely to be no longer needed). The removed tasks are
+     * counted as {@link ThreadPoolMetrics#getRejectedTaskCount() rejected}.
+     * <P>
+     * Setting this handler makes the {@link #build() build} method ignore the
+     * {@link #setWorkStealing(boolean) workStealing} property. This handler is ignored by the
+     * {@link #buildPrioritized() buildPrioritized} method.
+     */
+    public void setFullQueueHandlerToDropOldest() {
+        this.fullQueueHandlerFactory = executor -> FullQueueHandler.blockAlwaysHandler();
+        this.fullQueueHandlerDecorator = Function.identity();
+        this.dropOldestOnFullQueue = true;
+    }
+
+    /**
+     * Sets and overwrites previously set parameters of the adaptive LIFO mode of the built executor.
+     * Once set, the executor monitors how long tasks wait in its queue in the CoDel (controlled delay)
+     * style: If the oldest task of the queue kept waiting more than {@code targetQueueDelay} during a
+     * whole {@code interval} (i.e., there is a standing queue, not just a short burst), then the
+     * executor considers itself overloaded until the queue delay drops below {@code targetQueueDelay}
+     * for an {@code interval}. While overloaded, the executor
+     * <ul>
+     *   <li>executes the most recently submitted task first (LIFO), because it has the best chance to be
+     *     still useful to its submitter when it completes,</li>
+     *   <li>drops tasks waiting more than twice the {@code targetQueueDelay} in the queue. The dropped
+     *     tasks will not be executed, and their {@code CompletionStage} is completed exceptionally with
+     *     an {@link org.jtrim2.cancel.OperationCanceledException OperationCanceledException}. The dropped
+     *     tasks are counted as {@link ThreadPoolMetrics#getRejectedTaskCount() rejected}.</li>
+     * </ul>
+     * When not overloaded, tasks are executed in FIFO order as usual. This allows the executor to keep
+     * the latency of tasks bounded during traffic spikes, instead of executing tasks nobody is waiting for
+     * anymore.
+     * <P>
+     * Setting this property makes the {@link #build() build} method ignore the
+     * {@link #setWorkStealing(boolean) workStealing} property. This property is ignored by the
+     * {@link #buildPrioritized() buildPrioritized} method.
+     * <P>
+     * The adaptive LIFO mode is disabled by default.
+     *
+     * @param targetQueueDelay the acceptable time for tasks to wait in the queue. Tasks waiting more than
+     *   twice this time might be dropped when the executor is overloaded. This argument cannot be
+     *   {@code null} and cannot be negative.
+     * @param interval the time the queue delay has to consistently exceed {@code targetQueueDelay}
+     *   before the executor considers itself overloaded. This argument cannot be {@code null}, and
+     *   must be positive.
+     */
+    public void setAdaptiveLifo(TimeDuration targetQueueDelay, TimeDuration interval) {
+        Objects.requireNonNull(targetQueueDelay, "targetQueueDelay");
+        Objects.requireNonNull(interval, "interval");
+        ExceptionHelper.checkArgumentInRange(targetQueueDelay.toNanos(), 0, Long.MAX_VALUE / 2, "targetQueueDelay");
+        ExceptionHelper.checkArgumentInRange(interval.toNanos(), 1, Long.MAX_VALUE, "interval");
+
+        this.adaptiveLifoTargetDelay = targetQueueDelay;
+        this.adaptiveLifoInterval = interval;
+    }
+
+    /**
+     * Sets and overwrites previously set value enabling collecting statistics about the tasks of
+     * the built executor. If enabled, and the built executor implements {@link InstrumentedTaskExecutor},
+     * then the collected statistics are available through its
+     * {@link InstrumentedTaskExecutor#getMetrics() getMetrics} method. Otherwise, the executor
+     * does not spend time on collecting the statistics, and its {@code getMetrics} method returns
+     * a {@link ThreadPoolMetrics#isEnabled() disabled} instance.
+     * <P>
+     * The default value for this property is {@code false}.
+     *
+     * @param metricsEnabled {@code true} if the built executor should collect statistics about
+     *   its tasks, {@code false} otherwise
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
     }
 
     private FullQueueHandler getOptimizedFullQueueHandler(MonitorableTaskExecutorService executor) {
@@ -269,6 +460,9 @@ public final class ThreadPoolBuilder {
                 = new SimpleThreadPoolTaskExecutor(poolName, maxThreadCount, maxQueueSize, threadFactory);
 
         result.setFullQueueHandler(getOptimizedFullQueueHandler(result));
+        if (metricsEnabled) {
+            result.enableMetrics();
+        }
         if (!manualShutdownRequired) {
             result.dontNeedShutdown();
         }
@@ -283,18 +477,47 @@ public final class ThreadPoolBuilder {
                 threadFactory
         );
         result.setFullQueueHandler(getOptimizedFullQueueHandler(result));
+        if (metricsEnabled) {
+            result.enableMetrics();
+        }
         if (!manualShutdownRequired) {
             result.dontNeedShutdown();
         }
         return result;
     }
 
+    private boolean needsQueueShedding() {
+        return dropOldestOnFullQueue || adaptiveLifoTargetDelay != null;
+    }
+
     private ThreadPoolTaskExecutor buildGenericExecutor() {
         ThreadPoolTaskExecutor result = new ThreadPoolTaskExecutor(
                 poolName,
                 maxThreadCount,
                 maxQueueSize,
-                getSafeIdleTimeout(),
+                isInfiniteTimeout() ? TimeDuration.nanos(Long.MAX_VALUE) : getSafeIdleTimeout(),
+                threadFactory
+        );
+        result.setFullQueueHandler(getOptimizedFullQueueHandler(result));
+        result.setDropOldestOnFullQueue(dropOldestOnFullQueue);
+        if (metricsEnabled) {
+            result.enableMetrics();
+        }
+        if (adaptiveLifoTargetDelay != null) {
+            result.setAdaptiveLifo(adaptiveLifoTargetDelay, adaptiveLifoInterval);
+        }
+        if (!manualShutdownRequired) {
+            result.dontNeedShutdown();
+        }
+        return result;
+    }
+
+    private WorkStealingTaskExecutor buildWorkStealingExecutor() {
+        WorkStealingTaskExecutor result = new WorkStealingTaskExecutor(
+                poolName,
+                maxThreadCount,
+                maxQueueSize,
+                isInfiniteTimeout() ? TimeDuration.nanos(Long.MAX_VALUE) : getSafeIdleTimeout(),
                 threadFactory
         );
         result.setFullQueueHandler(getOptimizedFullQueueHandler(result));
@@ -305,6 +528,13 @@ public final class ThreadPoolBuilder {
     }
 
     private MonitorableTaskExecutorService buildUnwrapped() {
+        if (needsQueueShedding()) {
+            // Only the generic implementation supports removing tasks from its queue to shed load.
+            return buildGenericExecutor();
+        }
+        if (workStealing && maxThreadCount > 1) {
+            return buildWorkStealingExecutor();
+        }
         if (isInfiniteTimeout()) {
             return buildNoTimeoutExecutor();
         }
@@ -320,7 +550,10 @@ public final class ThreadPoolBuilder {
      * has no effect on the returned executor.
      * <P>
      * Note: This method makes no guarantee on the type of the returned executor, and the
-     * actual implementation might change in future versions.
+     * actual implementation might change in future versions. Some of the returned executors
+     * also implement {@link InstrumentedTaskExecutor}, in which case their statistics are
+     * available through the {@link InstrumentedTaskExecutor#getMetrics() getMetrics} method,
+     * if {@link #setMetricsEnabled(boolean) enabled}.
      *
      * @return a new executor using the previously set properties. This method never returns
      *   {@code null}.
@@ -329,6 +562,39 @@ public final class ThreadPoolBuilder {
         return fullQueueHandlerDecorator.apply(buildUnwrapped());
     }
 
+    /**
+     * Creates and returns a new executor using the previously set properties, executing tasks
+     * in order of their priority. This method captures the previously set properties, and subsequent
+     * modifications to this builder has no effect on the returned executor.
+     * <P>
+     * The {@link #setWorkStealing(boolean) workStealing} property is ignored by this method.
+     * Note that even if the {@link #setMaxThreadCount(int) maxThreadCount} is 1, the returned
+     * executor only executes tasks in FIFO order, if they were submitted with the same priority
+     * and without a deadline.
+     *
+     * @return a new executor using the previously set properties. This method never returns
+     *   {@code null}.
+     *
+     * @see #setPriorityAging(TimeDuration)
+     */
+    public PriorityTaskExecutorService buildPrioritized() {
+        PriorityThreadPoolTaskExecutor result = new PriorityThreadPoolTaskExecutor(
+                poolName,
+                maxThreadCount,
+                maxQueueSize,
+                isInfiniteTimeout() ? TimeDuration.nanos(Long.MAX_VALUE) : getSafeIdleTimeout(),
+                priorityAging,
+                threadFactory
+        );
+        // Note: fullQueueHandlerDecorator is not applied, because the fallback is handled
+        //   by the executor itself to keep the PriorityTaskExecutorService interface.
+        result.setFullQueueHandler(getOptimizedFullQueueHandler(result));
+        if (!manualShutdownRequired) {
+            result.dontNeedShutdown();
+        }
+        return result;
+    }
+
     /**
      * Defines a configurer to create a simple {@link ThreadFactory} instance.
      *
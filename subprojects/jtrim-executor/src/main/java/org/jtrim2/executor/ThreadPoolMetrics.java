@@ -0,0 +1,271 @@
+package org.jtrim2.executor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Defines the statistics collected by a thread pool since it was created. The counters
+ * and histograms are updated by the thread pool as tasks are submitted and executed, so the
+ * values returned by this object might change between subsequent calls. To get the statistics of
+ * a given period, query the values at the start and the end of the period and subtract them.
+ * <P>
+ * Collecting these statistics does not allocate memory for the submitted tasks, and costs
+ * only a few {@code System.nanoTime()} calls and atomic increments for each task. Still, thread pools
+ * only collect them if requested (see {@link ThreadPoolBuilder#setMetricsEnabled(boolean)}). Otherwise,
+ * they return a {@link #isEnabled() disabled} instance, which records nothing and reports zero for
+ * every statistic.
+ *
+ * <h2>Thread safety</h2>
+ * Methods of this class are safely accessible from multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * Methods of this class are <I>synchronization transparent</I>.
+ *
+ * @see InstrumentedTaskExecutor
+ */
+public final class ThreadPoolMetrics {
+    private static final ThreadPoolMetrics DISABLED = new ThreadPoolMetrics(false);
+
+    private final boolean enabled;
+    private final LongAdder submittedTaskCount;
+    private final LongAdder completedTaskCount;
+    private final LongAdder canceledTaskCount;
+    private final LongAdder rejectedTaskCount;
+    private final LongAdder createdThreadCount;
+    private final LongAdder idleTimeoutCount;
+    private final LongAdder fullQueueBlockedNanos;
+    private final LatencyHistogram queueWaitTimes;
+    private final LatencyHistogram executionTimes;
+
+    ThreadPoolMetrics() {
+        this(true);
+    }
+
+    private ThreadPoolMetrics(boolean enabled) {
+        this.enabled = enabled;
+        this.submittedTaskCount = new LongAdder();
+        this.completedTaskCount = new LongAdder();
+        this.canceledTaskCount = new LongAdder();
+        this.rejectedTaskCount = new LongAdder();
+        this.createdThreadCount = new LongAdder();
+        this.idleTimeoutCount = new LongAdder();
+        this.fullQueueBlockedNanos = new LongAdder();
+        this.queueWaitTimes = new LatencyHistogram();
+        this.executionTimes = new LatencyHistogram();
+    }
+
+    // Returns a shared instance recording nothing.
+    static ThreadPoolMetrics disabled() {
+        return DISABLED;
+    }
+
+    void recordSubmitted(int taskCount) {
+        if (enabled) {
+            submittedTaskCount.add(taskCount);
+        }
+    }
+
+    void recordCanceled() {
+        if (enabled) {
+            canceledTaskCount.increment();
+        }
+    }
+
+    void recordCanceled(int taskCount) {
+        if (enabled) {
+            canceledTaskCount.add(taskCount);
+        }
+    }
+
+    void recordRejected() {
+        if (enabled) {
+            rejectedTaskCount.increment();
+        }
+    }
+
+    void recordRejected(int taskCount) {
+        if (enabled) {
+            rejectedTaskCount.add(taskCount);
+        }
+    }
+
+    void recordThreadCreated() {
+        if (enabled) {
+            createdThreadCount.increment();
+        }
+    }
+
+    void recordIdleTimeout() {
+        if (enabled) {
+            idleTimeoutCount.increment();
+        }
+    }
+
+    void recordFullQueueBlocked(long startNanos) {
+        if (enabled) {
+            fullQueueBlockedNanos.add(System.nanoTime() - startNanos);
+        }
+    }
+
+    // Returns the start time of the task to be passed to recordTaskCompleted.
+    long recordTaskStarted(long submitNanos) {
+        if (!enabled) {
+            return 0;
+        }
+
+        long startNanos = System.nanoTime();
+        queueWaitTimes.record(startNanos - submitNanos);
+        return startNanos;
+    }
+
+    void recordTaskCompleted(long startNanos) {
+        if (enabled) {
+            executionTimes.record(System.nanoTime() - startNanos);
+            completedTaskCount.increment();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the thread pool actually collects the statistics into this object.
+     * If this method returns {@code false}, then all the statistics are zero, and remain zero.
+     *
+     * @return {@code true} if the thread pool actually collects the statistics into this object,
+     *   {@code false} otherwise
+     *
+     * @see ThreadPoolBuilder#setMetricsEnabled(boolean)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the number of tasks submitted to the thread pool. This includes the tasks
+     * which were canceled or rejected but does not include the tasks submitted after the
+     * thread pool was shut down (these tasks never reach the thread pool).
+     *
+     * @return the number of tasks submitted to the thread pool. This method never returns
+     *   a negative value.
+     */
+    public long getSubmittedTaskCount() {
+        return submittedTaskCount.sum();
+    }
+
+    /**
+     * Returns the number of tasks executed by the thread pool. Tasks completing exceptionally
+     * are also counted as long as they were executed.
+     *
+     * @return the number of tasks executed by the thread pool. This method never returns
+     *   a negative value.
+     */
+    public long getCompletedTaskCount() {
+        return completedTaskCount.sum();
+    }
+
+    /**
+     * Returns the number of tasks which were not executed, because they were canceled before
+     * they could have been started. This includes the tasks discarded, because the thread pool
+     * was shut down while they were waiting in the queue.
+     *
+     * @return the number of tasks canceled before they could have been started. This method
+     *   never returns a negative value.
+     */
+    public long getCanceledTaskCount() {
+        return canceledTaskCount.sum();
+    }
+
+    /**
+     * Returns the number of tasks rejected by the {@link FullQueueHandler} of the thread pool.
+     * That is, the number of times the {@code FullQueueHandler} returned an exception, or the
+     * time limit of the {@code FullQueueHandler} elapsed while waiting for the queue. Tasks
+     * dropped from the queue to shed load (see
+     * {@link ThreadPoolBuilder#setFullQueueHandlerToDropOldest() drop-oldest} and
+     * {@link ThreadPoolBuilder#setAdaptiveLifo(org.jtrim2.utils.TimeDuration, org.jtrim2.utils.TimeDuration)
+     * adaptive LIFO}) are also counted as rejected.
+     *
+     * @return the number of tasks rejected by the {@code FullQueueHandler} of the thread pool.
+     *   This method never returns a negative value.
+     */
+    public long getRejectedTaskCount() {
+        return rejectedTaskCount.sum();
+    }
+
+    /**
+     * Returns the number of threads started by the thread pool.
+     *
+     * @return the number of threads started by the thread pool. This method never returns
+     *   a negative value.
+     */
+    public long getCreatedThreadCount() {
+        return createdThreadCount.sum();
+    }
+
+    /**
+     * Returns the number of times a thread of the thread pool stopped, because it had
+     * nothing to do for the idle timeout of the thread pool.
+     *
+     * @return the number of threads stopped due to the idle timeout. This method never
+     *   returns a negative value.
+     */
+    public long getIdleTimeoutCount() {
+        return idleTimeoutCount.sum();
+    }
+
+    /**
+     * Returns the total time submitters spent waiting, because the queue of the thread pool
+     * was full. This includes the time spent in the {@link FullQueueHandler} of the thread pool.
+     *
+     * @param unit the time unit in which the result is to be returned. This argument cannot be
+     *   {@code null}.
+     * @return the total time submitters spent waiting for the full queue. This method never
+     *   returns a negative value.
+     */
+    public long getFullQueueBlockedTime(TimeUnit unit) {
+        return unit.convert(fullQueueBlockedNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the histogram of the time elapsed between submitting tasks and starting
+     * to execute them.
+     *
+     * @return the histogram of the time elapsed between submitting tasks and starting
+     *   to execute them. This method never returns {@code null}.
+     */
+    public LatencyHistogram getQueueWaitTimes() {
+        return queueWaitTimes;
+    }
+
+    /**
+     * Returns the histogram of the time spent executing tasks.
+     *
+     * @return the histogram of the time spent executing tasks. This method never returns {@code null}.
+     */
+    public LatencyHistogram getExecutionTimes() {
+        return executionTimes;
+    }
+
+    /**
+     * Returns the string representation of these metrics in no particular format.
+     * <P>
+     * This method is intended to be used for debugging only.
+     *
+     * @return the string representation of this object in no particular format.
+     *   This method never returns {@code null}.
+     */
+    @Override
+    public String toString() {
+        if (!enabled) {
+            return "ThreadPoolMetrics{disabled}";
+        }
+
+        return "ThreadPoolMetrics{"
+                + "submitted=" + getSubmittedTaskCount()
+                + ", completed=" + getCompletedTaskCount()
+                + ", canceled=" + getCanceledTaskCount()
+                + ", rejected=" + getRejectedTaskCount()
+                + ", createdThreads=" + getCreatedThreadCount()
+                + ", idleTimeouts=" + getIdleTimeoutCount()
+                + ", fullQueueBlocked=" + getFullQueueBlockedTime(TimeUnit.MILLISECONDS) + " ms"
+                + ", queueWaitTimes=" + queueWaitTimes
+                + ", executionTimes=" + executionTimes + '}';
+    }
+}
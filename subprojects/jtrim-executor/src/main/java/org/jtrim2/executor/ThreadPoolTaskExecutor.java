@@ -1,10 +1,18 @@
 package org.jtrim2.executor;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -13,6 +21,7 @@ import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationSource;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.cancel.OperationTimeoutException;
 import org.jtrim2.collections.RefCollection;
 import org.jtrim2.collections.RefLinkedList;
 import org.jtrim2.collections.RefList;
@@ -186,7 +195,8 @@ public final class ThreadPoolTaskExecutor
 extends
         DelegatedTaskExecutorService
 implements
-        MonitorableTaskExecutorService {
+        MonitorableTaskExecutorService,
+        InstrumentedTaskExecutor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ThreadPoolTaskExecutor.class);
     private static final long DEFAULT_THREAD_TIMEOUT_MS = 5000;
@@ -360,8 +370,25 @@ implements
             TimeDuration idleTimeout,
             ThreadFactory threadFactory) {
 
-        this(new ThreadPoolTaskExecutorImpl(poolName, maxThreadCount, maxQueueSize, idleTimeout, threadFactory));
+        this(poolName, maxThreadCount, maxQueueSize, idleTimeout, threadFactory, QueueOrder.FIFO);
+    }
+
+    ThreadPoolTaskExecutor(
+            String poolName,
+            int maxThreadCount,
+            int maxQueueSize,
+            TimeDuration idleTimeout,
+            ThreadFactory threadFactory,
+            QueueOrder queueOrder) {
 
+        this(new ThreadPoolTaskExecutorImpl(
+                poolName,
+                maxThreadCount,
+                maxQueueSize,
+                idleTimeout,
+                threadFactory,
+                queueOrder
+        ));
     }
 
     private ThreadPoolTaskExecutor(final ThreadPoolTaskExecutorImpl impl) {
@@ -406,6 +433,20 @@ implements
         impl.setThreadFactory(threadFactory);
     }
 
+    /**
+     * {@inheritDoc }
+     * <P>
+     * <B>Implementation note</B>: The tasks are added to the queue of this executor
+     * while holding its lock only once, and only as many idle threads are woken up
+     * (or new threads are started) as needed to execute the tasks.
+     */
+    @Override
+    public <V> List<CompletionStage<V>> executeFunctions(
+            CancellationToken cancelToken,
+            List<? extends CancelableFunction<? extends V>> functions) {
+        return wrappedExecutor.executeFunctions(cancelToken, functions);
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -448,6 +489,14 @@ implements
         return impl.isExecutingInThis();
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ThreadPoolMetrics getMetrics() {
+        return impl.metrics;
+    }
+
     /**
      * Sets the maximum number of threads allowed to execute submitted tasks concurrently.
      * <P>
@@ -491,6 +540,78 @@ implements
         return impl.maxThreadCount;
     }
 
+    /**
+     * Enables adjusting the number of threads of this executor automatically, based on the
+     * measured throughput and the time tasks spend waiting in the queue. Once enabled, this
+     * executor limits the number of its threads to a value between {@code minThreadCount}
+     * and the {@link #setMaxThreadCount(int) maximum thread count}, and periodically adjusts
+     * this limit:
+     * <ul>
+     *   <li>
+     *     If tasks are waiting in the queue, then the limit is changed by one in the direction
+     *     improving the throughput (hill-climbing), or is increased if no task completed since
+     *     the previous adjustment.
+     *   </li>
+     *   <li>
+     *     If tasks do not need to wait in the queue, then the limit is decreased by one.
+     *   </li>
+     * </ul>
+     * This allows the executor to run near the optimal concurrency for both CPU bound tasks
+     * (where more threads than processors only add overhead) and tasks blocking on I/O (where
+     * more threads increase the throughput), even if the workload changes between the two.
+     * <P>
+     * The limit is adjusted at most once per {@code sampleInterval}, when a task is submitted or
+     * completed, and also periodically by a timer, so that the limit keeps growing even if all the
+     * threads are blocked and no more tasks are submitted. The timer only runs while there are
+     * queued or executing tasks, and it does not prevent the executor from being garbage collected.
+     * Lowering the limit causes surplus
+     * threads to stop after they complete their current task. Calling this method again restarts
+     * the adjustment from the current number of threads.
+     * <P>
+     * The adjustments rely on the statistics of this executor, so calling this method also enables
+     * collecting the {@link #getMetrics() metrics} of this executor.
+     *
+     * @param minThreadCount the minimum number of threads this executor is allowed to use,
+     *   if it has enough tasks to execute. This argument must be greater than or equal to 1.
+     *   If this value is greater than the maximum thread count, then the maximum thread count
+     *   is used instead.
+     * @param sampleInterval the time to wait between two adjustments of the thread count. The
+     *   interval should be long enough for a meaningful number of tasks to complete. This argument
+     *   cannot be {@code null} and must be positive.
+     *
+     * @see #disableAdaptiveThreadCount()
+     * @see #getThreadCountLimit()
+     */
+    public void setAdaptiveThreadCount(int minThreadCount, TimeDuration sampleInterval) {
+        impl.setAdaptiveThreadCount(minThreadCount, sampleInterval);
+    }
+
+    /**
+     * Disables adjusting the number of threads of this executor automatically, if it was
+     * enabled by a previous {@link #setAdaptiveThreadCount(int, TimeDuration) setAdaptiveThreadCount}
+     * call. After this method returns, the number of threads is only limited by the
+     * {@link #setMaxThreadCount(int) maximum thread count}.
+     */
+    public void disableAdaptiveThreadCount() {
+        impl.disableAdaptiveThreadCount();
+    }
+
+    /**
+     * Returns the number of threads this executor is currently allowed to use. If the thread
+     * count is {@link #setAdaptiveThreadCount(int, TimeDuration) adjusted automatically}, then
+     * this is the currently selected thread count, otherwise it is the same as the
+     * {@link #getMaxThreadCount() maximum thread count}.
+     * <P>
+     * The return value of this method is for information purpose only. It might change
+     * concurrently, and threads above the limit only stop after completing their current task.
+     *
+     * @return the number of threads this executor is currently allowed to use. This value is
+     *   always greater than or equal to one.
+     */
+    public int getThreadCountLimit() {
+        return impl.getThreadCountLimit();
+    }
+
     /**
      * Sets the maximum number of tasks allowed to be stored in the internal
      * queue.
@@ -598,10 +719,34 @@ implements
         return impl.toString();
     }
 
+    /**
+     * Submits a task which is queued as if it had been submitted the given amount of time
+     * earlier. This only makes a difference if the queue is {@link QueueOrder#SORT_KEY ordered}.
+     */
+    <V> CompletionStage<V> executeFunction(
+            CancellationToken cancelToken,
+            CancelableFunction<? extends V> function,
+            long headStartNanos) {
+
+        return impl.executeFunction(cancelToken, function, headStartNanos);
+    }
+
     void setFullQueueHandler(FullQueueHandler fullQueueHandler) {
         impl.fullQueueHandler = fullQueueHandler;
     }
 
+    void enableMetrics() {
+        impl.enableMetrics();
+    }
+
+    void setDropOldestOnFullQueue(boolean dropOldestOnFullQueue) {
+        impl.dropOldestOnFullQueue = dropOldestOnFullQueue;
+    }
+
+    void setAdaptiveLifo(TimeDuration targetQueueDelay, TimeDuration interval) {
+        impl.setAdaptiveLifo(targetQueueDelay, interval);
+    }
+
     FullQueueHandler getFullQueueHandler() {
         return impl.fullQueueHandler;
     }
@@ -614,6 +759,10 @@ implements
         return finalizer.isFinalized();
     }
 
+    boolean isAdaptiveSampleScheduled() {
+        return impl.sampledAdaptiveThreadCount.get() != null;
+    }
+
     static void handleFullQueue(
             Lock mainLock,
             FullQueueHandler currentFullQueueHandler,
@@ -621,20 +770,84 @@ implements
 
         // Must hold "mainLock"
 
-        RuntimeException fullQueueException;
+        RuntimeException fullQueueException = getFullQueueException(mainLock, currentFullQueueHandler, cancelToken);
+        if (fullQueueException != null) {
+            throw fullQueueException;
+        }
+    }
+
+    static void handleFullQueue(
+            Lock mainLock,
+            FullQueueHandler currentFullQueueHandler,
+            CancellationToken cancelToken,
+            ThreadPoolMetrics metrics) {
+
+        // Must hold "mainLock"
+
+        RuntimeException fullQueueException = getFullQueueException(mainLock, currentFullQueueHandler, cancelToken);
+        if (fullQueueException != null) {
+            metrics.recordRejected();
+            throw fullQueueException;
+        }
+    }
+
+    static void awaitQueueNotFull(
+            CancellationToken cancelToken,
+            Condition checkAddToQueueSignal,
+            FullQueueHandler fullQueueHandler,
+            long blockStartNanos) {
+
+        // Must hold the lock of "checkAddToQueueSignal"
+
+        long maxBlockNanos = fullQueueHandler != null
+                ? fullQueueHandler.getMaxBlockNanos()
+                : Long.MAX_VALUE;
+
+        if (maxBlockNanos == Long.MAX_VALUE) {
+            CancelableWaits.await(cancelToken, checkAddToQueueSignal);
+            return;
+        }
+
+        long remainingNanos = maxBlockNanos - (System.nanoTime() - blockStartNanos);
+        if (remainingNanos <= 0) {
+            throw OperationTimeoutException.withoutStackTrace(
+                    "Timed out waiting for the task queue of the executor.",
+                    null);
+        }
+        CancelableWaits.await(cancelToken, remainingNanos, TimeUnit.NANOSECONDS, checkAddToQueueSignal);
+    }
+
+    private static RuntimeException getFullQueueException(
+            Lock mainLock,
+            FullQueueHandler currentFullQueueHandler,
+            CancellationToken cancelToken) {
+
+        // Must hold "mainLock"
 
         // Note: The locking is reversed, because we are temporarily exiting the lock
         //       to avoid the risk of dead-lock while calling the foreign method.
         mainLock.unlock();
         try {
-            fullQueueException = currentFullQueueHandler.tryGetFullQueueException(cancelToken);
+            return currentFullQueueHandler.tryGetFullQueueException(cancelToken);
         } finally {
             mainLock.lock();
         }
+    }
 
-        if (fullQueueException != null) {
-            throw fullQueueException;
-        }
+    /**
+     * Defines the order in which the queued tasks are executed.
+     */
+    enum QueueOrder {
+        /**
+         * The tasks are executed in the order they were submitted.
+         */
+        FIFO,
+        /**
+         * The tasks are executed in the order of their submit time minus their head start
+         * (see {@link ThreadPoolTaskExecutor#executeFunction(CancellationToken, CancelableFunction, long)}),
+         * tasks with the same sort key are executed in FIFO order.
+         */
+        SORT_KEY
     }
 
     private static final class ThreadPoolTaskExecutorImpl
@@ -647,11 +860,24 @@ implements
         private static final RefCollection.ElementRef<?> POISON = new RefLinkedList<>()
                 .addFirstGetReference(Boolean.TRUE);
 
+        // Tasks waiting less than this in the queue on average are not considered to be a backlog
+        // by the adaptive thread count.
+        private static final long ADAPTIVE_BACKLOG_QUEUE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        // Samples the adaptive thread count even if no task is submitted or completed. The sampling
+        // is cheap, so it is done on the timer thread. Scheduled tasks only reference the executor
+        // weakly, and they are only scheduled while there are tasks to execute.
+        private static final ScheduledTaskExecutor ADAPTIVE_SAMPLE_TIMER
+                = TaskExecutors.newScheduledExecutor(SyncTaskExecutor.getSimpleExecutor());
+
         private final String poolName;
 
         private volatile int maxQueueSize;
         private volatile long idleTimeoutNanos;
         private volatile int maxThreadCount;
+        private volatile AdaptiveThreadCountController adaptiveThreadCount;
+        // The controller currently sampled by ADAPTIVE_SAMPLE_TIMER, or null if no sampling is scheduled.
+        private final AtomicReference<AdaptiveThreadCountController> sampledAdaptiveThreadCount;
 
         private final Lock mainLock;
 
@@ -660,7 +886,9 @@ implements
         // activeWorkerCount counts workers which may execute tasks.
         private int activeWorkerCount;
         private int runningWorkerCount;
-        private final RefList<QueuedItem> queue; // the oldest task is the head of the queue
+        private final TaskQueue queue; // the task to be executed next is the head of the queue
+        // The origin of the sort keys, so that they are far from overflowing.
+        private final long startNanos;
         // Canceled when shutdownAndCancel is called.
         private final CancellationSource executorCancelSource;
         private final Condition checkAddToQueueSignal;
@@ -669,16 +897,23 @@ implements
         private volatile ExecutorState state;
         private ThreadFactory threadFactory;
         private FullQueueHandler fullQueueHandler;
+        private volatile boolean dropOldestOnFullQueue;
+        // Not null if the adaptive LIFO is enabled. Guarded by "mainLock".
+        private QueueOverloadDetector overloadDetector;
         private final AtomicInteger currentlyExecuting;
+        // Only replaced (while holding "mainLock") if the metrics are enabled after creation.
+        private volatile ThreadPoolMetrics metrics;
 
         public ThreadPoolTaskExecutorImpl(
                 String poolName,
                 int maxThreadCount,
                 int maxQueueSize,
                 TimeDuration idleTimeout,
-                ThreadFactory threadFactory) {
+                ThreadFactory threadFactory,
+                QueueOrder queueOrder) {
 
             Objects.requireNonNull(poolName, "poolName");
+            Objects.requireNonNull(queueOrder, "queueOrder");
             ExceptionHelper.checkArgumentInRange(maxThreadCount, 1, Integer.MAX_VALUE, "maxThreadCount");
             ExceptionHelper.checkArgumentInRange(maxQueueSize, 1, Integer.MAX_VALUE, "maxQueueSize");
 
@@ -686,6 +921,8 @@ implements
             this.idleWorkerCount = 0;
             this.executorCancelSource = Cancellation.createCancellationSource();
             this.maxThreadCount = maxThreadCount;
+            this.adaptiveThreadCount = null;
+            this.sampledAdaptiveThreadCount = new AtomicReference<>(null);
             this.maxQueueSize = maxQueueSize;
             this.idleTimeoutNanos = ExceptionHelper.checkArgumentInRange(
                     idleTimeout.toNanos(),
@@ -696,13 +933,17 @@ implements
             this.state = ExecutorState.RUNNING;
             this.activeWorkerCount = 0;
             this.runningWorkerCount = 0;
-            this.queue = new RefLinkedList<>();
+            this.queue = queueOrder == QueueOrder.FIFO ? new FifoTaskQueue() : new SortedTaskQueue();
+            this.startNanos = System.nanoTime();
             this.mainLock = new ReentrantLock();
             this.checkAddToQueueSignal = mainLock.newCondition();
             this.checkQueueSignal = mainLock.newCondition();
             this.terminateSignal = mainLock.newCondition();
             this.currentlyExecuting = new AtomicInteger();
+            this.metrics = ThreadPoolMetrics.disabled();
             this.fullQueueHandler = null;
+            this.dropOldestOnFullQueue = false;
+            this.overloadDetector = null;
             this.threadFactory = Objects.requireNonNull(threadFactory, "threadFactory");
         }
 
@@ -745,6 +986,177 @@ implements
             this.maxThreadCount = maxThreadCount;
         }
 
+        public void enableMetrics() {
+            mainLock.lock();
+            try {
+                if (!metrics.isEnabled()) {
+                    metrics = new ThreadPoolMetrics();
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        public void setAdaptiveThreadCount(int minThreadCount, TimeDuration sampleInterval) {
+            Objects.requireNonNull(sampleInterval, "sampleInterval");
+            // The adaptive thread count is controlled based on the metrics.
+            enableMetrics();
+
+            int currentRunningWorkerCount;
+            mainLock.lock();
+            try {
+                currentRunningWorkerCount = runningWorkerCount;
+            } finally {
+                mainLock.unlock();
+            }
+
+            AdaptiveThreadCountController newAdaptiveThreadCount = new AdaptiveThreadCountController(
+                    minThreadCount,
+                    Math.min(currentRunningWorkerCount, maxThreadCount),
+                    sampleInterval.toNanos(),
+                    ADAPTIVE_BACKLOG_QUEUE_WAIT_NANOS,
+                    System.nanoTime()
+            );
+            adaptiveThreadCount = newAdaptiveThreadCount;
+            onThreadCountLimitChanged();
+            if (hasTasks()) {
+                startAdaptiveSamplingIfNeeded();
+            }
+        }
+
+        private boolean hasTasks() {
+            return currentlyExecuting.get() > 0 || getNumberOfQueuedTasks() > 0;
+        }
+
+        private void startAdaptiveSamplingIfNeeded() {
+            AdaptiveThreadCountController currentAdaptiveThreadCount = adaptiveThreadCount;
+            if (currentAdaptiveThreadCount == null) {
+                return;
+            }
+
+            AdaptiveThreadCountController prevSampled = sampledAdaptiveThreadCount.get();
+            if (prevSampled == currentAdaptiveThreadCount || isShutdown()) {
+                return;
+            }
+
+            if (sampledAdaptiveThreadCount.compareAndSet(prevSampled, currentAdaptiveThreadCount)) {
+                scheduleAdaptiveSample(new WeakReference<>(this), currentAdaptiveThreadCount);
+            }
+        }
+
+        private static void scheduleAdaptiveSample(
+                WeakReference<ThreadPoolTaskExecutorImpl> implRef,
+                AdaptiveThreadCountController sampled) {
+
+            TimeDuration sampleInterval = TimeDuration.nanos(sampled.getSampleIntervalNanos());
+            ADAPTIVE_SAMPLE_TIMER.schedule(Cancellation.UNCANCELABLE_TOKEN, sampleInterval, cancelToken -> {
+                ThreadPoolTaskExecutorImpl impl = implRef.get();
+                if (impl != null) {
+                    impl.sampleAdaptiveThreadCount(implRef, sampled);
+                }
+            });
+        }
+
+        private void sampleAdaptiveThreadCount(
+                WeakReference<ThreadPoolTaskExecutorImpl> selfRef,
+                AdaptiveThreadCountController sampled) {
+
+            if (sampledAdaptiveThreadCount.get() != sampled) {
+                // Superseded by the sampling of a new controller.
+                return;
+            }
+
+            boolean keepSampling = false;
+            try {
+                if (adaptiveThreadCount == sampled && !isShutdown()) {
+                    adjustThreadCountIfNeeded();
+                    keepSampling = hasTasks();
+                }
+            } finally {
+                if (keepSampling) {
+                    scheduleAdaptiveSample(selfRef, sampled);
+                } else if (sampledAdaptiveThreadCount.compareAndSet(sampled, null) && hasTasks()) {
+                    // A task might have been submitted after we have checked but before the reset,
+                    // in which case the submitter did not start the sampling.
+                    startAdaptiveSamplingIfNeeded();
+                }
+            }
+        }
+
+        public void setAdaptiveLifo(TimeDuration targetQueueDelay, TimeDuration interval) {
+            QueueOverloadDetector newOverloadDetector = new QueueOverloadDetector(
+                    targetQueueDelay.toNanos(),
+                    interval.toNanos(),
+                    System.nanoTime()
+            );
+
+            mainLock.lock();
+            try {
+                overloadDetector = newOverloadDetector;
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        public void disableAdaptiveThreadCount() {
+            adaptiveThreadCount = null;
+            onThreadCountLimitChanged();
+        }
+
+        public int getThreadCountLimit() {
+            int currentMaxThreadCount = maxThreadCount;
+            AdaptiveThreadCountController currentAdaptiveThreadCount = adaptiveThreadCount;
+            return currentAdaptiveThreadCount != null
+                    ? Math.min(currentAdaptiveThreadCount.getThreadCount(), currentMaxThreadCount)
+                    : currentMaxThreadCount;
+        }
+
+        private void adjustThreadCountIfNeeded() {
+            AdaptiveThreadCountController currentAdaptiveThreadCount = adaptiveThreadCount;
+            if (currentAdaptiveThreadCount == null) {
+                return;
+            }
+
+            long nowNanos = System.nanoTime();
+            if (!currentAdaptiveThreadCount.isSampleDue(nowNanos)) {
+                return;
+            }
+
+            int prevThreadCount = currentAdaptiveThreadCount.getThreadCount();
+            LatencyHistogram queueWaitTimes = metrics.getQueueWaitTimes();
+            boolean sampled = currentAdaptiveThreadCount.trySample(
+                    nowNanos,
+                    metrics.getCompletedTaskCount(),
+                    queueWaitTimes.getCount(),
+                    queueWaitTimes.getTotal(TimeUnit.NANOSECONDS),
+                    getNumberOfQueuedTasks(),
+                    maxThreadCount
+            );
+            if (sampled && currentAdaptiveThreadCount.getThreadCount() != prevThreadCount) {
+                onThreadCountLimitChanged();
+            }
+        }
+
+        private void onThreadCountLimitChanged() {
+            int threadCountLimit = getThreadCountLimit();
+
+            int workersToStart;
+            mainLock.lock();
+            try {
+                workersToStart = Math.min(queue.size(), threadCountLimit - runningWorkerCount);
+                if (workersToStart < 0) {
+                    // Let the idle surplus workers notice that they have to stop.
+                    checkQueueSignal.signalAll();
+                }
+            } finally {
+                mainLock.unlock();
+            }
+
+            for (int i = 0; i < workersToStart; i++) {
+                new Worker().tryStartWorker();
+            }
+        }
+
         public void setMaxQueueSize(int maxQueueSize) {
             ExceptionHelper.checkArgumentInRange(maxQueueSize, 1, Integer.MAX_VALUE, "maxQueueSize");
             this.maxQueueSize = maxQueueSize;
@@ -788,6 +1200,7 @@ implements
                 }
 
                 if (!removed) {
+                    metrics.recordCanceled();
                     try {
                         task.cancel();
                     } finally {
@@ -797,11 +1210,115 @@ implements
             });
         }
 
+        public <V> CompletionStage<V> executeFunction(
+                CancellationToken cancelToken,
+                CancelableFunction<? extends V> function,
+                long headStartNanos) {
+
+            Objects.requireNonNull(cancelToken, "cancelToken");
+            Objects.requireNonNull(function, "function");
+
+            if (cancelToken.isCanceled()) {
+                return CancelableTasks.canceledComplationStage();
+            }
+
+            SubmittedTask<V> submittedTask = new SubmittedTask<>(function);
+            submitTask(cancelToken, submittedTask, headStartNanos);
+            return submittedTask.getFuture();
+        }
+
         @Override
         protected void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask) {
+            submitTask(cancelToken, submittedTask, 0);
+        }
+
+        private void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask, long headStartNanos) {
+            metrics.recordSubmitted(1);
             CancellationToken combinedToken = Cancellation.anyToken(cancelToken, executorCancelSource.getToken());
-            QueuedItem newItem = new QueuedItem(combinedToken, submittedTask);
+            submitItem(newQueuedItem(combinedToken, submittedTask, headStartNanos), combinedToken);
+            adjustThreadCountIfNeeded();
+            startAdaptiveSamplingIfNeeded();
+        }
 
+        private QueuedItem newQueuedItem(
+                CancellationToken cancelToken,
+                SubmittedTask<?> submittedTask,
+                long headStartNanos) {
+
+            long submitNanos = System.nanoTime();
+            long sortKey = submitNanos - startNanos - headStartNanos;
+            return new QueuedItem(cancelToken, submittedTask, submitNanos, sortKey);
+        }
+
+        @Override
+        protected void submitTasks(CancellationToken cancelToken, List<SubmittedTask<?>> submittedTasks) {
+            CancellationToken combinedToken = Cancellation.anyToken(cancelToken, executorCancelSource.getToken());
+
+            int taskCount = submittedTasks.size();
+            metrics.recordSubmitted(taskCount);
+            List<QueuedItem> newItems = new ArrayList<>(taskCount);
+            for (SubmittedTask<?> submittedTask : submittedTasks) {
+                newItems.add(newQueuedItem(combinedToken, submittedTask, 0));
+            }
+
+            List<RefCollection.ElementRef<?>> queueRefs = new ArrayList<>(taskCount);
+            int workersToStart = 0;
+            boolean shutdown;
+
+            mainLock.lock();
+            try {
+                shutdown = isShutdown();
+                if (!shutdown) {
+                    int addCount = Math.min(taskCount, Math.max(maxQueueSize - queue.size(), 0));
+                    for (int i = 0; i < addCount; i++) {
+                        queueRefs.add(queue.add(newItems.get(i)));
+                    }
+
+                    // Wake only as many idle workers as needed, and start new workers
+                    // for the rest of the tasks if allowed.
+                    int wakeCount = Math.min(addCount, idleWorkerCount);
+                    for (int i = 0; i < wakeCount; i++) {
+                        checkQueueSignal.signal();
+                    }
+                    workersToStart = Math.min(addCount - wakeCount, getThreadCountLimit() - runningWorkerCount);
+                }
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (shutdown) {
+                // Cancel outside the lock, because canceling the tasks might call arbitrary listeners.
+                metrics.recordCanceled(taskCount);
+                newItems.forEach(QueuedItem::cancel);
+                return;
+            }
+
+            int queuedCount = queueRefs.size();
+            for (int i = 0; i < queuedCount; i++) {
+                setRemoveFromQueueOnCancel(newItems.get(i), queueRefs.get(i));
+            }
+
+            int submittedCount = queuedCount;
+            try {
+                for (int i = 0; i < workersToStart; i++) {
+                    new Worker().tryStartWorker();
+                }
+
+                // The queue was full, so we have to wait for the rest of the tasks
+                // to be added one by one.
+                for (; submittedCount < taskCount; submittedCount++) {
+                    submitItem(newItems.get(submittedCount), combinedToken);
+                }
+            } catch (Throwable ex) {
+                completeAllExceptionally(submittedTasks, submittedCount, ex);
+                throw ex;
+            }
+
+            adjustThreadCountIfNeeded();
+            startAdaptiveSamplingIfNeeded();
+        }
+
+        private void submitItem(QueuedItem newItem, CancellationToken combinedToken) {
             RefCollection.ElementRef<?> queueRef = submitQueueItem(newItem, combinedToken);
             if (queueRef != null) {
                 setRemoveFromQueueOnCancel(newItem, queueRef);
@@ -814,11 +1331,18 @@ implements
             try {
                 RefCollection.ElementRef<?> queueRef = submitQueueItem0(newItem, waitQueueCancelToken);
                 if (queueRef == POISON) {
+                    metrics.recordCanceled();
                     newItem.cancel();
                     return null;
                 }
                 return queueRef;
+            } catch (OperationTimeoutException ex) {
+                // The full queue handler gave up waiting for the queue, which is a rejection.
+                metrics.recordRejected();
+                newItem.submittedTask.completeExceptionally(ex);
+                return null;
             } catch (OperationCanceledException ex) {
+                metrics.recordCanceled();
                 newItem.submittedTask.completeExceptionally(ex);
                 return null;
             }
@@ -839,7 +1363,7 @@ implements
                 int currentQueueSize = queue.size();
                 if (idleWorkerCount > currentQueueSize && currentQueueSize < maxQueueSize) {
                     RefCollection.ElementRef<?> queueRef;
-                    queueRef = queue.addLastGetReference(newItem);
+                    queueRef = queue.add(newItem);
                     checkQueueSignal.signal();
                     return queueRef;
                 }
@@ -981,6 +1505,7 @@ implements
                     + ", maxQueueSize=" + maxQueueSize
                     + ", idleTimeout=" + TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) + " ms"
                     + ", maxThreadCount=" + maxThreadCount
+                    + ", threadCountLimit=" + getThreadCountLimit()
                     + ", idleWorkerCount=" + currentIdleWorkerCount
                     + ", activeWorkers=" + currentActiveWorkerCount
                     + ", runningWorkers=" + currentRunningWorkerCount
@@ -996,9 +1521,12 @@ implements
             private QueuedItem firstTask;
             private Thread ownerThread;
             private final AtomicBoolean runCalled;
+            // Tasks removed from the queue to shed load, to be canceled after releasing "mainLock".
+            private List<QueuedItem> droppedTasks;
 
             public Worker() {
                 this.firstTask = null;
+                this.droppedTasks = null;
                 this.incActiveWorkerCount = false;
                 this.incRunningWorkerCount = false;
                 this.runCalled = new AtomicBoolean(false);
@@ -1028,7 +1556,7 @@ implements
                 try {
                     assert !incRunningWorkerCount && !incActiveWorkerCount;
 
-                    if (queue.isEmpty() || runningWorkerCount >= maxThreadCount) {
+                    if (queue.isEmpty() || runningWorkerCount >= getThreadCountLimit()) {
                         return;
                     }
 
@@ -1044,22 +1572,53 @@ implements
                     CancellationToken cancelToken,
                     QueuedItem firstTask) {
 
+                RefCollection.ElementRef<?> queueRef;
                 mainLock.lock();
                 try {
                     assert !incRunningWorkerCount && !incActiveWorkerCount;
 
-                    RefCollection.ElementRef<?> queueRef = addToQueueOrSelectStart(cancelToken, firstTask);
+                    queueRef = addToQueueOrSelectStart(cancelToken, firstTask);
                     if (queueRef != null) {
                         return queueRef;
                     }
 
                     setActiveWorker();
+                    if (!queue.mayRunBeforeQueued(firstTask)) {
+                        // The new worker must start with the task to be executed next,
+                        // which is not the new one.
+                        queueRef = queue.add(firstTask);
+                    }
                 } finally {
                     mainLock.unlock();
+                    cancelDroppedTasks();
                 }
 
-                startWorkerThread(firstTask);
-                return null;
+                if (queueRef == null) {
+                    startWorkerThread(firstTask);
+                    return null;
+                }
+
+                try {
+                    startWorkerThread(null);
+                } catch (Throwable ex) {
+                    // The caller will not see the result of the new task, so we do not execute it.
+                    removeFromQueue(queueRef);
+                    throw ex;
+                }
+                return queueRef;
+            }
+
+            private void removeFromQueue(RefCollection.ElementRef<?> queueRef) {
+                mainLock.lock();
+                try {
+                    if (!queueRef.isRemoved()) {
+                        queueRef.remove();
+                        checkAddToQueueSignal.signal();
+                    }
+                } finally {
+                    mainLock.unlock();
+                }
+                tryTerminateAndNotify();
             }
 
             private void startWorkerThread(QueuedItem firstTask) {
@@ -1069,6 +1628,7 @@ implements
 
                     ownerThread = newThread;
                     newThread.start();
+                    metrics.recordThreadCreated();
                 } catch (Throwable ex) {
                     finishWorkingAndTryTerminate();
                     throw ex;
@@ -1092,28 +1652,46 @@ implements
                 // Must hold "mainLock"
                 FullQueueHandler currentFullQueueHandler = fullQueueHandler;
 
-                while (true) {
-                    if (isShutdown()) {
-                        return POISON;
-                    }
+                long blockStartNanos = 0;
+                boolean blocked = false;
+                try {
+                    while (true) {
+                        if (isShutdown()) {
+                            return POISON;
+                        }
 
-                    if (runningWorkerCount < maxThreadCount) {
-                        return null;
-                    }
+                        if (runningWorkerCount < getThreadCountLimit()) {
+                            return null;
+                        }
 
-                    if (queue.size() < maxQueueSize) {
-                        RefCollection.ElementRef<?> queueRef = queue.addLastGetReference(firstTask);
-                        checkQueueSignal.signal();
-                        return queueRef;
-                    }
+                        if (queue.size() < maxQueueSize) {
+                            RefCollection.ElementRef<?> queueRef = queue.add(firstTask);
+                            checkQueueSignal.signal();
+                            return queueRef;
+                        }
 
-                    if (currentFullQueueHandler != null) {
-                        handleFullQueue(mainLock, currentFullQueueHandler, cancelToken);
-                        currentFullQueueHandler = null;
-                        continue;
-                    }
+                        if (dropOldestOnFullQueue && !queue.isEmpty()) {
+                            dropTask(queue.pollFirst());
+                            return queue.add(firstTask);
+                        }
+
+                        if (!blocked) {
+                            blocked = true;
+                            blockStartNanos = System.nanoTime();
+                        }
+
+                        if (currentFullQueueHandler != null) {
+                            handleFullQueue(mainLock, currentFullQueueHandler, cancelToken, metrics);
+                            currentFullQueueHandler = null;
+                            continue;
+                        }
 
-                    CancelableWaits.await(cancelToken, checkAddToQueueSignal);
+                        awaitQueueNotFull(cancelToken, checkAddToQueueSignal, fullQueueHandler, blockStartNanos);
+                    }
+                } finally {
+                    if (blocked) {
+                        metrics.recordFullQueueBlocked(blockStartNanos);
+                    }
                 }
             }
 
@@ -1121,13 +1699,17 @@ implements
                 currentlyExecuting.incrementAndGet();
                 try {
                     if (isTerminating()) {
+                        metrics.recordCanceled();
                         item.cancel();
                     } else {
+                        long startNanos = metrics.recordTaskStarted(item.submitNanos);
                         item.runTask();
+                        metrics.recordTaskCompleted(startNanos);
                     }
                 } finally {
                     currentlyExecuting.decrementAndGet();
                 }
+                adjustThreadCountIfNeeded();
             }
 
             private void restartIfNeeded() {
@@ -1170,6 +1752,55 @@ implements
                 }
             }
 
+            private void dropTask(QueuedItem task) {
+                // Must hold "mainLock"
+
+                if (droppedTasks == null) {
+                    droppedTasks = new ArrayList<>();
+                }
+                droppedTasks.add(task);
+            }
+
+            private void cancelDroppedTasks() {
+                List<QueuedItem> currentDroppedTasks = droppedTasks;
+                if (currentDroppedTasks == null || currentDroppedTasks.isEmpty()) {
+                    return;
+                }
+
+                metrics.recordRejected(currentDroppedTasks.size());
+                try {
+                    currentDroppedTasks.forEach(QueuedItem::cancel);
+                } finally {
+                    currentDroppedTasks.clear();
+                }
+            }
+
+            private QueuedItem pollQueuedItem() {
+                // Must hold "mainLock"
+
+                QueueOverloadDetector currentOverloadDetector = overloadDetector;
+                if (currentOverloadDetector == null) {
+                    return queue.pollFirst();
+                }
+
+                long nowNanos = System.nanoTime();
+                long oldestDelayNanos = queue.isEmpty() ? 0 : nowNanos - queue.peekFirst().submitNanos;
+                if (!currentOverloadDetector.recordOldestDelay(nowNanos, oldestDelayNanos)) {
+                    return queue.pollFirst();
+                }
+
+                QueuedItem oldestItem = queue.peekFirst();
+                while (oldestItem != null && currentOverloadDetector.shouldDrop(nowNanos - oldestItem.submitNanos)) {
+                    dropTask(queue.pollFirst());
+                    checkAddToQueueSignal.signal();
+                    oldestItem = queue.peekFirst();
+                }
+
+                // The newest task has the best chance to be still useful for its submitter
+                // when it completes, while the older tasks are shed if the overload persists.
+                return queue.pollLast();
+            }
+
             private QueuedItem pollFromQueue() {
                 long startTime = System.nanoTime();
                 long usedIdleTimeoutNanos = idleTimeoutNanos;
@@ -1177,10 +1808,14 @@ implements
                 mainLock.lock();
                 try {
                     do {
-                        if (!queue.isEmpty()) {
-                            QueuedItem result = queue.remove(0);
+                        if (tryRetireSurplusWorker()) {
+                            return null;
+                        }
+
+                        QueuedItem polledItem = pollQueuedItem();
+                        if (polledItem != null) {
                             checkAddToQueueSignal.signal();
-                            return result;
+                            return polledItem;
                         }
 
                         if (isShutdown()) {
@@ -1216,10 +1851,25 @@ implements
                     } while (toWaitNanos > 0);
                 } finally {
                     mainLock.unlock();
+                    cancelDroppedTasks();
                 }
+                metrics.recordIdleTimeout();
                 return null;
             }
 
+            private boolean tryRetireSurplusWorker() {
+                // Must hold "mainLock"
+
+                if (!incRunningWorkerCount || runningWorkerCount <= getThreadCountLimit()) {
+                    return false;
+                }
+
+                // Decrementing now prevents other workers from retiring as well.
+                runningWorkerCount--;
+                incRunningWorkerCount = false;
+                return true;
+            }
+
             private void processQueue() {
                 QueuedItem itemToProcess = pollFromQueue();
                 while (itemToProcess != null) {
@@ -1261,16 +1911,172 @@ implements
             }
         }
 
+        /**
+         * Stores the queued tasks. The methods of this interface must only be called while holding
+         * the main lock of the executor, including the methods of the returned references.
+         */
+        private interface TaskQueue {
+            public RefCollection.ElementRef<?> add(QueuedItem item);
+
+            /**
+             * Returns {@code true} if a new worker might execute the given task before
+             * the tasks already in the queue.
+             */
+            public boolean mayRunBeforeQueued(QueuedItem item);
+
+            public QueuedItem peekFirst();
+
+            public QueuedItem pollFirst();
+
+            public QueuedItem pollLast();
+
+            public int size();
+
+            public boolean isEmpty();
+        }
+
+        private static final class FifoTaskQueue implements TaskQueue {
+            private final RefList<QueuedItem> items;
+
+            public FifoTaskQueue() {
+                this.items = new RefLinkedList<>();
+            }
+
+            @Override
+            public RefCollection.ElementRef<?> add(QueuedItem item) {
+                return items.addLastGetReference(item);
+            }
+
+            @Override
+            public boolean mayRunBeforeQueued(QueuedItem item) {
+                // The queued tasks are picked up by the idle workers we have already signaled,
+                // so it is not worth to queue the new task just to keep the order strict.
+                return true;
+            }
+
+            @Override
+            public QueuedItem peekFirst() {
+                return items.isEmpty() ? null : items.get(0);
+            }
+
+            @Override
+            public QueuedItem pollFirst() {
+                return items.isEmpty() ? null : items.remove(0);
+            }
+
+            @Override
+            public QueuedItem pollLast() {
+                return items.isEmpty() ? null : items.remove(items.size() - 1);
+            }
+
+            @Override
+            public int size() {
+                return items.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return items.isEmpty();
+            }
+        }
+
+        private static final class SortedTaskQueue implements TaskQueue {
+            private final NavigableSet<QueuedItem> items;
+            private long nextSubmitIndex;
+
+            public SortedTaskQueue() {
+                this.items = new TreeSet<>(Comparator
+                        .comparingLong((QueuedItem item) -> item.sortKey)
+                        .thenComparingLong(item -> item.submitIndex));
+                this.nextSubmitIndex = 0;
+            }
+
+            @Override
+            public RefCollection.ElementRef<?> add(QueuedItem item) {
+                item.submitIndex = nextSubmitIndex;
+                nextSubmitIndex++;
+                items.add(item);
+                return new ItemRef(item);
+            }
+
+            @Override
+            public boolean mayRunBeforeQueued(QueuedItem item) {
+                return items.isEmpty() || items.comparator().compare(item, items.first()) < 0;
+            }
+
+            @Override
+            public QueuedItem peekFirst() {
+                return items.isEmpty() ? null : items.first();
+            }
+
+            @Override
+            public QueuedItem pollFirst() {
+                return items.pollFirst();
+            }
+
+            @Override
+            public QueuedItem pollLast() {
+                return items.pollLast();
+            }
+
+            @Override
+            public int size() {
+                return items.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return items.isEmpty();
+            }
+
+            private final class ItemRef implements RefCollection.ElementRef<QueuedItem> {
+                private final QueuedItem item;
+
+                public ItemRef(QueuedItem item) {
+                    this.item = item;
+                }
+
+                @Override
+                public QueuedItem setElement(QueuedItem newElement) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public QueuedItem getElement() {
+                    return item;
+                }
+
+                @Override
+                public boolean isRemoved() {
+                    return !items.contains(item);
+                }
+
+                @Override
+                public void remove() {
+                    items.remove(item);
+                }
+            }
+        }
+
         private static class QueuedItem {
             public final CancellationToken cancelToken;
             public final SubmittedTask<?> submittedTask;
+            public final long submitNanos;
+            public final long sortKey;
+            // Only used by SortedTaskQueue to keep FIFO order for tasks with the same sort key.
+            public long submitIndex;
 
             public QueuedItem(
                     CancellationToken cancelToken,
-                    SubmittedTask<?> submittedTask) {
+                    SubmittedTask<?> submittedTask,
+                    long submitNanos,
+                    long sortKey) {
 
                 this.cancelToken = cancelToken;
                 this.submittedTask = submittedTask;
+                this.submitNanos = submitNanos;
+                this.sortKey = sortKey;
+                this.submitIndex = 0;
             }
 
             public void runTask() {
@@ -0,0 +1,88 @@
+package org.jtrim2.executor;
+
+import java.util.Objects;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * An {@code UpdateTaskExecutor} implementation which coalesces the tasks submitted within a
+ * given interval, so that the tasks are executed less frequently than they are submitted.
+ * Unlike {@link GenericUpdateTaskExecutor}, which executes the latest task as soon as the
+ * underlying executor gets to it, this executor executes at most one task in each interval
+ * (see {@link UpdateThrottleMode} for the details). This is useful for high frequency
+ * updates, where executing each update (e.g.: refreshing a display) would be wasteful.
+ * <P>
+ * Tasks are executed by the given {@code ScheduledTaskExecutor}, and never concurrently with
+ * each other, even if the {@code ScheduledTaskExecutor} executes tasks concurrently.
+ * <P>
+ * If the given executor refuses to execute a task (e.g.: because it was shut down), then the
+ * tasks submitted until then might be discarded without being executed.
+ *
+ * <h2>Thread safety</h2>
+ * The methods of this class are safe to use by multiple threads concurrently
+ * as required by {@code UpdateTaskExecutor}.
+ *
+ * <h3>Synchronization transparency</h3>
+ * The methods of this interface are not <I>synchronization transparent</I>.
+ *
+ * @see KeyedThrottledUpdateTaskExecutor
+ * @see TaskExecutors#newScheduledExecutor(TaskExecutor)
+ */
+public final class ThrottledUpdateTaskExecutor implements UpdateTaskExecutor {
+    private final UpdateTaskSlot slot;
+    private final TimeDuration interval;
+
+    /**
+     * Creates a new {@code ThrottledUpdateTaskExecutor} which executes the submitted tasks
+     * on the given executor, coalescing tasks submitted within the given interval.
+     *
+     * @param executor the executor to which tasks will be forwarded to. This argument cannot
+     *   be {@code null}.
+     * @param interval the interval within which submitted tasks are coalesced into a single
+     *   execution. This argument cannot be {@code null} and cannot be negative.
+     * @param mode the way tasks are coalesced within an interval. This argument cannot be
+     *   {@code null}.
+     *
+     * @throws NullPointerException thrown if any of the arguments is {@code null}
+     * @throws IllegalArgumentException thrown if the interval is negative
+     */
+    public ThrottledUpdateTaskExecutor(
+            ScheduledTaskExecutor executor,
+            TimeDuration interval,
+            UpdateThrottleMode mode) {
+
+        Objects.requireNonNull(interval, "interval");
+        ExceptionHelper.checkArgumentInRange(interval.toNanos(), 0, Long.MAX_VALUE, "interval");
+
+        this.interval = interval;
+        this.slot = new UpdateTaskSlot(executor, interval.toNanos(), mode, UpdateTaskSlot::tryDeactivate);
+    }
+
+    /**
+     * {@inheritDoc }
+     * <P>
+     * Implementation note: Note that this method will not forward the specified
+     * task to the underlying executor but a different one which will execute
+     * this task.
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (slot.setTask(task)) {
+            slot.start();
+        }
+    }
+
+    /**
+     * Returns the string representation of this executor in no particular
+     * format.
+     * <P>
+     * This method is intended to be used for debugging only.
+     *
+     * @return the string representation of this object in no particular format.
+     *   This method never returns {@code null}.
+     */
+    @Override
+    public String toString() {
+        return "ThrottledUpdateTaskExecutor{" + "interval=" + interval + ", slot=" + slot + '}';
+    }
+}
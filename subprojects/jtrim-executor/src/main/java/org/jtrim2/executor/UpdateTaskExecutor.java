@@ -37,6 +37,7 @@ package org.jtrim2.executor;
  * <I>synchronization transparent</I>.
  *
  * @see GenericUpdateTaskExecutor
+ * @see ThrottledUpdateTaskExecutor
  */
 public interface UpdateTaskExecutor {
     /**
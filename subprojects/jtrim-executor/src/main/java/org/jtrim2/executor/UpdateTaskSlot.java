@@ -0,0 +1,197 @@
+package org.jtrim2.executor;
+
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * Holds the latest task submitted to a {@link ThrottledUpdateTaskExecutor} (or to a key of a
+ * {@link KeyedThrottledUpdateTaskExecutor}) and schedules its execution according to the
+ * {@link UpdateThrottleMode}.
+ * <P>
+ * A slot is <I>active</I> from the first submitted task until there is nothing more to
+ * execute, and there is always exactly one scheduled (or running) {@code fire} call for an
+ * active slot. In {@code THROTTLE} mode, the slot remains active for the interval after
+ * executing a task, so that tasks submitted during the interval are delayed until the
+ * interval elapses. The slot is deactivated through the {@link Deactivator} which allows the
+ * owner to remove the slot atomically with the deactivation.
+ */
+final class UpdateTaskSlot {
+    public interface Deactivator {
+        /**
+         * Calls {@link UpdateTaskSlot#tryDeactivate() slot.tryDeactivate()} and returns its
+         * result.
+         */
+        public boolean tryDeactivate(UpdateTaskSlot slot);
+    }
+
+    private final ScheduledTaskExecutor executor;
+    private final long intervalNanos;
+    private final UpdateThrottleMode mode;
+    private final Deactivator deactivator;
+
+    private final Lock mainLock;
+    private Runnable pendingTask;
+    private long lastUpdateNanos;
+    private boolean active;
+
+    public UpdateTaskSlot(
+            ScheduledTaskExecutor executor,
+            long intervalNanos,
+            UpdateThrottleMode mode,
+            Deactivator deactivator) {
+
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.intervalNanos = intervalNanos;
+        this.mode = Objects.requireNonNull(mode, "mode");
+        this.deactivator = Objects.requireNonNull(deactivator, "deactivator");
+
+        this.mainLock = new ReentrantLock();
+        this.pendingTask = null;
+        this.lastUpdateNanos = 0;
+        this.active = false;
+    }
+
+    /**
+     * Replaces the pending task of this slot.
+     *
+     * @return {@code true} if this slot was activated by this call, in which case the caller
+     *   must call {@link #start() start} (without holding any locks), {@code false} if
+     *   the slot was already active
+     */
+    public boolean setTask(Runnable task) {
+        Objects.requireNonNull(task, "task");
+
+        mainLock.lock();
+        try {
+            pendingTask = task;
+            lastUpdateNanos = System.nanoTime();
+            if (active) {
+                return false;
+            }
+            active = true;
+            return true;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Deactivates this slot if there is no pending task.
+     *
+     * @return {@code true} if this slot was deactivated, {@code false} if there is a pending
+     *   task to be executed
+     */
+    public boolean tryDeactivate() {
+        mainLock.lock();
+        try {
+            if (pendingTask != null) {
+                return false;
+            }
+            active = false;
+            return true;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public void start() {
+        scheduleFire(mode == UpdateThrottleMode.THROTTLE ? 0 : intervalNanos);
+    }
+
+    private void scheduleFire(long delayNanos) {
+        AtomicBoolean fired = new AtomicBoolean(false);
+        CancelableTask fireTask = cancelToken -> {
+            fired.set(true);
+            fire();
+        };
+
+        CompletionStage<Void> future;
+        try {
+            // Scheduling might wait for the next tick of a timer even if there is nothing to wait for.
+            future = delayNanos > 0
+                    ? executor.schedule(Cancellation.UNCANCELABLE_TOKEN, TimeDuration.nanos(delayNanos), fireTask)
+                    : executor.execute(Cancellation.UNCANCELABLE_TOKEN, fireTask);
+        } catch (Throwable ex) {
+            abandon();
+            throw ex;
+        }
+
+        future.whenComplete((result, error) -> {
+            if (!fired.get()) {
+                abandon();
+            }
+        });
+    }
+
+    private void abandon() {
+        // The executor refused to execute our task (e.g., it was shut down), so there is
+        // nothing to execute the pending tasks: Discard them, otherwise this slot would
+        // remain active forever.
+        do {
+            mainLock.lock();
+            try {
+                pendingTask = null;
+            } finally {
+                mainLock.unlock();
+            }
+        } while (!deactivator.tryDeactivate(this));
+    }
+
+    private void fire() {
+        while (true) {
+            Runnable task;
+            long delayNanos;
+
+            mainLock.lock();
+            try {
+                task = pendingTask;
+                delayNanos = task != null && mode == UpdateThrottleMode.DEBOUNCE
+                        ? lastUpdateNanos + intervalNanos - System.nanoTime()
+                        : 0;
+                if (task != null && delayNanos <= 0) {
+                    pendingTask = null;
+                }
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (task == null) {
+                if (deactivator.tryDeactivate(this)) {
+                    return;
+                }
+                // A task was submitted concurrently, which we have to execute.
+                continue;
+            }
+
+            if (delayNanos > 0) {
+                scheduleFire(delayNanos);
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                scheduleFire(mode == UpdateThrottleMode.THROTTLE
+                        ? startNanos + intervalNanos - System.nanoTime()
+                        : 0);
+            }
+            return;
+        }
+    }
+
+    @Override
+    public String toString() {
+        mainLock.lock();
+        try {
+            return "UpdateTaskSlot{" + "mode=" + mode + ", active=" + active + '}';
+        } finally {
+            mainLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.jtrim2.executor;
+
+/**
+ * Defines how a {@link ThrottledUpdateTaskExecutor} (or a {@link KeyedThrottledUpdateTaskExecutor})
+ * coalesces the tasks submitted within its interval.
+ *
+ * @see ThrottledUpdateTaskExecutor
+ * @see KeyedThrottledUpdateTaskExecutor
+ */
+public enum UpdateThrottleMode {
+    /**
+     * Executes the first task immediately, and then executes at most one task in each
+     * interval: The last task submitted during an interval is executed when the interval
+     * elapses. That is, executions start at least the interval apart, but a continuous stream
+     * of updates is still executed periodically.
+     */
+    THROTTLE,
+
+    /**
+     * Executes the last submitted task after no task has been submitted for the interval.
+     * That is, a continuous stream of updates (submitted more frequently than the interval)
+     * postpones the execution until the updates stop.
+     */
+    DEBOUNCE
+}
@@ -0,0 +1,115 @@
+package org.jtrim2.executor;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Defines a {@code ThreadFactory} creating virtual threads, if the runtime supports
+ * virtual threads (Java 21 or later). On older runtimes, this factory creates daemon
+ * platform threads instead.
+ * <P>
+ * Virtual threads are looked up via reflection, so that this library can still be
+ * compiled for, and used on older runtimes.
+ *
+ * <h2>Thread safety</h2>
+ * Methods of this class are safe to use by multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * The methods of this class are <I>synchronization transparent</I>.
+ */
+final class VirtualThreadFactory implements ThreadFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadFactory.class);
+
+    private static final Method OF_VIRTUAL_METHOD;
+    private static final Method NAME_METHOD;
+    private static final Method FACTORY_METHOD;
+    private static final boolean VIRTUAL_THREAD_SUPPORTED;
+
+    static {
+        Method ofVirtualMethod = null;
+        Method nameMethod = null;
+        Method factoryMethod = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            nameMethod = builderClass.getMethod("name", String.class, long.class);
+            factoryMethod = builderClass.getMethod("factory");
+        } catch (ReflectiveOperationException ex) {
+            LOGGER.debug("Virtual threads are not supported by this runtime.", ex);
+        }
+
+        OF_VIRTUAL_METHOD = ofVirtualMethod;
+        NAME_METHOD = nameMethod;
+        FACTORY_METHOD = factoryMethod;
+        // The methods might exist even if virtual threads are unavailable, so actually try to create a factory.
+        VIRTUAL_THREAD_SUPPORTED = tryCreateVirtualFactory("virtual-thread-support-check-") != null;
+    }
+
+    private final ThreadFactory wrapped;
+    private final boolean virtual;
+
+    public VirtualThreadFactory(String poolName) {
+        Objects.requireNonNull(poolName, "poolName");
+
+        ThreadFactory virtualFactory = VIRTUAL_THREAD_SUPPORTED
+                ? tryCreateVirtualFactory(poolName + "-virtual-thread-")
+                : null;
+        this.virtual = virtualFactory != null;
+        this.wrapped = virtual
+                ? virtualFactory
+                : new ExecutorsEx.NamedThreadFactory(true, poolName);
+    }
+
+    private static ThreadFactory tryCreateVirtualFactory(String namePrefix) {
+        if (FACTORY_METHOD == null) {
+            return null;
+        }
+
+        try {
+            Object builder = OF_VIRTUAL_METHOD.invoke(null);
+            builder = NAME_METHOD.invoke(builder, namePrefix, 1L);
+            return (ThreadFactory) FACTORY_METHOD.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // For example, in Java 19 and 20 virtual threads are a preview feature,
+            // and "ofVirtual" fails if preview features are not enabled.
+            LOGGER.debug("Virtual threads are not available.", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the current runtime supports creating virtual threads.
+     *
+     * @return {@code true} if the current runtime supports creating virtual threads,
+     *   {@code false} otherwise
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_SUPPORTED;
+    }
+
+    /**
+     * Returns {@code true} if this factory creates virtual threads, {@code false} if it
+     * creates platform threads instead.
+     *
+     * @return {@code true} if this factory creates virtual threads, {@code false} if it
+     *   creates platform threads instead
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Creates a new, not yet started thread executing the given task.
+     *
+     * @param r the task to be executed by the returned thread. This argument can be
+     *   {@code null}, in which case the returned thread terminates immediately.
+     * @return the new thread. This method never returns {@code null}.
+     */
+    @Override
+    public Thread newThread(Runnable r) {
+        return wrapped.newThread(r);
+    }
+}
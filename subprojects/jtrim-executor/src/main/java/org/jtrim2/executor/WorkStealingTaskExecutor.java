@@ -0,0 +1,866 @@
+package org.jtrim2.executor;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim2.cancel.CancelableWaits;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.collections.RefCollection;
+import org.jtrim2.collections.RefLinkedList;
+import org.jtrim2.collections.RefList;
+import org.jtrim2.event.ListenerRef;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.ObjectFinalizer;
+import org.jtrim2.utils.TimeDuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Defines a thread pool where each worker thread has its own local queue of tasks.
+ * Tasks submitted from a worker thread of this executor are added to the local queue
+ * of the submitting worker, and idle workers steal tasks from the local queues of other
+ * workers. Only tasks submitted from outside the executor are added to the shared
+ * (lock protected) injection queue.
+ * <P>
+ * The maximum queue size is shared by all the queues. However, only external submissions
+ * will block (or call the {@code FullQueueHandler}) when the queue is full. Tasks submitted
+ * from a worker thread are always accepted, because blocking a worker could easily dead-lock
+ * the executor.
+ * <P>
+ * This executor makes no guarantee about the order in which the submitted tasks are executed.
+ */
+final class WorkStealingTaskExecutor
+extends
+        DelegatedTaskExecutorService
+implements
+        MonitorableTaskExecutorService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkStealingTaskExecutor.class);
+
+    private final ObjectFinalizer finalizer;
+    private final Impl impl;
+
+    public WorkStealingTaskExecutor(
+            String poolName,
+            int maxThreadCount,
+            int maxQueueSize,
+            TimeDuration idleTimeout,
+            ThreadFactory threadFactory) {
+
+        this(new Impl(poolName, maxThreadCount, maxQueueSize, idleTimeout, threadFactory));
+    }
+
+    private WorkStealingTaskExecutor(Impl impl) {
+        super(impl);
+        this.impl = impl;
+        this.finalizer = new ObjectFinalizer(impl::shutdown, impl.poolName + " WorkStealingTaskExecutor shutdown");
+    }
+
+    String getPoolName() {
+        return impl.poolName;
+    }
+
+    int getMaxThreadCount() {
+        return impl.maxThreadCount;
+    }
+
+    int getMaxQueueSize() {
+        return impl.maxQueueSize;
+    }
+
+    long getIdleTimeout(TimeUnit timeUnit) {
+        return timeUnit.convert(impl.idleTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    ThreadFactory getThreadFactory() {
+        return impl.threadFactory;
+    }
+
+    boolean isFinalized() {
+        return finalizer.isFinalized();
+    }
+
+    void setFullQueueHandler(FullQueueHandler fullQueueHandler) {
+        impl.fullQueueHandler = fullQueueHandler;
+    }
+
+    FullQueueHandler getFullQueueHandler() {
+        return impl.fullQueueHandler;
+    }
+
+    @Override
+    public boolean isExecutingInThis() {
+        return impl.isExecutingInThis();
+    }
+
+    @Override
+    public long getNumberOfQueuedTasks() {
+        return impl.getNumberOfQueuedTasks();
+    }
+
+    @Override
+    public long getNumberOfExecutingTasks() {
+        return impl.getNumberOfExecutingTasks();
+    }
+
+    @Override
+    public void shutdown() {
+        finalizer.markFinalized();
+        impl.shutdown();
+    }
+
+    @Override
+    public void shutdownAndCancel() {
+        finalizer.markFinalized();
+        impl.shutdownAndCancel();
+    }
+
+    public void dontNeedShutdown() {
+        finalizer.markFinalized();
+    }
+
+    @Override
+    public String toString() {
+        return impl.toString();
+    }
+
+    private static final class Impl
+    extends
+            AbstractTerminateNotifierTaskExecutorService
+    implements
+            MonitorableTaskExecutor {
+
+        private static final ThreadLocal<Impl.Worker> CURRENT_WORKER = new ThreadLocal<>();
+
+        private static final RefCollection.ElementRef<?> POISON = new RefLinkedList<>()
+                .addFirstGetReference(Boolean.TRUE);
+
+        private final String poolName;
+        private final Lock mainLock;
+        private final ThreadFactory threadFactory;
+        private final int maxThreadCount;
+        private final int maxQueueSize;
+        private final long idleTimeoutNanos;
+
+        // The oldest task is the head of the queue. Guarded by mainLock.
+        private final RefList<QueuedItem> injectionQueue;
+        // Written only while holding mainLock, allows to skip locking when the queue is empty.
+        private volatile int injectionQueueSize;
+
+        // Copy-on-write array of the registered workers, so that stealing does not need locking.
+        // Only written while holding mainLock.
+        private volatile Worker[] workers;
+
+        // Counts the tasks in the injection queue and the local queues as well.
+        private final AtomicInteger queuedTaskCount;
+        private final AtomicInteger currentlyExecuting;
+
+        private final Condition checkQueueSignal;
+        private final Condition checkAddToQueueSignal;
+        private final Condition terminateSignal;
+
+        // The following two counters are only written while holding mainLock, but are read
+        // without the lock to decide if we need to signal anyone.
+        private volatile int idleWorkerCount;
+        private volatile int waitingSubmitterCount;
+
+        // Counts started (or starting) workers. Read without locking to avoid taking
+        // mainLock when submitting from a worker of a saturated pool.
+        private final AtomicInteger workerCount;
+
+        private volatile ExecutorState state;
+        private final CancellationSource executorCancelSource;
+        private FullQueueHandler fullQueueHandler;
+
+        public Impl(
+                String poolName,
+                int maxThreadCount,
+                int maxQueueSize,
+                TimeDuration idleTimeout,
+                ThreadFactory threadFactory) {
+
+            this.poolName = Objects.requireNonNull(poolName, "poolName");
+            this.mainLock = new ReentrantLock();
+            this.threadFactory = Objects.requireNonNull(threadFactory, "threadFactory");
+            this.maxThreadCount = positive(maxThreadCount, "maxThreadCount");
+            this.maxQueueSize = positive(maxQueueSize, "maxQueueSize");
+            this.idleTimeoutNanos = ExceptionHelper.checkArgumentInRange(
+                    idleTimeout.toNanos(),
+                    0,
+                    Long.MAX_VALUE,
+                    "idleTimeout"
+            );
+            this.injectionQueue = new RefLinkedList<>();
+            this.injectionQueueSize = 0;
+            this.workers = new Worker[0];
+            this.queuedTaskCount = new AtomicInteger(0);
+            this.currentlyExecuting = new AtomicInteger(0);
+            this.checkQueueSignal = mainLock.newCondition();
+            this.checkAddToQueueSignal = mainLock.newCondition();
+            this.terminateSignal = mainLock.newCondition();
+            this.idleWorkerCount = 0;
+            this.waitingSubmitterCount = 0;
+            this.workerCount = new AtomicInteger(0);
+            this.state = ExecutorState.RUNNING;
+            this.executorCancelSource = Cancellation.createCancellationSource();
+            this.fullQueueHandler = null;
+        }
+
+        private static int positive(int value, String name) {
+            return ExceptionHelper.checkArgumentInRange(value, 1, Integer.MAX_VALUE, name);
+        }
+
+        private Worker getCurrentWorker() {
+            Worker worker = CURRENT_WORKER.get();
+            if (worker == null) {
+                CURRENT_WORKER.remove();
+                return null;
+            }
+            return worker.getExecutor() == this ? worker : null;
+        }
+
+        @Override
+        public boolean isExecutingInThis() {
+            return getCurrentWorker() != null;
+        }
+
+        @Override
+        public long getNumberOfQueuedTasks() {
+            return queuedTaskCount.get();
+        }
+
+        @Override
+        public long getNumberOfExecutingTasks() {
+            return currentlyExecuting.get();
+        }
+
+        @Override
+        protected void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask) {
+            CancellationToken combinedToken = Cancellation.anyToken(cancelToken, executorCancelSource.getToken());
+            QueuedItem newItem = new QueuedItem(combinedToken, submittedTask);
+
+            Worker currentWorker = getCurrentWorker();
+            if (currentWorker != null) {
+                currentWorker.addLocal(newItem);
+                return;
+            }
+
+            RefCollection.ElementRef<?> queueRef;
+            try {
+                queueRef = tryAddToInjectionQueue(combinedToken, newItem);
+            } catch (OperationCanceledException ex) {
+                newItem.submittedTask.completeExceptionally(ex);
+                return;
+            }
+
+            if (queueRef == POISON) {
+                newItem.cancel();
+            } else if (queueRef != null) {
+                setRemoveFromQueueOnCancel(newItem, queueRef);
+            }
+        }
+
+        private void setRemoveFromQueueOnCancel(
+                final QueuedItem task,
+                final RefCollection.ElementRef<?> queueRef) {
+
+            task.onCancel(() -> {
+                boolean removed;
+                mainLock.lock();
+                try {
+                    removed = queueRef.isRemoved();
+                    if (!removed) {
+                        queueRef.remove();
+                        injectionQueueSize = injectionQueue.size();
+                        queuedTaskCount.decrementAndGet();
+                        checkAddToQueueSignal.signal();
+                    }
+                } finally {
+                    mainLock.unlock();
+                }
+
+                if (!removed) {
+                    try {
+                        task.cancel();
+                    } finally {
+                        tryTerminateAndNotify();
+                    }
+                }
+            });
+        }
+
+        private RefCollection.ElementRef<?> tryAddToInjectionQueue(
+                CancellationToken cancelToken,
+                QueuedItem newItem) {
+
+            // Returns null if a new worker was started with the given task.
+
+            FullQueueHandler currentFullQueueHandler = fullQueueHandler;
+            long blockStartNanos = 0;
+
+            mainLock.lock();
+            try {
+                while (state == ExecutorState.RUNNING) {
+                    boolean canStartWorker = idleWorkerCount <= injectionQueueSize;
+                    if (canStartWorker && tryReserveWorker()) {
+                        break;
+                    }
+
+                    if (queuedTaskCount.get() < maxQueueSize) {
+                        RefList.ElementRef<QueuedItem> queueRef = injectionQueue.addLastGetReference(newItem);
+                        injectionQueueSize = injectionQueue.size();
+                        queuedTaskCount.incrementAndGet();
+                        checkQueueSignal.signal();
+                        return queueRef;
+                    }
+
+                    if (currentFullQueueHandler != null) {
+                        blockStartNanos = System.nanoTime();
+                        ThreadPoolTaskExecutor.handleFullQueue(mainLock, currentFullQueueHandler, cancelToken);
+                        currentFullQueueHandler = null;
+                        continue;
+                    }
+
+                    waitingSubmitterCount++;
+                    try {
+                        // Workers check waitingSubmitterCount after decrementing queuedTaskCount,
+                        // so we have to recheck the queue size after incrementing waitingSubmitterCount.
+                        if (queuedTaskCount.get() >= maxQueueSize) {
+                            ThreadPoolTaskExecutor.awaitQueueNotFull(
+                                    cancelToken,
+                                    checkAddToQueueSignal,
+                                    fullQueueHandler,
+                                    blockStartNanos
+                            );
+                        }
+                    } finally {
+                        waitingSubmitterCount--;
+                    }
+                }
+
+                if (state != ExecutorState.RUNNING) {
+                    return POISON;
+                }
+            } finally {
+                mainLock.unlock();
+            }
+
+            startReservedWorker(newItem);
+            return null;
+        }
+
+        private boolean tryReserveWorker() {
+            while (true) {
+                int currentWorkerCount = workerCount.get();
+                if (currentWorkerCount >= maxThreadCount) {
+                    return false;
+                }
+                if (workerCount.compareAndSet(currentWorkerCount, currentWorkerCount + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void startReservedWorker(QueuedItem firstTask) {
+            try {
+                Worker worker = new Worker(firstTask);
+                Thread thread = threadFactory.newThread(worker);
+                worker.setOwnerThread(thread);
+                thread.start();
+            } catch (Throwable ex) {
+                workerCount.decrementAndGet();
+                tryTerminateAndNotify();
+                throw ex;
+            }
+        }
+
+        private void signalOrStartWorker() {
+            // Only called from a worker, so the pool cannot terminate concurrently.
+
+            if (idleWorkerCount > 0) {
+                mainLock.lock();
+                try {
+                    checkQueueSignal.signal();
+                } finally {
+                    mainLock.unlock();
+                }
+                return;
+            }
+
+            if (tryReserveWorker()) {
+                startReservedWorker(null);
+            }
+        }
+
+        private void onDequeued() {
+            queuedTaskCount.decrementAndGet();
+            if (waitingSubmitterCount > 0) {
+                mainLock.lock();
+                try {
+                    checkAddToQueueSignal.signal();
+                } finally {
+                    mainLock.unlock();
+                }
+            }
+        }
+
+        private QueuedItem pollInjectionQueue() {
+            // Must hold "mainLock"
+
+            if (injectionQueue.isEmpty()) {
+                return null;
+            }
+
+            QueuedItem result = injectionQueue.remove(0);
+            injectionQueueSize = injectionQueue.size();
+            return result;
+        }
+
+        private QueuedItem trySteal(Worker thief) {
+            Worker[] currentWorkers = workers;
+            int currentWorkerCount = currentWorkers.length;
+            if (currentWorkerCount == 0) {
+                return null;
+            }
+
+            int startIndex = ThreadLocalRandom.current().nextInt(currentWorkerCount);
+            for (int i = 0; i < currentWorkerCount; i++) {
+                Worker victim = currentWorkers[(startIndex + i) % currentWorkerCount];
+                if (victim != thief) {
+                    QueuedItem result = pollLocal(victim.localQueue, false);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static QueuedItem pollLocal(Deque<QueuedItem> localQueue, boolean fromTail) {
+            while (true) {
+                QueuedItem result = fromTail ? localQueue.pollLast() : localQueue.pollFirst();
+                // Canceled tasks are left in the local queues, we just skip them.
+                if (result == null || result.tryClaim()) {
+                    return result;
+                }
+            }
+        }
+
+        private static boolean isTerminationNeededState(ExecutorState state) {
+            return state != ExecutorState.RUNNING && state != ExecutorState.TERMINATED;
+        }
+
+        private void tryTerminateAndNotify() {
+            if (tryTerminate()) {
+                notifyTerminateListeners();
+            }
+        }
+
+        private boolean tryTerminate() {
+            if (!isTerminationNeededState(state)) {
+                return false;
+            }
+
+            mainLock.lock();
+            try {
+                ExecutorState currentState = state;
+                if (isTerminationNeededState(currentState) && workerCount.get() == 0 && injectionQueue.isEmpty()) {
+                    state = ExecutorState.TERMINATED;
+                    terminateSignal.signalAll();
+                    return true;
+                }
+            } finally {
+                mainLock.unlock();
+            }
+            return false;
+        }
+
+        @Override
+        public void shutdown() {
+            mainLock.lock();
+            try {
+                if (state != ExecutorState.RUNNING) {
+                    return;
+                }
+                state = ExecutorState.SHUTTING_DOWN;
+                checkQueueSignal.signalAll();
+                checkAddToQueueSignal.signalAll();
+            } finally {
+                mainLock.unlock();
+            }
+
+            tryTerminateAndNotify();
+        }
+
+        @Override
+        public void shutdownAndCancel() {
+            shutdown();
+
+            mainLock.lock();
+            try {
+                if (state.ordinal() >= ExecutorState.TERMINATING.ordinal()) {
+                    return;
+                }
+
+                state = ExecutorState.TERMINATING;
+                checkQueueSignal.signalAll();
+                checkAddToQueueSignal.signalAll();
+            } finally {
+                mainLock.unlock();
+            }
+
+            tryTerminateAndNotify();
+
+            executorCancelSource.getController().cancel();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return state != ExecutorState.RUNNING;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return state == ExecutorState.TERMINATED;
+        }
+
+        @Override
+        public boolean tryAwaitTermination(CancellationToken cancelToken, long timeout, TimeUnit unit) {
+            if (state == ExecutorState.TERMINATED) {
+                return true;
+            }
+
+            long startTime = System.nanoTime();
+            long timeoutNanos = unit.toNanos(timeout);
+            mainLock.lock();
+            try {
+                while (state != ExecutorState.TERMINATED) {
+                    long elapsed = System.nanoTime() - startTime;
+                    long toWaitNanos = timeoutNanos - elapsed;
+                    if (toWaitNanos <= 0) {
+                        return false;
+                    }
+                    CancelableWaits.await(cancelToken,
+                            toWaitNanos, TimeUnit.NANOSECONDS, terminateSignal);
+                }
+            } finally {
+                mainLock.unlock();
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            int currentWorkerCount;
+            int currentInjectionQueueSize;
+            mainLock.lock();
+            try {
+                currentWorkerCount = workerCount.get();
+                currentInjectionQueueSize = injectionQueue.size();
+            } finally {
+                mainLock.unlock();
+            }
+            return "WorkStealingTaskExecutor{"
+                    + "poolName=" + poolName
+                    + ", state=" + state
+                    + ", maxQueueSize=" + maxQueueSize
+                    + ", idleTimeout=" + TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) + " ms"
+                    + ", maxThreadCount=" + maxThreadCount
+                    + ", idleWorkerCount=" + idleWorkerCount
+                    + ", activeWorkers=" + getNumberOfExecutingTasks()
+                    + ", runningWorkers=" + currentWorkerCount
+                    + ", injectionQueue=" + currentInjectionQueueSize
+                    + ", queue=" + getNumberOfQueuedTasks() + '}';
+        }
+
+        private class Worker implements Runnable {
+            // Only the owner thread adds to this deque (at the tail) and removes from its tail,
+            // other workers steal from the head.
+            private final Deque<QueuedItem> localQueue;
+            private final AtomicBoolean runCalled;
+            private QueuedItem firstTask;
+            private Thread ownerThread;
+            private boolean registered;
+            private boolean retired;
+
+            public Worker(QueuedItem firstTask) {
+                this.firstTask = firstTask;
+                this.localQueue = new ConcurrentLinkedDeque<>();
+                this.runCalled = new AtomicBoolean(false);
+                this.registered = false;
+                this.retired = false;
+            }
+
+            public Impl getExecutor() {
+                return Impl.this;
+            }
+
+            public void setOwnerThread(Thread ownerThread) {
+                this.ownerThread = Objects.requireNonNull(ownerThread, "ownerThread");
+            }
+
+            public void addLocal(QueuedItem item) {
+                if (isShutdown()) {
+                    item.cancel();
+                    return;
+                }
+
+                queuedTaskCount.incrementAndGet();
+                localQueue.addLast(item);
+                item.onCancel(() -> {
+                    // Removing from the middle of the deque would be slow, so the canceled task
+                    // is only marked as removed, and is skipped when polled.
+                    if (item.tryClaim()) {
+                        onDequeued();
+                        item.cancel();
+                    }
+                });
+
+                signalOrStartWorker();
+            }
+
+            @Override
+            public void run() {
+                // Prevent abuse when calling from a ThreadFactory.
+                if (Thread.currentThread() != ownerThread) {
+                    LOGGER.error("The worker of {} has been called from the wrong thread.", poolName);
+                    throw new IllegalStateException();
+                }
+
+                // This may happen if the thread factory calls this task
+                // multiple times from the started thread.
+                if (!runCalled.compareAndSet(false, true)) {
+                    LOGGER.error("The worker of {} has been called multiple times.", poolName);
+                    throw new IllegalStateException();
+                }
+
+                CURRENT_WORKER.set(this);
+                try {
+                    registerWorker();
+                    workerLoop();
+                } catch (Throwable ex) {
+                    LOGGER.error("Unexpected error in the main thread loop of {}", poolName, ex);
+                } finally {
+                    try {
+                        finishWorker();
+                    } finally {
+                        CURRENT_WORKER.remove();
+                    }
+                }
+            }
+
+            private void registerWorker() {
+                mainLock.lock();
+                try {
+                    Worker[] currentWorkers = workers;
+                    Worker[] newWorkers = Arrays.copyOf(currentWorkers, currentWorkers.length + 1);
+                    newWorkers[currentWorkers.length] = this;
+                    workers = newWorkers;
+                    registered = true;
+                } finally {
+                    mainLock.unlock();
+                }
+            }
+
+            private void unregisterWorker() {
+                // Must hold "mainLock"
+
+                Worker[] currentWorkers = workers;
+                Worker[] newWorkers = new Worker[currentWorkers.length - 1];
+                int newIndex = 0;
+                for (Worker worker : currentWorkers) {
+                    if (worker != this) {
+                        newWorkers[newIndex] = worker;
+                        newIndex++;
+                    }
+                }
+                workers = newWorkers;
+            }
+
+            private void retire() {
+                // Must hold "mainLock"
+
+                if (!retired) {
+                    retired = true;
+                    workerCount.decrementAndGet();
+                    if (registered) {
+                        unregisterWorker();
+                    }
+                }
+            }
+
+            private void finishWorker() {
+                // Only happens on unexpected failures: We must not leave tasks in our local queue.
+                QueuedItem item = pollLocal(localQueue, true);
+                while (item != null) {
+                    onDequeued();
+                    item.cancel();
+                    item = pollLocal(localQueue, true);
+                }
+
+                mainLock.lock();
+                try {
+                    retire();
+                } finally {
+                    mainLock.unlock();
+                    tryTerminateAndNotify();
+                }
+            }
+
+            private void workerLoop() {
+                if (firstTask != null) {
+                    QueuedItem currentFirstTask = firstTask;
+                    firstTask = null;
+                    execute(currentFirstTask);
+                }
+
+                while (true) {
+                    QueuedItem itemToProcess = poll();
+                    if (itemToProcess == null) {
+                        return;
+                    }
+
+                    onDequeued();
+                    try {
+                        execute(itemToProcess);
+                    } catch (Throwable ex) {
+                        LOGGER.error("Unexpected error while processing a task of {}", poolName, ex);
+                    }
+                }
+            }
+
+            private void execute(QueuedItem itemToProcess) {
+                if (state.ordinal() < ExecutorState.TERMINATING.ordinal()) {
+                    currentlyExecuting.getAndIncrement();
+                    try {
+                        itemToProcess.runTask();
+                    } finally {
+                        currentlyExecuting.getAndDecrement();
+                    }
+                } else {
+                    itemToProcess.cancel();
+                }
+            }
+
+            private QueuedItem pollWithoutWait() {
+                QueuedItem result = pollLocal(localQueue, true);
+                if (result != null) {
+                    return result;
+                }
+
+                if (injectionQueueSize > 0) {
+                    mainLock.lock();
+                    try {
+                        result = pollInjectionQueue();
+                    } finally {
+                        mainLock.unlock();
+                    }
+                    if (result != null) {
+                        return result;
+                    }
+                }
+
+                return trySteal(this);
+            }
+
+            private QueuedItem poll() {
+                long toWaitNanos = idleTimeoutNanos;
+                while (true) {
+                    QueuedItem result = pollWithoutWait();
+                    if (result != null) {
+                        return result;
+                    }
+
+                    mainLock.lock();
+                    try {
+                        result = pollInjectionQueue();
+                        if (result != null) {
+                            return result;
+                        }
+
+                        idleWorkerCount++;
+                        try {
+                            // Tasks are added to the local queues without holding the lock, but
+                            // they check idleWorkerCount after adding the task. So, we have to
+                            // check the local queues after incrementing idleWorkerCount.
+                            result = trySteal(this);
+                            if (result != null) {
+                                return result;
+                            }
+
+                            if (state != ExecutorState.RUNNING || toWaitNanos <= 0) {
+                                retire();
+                                return null;
+                            }
+
+                            toWaitNanos = checkQueueSignal.awaitNanos(toWaitNanos);
+                        } catch (InterruptedException ex) {
+                            // We are not using interrupts directly to communicate with the thread.
+                        } finally {
+                            idleWorkerCount--;
+                        }
+                    } finally {
+                        mainLock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class QueuedItem {
+        private static final AtomicIntegerFieldUpdater<QueuedItem> CLAIMED
+                = AtomicIntegerFieldUpdater.newUpdater(QueuedItem.class, "claimed");
+
+        public final CancellationToken cancelToken;
+        public final AbstractTaskExecutor.SubmittedTask<?> submittedTask;
+        // Only used for tasks in the local queues: Set by whoever removes the task logically.
+        private volatile int claimed;
+
+        public QueuedItem(
+                CancellationToken cancelToken,
+                AbstractTaskExecutor.SubmittedTask<?> submittedTask) {
+
+            this.cancelToken = cancelToken;
+            this.submittedTask = submittedTask;
+        }
+
+        public boolean tryClaim() {
+            return CLAIMED.compareAndSet(this, 0, 1);
+        }
+
+        public void runTask() {
+            Thread.interrupted();
+            submittedTask.execute(cancelToken);
+        }
+
+        public void cancel() {
+            submittedTask.cancel();
+        }
+
+        public void onCancel(Runnable cancelTask) {
+            ListenerRef listenerRef = cancelToken.addCancellationListener(cancelTask);
+            submittedTask.getFuture().whenComplete((result, error) -> listenerRef.unregister());
+        }
+    }
+
+    // The order of the enum constants is relevant
+    private enum ExecutorState {
+        RUNNING,
+        SHUTTING_DOWN,
+        TERMINATING, // = tasks are to be canceled
+        TERMINATED
+    }
+}
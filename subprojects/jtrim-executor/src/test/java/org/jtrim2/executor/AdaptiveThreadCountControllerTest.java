@@ -0,0 +1,129 @@
+package org.jtrim2.executor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveThreadCountControllerTest {
+    private static final long SAMPLE_INTERVAL = 1000;
+    private static final long BACKLOG_QUEUE_WAIT = 10;
+
+    private static AdaptiveThreadCountController create(int minThreadCount, int initialThreadCount) {
+        return new AdaptiveThreadCountController(
+                minThreadCount,
+                initialThreadCount,
+                SAMPLE_INTERVAL,
+                BACKLOG_QUEUE_WAIT,
+                0
+        );
+    }
+
+    private static final class Sampler {
+        private final AdaptiveThreadCountController controller;
+        private final int maxThreadCount;
+        private long now;
+        private long completedCount;
+        private long queueWaitCount;
+        private long queueWaitTotal;
+
+        public Sampler(AdaptiveThreadCountController controller, int maxThreadCount) {
+            this.controller = controller;
+            this.maxThreadCount = maxThreadCount;
+            this.now = 0;
+            this.completedCount = 0;
+            this.queueWaitCount = 0;
+            this.queueWaitTotal = 0;
+        }
+
+        public int sample(long completedDelta, long queuedTaskCount, long avgQueueWait) {
+            now += SAMPLE_INTERVAL;
+            completedCount += completedDelta;
+            queueWaitCount += completedDelta;
+            queueWaitTotal += completedDelta * avgQueueWait;
+            assertTrue("sampled", controller.trySample(
+                    now,
+                    completedCount,
+                    queueWaitCount,
+                    queueWaitTotal,
+                    queuedTaskCount,
+                    maxThreadCount
+            ));
+            return controller.getThreadCount();
+        }
+    }
+
+    @Test
+    public void testInitialThreadCount() {
+        assertEquals(2, create(2, 0).getThreadCount());
+        assertEquals(5, create(2, 5).getThreadCount());
+    }
+
+    @Test
+    public void testSampleNotDue() {
+        AdaptiveThreadCountController controller = create(1, 1);
+        assertFalse(controller.isSampleDue(SAMPLE_INTERVAL - 1));
+        assertFalse(controller.trySample(SAMPLE_INTERVAL - 1, 0, 0, 0, 1, 10));
+        assertTrue(controller.isSampleDue(SAMPLE_INTERVAL));
+        assertTrue(controller.trySample(SAMPLE_INTERVAL, 0, 0, 0, 1, 10));
+        assertFalse(controller.trySample(SAMPLE_INTERVAL, 0, 0, 0, 1, 10));
+    }
+
+    @Test
+    public void testShrinksWithoutBacklog() {
+        Sampler sampler = new Sampler(create(2, 5), 10);
+        assertEquals(4, sampler.sample(100, 0, 0));
+        assertEquals(3, sampler.sample(100, 0, BACKLOG_QUEUE_WAIT));
+        assertEquals(2, sampler.sample(100, 0, 0));
+        assertEquals(2, sampler.sample(100, 0, 0));
+    }
+
+    @Test
+    public void testLongQueueWaitIsBacklog() {
+        Sampler sampler = new Sampler(create(1, 1), 10);
+        assertEquals(2, sampler.sample(100, 0, BACKLOG_QUEUE_WAIT + 1));
+    }
+
+    @Test
+    public void testGrowsIfNothingCompletes() {
+        Sampler sampler = new Sampler(create(1, 1), 3);
+        sampler.sample(100, 1, 0);
+        assertEquals(3, sampler.sample(0, 1, 0));
+        assertEquals(3, sampler.sample(0, 1, 0));
+        assertEquals(3, sampler.sample(0, 1, 0));
+    }
+
+    @Test
+    public void testClimbsWhileThroughputImproves() {
+        Sampler sampler = new Sampler(create(1, 1), 10);
+        assertEquals(2, sampler.sample(100, 1, 0));
+        assertEquals(3, sampler.sample(100, 1, 0));
+        assertEquals(4, sampler.sample(200, 1, 0));
+        assertEquals(5, sampler.sample(300, 1, 0));
+        // Worse throughput: turn back.
+        assertEquals(4, sampler.sample(200, 1, 0));
+        // Better throughput: keep going down.
+        assertEquals(3, sampler.sample(300, 1, 0));
+        // Worse throughput: turn back.
+        assertEquals(4, sampler.sample(200, 1, 0));
+    }
+
+    @Test
+    public void testReleasesThreadIfThroughputDoesNotChange() {
+        Sampler sampler = new Sampler(create(1, 4), 10);
+        assertEquals(5, sampler.sample(100, 1, 0));
+        assertEquals(6, sampler.sample(100, 1, 0));
+        assertEquals(5, sampler.sample(100, 1, 0));
+        assertEquals(4, sampler.sample(102, 1, 0));
+    }
+
+    @Test
+    public void testRespectsMaxThreadCount() {
+        Sampler sampler = new Sampler(create(1, 8), 4);
+        assertEquals(4, sampler.sample(100, 1, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalMinThreadCount() {
+        create(0, 1);
+    }
+}
@@ -0,0 +1,341 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.cancel.OperationTimeoutException;
+import org.jtrim2.concurrent.AsyncFunction;
+import org.jtrim2.utils.TimeDuration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AsyncCombinatorsTest {
+    private static Throwable getFailure(CompletionStage<?> stage) {
+        CompletableFuture<?> future = stage.toCompletableFuture();
+        assertTrue("done", future.isDone());
+        try {
+            future.get();
+            throw new AssertionError("Expected failure.");
+        } catch (ExecutionException ex) {
+            return ex.getCause();
+        } catch (CancellationException | InterruptedException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    private static <R> R getResult(CompletionStage<R> stage) {
+        CompletableFuture<R> future = stage.toCompletableFuture();
+        assertTrue("done", future.isDone());
+        return future.getNow(null);
+    }
+
+    @Test
+    public void testAllOfEmpty() {
+        AsyncFunction<List<Object>> combined = AsyncCombinators.allOf(Collections.emptyList());
+        assertEquals(Collections.emptyList(), getResult(combined.executeAsync(Cancellation.UNCANCELABLE_TOKEN)));
+    }
+
+    @Test
+    public void testAllOfSuccess() {
+        TestTask<String> task1 = new TestTask<>();
+        TestTask<String> task2 = new TestTask<>();
+
+        CompletionStage<List<String>> result = AsyncCombinators.<String>allOf(Arrays.asList(task1, task2))
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        task2.complete("result2");
+        assertFalse(result.toCompletableFuture().isDone());
+        task1.complete("result1");
+
+        assertEquals(Arrays.asList("result1", "result2"), getResult(result));
+        assertFalse(task1.isCanceled());
+        assertFalse(task2.isCanceled());
+    }
+
+    @Test
+    public void testAllOfFailureCancelsOthers() {
+        TestTask<String> task1 = new TestTask<>();
+        TestTask<String> task2 = new TestTask<>();
+        TestTask<String> task3 = new TestTask<>();
+
+        CompletionStage<List<String>> result = AsyncCombinators.<String>allOf(Arrays.asList(task1, task2, task3))
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        task1.complete("result1");
+        TestException failure = new TestException();
+        task2.fail(failure);
+
+        assertSame(failure, getFailure(result));
+        assertTrue(task3.isCanceled());
+    }
+
+    @Test
+    public void testAllOfThrowingTask() {
+        TestException failure = new TestException();
+        TestTask<String> task2 = new TestTask<>();
+
+        AsyncFunction<String> task1 = cancelToken -> {
+            throw failure;
+        };
+        CompletionStage<List<String>> result = AsyncCombinators.<String>allOf(Arrays.asList(task1, task2))
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        assertSame(failure, getFailure(result));
+        assertTrue(task2.isCanceled());
+    }
+
+    @Test
+    public void testAllOfParentCancellation() {
+        TestTask<String> task1 = new TestTask<>();
+        CancellationSource cancelSource = Cancellation.createCancellationSource();
+
+        CompletionStage<List<String>> result = AsyncCombinators.<String>allOf(Arrays.asList(task1))
+                .executeAsync(cancelSource.getToken());
+
+        assertFalse(task1.isCanceled());
+        cancelSource.getController().cancel();
+        assertTrue(task1.isCanceled());
+
+        task1.fail(OperationCanceledException.withoutStackTrace());
+        assertTrue(getFailure(result) instanceof OperationCanceledException);
+    }
+
+    @Test
+    public void testAnyOfFirstSuccessCancelsOthers() {
+        TestTask<String> task1 = new TestTask<>();
+        TestTask<String> task2 = new TestTask<>();
+        TestTask<String> task3 = new TestTask<>();
+
+        CompletionStage<String> result = AsyncCombinators.<String>anyOf(Arrays.asList(task1, task2, task3))
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        task1.fail(new TestException());
+        assertFalse(result.toCompletableFuture().isDone());
+
+        task2.complete("result2");
+        assertEquals("result2", getResult(result));
+        assertTrue(task3.isCanceled());
+    }
+
+    @Test
+    public void testAnyOfAllFailed() {
+        TestTask<String> task1 = new TestTask<>();
+        TestTask<String> task2 = new TestTask<>();
+        TestTask<String> task3 = new TestTask<>();
+
+        CompletionStage<String> result = AsyncCombinators.<String>anyOf(Arrays.asList(task1, task2, task3))
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        TestException failure1 = new TestException();
+        TestException failure3 = new TestException();
+        task1.fail(failure1);
+        task2.fail(OperationCanceledException.withoutStackTrace());
+        assertFalse(result.toCompletableFuture().isDone());
+        task3.fail(failure3);
+
+        assertSame(failure1, getFailure(result));
+        assertArrayEquals(new Throwable[]{failure3}, failure1.getSuppressed());
+    }
+
+    @Test
+    public void testAnyOfAllCanceled() {
+        AsyncFunction<String> task = cancelToken -> CancelableTasks.canceledComplationStage();
+
+        CompletionStage<String> result = AsyncCombinators.<String>anyOf(Arrays.asList(task, task))
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        assertTrue(getFailure(result) instanceof OperationCanceledException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAnyOfEmpty() {
+        AsyncCombinators.anyOf(Collections.emptyList());
+    }
+
+    @Test
+    public void testHedgedFirstAttemptWins() {
+        ManualScheduledTaskExecutor scheduler = new ManualScheduledTaskExecutor();
+        TestTaskFactory<String> tasks = new TestTaskFactory<>();
+
+        CompletionStage<String> result = AsyncCombinators.hedged(scheduler, TimeDuration.millis(10), 3, tasks)
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        assertEquals(1, tasks.getStartedCount());
+        assertEquals(1, scheduler.getScheduledCount());
+        assertEquals(TimeDuration.millis(10).toNanos(), scheduler.getDelayNanos(0));
+
+        tasks.get(0).complete("result1");
+        assertEquals("result1", getResult(result));
+
+        scheduler.runScheduled();
+        assertEquals(1, tasks.getStartedCount());
+    }
+
+    @Test
+    public void testHedgedSecondAttemptWins() {
+        ManualScheduledTaskExecutor scheduler = new ManualScheduledTaskExecutor();
+        TestTaskFactory<String> tasks = new TestTaskFactory<>();
+
+        CompletionStage<String> result = AsyncCombinators.hedged(scheduler, TimeDuration.millis(10), 3, tasks)
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        scheduler.runScheduled();
+        assertEquals(2, tasks.getStartedCount());
+        assertEquals(1, scheduler.getScheduledCount());
+
+        tasks.get(1).complete("result2");
+        assertEquals("result2", getResult(result));
+        assertTrue(tasks.get(0).isCanceled());
+
+        scheduler.runScheduled();
+        assertEquals(2, tasks.getStartedCount());
+    }
+
+    @Test
+    public void testHedgedFailureStartsNextAttemptImmediately() {
+        ManualScheduledTaskExecutor scheduler = new ManualScheduledTaskExecutor();
+        TestTaskFactory<String> tasks = new TestTaskFactory<>();
+
+        CompletionStage<String> result = AsyncCombinators.hedged(scheduler, TimeDuration.millis(10), 2, tasks)
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        TestException failure1 = new TestException();
+        tasks.get(0).fail(failure1);
+        assertEquals(2, tasks.getStartedCount());
+
+        // The timer of the first attempt must not start a third attempt.
+        scheduler.runScheduled();
+        assertEquals(2, tasks.getStartedCount());
+        assertFalse(result.toCompletableFuture().isDone());
+
+        TestException failure2 = new TestException();
+        tasks.get(1).fail(failure2);
+
+        assertSame(failure1, getFailure(result));
+        assertArrayEquals(new Throwable[]{failure2}, failure1.getSuppressed());
+    }
+
+    @Test
+    public void testHedgedParentCancellation() {
+        ManualScheduledTaskExecutor scheduler = new ManualScheduledTaskExecutor();
+        TestTaskFactory<String> tasks = new TestTaskFactory<>();
+        CancellationSource cancelSource = Cancellation.createCancellationSource();
+
+        CompletionStage<String> result = AsyncCombinators.hedged(scheduler, TimeDuration.millis(10), 3, tasks)
+                .executeAsync(cancelSource.getToken());
+
+        cancelSource.getController().cancel();
+        assertTrue(tasks.get(0).isCanceled());
+        tasks.get(0).fail(OperationCanceledException.withoutStackTrace());
+
+        assertEquals(1, tasks.getStartedCount());
+        assertTrue(getFailure(result) instanceof OperationCanceledException);
+    }
+
+    @Test
+    public void testWithTimeoutCompletesInTime() {
+        ManualScheduledTaskExecutor scheduler = new ManualScheduledTaskExecutor();
+        TestTask<String> task = new TestTask<>();
+
+        CompletionStage<String> result = AsyncCombinators.withTimeout(scheduler, TimeDuration.millis(10), task)
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        assertEquals(1, scheduler.getScheduledCount());
+        task.complete("result");
+        assertEquals("result", getResult(result));
+
+        scheduler.runScheduled();
+        assertEquals("result", getResult(result));
+        assertFalse(task.isCanceled());
+    }
+
+    @Test
+    public void testWithTimeoutElapses() {
+        ManualScheduledTaskExecutor scheduler = new ManualScheduledTaskExecutor();
+        TestTask<String> task = new TestTask<>();
+
+        CompletionStage<String> result = AsyncCombinators.withTimeout(scheduler, TimeDuration.millis(10), task)
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        scheduler.runScheduled();
+        assertTrue(getFailure(result) instanceof OperationTimeoutException);
+        assertTrue(task.isCanceled());
+
+        task.complete("result");
+        assertTrue(getFailure(result) instanceof OperationTimeoutException);
+    }
+
+    @Test
+    public void testWithTimeoutFailure() {
+        ManualScheduledTaskExecutor scheduler = new ManualScheduledTaskExecutor();
+        TestTask<String> task = new TestTask<>();
+
+        CompletionStage<String> result = AsyncCombinators.withTimeout(scheduler, TimeDuration.millis(10), task)
+                .executeAsync(Cancellation.UNCANCELABLE_TOKEN);
+
+        TestException failure = new TestException();
+        task.fail(failure);
+        assertSame(failure, getFailure(result));
+    }
+
+    private static final class TestTaskFactory<R> implements AsyncFunction<R> {
+        private final List<TestTask<R>> startedTasks = new ArrayList<>();
+
+        @Override
+        public CompletionStage<R> executeAsync(CancellationToken cancelToken) {
+            TestTask<R> task = new TestTask<>();
+            startedTasks.add(task);
+            return task.executeAsync(cancelToken);
+        }
+
+        public int getStartedCount() {
+            return startedTasks.size();
+        }
+
+        public TestTask<R> get(int index) {
+            return startedTasks.get(index);
+        }
+    }
+
+    private static final class TestTask<R> implements AsyncFunction<R> {
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private final AtomicReference<CancellationToken> cancelTokenRef = new AtomicReference<>();
+
+        @Override
+        public CompletionStage<R> executeAsync(CancellationToken cancelToken) {
+            if (!cancelTokenRef.compareAndSet(null, cancelToken)) {
+                throw new AssertionError("Task was started multiple times.");
+            }
+            return future;
+        }
+
+        public boolean isCanceled() {
+            CancellationToken cancelToken = cancelTokenRef.get();
+            assertNotNull("started", cancelToken);
+            return cancelToken.isCanceled();
+        }
+
+        public void complete(R result) {
+            future.complete(result);
+        }
+
+        public void fail(Throwable failure) {
+            future.completeExceptionally(failure);
+        }
+    }
+
+    private static final class TestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
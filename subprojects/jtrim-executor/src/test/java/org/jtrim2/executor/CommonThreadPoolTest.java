@@ -3,21 +3,27 @@ package org.jtrim2.executor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationSource;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.cancel.OperationTimeoutException;
+import org.jtrim2.concurrent.AsyncTasks;
 import org.jtrim2.concurrent.Tasks;
 import org.jtrim2.concurrent.WaitableSignal;
 import org.jtrim2.logs.LogCollector;
@@ -26,6 +32,7 @@ import org.jtrim2.testutils.cancel.TestCancellationSource;
 import org.jtrim2.testutils.executor.GenericExecutorServiceTests;
 import org.jtrim2.testutils.executor.MockCleanup;
 import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -564,6 +571,194 @@ public abstract class CommonThreadPoolTest<E extends MonitorableTaskExecutorServ
         verify(finalTask).run();
     }
 
+    @Test(timeout = 20000)
+    public void testFullQueueBlockWithTimeoutElapses() throws InterruptedException {
+        testFullQueueBlockWithTimeoutElapses(50);
+    }
+
+    @Test(timeout = 20000)
+    public void testFullQueueBlockWithZeroTimeout() throws InterruptedException {
+        testFullQueueBlockWithTimeoutElapses(0);
+    }
+
+    private void testFullQueueBlockWithTimeoutElapses(long timeoutMillis) throws InterruptedException {
+        WaitableSignal blockingTaskMayExitSignal = new WaitableSignal();
+        CancelableTask failedTask = mock(CancelableTask.class);
+
+        MonitorableTaskExecutorService executor = threadPoolFactory
+                .create("testFullQueueBlockWithTimeoutElapses-pool", config -> {
+                    config.setMaxThreadCount(1);
+                    config.setMaxQueueSize(1);
+                    config.setFullQueueHandler(
+                            FullQueueHandler.blockWithTimeoutHandler(TimeDuration.millis(timeoutMillis)));
+                });
+
+        try {
+            WaitableSignal blockingTaskReady = new WaitableSignal();
+            executor.execute(() -> {
+                blockingTaskReady.signal();
+                blockingTaskMayExitSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+            });
+            blockingTaskReady.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+
+            // This task must be in the queue.
+            executor.execute(Tasks.noOpTask());
+
+            long startNanos = System.nanoTime();
+            CompletionStage<Void> future = executor.execute(Cancellation.UNCANCELABLE_TOKEN, failedTask);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            assertTrue("elapsedMillis", elapsedMillis >= timeoutMillis);
+
+            AtomicReference<Throwable> failureRef = new AtomicReference<>();
+            future.whenComplete((result, failure) -> failureRef.set(AsyncTasks.unwrap(failure)));
+            assertTrue("timeout", failureRef.get() instanceof OperationTimeoutException);
+        } finally {
+            blockingTaskMayExitSignal.signal();
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+
+        verifyNoInteractions(failedTask);
+    }
+
+    @Test(timeout = 20000)
+    public void testFullQueueBlockWithTimeoutSucceeds() throws InterruptedException {
+        WaitableSignal blockingTaskMayExitSignal = new WaitableSignal();
+        Runnable finalTask = mock(Runnable.class);
+
+        MonitorableTaskExecutorService executor = threadPoolFactory
+                .create("testFullQueueBlockWithTimeoutSucceeds-pool", config -> {
+                    config.setMaxThreadCount(1);
+                    config.setMaxQueueSize(1);
+                    config.setFullQueueHandler(FullQueueHandler.blockWithTimeoutHandler(TimeDuration.seconds(10)));
+                });
+
+        try {
+            WaitableSignal blockingTaskReady = new WaitableSignal();
+            executor.execute(() -> {
+                blockingTaskReady.signal();
+                blockingTaskMayExitSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+            });
+            blockingTaskReady.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+
+            // This task must be in the queue.
+            executor.execute(Tasks.noOpTask());
+
+            Thread unblockThread = new Thread(() -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ex) {
+                    // Just exit, the test is about to fail.
+                }
+                blockingTaskMayExitSignal.signal();
+            });
+            unblockThread.start();
+            try {
+                executor.execute(finalTask);
+            } finally {
+                unblockThread.interrupt();
+                unblockThread.join();
+            }
+        } finally {
+            blockingTaskMayExitSignal.signal();
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+
+        verify(finalTask).run();
+    }
+
+    protected final void testMetrics(Function<? super E, ThreadPoolMetrics> metricsGetter) throws Exception {
+        RuntimeException fullQueueException = new RuntimeException("fullQueueException");
+        WaitableSignal blockingTaskMayExitSignal = new WaitableSignal();
+
+        E executor = threadPoolFactory.create("testMetrics-pool", config -> {
+            config.setMaxThreadCount(1);
+            config.setMaxQueueSize(1);
+            config.setFullQueueHandler(cancelToken -> fullQueueException);
+            config.setMetricsEnabled(true);
+        });
+        ThreadPoolMetrics metrics = metricsGetter.apply(executor);
+
+        try {
+            WaitableSignal blockingTaskReady = new WaitableSignal();
+            executor.execute(() -> {
+                blockingTaskReady.signal();
+                blockingTaskMayExitSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+            });
+            blockingTaskReady.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+
+            CancellationSource cancelSource = Cancellation.createCancellationSource();
+            executor.execute(cancelSource.getToken(), cancelToken -> { });
+
+            try {
+                executor.execute(Tasks.noOpTask());
+                fail("Expected failure due to full queue");
+            } catch (RuntimeException ex) {
+                assertSame(fullQueueException, ex);
+            }
+
+            cancelSource.getController().cancel();
+            executor.execute(Tasks.noOpTask());
+
+            Thread.sleep(10);
+        } finally {
+            blockingTaskMayExitSignal.signal();
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+
+        assertEquals("submitted", 4, metrics.getSubmittedTaskCount());
+        assertEquals("completed", 2, metrics.getCompletedTaskCount());
+        assertEquals("canceled", 1, metrics.getCanceledTaskCount());
+        assertEquals("rejected", 1, metrics.getRejectedTaskCount());
+        assertEquals("createdThreads", 1, metrics.getCreatedThreadCount());
+
+        LatencyHistogram queueWaitTimes = metrics.getQueueWaitTimes();
+        assertEquals("queueWaitTimes.count", 2, queueWaitTimes.getCount());
+        assertTrue("queueWaitTimes.max", queueWaitTimes.getMax(TimeUnit.MILLISECONDS) >= 10);
+
+        LatencyHistogram executionTimes = metrics.getExecutionTimes();
+        assertEquals("executionTimes.count", 2, executionTimes.getCount());
+        assertTrue("executionTimes.max", executionTimes.getMax(TimeUnit.MILLISECONDS) >= 10);
+    }
+
+    protected final void testTimeoutMetrics(Function<? super E, ThreadPoolMetrics> metricsGetter) throws Exception {
+        WaitableSignal blockingTaskMayExitSignal = new WaitableSignal();
+
+        E executor = threadPoolFactory.create("testTimeoutMetrics-pool", config -> {
+            config.setMaxThreadCount(1);
+            config.setMaxQueueSize(1);
+            config.setFullQueueHandler(FullQueueHandler.blockWithTimeoutHandler(TimeDuration.millis(0)));
+            config.setMetricsEnabled(true);
+        });
+        ThreadPoolMetrics metrics = metricsGetter.apply(executor);
+
+        try {
+            WaitableSignal blockingTaskReady = new WaitableSignal();
+            executor.execute(() -> {
+                blockingTaskReady.signal();
+                blockingTaskMayExitSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+            });
+            blockingTaskReady.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+
+            // This task must be in the queue.
+            executor.execute(Tasks.noOpTask());
+
+            CompletionStage<Void> future = executor.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> { });
+            AtomicReference<Throwable> failureRef = new AtomicReference<>();
+            future.whenComplete((result, failure) -> failureRef.set(AsyncTasks.unwrap(failure)));
+            assertTrue("timeout", failureRef.get() instanceof OperationTimeoutException);
+        } finally {
+            blockingTaskMayExitSignal.signal();
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+
+        assertEquals("submitted", 3, metrics.getSubmittedTaskCount());
+        assertEquals("completed", 2, metrics.getCompletedTaskCount());
+        assertEquals("canceled", 0, metrics.getCanceledTaskCount());
+        assertEquals("rejected", 1, metrics.getRejectedTaskCount());
+    }
+
     private void createUnreferenced(
             Runnable onShutdownTask,
             boolean needAutoShutdown,
@@ -696,6 +891,95 @@ public abstract class CommonThreadPoolTest<E extends MonitorableTaskExecutorServ
         verify(afterBlockTask).execute(any(CancellationToken.class));
     }
 
+    private void testExecuteAll(int taskCount, int maxThreadCount, int maxQueueSize) throws Exception {
+        AtomicInteger executedCount = new AtomicInteger(0);
+        List<CancelableFunction<Integer>> functions = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            int taskIndex = i;
+            functions.add(cancelToken -> {
+                executedCount.incrementAndGet();
+                return taskIndex;
+            });
+        }
+
+        E executor = threadPoolFactory.create("testExecuteAll-pool", maxThreadCount, maxQueueSize);
+        List<CompletionStage<Integer>> results;
+        try {
+            results = executor.executeFunctions(Cancellation.UNCANCELABLE_TOKEN, functions);
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+
+        assertEquals(taskCount, executedCount.get());
+        assertEquals(taskCount, results.size());
+        for (int i = 0; i < taskCount; i++) {
+            assertEquals(i, results.get(i).toCompletableFuture().get().intValue());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testExecuteAll() throws Exception {
+        testExecuteAll(1000, Math.min(4, maxSupportedThreadCount), Integer.MAX_VALUE);
+    }
+
+    @Test(timeout = 10000)
+    public void testExecuteAllWithFullQueue() throws Exception {
+        testExecuteAll(100, 1, 2);
+    }
+
+    @Test(timeout = 10000)
+    public void testExecuteAllTasks() throws Exception {
+        int taskCount = 100;
+        CancelableTask task = mock(CancelableTask.class);
+        MockCleanup cleanup = mock(MockCleanup.class);
+
+        TaskExecutorService executor = threadPoolFactory.create("testExecuteAllTasks-pool", 1);
+        try {
+            executor.executeAll(Cancellation.UNCANCELABLE_TOKEN, Collections.nCopies(taskCount, task))
+                    .forEach(future -> future.whenComplete(MockCleanup.toCleanupTask(cleanup)));
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+
+        verify(task, times(taskCount)).execute(any(CancellationToken.class));
+        verify(cleanup, times(taskCount)).cleanup(null, null);
+    }
+
+    @Test(timeout = 10000)
+    public void testExecuteAllCanceled() throws Exception {
+        CancelableTask task = mock(CancelableTask.class);
+        MockCleanup cleanup = mock(MockCleanup.class);
+
+        TaskExecutorService executor = threadPoolFactory.create("testExecuteAllCanceled-pool", 1);
+        try {
+            executor.executeAll(Cancellation.CANCELED_TOKEN, Arrays.asList(task, task))
+                    .forEach(future -> future.whenComplete(MockCleanup.toCleanupTask(cleanup)));
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+
+        verifyNoInteractions(task);
+        verify(cleanup, times(2)).cleanup(isNull(), isA(OperationCanceledException.class));
+    }
+
+    @Test(timeout = 10000)
+    public void testExecuteAllAfterShutdown() throws Exception {
+        CancelableTask task = mock(CancelableTask.class);
+        MockCleanup cleanup = mock(MockCleanup.class);
+
+        TaskExecutorService executor = threadPoolFactory.create("testExecuteAllAfterShutdown-pool", 1);
+        executor.shutdown();
+        executor.executeAll(Cancellation.UNCANCELABLE_TOKEN, Arrays.asList(task, task))
+                .forEach(future -> future.whenComplete(MockCleanup.toCleanupTask(cleanup)));
+        waitTerminateAndTest(executor);
+
+        verifyNoInteractions(task);
+        verify(cleanup, times(2)).cleanup(isNull(), isA(OperationCanceledException.class));
+    }
+
     private static TestCancellationSource newCancellationSource() {
         return new TestCancellationSource();
     }
@@ -748,6 +1032,7 @@ public abstract class CommonThreadPoolTest<E extends MonitorableTaskExecutorServ
         private final ThreadFactory threadFactory;
         private final FullQueueHandler fullQueueHandler;
         private final boolean needShutdown;
+        private final boolean metricsEnabled;
 
         private ThreadPoolProperties(Builder builder) {
             this.poolName = builder.poolName;
@@ -756,6 +1041,7 @@ public abstract class CommonThreadPoolTest<E extends MonitorableTaskExecutorServ
             this.threadFactory = builder.threadFactory;
             this.fullQueueHandler = builder.fullQueueHandler;
             this.needShutdown = builder.needShutdown;
+            this.metricsEnabled = builder.metricsEnabled;
         }
 
         public String getPoolName() {
@@ -782,6 +1068,10 @@ public abstract class CommonThreadPoolTest<E extends MonitorableTaskExecutorServ
             return needShutdown;
         }
 
+        public boolean isMetricsEnabled() {
+            return metricsEnabled;
+        }
+
         public static final class Builder {
             private final String poolName;
             private int maxThreadCount;
@@ -789,6 +1079,7 @@ public abstract class CommonThreadPoolTest<E extends MonitorableTaskExecutorServ
             private ThreadFactory threadFactory;
             private FullQueueHandler fullQueueHandler;
             private boolean needShutdown;
+            private boolean metricsEnabled;
 
             public Builder(String poolName) {
                 this.poolName = Objects.requireNonNull(poolName, "poolName");
@@ -797,6 +1088,7 @@ public abstract class CommonThreadPoolTest<E extends MonitorableTaskExecutorServ
                 this.threadFactory = new ExecutorsEx.NamedThreadFactory(false, poolName);
                 this.fullQueueHandler = null;
                 this.needShutdown = true;
+                this.metricsEnabled = false;
             }
 
             public void setMaxThreadCount(int maxThreadCount) {
@@ -818,6 +1110,10 @@ public abstract class CommonThreadPoolTest<E extends MonitorableTaskExecutorServ
             public void setNeedShutdown(boolean needShutdown) {
                 this.needShutdown = needShutdown;
             }
+
+            public void setMetricsEnabled(boolean metricsEnabled) {
+                this.metricsEnabled = metricsEnabled;
+            }
         }
     }
 
@@ -1,6 +1,7 @@
 package org.jtrim2.executor;
 
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.utils.TimeDuration;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -18,4 +19,24 @@ public class FullQueueHandlerTest {
         assertNull(FullQueueHandler.blockAlwaysHandler().tryGetFullQueueException(cancelToken));
         verifyNoInteractions(cancelToken);
     }
+
+    @Test
+    public void testBlockAlwaysHandlerHasNoTimeout() {
+        assertEquals(Long.MAX_VALUE, FullQueueHandler.blockAlwaysHandler().getMaxBlockNanos());
+    }
+
+    @Test
+    public void testBlockWithTimeoutHandler() {
+        CancellationToken cancelToken = mock(CancellationToken.class);
+        FullQueueHandler handler = FullQueueHandler.blockWithTimeoutHandler(TimeDuration.millis(20));
+
+        assertNull(handler.tryGetFullQueueException(cancelToken));
+        assertEquals(TimeDuration.millis(20).toNanos(), handler.getMaxBlockNanos());
+        verifyNoInteractions(cancelToken);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlockWithNegativeTimeout() {
+        FullQueueHandler.blockWithTimeoutHandler(TimeDuration.millis(-1));
+    }
 }
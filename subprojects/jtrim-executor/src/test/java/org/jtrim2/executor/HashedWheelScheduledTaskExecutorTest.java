@@ -0,0 +1,228 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.utils.TimeDuration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelScheduledTaskExecutorTest {
+    private static ScheduledTaskExecutor create(int wheelSize) {
+        return new HashedWheelScheduledTaskExecutor(
+                SyncTaskExecutor.getSimpleExecutor(),
+                new ExecutorsEx.NamedThreadFactory(true, "HashedWheelScheduledTaskExecutorTest"),
+                TimeDuration.millis(1),
+                wheelSize);
+    }
+
+    private static <V> V waitResult(CompletionStage<V> stage) throws Exception {
+        try {
+            return stage.toCompletableFuture().get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw ex;
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testScheduleFunctionDelay() throws Exception {
+        ScheduledTaskExecutor executor = create(8);
+
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(50);
+        long startNanos = System.nanoTime();
+        CompletionStage<String> result = executor.scheduleFunction(
+                Cancellation.UNCANCELABLE_TOKEN,
+                TimeDuration.nanos(delayNanos),
+                cancelToken -> "Test-Result");
+
+        assertEquals("Test-Result", waitResult(result));
+        assertTrue("elapsed", System.nanoTime() - startNanos >= delayNanos);
+    }
+
+    @Test(timeout = 20000)
+    public void testScheduleMultipleRounds() throws Exception {
+        // The delays are longer than a full rotation of the wheel.
+        ScheduledTaskExecutor executor = create(2);
+
+        int taskCount = 20;
+        List<CompletionStage<Integer>> results = new ArrayList<>();
+        List<Long> completeNanos = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            completeNanos.add(0L);
+        }
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < taskCount; i++) {
+            int taskIndex = i;
+            results.add(executor.scheduleFunction(
+                    Cancellation.UNCANCELABLE_TOKEN,
+                    TimeDuration.millis(i * 3),
+                    cancelToken -> {
+                        synchronized (completeNanos) {
+                            completeNanos.set(taskIndex, System.nanoTime());
+                        }
+                        return taskIndex;
+                    }));
+        }
+
+        for (int i = 0; i < taskCount; i++) {
+            assertEquals(i, waitResult(results.get(i)).intValue());
+        }
+
+        synchronized (completeNanos) {
+            for (int i = 0; i < taskCount; i++) {
+                long elapsed = completeNanos.get(i) - startNanos;
+                assertTrue("elapsed[" + i + "]", elapsed >= TimeUnit.MILLISECONDS.toNanos(i * 3));
+            }
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testCancelBeforeExpire() throws Exception {
+        ScheduledTaskExecutor executor = create(8);
+
+        AtomicInteger runCount = new AtomicInteger(0);
+        CancellationSource cancel = Cancellation.createCancellationSource();
+        CompletionStage<Void> canceledResult = executor.schedule(
+                cancel.getToken(),
+                TimeDuration.millis(50),
+                cancelToken -> runCount.incrementAndGet());
+
+        CompletionStage<Void> laterResult = executor.schedule(
+                Cancellation.UNCANCELABLE_TOKEN,
+                TimeDuration.millis(100),
+                cancelToken -> { });
+
+        cancel.getController().cancel();
+
+        try {
+            waitResult(canceledResult);
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+            // Expected
+        }
+
+        waitResult(laterResult);
+        assertEquals(0, runCount.get());
+    }
+
+    @Test(timeout = 20000)
+    public void testPreCanceled() throws Exception {
+        ScheduledTaskExecutor executor = create(8);
+
+        CompletionStage<Void> result = executor.schedule(
+                Cancellation.CANCELED_TOKEN,
+                TimeDuration.millis(10),
+                cancelToken -> fail("Must not be executed."));
+
+        try {
+            waitResult(result);
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+            // Expected
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testTaskFailure() throws Exception {
+        ScheduledTaskExecutor executor = create(8);
+
+        TestException error = new TestException();
+        CompletionStage<Void> result = executor.schedule(
+                Cancellation.UNCANCELABLE_TOKEN,
+                TimeDuration.millis(5),
+                cancelToken -> {
+                    throw error;
+                });
+
+        try {
+            waitResult(result);
+            fail("Expected TestException");
+        } catch (TestException ex) {
+            assertSame(error, ex);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testRestartAfterIdle() throws Exception {
+        ScheduledTaskExecutor executor = create(8);
+
+        waitResult(executor.scheduleFunction(
+                Cancellation.UNCANCELABLE_TOKEN,
+                TimeDuration.millis(1),
+                cancelToken -> 1));
+        // Let the timer thread stop.
+        Thread.sleep(1500);
+        assertEquals(2, waitResult(executor.scheduleFunction(
+                Cancellation.UNCANCELABLE_TOKEN,
+                TimeDuration.millis(1),
+                cancelToken -> 2)).intValue());
+    }
+
+    @Test(timeout = 20000)
+    public void testScheduleWithFixedDelay() throws Exception {
+        ScheduledTaskExecutor executor = create(8);
+
+        int expectedRunCount = 5;
+        CountDownLatch runLatch = new CountDownLatch(expectedRunCount);
+        AtomicInteger runCount = new AtomicInteger(0);
+
+        CancellationSource cancel = Cancellation.createCancellationSource();
+        CompletionStage<Void> result = executor.scheduleWithFixedDelay(
+                cancel.getToken(),
+                TimeDuration.millis(1),
+                TimeDuration.millis(2),
+                cancelToken -> {
+                    runCount.incrementAndGet();
+                    runLatch.countDown();
+                });
+
+        runLatch.await();
+        cancel.getController().cancel();
+
+        try {
+            waitResult(result);
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+            // Expected
+        }
+
+        int runCountAfterCancel = runCount.get();
+        Thread.sleep(20);
+        assertEquals(runCountAfterCancel, runCount.get());
+    }
+
+    @Test(timeout = 20000)
+    public void testExecuteWithoutDelay() throws Exception {
+        ScheduledTaskExecutor executor = create(8);
+
+        CompletableFuture<String> result = executor
+                .executeFunction(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> "Test-Result")
+                .toCompletableFuture();
+        // The wrapped executor is synchronous.
+        assertTrue(result.isDone());
+        assertEquals("Test-Result", result.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalWheelSize() {
+        create(0);
+    }
+
+    private static final class TestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
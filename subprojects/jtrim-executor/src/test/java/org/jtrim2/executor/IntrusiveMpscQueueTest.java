@@ -0,0 +1,157 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jtrim2.concurrent.Tasks;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntrusiveMpscQueueTest {
+    @Test
+    public void testEmpty() {
+        IntrusiveMpscQueue<TestNode> queue = new IntrusiveMpscQueue<>();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testFifoOrder() {
+        IntrusiveMpscQueue<TestNode> queue = new IntrusiveMpscQueue<>();
+        TestNode node1 = new TestNode(0, 1);
+        TestNode node2 = new TestNode(0, 2);
+        TestNode node3 = new TestNode(0, 3);
+
+        queue.offer(node1);
+        queue.offer(node2);
+        assertFalse(queue.isEmpty());
+        assertSame(node1, queue.poll());
+
+        queue.offer(node3);
+        assertSame(node2, queue.poll());
+        assertSame(node3, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testReuseAfterEmpty() {
+        IntrusiveMpscQueue<TestNode> queue = new IntrusiveMpscQueue<>();
+        for (int i = 0; i < 10; i++) {
+            TestNode node = new TestNode(0, i);
+            queue.offer(node);
+            assertSame(node, queue.poll());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void testRemoveIf() {
+        IntrusiveMpscQueue<TestNode> queue = new IntrusiveMpscQueue<>();
+        List<TestNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            TestNode node = new TestNode(0, i);
+            nodes.add(node);
+            queue.offer(node);
+        }
+
+        assertEquals(3, queue.removeIf(node -> node.index % 2 == 0));
+
+        assertSame(nodes.get(1), queue.poll());
+        assertSame(nodes.get(3), queue.poll());
+        assertSame(nodes.get(5), queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRemoveIfKeepsLast() {
+        IntrusiveMpscQueue<TestNode> queue = new IntrusiveMpscQueue<>();
+        TestNode node1 = new TestNode(0, 1);
+        TestNode node2 = new TestNode(0, 2);
+        queue.offer(node1);
+        queue.offer(node2);
+
+        assertEquals(1, queue.removeIf(node -> true));
+
+        TestNode node3 = new TestNode(0, 3);
+        queue.offer(node3);
+        assertSame(node2, queue.poll());
+        assertSame(node3, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRemoveIfAfterPoll() {
+        IntrusiveMpscQueue<TestNode> queue = new IntrusiveMpscQueue<>();
+        TestNode node1 = new TestNode(0, 1);
+        queue.offer(node1);
+        assertSame(node1, queue.poll());
+
+        // The stub is now linked into the queue again.
+        TestNode node2 = new TestNode(0, 2);
+        TestNode node3 = new TestNode(0, 3);
+        TestNode node4 = new TestNode(0, 4);
+        queue.offer(node2);
+        queue.offer(node3);
+        queue.offer(node4);
+
+        assertEquals(1, queue.removeIf(node -> node.index == 3));
+        assertSame(node2, queue.poll());
+        assertSame(node4, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentProducers() {
+        int producerCount = 4;
+        int nodeCount = 10000;
+
+        for (int testIndex = 0; testIndex < 20; testIndex++) {
+            IntrusiveMpscQueue<TestNode> queue = new IntrusiveMpscQueue<>();
+
+            List<Runnable> producers = new ArrayList<>();
+            for (int i = 0; i < producerCount; i++) {
+                int producerIndex = i;
+                producers.add(() -> {
+                    for (int j = 0; j < nodeCount; j++) {
+                        queue.offer(new TestNode(producerIndex, j));
+                    }
+                });
+            }
+
+            int[] nextIndexes = new int[producerCount];
+            int[] receivedCount = new int[1];
+            producers.add(() -> {
+                while (receivedCount[0] < producerCount * nodeCount) {
+                    TestNode node = queue.poll();
+                    if (node != null) {
+                        assertEquals(nextIndexes[node.producerIndex], node.index);
+                        nextIndexes[node.producerIndex]++;
+                        receivedCount[0]++;
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            });
+            Tasks.runConcurrently(producers);
+
+            assertNull(queue.poll());
+            for (int nextIndex: nextIndexes) {
+                assertEquals(nodeCount, nextIndex);
+            }
+        }
+    }
+
+    private static final class TestNode extends IntrusiveMpscQueue.Node {
+        private final int producerIndex;
+        private final int index;
+
+        public TestNode(int producerIndex, int index) {
+            this.producerIndex = producerIndex;
+            this.index = index;
+        }
+    }
+}
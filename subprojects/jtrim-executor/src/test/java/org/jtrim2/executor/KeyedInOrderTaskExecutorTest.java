@@ -0,0 +1,201 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.concurrent.WaitableSignal;
+import org.jtrim2.testutils.executor.AbstractExecutorTests;
+import org.jtrim2.testutils.executor.GenericExecutorTests;
+import org.jtrim2.testutils.executor.TestExecutorFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeyedInOrderTaskExecutorTest {
+    public static class GenericSyncTest extends GenericExecutorTests<TaskExecutor> {
+        public GenericSyncTest() {
+            super(unstoppableAll(Arrays.asList(
+                    () -> new KeyedInOrderTaskExecutor<>(SyncTaskExecutor.getSimpleExecutor()).getExecutor("key")
+            )));
+        }
+    }
+
+    public static class GenericAsyncTest extends GenericExecutorTests<TaskExecutor> {
+        public GenericAsyncTest() {
+            super(asyncFactories());
+        }
+    }
+
+    private static Collection<TestExecutorFactory<TaskExecutor>> asyncFactories() {
+        return Arrays.asList(
+                AbstractExecutorTests.wrappedExecutor(
+                        () -> new ThreadPoolTaskExecutor("KeyedInOrder-Async", 4),
+                        executor -> new KeyedInOrderTaskExecutor<>(executor).getExecutor("key"))
+        );
+    }
+
+    private static void waitForActiveKeys(KeyedTaskExecutor<?> executor, long expected) throws InterruptedException {
+        long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executor.getNumberOfActiveKeys() != expected && System.nanoTime() - endTime < 0) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, executor.getNumberOfActiveKeys());
+    }
+
+    @Test(timeout = 20000)
+    public void testTasksOfSameKeyAreOrdered() throws Exception {
+        int keyCount = 8;
+        int taskCount = 1000;
+
+        ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor("testTasksOfSameKeyAreOrdered", 4);
+        try {
+            KeyedTaskExecutor<Integer> executor = TaskExecutors.keyedInOrderExecutor(threadPool);
+
+            List<List<Integer>> executed = new ArrayList<>();
+            AtomicInteger[] concurrentCounts = new AtomicInteger[keyCount];
+            List<CompletionStage<Void>> futures = new ArrayList<>();
+            for (int key = 0; key < keyCount; key++) {
+                executed.add(Collections.synchronizedList(new ArrayList<>()));
+                concurrentCounts[key] = new AtomicInteger(0);
+            }
+
+            for (int i = 0; i < taskCount; i++) {
+                for (int key = 0; key < keyCount; key++) {
+                    int taskIndex = i;
+                    List<Integer> keyExecuted = executed.get(key);
+                    AtomicInteger keyConcurrentCount = concurrentCounts[key];
+                    futures.add(executor.getExecutor(key).execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> {
+                        assertEquals(1, keyConcurrentCount.incrementAndGet());
+                        keyExecuted.add(taskIndex);
+                        keyConcurrentCount.decrementAndGet();
+                    }));
+                }
+            }
+
+            for (CompletionStage<Void> future : futures) {
+                future.toCompletableFuture().get();
+            }
+
+            for (List<Integer> keyExecuted : executed) {
+                assertEquals(taskCount, keyExecuted.size());
+                for (int i = 0; i < taskCount; i++) {
+                    assertEquals(i, keyExecuted.get(i).intValue());
+                }
+            }
+            waitForActiveKeys(executor, 0);
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testDifferentKeysRunConcurrently() throws Exception {
+        ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor("testDifferentKeysRunConcurrently", 2);
+        try {
+            KeyedTaskExecutor<String> executor = TaskExecutors.keyedInOrderExecutor(threadPool);
+
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            TaskExecutor executor1 = executor.getExecutor("key1");
+            TaskExecutor executor2 = executor.getExecutor("key2");
+
+            CompletionStage<Void> future1 = executor1.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> {
+                bothStarted.countDown();
+                bothStarted.await();
+            });
+            CompletionStage<Void> future2 = executor2.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> {
+                bothStarted.countDown();
+                bothStarted.await();
+            });
+
+            future1.toCompletableFuture().get();
+            future2.toCompletableFuture().get();
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testQueueIsReclaimed() throws Exception {
+        ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor("testQueueIsReclaimed", 1);
+        try {
+            KeyedTaskExecutor<String> executor = TaskExecutors.keyedInOrderExecutor(threadPool);
+
+            WaitableSignal release = new WaitableSignal();
+            TaskExecutor keyExecutor = executor.getExecutor("key");
+            CompletionStage<Void> future = keyExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, release::waitSignal);
+            keyExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, CancelableTasks.noOpCancelableTask());
+
+            assertEquals(1, executor.getNumberOfActiveKeys());
+
+            release.signal();
+            future.toCompletableFuture().get();
+
+            waitForActiveKeys(executor, 0);
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testTasksAreCanceledIfExecutorDoesNotExecute() throws Exception {
+        ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor("testTasksAreCanceled", 1);
+        threadPool.shutdown();
+
+        KeyedTaskExecutor<String> executor = TaskExecutors.keyedInOrderExecutor(threadPool);
+        AtomicInteger executed = new AtomicInteger(0);
+        CompletionStage<Void> future = executor.getExecutor("key")
+                .execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> executed.incrementAndGet());
+
+        try {
+            future.toCompletableFuture().get();
+            fail("Expected cancellation.");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof OperationCanceledException);
+        }
+        assertEquals(0, executed.get());
+        assertEquals(0, executor.getNumberOfActiveKeys());
+    }
+
+    @Test(timeout = 20000)
+    public void testSubmitFailureCompletesQueuedTasks() {
+        TestException error = new TestException();
+        KeyedTaskExecutor<String> executor = TaskExecutors.keyedInOrderExecutor(new AbstractTaskExecutor() {
+            @Override
+            protected void submitTask(CancellationToken cancelToken, SubmittedTask<?> submittedTask) {
+                throw error;
+            }
+        });
+
+        try {
+            executor.getExecutor("key").execute(Cancellation.UNCANCELABLE_TOKEN, CancelableTasks.noOpCancelableTask());
+            fail("Expected TestException.");
+        } catch (TestException ex) {
+            assertSame(error, ex);
+        }
+        assertEquals(0, executor.getNumberOfActiveKeys());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testIllegalKey() {
+        TaskExecutors.keyedInOrderExecutor(SyncTaskExecutor.getSimpleExecutor()).getExecutor(null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testIllegalExecutor() {
+        TaskExecutors.keyedInOrderExecutor(null);
+    }
+
+    private static class TestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,118 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jtrim2.utils.TimeDuration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeyedThrottledUpdateTaskExecutorTest {
+    private static final TimeDuration LONG_INTERVAL = TimeDuration.hours(1);
+
+    @Test
+    public void testKeysHaveSeparateSlots() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        KeyedThrottledUpdateTaskExecutor<String> executor
+                = new KeyedThrottledUpdateTaskExecutor<>(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        executor.execute("a", () -> executed.add("a1"));
+        executor.execute("b", () -> executed.add("b1"));
+        executor.execute("a", () -> executed.add("a2"));
+        executor.getExecutor("b").execute(() -> executed.add("b2"));
+
+        assertEquals(2, executor.getNumberOfActiveKeys());
+        assertEquals(2, wrapped.getScheduledCount());
+
+        wrapped.runScheduled();
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("a2", "b2"), executed);
+    }
+
+    @Test
+    public void testSlotsAreReclaimed() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        KeyedThrottledUpdateTaskExecutor<String> executor
+                = new KeyedThrottledUpdateTaskExecutor<>(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        executor.execute("a", () -> executed.add("a1"));
+        wrapped.runScheduled();
+        assertEquals(1, executor.getNumberOfActiveKeys());
+
+        // The end of the interval without new tasks
+        wrapped.runScheduled();
+        assertEquals(0, executor.getNumberOfActiveKeys());
+        assertEquals(0, wrapped.getScheduledCount());
+
+        executor.execute("a", () -> executed.add("a2"));
+        assertEquals(1, executor.getNumberOfActiveKeys());
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("a1", "a2"), executed);
+    }
+
+    @Test
+    public void testCoalescesWithinInterval() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        KeyedThrottledUpdateTaskExecutor<String> executor
+                = new KeyedThrottledUpdateTaskExecutor<>(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        executor.execute("a", () -> executed.add("a1"));
+        wrapped.runScheduled();
+
+        executor.execute("a", () -> executed.add("a2"));
+        executor.execute("a", () -> executed.add("a3"));
+        assertEquals(1, wrapped.getScheduledCount());
+
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("a1", "a3"), executed);
+        assertEquals(1, executor.getNumberOfActiveKeys());
+    }
+
+    @Test
+    public void testRejectedByExecutor() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        KeyedThrottledUpdateTaskExecutor<String> executor
+                = new KeyedThrottledUpdateTaskExecutor<>(wrapped, LONG_INTERVAL, UpdateThrottleMode.DEBOUNCE);
+
+        wrapped.setRejectTasks(true);
+        executor.execute("a", () -> { });
+        assertEquals(0, executor.getNumberOfActiveKeys());
+    }
+
+    @Test
+    public void testScheduleFailure() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        KeyedThrottledUpdateTaskExecutor<String> executor
+                = new KeyedThrottledUpdateTaskExecutor<>(wrapped, LONG_INTERVAL, UpdateThrottleMode.DEBOUNCE);
+
+        RuntimeException scheduleFailure = new RuntimeException("Test failure");
+        wrapped.setScheduleFailure(scheduleFailure);
+        try {
+            executor.execute("a", () -> { });
+            fail("Expected schedule failure.");
+        } catch (RuntimeException ex) {
+            assertSame(scheduleFailure, ex);
+        }
+        assertEquals(0, executor.getNumberOfActiveKeys());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testIllegalKey() {
+        new KeyedThrottledUpdateTaskExecutor<String>(
+                new ManualScheduledTaskExecutor(),
+                LONG_INTERVAL,
+                UpdateThrottleMode.THROTTLE).execute(null, () -> { });
+    }
+
+    @Test
+    public void testToString() {
+        assertNotNull(new KeyedThrottledUpdateTaskExecutor<String>(
+                new ManualScheduledTaskExecutor(),
+                LONG_INTERVAL,
+                UpdateThrottleMode.THROTTLE).toString());
+    }
+}
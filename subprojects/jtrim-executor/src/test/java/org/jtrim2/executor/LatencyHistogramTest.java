@@ -0,0 +1,78 @@
+package org.jtrim2.executor;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    private static void assertWithinError(long expected, long actual) {
+        double relativeError = Math.abs(expected - actual) / (double) expected;
+        assertTrue("Expected " + expected + " but was " + actual, relativeError <= 1.0 / 32.0);
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789L, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucketIndex = LatencyHistogram.getBucketIndex(value);
+            long highestValue = LatencyHistogram.getHighestValueOfBucket(bucketIndex);
+            assertTrue("highestValue(" + value + ")", highestValue >= value);
+            assertEquals("bucketIndex(" + value + ")", bucketIndex, LatencyHistogram.getBucketIndex(highestValue));
+            if (highestValue < Long.MAX_VALUE) {
+                assertEquals("next(" + value + ")", bucketIndex + 1, LatencyHistogram.getBucketIndex(highestValue + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotal(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getValueAtPercentile(99.0, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getTotal(TimeUnit.MICROSECONDS));
+        assertEquals(1000, histogram.getMax(TimeUnit.MICROSECONDS));
+
+        assertWithinError(1, histogram.getValueAtPercentile(0.0, TimeUnit.MICROSECONDS));
+        assertWithinError(500, histogram.getValueAtPercentile(50.0, TimeUnit.MICROSECONDS));
+        assertWithinError(990, histogram.getValueAtPercentile(99.0, TimeUnit.MICROSECONDS));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getValueAtPercentile(100.0, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testNegativeRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getValueAtPercentile(100.0, TimeUnit.NANOSECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPercentile1() {
+        new LatencyHistogram().getValueAtPercentile(-1.0, TimeUnit.NANOSECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPercentile2() {
+        new LatencyHistogram().getValueAtPercentile(100.5, TimeUnit.NANOSECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPercentileNaN() {
+        new LatencyHistogram().getValueAtPercentile(Double.NaN, TimeUnit.NANOSECONDS);
+    }
+}
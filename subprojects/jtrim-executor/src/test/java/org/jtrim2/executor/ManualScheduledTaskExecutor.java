@@ -0,0 +1,100 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * A {@code ScheduledTaskExecutor} which only records the scheduled tasks along with their
+ * delay, and executes them when the test explicitly asks for it.
+ */
+final class ManualScheduledTaskExecutor implements ScheduledTaskExecutor {
+    private final List<Long> delays;
+    // false for the tasks submitted without scheduling
+    private final List<Boolean> scheduledFlags;
+    private final List<Runnable> tasks;
+    private boolean rejectTasks;
+    private RuntimeException scheduleFailure;
+
+    public ManualScheduledTaskExecutor() {
+        this.delays = new ArrayList<>();
+        this.scheduledFlags = new ArrayList<>();
+        this.tasks = new ArrayList<>();
+        this.rejectTasks = false;
+        this.scheduleFailure = null;
+    }
+
+    public void setRejectTasks(boolean rejectTasks) {
+        this.rejectTasks = rejectTasks;
+    }
+
+    public void setScheduleFailure(RuntimeException scheduleFailure) {
+        this.scheduleFailure = scheduleFailure;
+    }
+
+    @Override
+    public <V> CompletionStage<V> scheduleFunction(
+            CancellationToken cancelToken,
+            TimeDuration delay,
+            CancelableFunction<? extends V> function) {
+
+        return addTask(cancelToken, delay, true, function);
+    }
+
+    @Override
+    public <V> CompletionStage<V> executeFunction(
+            CancellationToken cancelToken,
+            CancelableFunction<? extends V> function) {
+        return addTask(cancelToken, TimeDuration.nanos(0), false, function);
+    }
+
+    private <V> CompletionStage<V> addTask(
+            CancellationToken cancelToken,
+            TimeDuration delay,
+            boolean scheduled,
+            CancelableFunction<? extends V> function) {
+
+        if (scheduleFailure != null) {
+            throw scheduleFailure;
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (rejectTasks) {
+            future.completeExceptionally(OperationCanceledException.withoutStackTrace());
+            return future;
+        }
+
+        delays.add(delay.toNanos());
+        scheduledFlags.add(scheduled);
+        tasks.add(() -> {
+            try {
+                future.complete(function.execute(cancelToken));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    public int getScheduledCount() {
+        return tasks.size();
+    }
+
+    public long getDelayNanos(int index) {
+        return delays.get(index);
+    }
+
+    public boolean isScheduled(int index) {
+        return scheduledFlags.get(index);
+    }
+
+    public void runScheduled() {
+        delays.remove(0);
+        scheduledFlags.remove(0);
+        tasks.remove(0).run();
+    }
+}
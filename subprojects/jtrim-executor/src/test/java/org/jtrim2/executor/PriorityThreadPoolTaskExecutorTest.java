@@ -0,0 +1,265 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.concurrent.WaitableSignal;
+import org.jtrim2.testutils.executor.ContextAwareExecutorTests;
+import org.jtrim2.testutils.executor.GenericExecutorServiceTests;
+import org.jtrim2.testutils.executor.TestExecutorFactory;
+import org.jtrim2.utils.TimeDuration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PriorityThreadPoolTaskExecutorTest extends CommonThreadPoolTest<PriorityThreadPoolTaskExecutor> {
+    public static class GenericTest extends BackgroundExecutorTests {
+        public GenericTest() {
+            super(testFactories());
+        }
+    }
+
+    public static class ContextAwareTest extends ContextAwareExecutorTests<ContextAwareTaskExecutor> {
+        public ContextAwareTest() {
+            super(testFactories());
+        }
+    }
+
+    public PriorityThreadPoolTaskExecutorTest() {
+        super(properties -> {
+            PriorityThreadPoolTaskExecutor result = new PriorityThreadPoolTaskExecutor(
+                    properties.getPoolName(),
+                    properties.getMaxThreadCount(),
+                    properties.getMaxQueueSize(),
+                    TimeDuration.seconds(5),
+                    TimeDuration.millis(10),
+                    properties.getThreadFactory()
+            );
+
+            result.setFullQueueHandler(properties.getFullQueueHandler());
+            if (!properties.isNeedShutdown()) {
+                result.dontNeedShutdown();
+            }
+            return result;
+        });
+    }
+
+    private static int getThreadCount() {
+        return BackgroundExecutorTests.getThreadCount();
+    }
+
+    private static Collection<TestExecutorFactory<PriorityThreadPoolTaskExecutor>> testFactories() {
+        return GenericExecutorServiceTests.executorServices(Arrays.asList(
+                PriorityThreadPoolTaskExecutorTest::create1,
+                PriorityThreadPoolTaskExecutorTest::create2,
+                PriorityThreadPoolTaskExecutorTest::create3,
+                PriorityThreadPoolTaskExecutorTest::create4
+        ));
+    }
+
+    private static PriorityThreadPoolTaskExecutor create(
+            String poolName,
+            int maxThreadCount,
+            int maxQueueSize,
+            TimeDuration idleTimeout,
+            TimeDuration priorityAging) {
+
+        return new PriorityThreadPoolTaskExecutor(
+                poolName,
+                maxThreadCount,
+                maxQueueSize,
+                idleTimeout,
+                priorityAging,
+                new ExecutorsEx.NamedThreadFactory(false, poolName)
+        );
+    }
+
+    private static PriorityThreadPoolTaskExecutor create1() {
+        return create("PriorityThreadPoolTaskExecutor-Single", 1, Integer.MAX_VALUE,
+                TimeDuration.seconds(5), TimeDuration.millis(10));
+    }
+
+    private static PriorityThreadPoolTaskExecutor create2() {
+        return create("PriorityThreadPoolTaskExecutor-Multi", getThreadCount(), Integer.MAX_VALUE,
+                TimeDuration.seconds(5), TimeDuration.millis(10));
+    }
+
+    private static PriorityThreadPoolTaskExecutor create3() {
+        return create(
+                "PriorityThreadPoolTaskExecutor-Multi-Zero-Timeout",
+                getThreadCount(),
+                Integer.MAX_VALUE,
+                TimeDuration.nanos(0),
+                TimeDuration.millis(10)
+        );
+    }
+
+    private static PriorityThreadPoolTaskExecutor create4() {
+        return create(
+                "PriorityThreadPoolTaskExecutor-Multi-Short-Buffer",
+                getThreadCount(),
+                1,
+                TimeDuration.seconds(5),
+                TimeDuration.millis(10)
+        );
+    }
+
+    private static PriorityThreadPoolTaskExecutor createSingleThreaded(String poolName, TimeDuration priorityAging) {
+        return create(poolName, 1, Integer.MAX_VALUE, TimeDuration.seconds(5), priorityAging);
+    }
+
+    private static WaitableSignal blockExecutor(TaskExecutor executor) {
+        WaitableSignal startedSignal = new WaitableSignal();
+        WaitableSignal unblockSignal = new WaitableSignal();
+        executor.execute(() -> {
+            startedSignal.signal();
+            unblockSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+        });
+        startedSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+        return unblockSignal;
+    }
+
+    private static CompletionStage<Void> submitRecorded(TaskExecutor executor, List<String> order, String name) {
+        return executor.executeStaged(() -> {
+            synchronized (order) {
+                order.add(name);
+            }
+        });
+    }
+
+    private static void waitAll(List<CompletionStage<Void>> futures) throws Exception {
+        for (CompletionStage<Void> future : futures) {
+            future.toCompletableFuture().get();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testQueuedTasks() throws Exception {
+        testQueuedTasks(null);
+    }
+
+    @Test(timeout = 10000)
+    public void testHigherPriorityFirst() throws Exception {
+        PriorityThreadPoolTaskExecutor executor = createSingleThreaded("testHigherPriorityFirst-pool",
+                TimeDuration.seconds(3600));
+        List<String> order = new ArrayList<>();
+        try {
+            WaitableSignal unblockSignal = blockExecutor(executor);
+
+            List<CompletionStage<Void>> futures = new ArrayList<>();
+            futures.add(submitRecorded(executor.withPriority(-1), order, "low"));
+            futures.add(submitRecorded(executor, order, "default1"));
+            futures.add(submitRecorded(executor.withPriority(5), order, "high"));
+            futures.add(submitRecorded(executor, order, "default2"));
+
+            unblockSignal.signal();
+            waitAll(futures);
+        } finally {
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+
+        synchronized (order) {
+            assertEquals(Arrays.asList("high", "default1", "default2", "low"), order);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testAgingPreventsStarvation() throws Exception {
+        PriorityThreadPoolTaskExecutor executor = createSingleThreaded("testAgingPreventsStarvation-pool",
+                TimeDuration.millis(1));
+        List<String> order = new ArrayList<>();
+        try {
+            WaitableSignal unblockSignal = blockExecutor(executor);
+
+            List<CompletionStage<Void>> futures = new ArrayList<>();
+            futures.add(submitRecorded(executor.withPriority(-1), order, "old-low"));
+            Thread.sleep(50);
+            futures.add(submitRecorded(executor.withPriority(5), order, "new-high"));
+
+            unblockSignal.signal();
+            waitAll(futures);
+        } finally {
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+
+        synchronized (order) {
+            assertEquals(Arrays.asList("old-low", "new-high"), order);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testDeadline() throws Exception {
+        PriorityThreadPoolTaskExecutor executor = createSingleThreaded("testDeadline-pool",
+                TimeDuration.seconds(3600));
+        List<String> order = new ArrayList<>();
+        try {
+            WaitableSignal unblockSignal = blockExecutor(executor);
+
+            List<CompletionStage<Void>> futures = new ArrayList<>();
+            futures.add(submitRecorded(executor.withPriority(-10), order, "low"));
+            futures.add(submitRecorded(executor.withPriority(-10, TimeDuration.millis(1)), order, "low-deadline"));
+            Thread.sleep(50);
+            futures.add(submitRecorded(executor, order, "default"));
+
+            unblockSignal.signal();
+            waitAll(futures);
+        } finally {
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+
+        synchronized (order) {
+            assertEquals(Arrays.asList("low-deadline", "default", "low"), order);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelQueuedTasks() throws Exception {
+        PriorityThreadPoolTaskExecutor executor = createSingleThreaded("testCancelQueuedTasks-pool",
+                TimeDuration.millis(10));
+        List<String> order = new ArrayList<>();
+        try {
+            WaitableSignal unblockSignal = blockExecutor(executor);
+
+            // Enough tasks to notice if the canceled tasks were left in the queue.
+            int canceledTaskCount = 100;
+            CancellationSource cancelSource = Cancellation.createCancellationSource();
+            List<CompletionStage<Void>> canceledFutures = new ArrayList<>();
+            for (int i = 0; i < canceledTaskCount; i++) {
+                TaskExecutor priorityExecutor = executor.withPriority(i % 3);
+                canceledFutures.add(priorityExecutor.execute(cancelSource.getToken(), cancelToken -> {
+                    synchronized (order) {
+                        order.add("canceled");
+                    }
+                }));
+            }
+            CompletionStage<Void> future = submitRecorded(executor, order, "kept");
+
+            assertEquals("queued", canceledTaskCount + 1, executor.getNumberOfQueuedTasks());
+            cancelSource.getController().cancel();
+            assertEquals("queued after cancel", 1, executor.getNumberOfQueuedTasks());
+
+            for (CompletionStage<Void> canceledFuture : canceledFutures) {
+                assertTrue("canceled", canceledFuture.toCompletableFuture().isCancelled()
+                        || canceledFuture.toCompletableFuture().isCompletedExceptionally());
+            }
+
+            unblockSignal.signal();
+            future.toCompletableFuture().get();
+        } finally {
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+
+        synchronized (order) {
+            assertEquals(Arrays.asList("kept"), order);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPriorityAging() {
+        createSingleThreaded("testIllegalPriorityAging-pool", TimeDuration.nanos(0));
+    }
+}
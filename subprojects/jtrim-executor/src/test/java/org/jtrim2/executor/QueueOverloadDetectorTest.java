@@ -0,0 +1,70 @@
+package org.jtrim2.executor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QueueOverloadDetectorTest {
+    private static final long TARGET_DELAY = 10;
+    private static final long INTERVAL = 100;
+
+    private static QueueOverloadDetector create() {
+        return new QueueOverloadDetector(TARGET_DELAY, INTERVAL, 0);
+    }
+
+    @Test
+    public void testNotOverloadedInitially() {
+        QueueOverloadDetector detector = create();
+        assertFalse(detector.isOverloaded());
+        assertFalse(detector.shouldDrop(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testNotOverloadedBeforeIntervalElapses() {
+        QueueOverloadDetector detector = create();
+        assertFalse(detector.recordOldestDelay(50, 1000));
+        assertFalse(detector.recordOldestDelay(99, 1000));
+    }
+
+    @Test
+    public void testStandingQueueIsOverload() {
+        QueueOverloadDetector detector = create();
+        assertFalse(detector.recordOldestDelay(50, 2 * TARGET_DELAY));
+        assertTrue(detector.recordOldestDelay(100, 3 * TARGET_DELAY));
+        assertTrue(detector.isOverloaded());
+
+        assertFalse(detector.shouldDrop(2 * TARGET_DELAY));
+        assertTrue(detector.shouldDrop(2 * TARGET_DELAY + 1));
+    }
+
+    @Test
+    public void testBurstIsNotOverload() {
+        QueueOverloadDetector detector = create();
+        assertFalse(detector.recordOldestDelay(10, 1000));
+        // The queue was emptied once within the interval.
+        assertFalse(detector.recordOldestDelay(20, 0));
+        assertFalse(detector.recordOldestDelay(100, 1000));
+        assertFalse(detector.isOverloaded());
+    }
+
+    @Test
+    public void testOverloadEnds() {
+        QueueOverloadDetector detector = create();
+        assertTrue(detector.recordOldestDelay(100, 1000));
+
+        // Remains overloaded until the end of the next interval.
+        assertTrue(detector.recordOldestDelay(150, TARGET_DELAY));
+        assertFalse(detector.recordOldestDelay(200, 1000));
+        assertFalse(detector.shouldDrop(1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalInterval() {
+        new QueueOverloadDetector(TARGET_DELAY, 0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalTargetDelay() {
+        new QueueOverloadDetector(-1, INTERVAL, 0);
+    }
+}
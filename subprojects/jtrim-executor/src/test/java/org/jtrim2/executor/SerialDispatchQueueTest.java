@@ -0,0 +1,139 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim2.concurrent.Tasks;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SerialDispatchQueueTest {
+    @Test
+    public void testDispatchEmpty() {
+        SerialDispatchQueue<TestNode> queue = new SerialDispatchQueue<>();
+        List<TestNode> processed = new ArrayList<>();
+        queue.dispatch(processed::add);
+
+        assertTrue(processed.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testDispatchInOrder() {
+        SerialDispatchQueue<TestNode> queue = new SerialDispatchQueue<>();
+        TestNode node1 = new TestNode(0, 1);
+        TestNode node2 = new TestNode(0, 2);
+        TestNode node3 = new TestNode(0, 3);
+
+        queue.add(node1);
+        queue.add(node2);
+        queue.add(node3);
+        assertEquals(3, queue.size());
+
+        List<TestNode> processed = new ArrayList<>();
+        queue.dispatch(processed::add);
+
+        assertEquals(Arrays.asList(node1, node2, node3), processed);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testNestedDispatch() {
+        SerialDispatchQueue<TestNode> queue = new SerialDispatchQueue<>();
+        TestNode node1 = new TestNode(0, 1);
+        TestNode node2 = new TestNode(0, 2);
+
+        List<TestNode> processed = new ArrayList<>();
+        queue.add(node1);
+        queue.dispatch(node -> {
+            assertTrue(queue.isCurrentThreadDispatching());
+            assertTrue(queue.isDispatching());
+
+            if (node == node1) {
+                assertEquals(0, queue.size());
+                queue.add(node2);
+                assertEquals(1, queue.size());
+                queue.dispatch(processed::add);
+                assertTrue(processed.isEmpty());
+            }
+            processed.add(node);
+        });
+
+        assertEquals(Arrays.asList(node1, node2), processed);
+        assertFalse(queue.isDispatching());
+        assertFalse(queue.isCurrentThreadDispatching());
+    }
+
+    @Test
+    public void testFailureDoesNotStopDispatching() {
+        SerialDispatchQueue<TestNode> queue = new SerialDispatchQueue<>();
+        queue.add(new TestNode(0, 1));
+        queue.add(new TestNode(0, 2));
+        queue.add(new TestNode(0, 3));
+
+        List<Integer> processed = new ArrayList<>();
+        try {
+            queue.dispatch(node -> {
+                processed.add(node.index);
+                throw new TestException();
+            });
+            fail("Expected TestException.");
+        } catch (TestException ex) {
+            assertEquals(2, ex.getSuppressed().length);
+        }
+
+        assertEquals(Arrays.asList(1, 2, 3), processed);
+        assertEquals(0, queue.size());
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentDispatch() {
+        int producerCount = 4;
+        int nodeCount = 10000;
+
+        for (int testIndex = 0; testIndex < 20; testIndex++) {
+            SerialDispatchQueue<TestNode> queue = new SerialDispatchQueue<>();
+
+            int[] nextIndexes = new int[producerCount];
+            AtomicInteger activeCount = new AtomicInteger(0);
+            AtomicInteger processedCount = new AtomicInteger(0);
+
+            List<Runnable> producers = new ArrayList<>();
+            for (int i = 0; i < producerCount; i++) {
+                int producerIndex = i;
+                producers.add(() -> {
+                    for (int j = 0; j < nodeCount; j++) {
+                        queue.add(new TestNode(producerIndex, j));
+                        queue.dispatch(node -> {
+                            assertEquals(1, activeCount.incrementAndGet());
+                            assertEquals(nextIndexes[node.producerIndex], node.index);
+                            nextIndexes[node.producerIndex]++;
+                            processedCount.incrementAndGet();
+                            activeCount.decrementAndGet();
+                        });
+                    }
+                });
+            }
+            Tasks.runConcurrently(producers);
+
+            assertEquals(producerCount * nodeCount, processedCount.get());
+            assertEquals(0, queue.size());
+        }
+    }
+
+    private static final class TestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final class TestNode extends IntrusiveMpscQueue.Node {
+        private final int producerIndex;
+        private final int index;
+
+        public TestNode(int producerIndex, int index) {
+            this.producerIndex = producerIndex;
+            this.index = index;
+        }
+    }
+}
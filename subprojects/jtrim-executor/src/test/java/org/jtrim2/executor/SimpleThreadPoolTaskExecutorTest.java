@@ -30,6 +30,9 @@ public class SimpleThreadPoolTaskExecutorTest extends CommonThreadPoolTest<Simpl
             );
 
             result.setFullQueueHandler(properties.getFullQueueHandler());
+            if (properties.isMetricsEnabled()) {
+                result.enableMetrics();
+            }
             if (!properties.isNeedShutdown()) {
                 result.dontNeedShutdown();
             }
@@ -88,6 +91,16 @@ public class SimpleThreadPoolTaskExecutorTest extends CommonThreadPoolTest<Simpl
         testQueuedTasks(null);
     }
 
+    @Test(timeout = 10000)
+    public void testMetrics() throws Exception {
+        testMetrics(SimpleThreadPoolTaskExecutor::getMetrics);
+    }
+
+    @Test(timeout = 10000)
+    public void testTimeoutMetrics() throws Exception {
+        testTimeoutMetrics(SimpleThreadPoolTaskExecutor::getMetrics);
+    }
+
     @Test
     @Override
     public void testNotAutoFinalize() {
@@ -1,10 +1,17 @@
 package org.jtrim2.executor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.concurrent.Tasks;
+import org.jtrim2.concurrent.WaitableSignal;
 import org.jtrim2.testutils.executor.ContextAwareExecutorTests;
 import org.jtrim2.testutils.executor.GenericExecutorServiceTests;
 import org.jtrim2.testutils.executor.TestExecutorFactory;
@@ -26,6 +33,9 @@ public class SingleThreadedExecutorTest extends CommonThreadPoolTest<SingleThrea
             );
             executor.setThreadFactory(properties.getThreadFactory());
             executor.setFullQueueHandler(properties.getFullQueueHandler());
+            if (properties.isMetricsEnabled()) {
+                executor.enableMetrics();
+            }
             if (!properties.isNeedShutdown()) {
                 executor.dontNeedShutdown();
             }
@@ -112,6 +122,109 @@ public class SingleThreadedExecutorTest extends CommonThreadPoolTest<SingleThrea
         testQueuedTasks(SingleThreadedExecutor::setMaxQueueSize);
     }
 
+    @Test(timeout = 10000)
+    public void testMetrics() throws Exception {
+        testMetrics(SingleThreadedExecutor::getMetrics);
+    }
+
+    @Test(timeout = 10000)
+    public void testTimeoutMetrics() throws Exception {
+        testTimeoutMetrics(SingleThreadedExecutor::getMetrics);
+    }
+
+    @Test(timeout = 20000)
+    public void testConcurrentSubmitKeepsOrder() throws Exception {
+        int threadCount = 4;
+        int taskCount = 1000;
+
+        List<List<Integer>> executedTasks = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            executedTasks.add(new ArrayList<>());
+        }
+
+        SingleThreadedExecutor executor = new SingleThreadedExecutor("TEST-POOL", 16);
+        try {
+            List<Runnable> submitters = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                List<Integer> threadTasks = executedTasks.get(i);
+                submitters.add(() -> {
+                    for (int j = 0; j < taskCount; j++) {
+                        int taskIndex = j;
+                        executor.execute(() -> threadTasks.add(taskIndex));
+                    }
+                });
+            }
+            Tasks.runConcurrently(submitters);
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+
+        List<Integer> expected = IntStream.range(0, taskCount).boxed().collect(Collectors.toList());
+        for (List<Integer> threadTasks: executedTasks) {
+            assertEquals(expected, threadTasks);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCanceledTaskReleasesQueueSlot() throws Exception {
+        SingleThreadedExecutor executor = new SingleThreadedExecutor("TEST-POOL", 1);
+        try {
+            WaitableSignal releaseSignal = new WaitableSignal();
+            executor.execute(() -> releaseSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN));
+
+            CancellationSource cancelSource = Cancellation.createCancellationSource();
+            CancelableTask canceledTask = mock(CancelableTask.class);
+            executor.execute(cancelSource.getToken(), canceledTask);
+            cancelSource.getController().cancel();
+            assertEquals(0, executor.getNumberOfQueuedTasks());
+
+            // Would block if the canceled task still occupied the queue.
+            CancelableTask task = mock(CancelableTask.class);
+            executor.execute(Cancellation.UNCANCELABLE_TOKEN, task);
+            assertEquals(1, executor.getNumberOfQueuedTasks());
+
+            releaseSignal.signal();
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+
+            verify(canceledTask, never()).execute(any(CancellationToken.class));
+            verify(task).execute(any(CancellationToken.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testCanceledTasksAreNotRetained() throws Exception {
+        SingleThreadedExecutor executor = new SingleThreadedExecutor("TEST-POOL", 1);
+        try {
+            WaitableSignal releaseSignal = new WaitableSignal();
+            executor.execute(() -> releaseSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN));
+
+            for (int i = 0; i < 10000; i++) {
+                CancellationSource cancelSource = Cancellation.createCancellationSource();
+                executor.execute(cancelSource.getToken(), cancelToken -> { });
+                cancelSource.getController().cancel();
+
+                int canceledCount = executor.getNumberOfCanceledQueueItems();
+                assertTrue("canceledCount: " + canceledCount, canceledCount <= 100);
+            }
+
+            CancelableTask task = mock(CancelableTask.class);
+            executor.execute(Cancellation.UNCANCELABLE_TOKEN, task);
+
+            releaseSignal.signal();
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+
+            verify(task).execute(any(CancellationToken.class));
+            assertEquals(0, executor.getNumberOfCanceledQueueItems());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test(timeout = 50000)
     public void testRecoverFromThreadFactoryException() throws Exception {
         CancelableTask task1 = mock(CancelableTask.class);
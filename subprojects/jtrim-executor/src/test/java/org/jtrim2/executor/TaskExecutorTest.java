@@ -1,6 +1,7 @@
 package org.jtrim2.executor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -108,6 +109,39 @@ public class TaskExecutorTest {
         verify(task).run();
     }
 
+    @Test
+    public void testExecuteAll() throws Exception {
+        TestTaskExecutor executor = new TestTaskExecutor();
+
+        CancellationToken cancelToken = Cancellation.createCancellationSource().getToken();
+        CancelableTask task1 = mock(CancelableTask.class);
+        CancelableTask task2 = mock(CancelableTask.class);
+
+        List<CompletionStage<Void>> futures = executor.executeAll(cancelToken, Arrays.asList(task1, task2));
+
+        List<TestSubmittedTask<?>> submittedTasks = executor.getSubmittedTasks();
+        assertEquals("submittedTasks.size()", 2, submittedTasks.size());
+        assertEquals("futures.size()", 2, futures.size());
+        for (int i = 0; i < 2; i++) {
+            assertSame(submittedTasks.get(i).future, futures.get(i));
+            assertSame(cancelToken, submittedTasks.get(i).cancelToken);
+        }
+        verifyNoInteractions(task1, task2);
+
+        submittedTasks.get(1).function.execute(cancelToken);
+        verify(task2).execute(same(cancelToken));
+        verifyNoInteractions(task1);
+
+        submittedTasks.get(0).function.execute(cancelToken);
+        verify(task1).execute(same(cancelToken));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testExecuteAllNullTask() throws Exception {
+        TestTaskExecutor executor = new TestTaskExecutor();
+        executor.executeAll(Cancellation.UNCANCELABLE_TOKEN, Arrays.asList(mock(CancelableTask.class), null));
+    }
+
     private static class TestTaskExecutor implements TaskExecutor {
         private final List<TestSubmittedTask<?>> submittedTasks;
 
@@ -1,5 +1,7 @@
 package org.jtrim2.executor;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.testutils.TestUtils;
@@ -232,4 +234,50 @@ public class TaskExecutorsTest {
                 any(CancelableTask.class));
         verifyNoMoreInteractions(subExecutor);
     }
+
+    @Test(timeout = 20000)
+    public void testNewVirtualThreadExecutorLimitsConcurrency() throws Exception {
+        int maxConcurrency = 3;
+        int taskCount = 50;
+
+        AtomicInteger runningCount = new AtomicInteger(0);
+        AtomicInteger maxRunningCount = new AtomicInteger(0);
+        CountDownLatch doneLatch = new CountDownLatch(taskCount);
+
+        TaskExecutorService executor = TaskExecutors.newVirtualThreadExecutor("test-virtual-pool", maxConcurrency);
+        try {
+            for (int i = 0; i < taskCount; i++) {
+                executor.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> {
+                    int currentRunning = runningCount.incrementAndGet();
+                    maxRunningCount.accumulateAndGet(currentRunning, Math::max);
+                    Thread.sleep(1);
+                    runningCount.decrementAndGet();
+                    doneLatch.countDown();
+                });
+            }
+            doneLatch.await();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+        }
+
+        assertTrue("maxRunningCount", maxRunningCount.get() <= maxConcurrency);
+    }
+
+    @Test(timeout = 10000)
+    public void testVirtualThreadFactory() throws Exception {
+        VirtualThreadFactory threadFactory = new VirtualThreadFactory("test-virtual-pool");
+        assertEquals(VirtualThreadFactory.isVirtualThreadSupported(), threadFactory.isVirtual());
+
+        Thread thread = threadFactory.newThread(() -> { });
+        assertTrue(thread.getName().contains("test-virtual-pool"));
+        assertTrue(thread.isDaemon());
+        thread.start();
+        thread.join();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewVirtualThreadExecutorIllegalConcurrency() {
+        TaskExecutors.newVirtualThreadExecutor("test-virtual-pool", 0);
+    }
 }
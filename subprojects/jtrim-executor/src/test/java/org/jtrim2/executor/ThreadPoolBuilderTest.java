@@ -1,6 +1,10 @@
 package org.jtrim2.executor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -306,6 +310,132 @@ public class ThreadPoolBuilderTest {
         );
     }
 
+    @Test
+    public void testSetValuesForWorkStealing() {
+        TestThreadFactory threadFactory = new TestThreadFactory();
+        TestFullQueueHandler fullQueueHandler = new TestFullQueueHandler();
+        test(WorkStealingTaskExecutor.class, "MY-TEST-POOL",
+                builder -> {
+                    builder.setWorkStealing(true);
+                    builder.setMaxThreadCount(3);
+                    builder.setIdleTimeout(TimeDuration.nanos(534));
+                    builder.setMaxQueueSize(12);
+                    builder.setThreadFactory(threadFactory);
+                    builder.setManualShutdownRequired(false);
+                    builder.setFullQueueHandler(fullQueueHandler);
+                },
+                executor -> {
+                    assertTrue("finalized", executor.isFinalized());
+                    assertEquals("MY-TEST-POOL", executor.getPoolName());
+                    assertEquals("maxThreadCount", 3, executor.getMaxThreadCount());
+                    assertEquals("maxQueueSize", 12, executor.getMaxQueueSize());
+                    assertEquals("idleTimeout", 534L, executor.getIdleTimeout(TimeUnit.NANOSECONDS));
+                    assertSame(threadFactory, executor.getThreadFactory());
+                    assertSame(fullQueueHandler, executor.getFullQueueHandler());
+                }
+        );
+    }
+
+    @Test
+    public void testWorkStealingIgnoredForSingleThread() {
+        test(SingleThreadedExecutor.class, "MY-TEST-POOL",
+                builder -> {
+                    builder.setWorkStealing(true);
+                    builder.setMaxThreadCount(1);
+                },
+                executor -> {
+                    assertEquals("MY-TEST-POOL", executor.getPoolName());
+                }
+        );
+    }
+
+    @Test(timeout = 10000)
+    public void testFallbackWorkStealingExecutor() {
+        TestThreadFactory threadFactory = new TestThreadFactory();
+        ContextAwareTaskExecutor fallback = newTestFallbackExecutor();
+        testUnwrapped(WorkStealingTaskExecutor.class, "MY-TEST-POOL",
+                builder -> {
+                    builder.setWorkStealing(true);
+                    builder.setMaxThreadCount(3);
+                    builder.setMaxQueueSize(1);
+                    builder.setThreadFactory(threadFactory);
+                    builder.setFullQueueHandlerToFallback(fallback);
+                },
+                (executor, wrapper) -> {
+                    assertEquals("maxThreadCount", 3, executor.getMaxThreadCount());
+                    assertEquals("maxQueueSize", 1, executor.getMaxQueueSize());
+                    verifyFallback(3, wrapper, fallback);
+                }
+        );
+    }
+
+    @Test
+    public void testSetValuesForPrioritized() {
+        TestThreadFactory threadFactory = new TestThreadFactory();
+        TestFullQueueHandler fullQueueHandler = new TestFullQueueHandler();
+        PriorityTaskExecutorService built = ThreadPoolBuilder.createPrioritized("MY-TEST-POOL", builder -> {
+            builder.setMaxThreadCount(3);
+            builder.setIdleTimeout(TimeDuration.nanos(534));
+            builder.setPriorityAging(TimeDuration.nanos(123));
+            builder.setMaxQueueSize(12);
+            builder.setThreadFactory(threadFactory);
+            builder.setManualShutdownRequired(false);
+            builder.setFullQueueHandler(fullQueueHandler);
+        });
+        try {
+            PriorityThreadPoolTaskExecutor executor = verifyType(PriorityThreadPoolTaskExecutor.class, built);
+            assertTrue("finalized", executor.isFinalized());
+            assertEquals("MY-TEST-POOL", executor.getPoolName());
+            assertEquals("maxThreadCount", 3, executor.getMaxThreadCount());
+            assertEquals("maxQueueSize", 12, executor.getMaxQueueSize());
+            assertEquals("idleTimeout", 534L, executor.getIdleTimeout(TimeUnit.NANOSECONDS));
+            assertEquals("priorityAging", 123L, executor.getPriorityAging(TimeUnit.NANOSECONDS));
+            assertSame(threadFactory, executor.getThreadFactory());
+            assertSame(fullQueueHandler, executor.getFullQueueHandler());
+        } finally {
+            shutdownTestExecutor(built);
+        }
+    }
+
+    @Test
+    public void testDefaultValuesForPrioritized() {
+        PriorityTaskExecutorService built = new ThreadPoolBuilder("MY-TEST-POOL").buildPrioritized();
+        try {
+            PriorityThreadPoolTaskExecutor executor = verifyType(PriorityThreadPoolTaskExecutor.class, built);
+            assertFalse("finalized", executor.isFinalized());
+            assertEquals("maxThreadCount", 1, executor.getMaxThreadCount());
+            assertEquals("maxQueueSize", Integer.MAX_VALUE, executor.getMaxQueueSize());
+            assertEquals("idleTimeout", 5L, executor.getIdleTimeout(TimeUnit.SECONDS));
+            assertEquals("priorityAging", 10L, executor.getPriorityAging(TimeUnit.MILLISECONDS));
+            verifyDefaultThreadFactory(executor.getThreadFactory(), false, "MY-TEST-POOL");
+            assertNull("fullQueueHandler", executor.getFullQueueHandler());
+        } finally {
+            shutdownTestExecutor(built);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFallbackPrioritizedExecutor() {
+        TestThreadFactory threadFactory = new TestThreadFactory();
+        ContextAwareTaskExecutor fallback = newTestFallbackExecutor();
+        PriorityTaskExecutorService executor = ThreadPoolBuilder.createPrioritized("MY-TEST-POOL", builder -> {
+            builder.setMaxThreadCount(3);
+            builder.setMaxQueueSize(1);
+            builder.setThreadFactory(threadFactory);
+            builder.setFullQueueHandlerToFallback(fallback);
+        });
+        try {
+            verifyFallback(3, executor, fallback);
+        } finally {
+            shutdownTestExecutor(executor);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPriorityAging() {
+        new ThreadPoolBuilder("MY-TEST-POOL").setPriorityAging(TimeDuration.nanos(0));
+    }
+
     @Test
     public void testDisableTimeout() {
         test(SimpleThreadPoolTaskExecutor.class, "MY-TEST-POOL",
@@ -396,6 +526,172 @@ public class ThreadPoolBuilderTest {
         );
     }
 
+    @Test(timeout = 10000)
+    public void testCallerRunsWhenQueueIsFull() throws Exception {
+        MonitorableTaskExecutorService executor = ThreadPoolBuilder.create("MY-TEST-POOL", builder -> {
+            builder.setMaxThreadCount(1);
+            builder.setMaxQueueSize(1);
+            builder.setFullQueueHandlerToCallerRuns();
+        });
+
+        WaitableSignal blockingTaskMayExitSignal = new WaitableSignal();
+        try {
+            WaitableSignal blockingTaskReady = new WaitableSignal();
+            executor.execute(() -> {
+                blockingTaskReady.signal();
+                blockingTaskMayExitSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+            });
+            blockingTaskReady.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+
+            // This task must be in the queue.
+            executor.execute(Tasks.noOpTask());
+
+            Thread callerThread = Thread.currentThread();
+            AtomicBoolean executedByCaller = new AtomicBoolean(false);
+            executor.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> {
+                executedByCaller.set(Thread.currentThread() == callerThread);
+            }).toCompletableFuture().get();
+
+            assertTrue("executedByCaller", executedByCaller.get());
+        } finally {
+            blockingTaskMayExitSignal.signal();
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+    }
+
+    @Test
+    public void testQueueSheddingSelectsGenericExecutor() {
+        test(ThreadPoolTaskExecutor.class, "MY-TEST-POOL", ThreadPoolBuilder::setFullQueueHandlerToDropOldest,
+                executor -> assertEquals("maxThreadCount", 1, executor.getMaxThreadCount()));
+        test(ThreadPoolTaskExecutor.class, "MY-TEST-POOL",
+                builder -> {
+                    builder.setMaxThreadCount(3);
+                    builder.setWorkStealing(true);
+                    builder.setIdleTimeout(null);
+                    builder.setAdaptiveLifo(TimeDuration.millis(5), TimeDuration.millis(100));
+                },
+                executor -> assertEquals("maxThreadCount", 3, executor.getMaxThreadCount()));
+    }
+
+    @Test
+    public void testMetricsDisabledByDefault() {
+        MonitorableTaskExecutorService built = new ThreadPoolBuilder("MY-TEST-POOL").build();
+        try {
+            SingleThreadedExecutor executor = verifyType(SingleThreadedExecutor.class, built);
+            assertFalse("enabled", executor.getMetrics().isEnabled());
+        } finally {
+            shutdownTestExecutor(built);
+        }
+    }
+
+    @Test
+    public void testMetricsEnabled() {
+        MonitorableTaskExecutorService built = ThreadPoolBuilder.create("MY-TEST-POOL", builder -> {
+            builder.setMaxThreadCount(3);
+            builder.setMetricsEnabled(true);
+        });
+        try {
+            ThreadPoolTaskExecutor executor = verifyType(ThreadPoolTaskExecutor.class, built);
+            assertTrue("enabled", executor.getMetrics().isEnabled());
+        } finally {
+            shutdownTestExecutor(built);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testDropOldestWhenQueueIsFull() throws Exception {
+        ThreadPoolTaskExecutor executor = factory.create(ThreadPoolTaskExecutor.class, "MY-TEST-POOL", builder -> {
+            builder.setMaxQueueSize(1);
+            builder.setFullQueueHandlerToDropOldest();
+            builder.setMetricsEnabled(true);
+        });
+
+        WaitableSignal blockingTaskMayExitSignal = new WaitableSignal();
+        try {
+            WaitableSignal blockingTaskReady = new WaitableSignal();
+            executor.execute(() -> {
+                blockingTaskReady.signal();
+                blockingTaskMayExitSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+            });
+            blockingTaskReady.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+
+            CancelableTask oldestTask = mock(CancelableTask.class);
+            CompletableFuture<Void> oldestFuture = executor
+                    .execute(Cancellation.UNCANCELABLE_TOKEN, oldestTask)
+                    .toCompletableFuture();
+
+            CancelableTask newestTask = mock(CancelableTask.class);
+            CompletableFuture<Void> newestFuture = executor
+                    .execute(Cancellation.UNCANCELABLE_TOKEN, newestTask)
+                    .toCompletableFuture();
+
+            assertTrue("oldestCanceled", oldestFuture.isCompletedExceptionally());
+            assertEquals("queueSize", 1, executor.getNumberOfQueuedTasks());
+
+            blockingTaskMayExitSignal.signal();
+            newestFuture.get();
+
+            verify(newestTask).execute(any(CancellationToken.class));
+            verifyNoInteractions(oldestTask);
+            assertEquals("rejected", 1, executor.getMetrics().getRejectedTaskCount());
+        } finally {
+            blockingTaskMayExitSignal.signal();
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testAdaptiveLifoUnderOverload() throws Exception {
+        ThreadPoolTaskExecutor executor = factory.create(ThreadPoolTaskExecutor.class, "MY-TEST-POOL", builder -> {
+            builder.setAdaptiveLifo(TimeDuration.millis(50), TimeDuration.millis(1));
+            builder.setMetricsEnabled(true);
+        });
+
+        WaitableSignal blockingTaskMayExitSignal = new WaitableSignal();
+        try {
+            WaitableSignal blockingTaskReady = new WaitableSignal();
+            executor.execute(() -> {
+                blockingTaskReady.signal();
+                blockingTaskMayExitSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+            });
+            blockingTaskReady.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+
+            CancelableTask staleTask = mock(CancelableTask.class);
+            CompletableFuture<Void> staleFuture = executor
+                    .execute(Cancellation.UNCANCELABLE_TOKEN, staleTask)
+                    .toCompletableFuture();
+
+            // The stale task waits long enough to signal overload, and to be dropped.
+            Thread.sleep(200);
+
+            List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Void>> freshFutures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                int taskIndex = i;
+                freshFutures.add(executor
+                        .execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> executionOrder.add(taskIndex))
+                        .toCompletableFuture());
+            }
+
+            blockingTaskMayExitSignal.signal();
+            for (CompletableFuture<Void> future : freshFutures) {
+                future.get();
+            }
+
+            assertTrue("staleCanceled", staleFuture.isCompletedExceptionally());
+            verifyNoInteractions(staleTask);
+            assertEquals("firstExecuted", Integer.valueOf(2), executionOrder.get(0));
+            assertEquals("rejected", 1, executor.getMetrics().getRejectedTaskCount());
+        } finally {
+            blockingTaskMayExitSignal.signal();
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalAdaptiveLifoInterval() {
+        new ThreadPoolBuilder("").setAdaptiveLifo(TimeDuration.millis(5), TimeDuration.nanos(0));
+    }
 
     private static <E> E verifyType(Class<? extends E> type, Object obj) {
         if (!type.isInstance(obj)) {
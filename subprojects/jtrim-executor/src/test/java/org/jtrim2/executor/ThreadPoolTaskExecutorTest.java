@@ -1,7 +1,10 @@
 package org.jtrim2.executor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -10,11 +13,13 @@ import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.concurrent.Tasks;
 import org.jtrim2.concurrent.WaitableSignal;
 import org.jtrim2.testutils.executor.ContextAwareExecutorTests;
 import org.jtrim2.testutils.executor.GenericExecutorServiceTests;
 import org.jtrim2.testutils.executor.MockCleanup;
 import org.jtrim2.testutils.executor.TestExecutorFactory;
+import org.jtrim2.utils.TimeDuration;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -43,6 +48,9 @@ public class ThreadPoolTaskExecutorTest extends CommonThreadPoolTest<ThreadPoolT
 
             result.setThreadFactory(properties.getThreadFactory());
             result.setFullQueueHandler(properties.getFullQueueHandler());
+            if (properties.isMetricsEnabled()) {
+                result.enableMetrics();
+            }
             if (!properties.isNeedShutdown()) {
                 result.dontNeedShutdown();
             }
@@ -211,6 +219,16 @@ public class ThreadPoolTaskExecutorTest extends CommonThreadPoolTest<ThreadPoolT
         testQueuedTasks(ThreadPoolTaskExecutor::setMaxQueueSize);
     }
 
+    @Test(timeout = 10000)
+    public void testMetrics() throws Exception {
+        testMetrics(ThreadPoolTaskExecutor::getMetrics);
+    }
+
+    @Test(timeout = 10000)
+    public void testTimeoutMetrics() throws Exception {
+        testTimeoutMetrics(ThreadPoolTaskExecutor::getMetrics);
+    }
+
     @Test
     public void testGetterValues() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor(
@@ -259,6 +277,162 @@ public class ThreadPoolTaskExecutorTest extends CommonThreadPoolTest<ThreadPoolT
         }
     }
 
+    @Test(timeout = 20000)
+    public void testAdaptiveThreadCountGrowsForBlockedTasks() throws Exception {
+        int blockedTaskCount = 4;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("", blockedTaskCount);
+        try {
+            executor.setAdaptiveThreadCount(1, TimeDuration.millis(1));
+
+            // Each task waits for all the others, so they can only complete
+            // if the executor starts enough threads.
+            CountDownLatch allStartedLatch = new CountDownLatch(blockedTaskCount);
+            CountDownLatch completedLatch = new CountDownLatch(blockedTaskCount);
+            for (int i = 0; i < blockedTaskCount; i++) {
+                executor.execute(() -> {
+                    allStartedLatch.countDown();
+                    try {
+                        allStartedLatch.await();
+                    } catch (InterruptedException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    completedLatch.countDown();
+                });
+            }
+
+            // Submitting tasks also adjusts the thread count.
+            while (!completedLatch.await(1, TimeUnit.MILLISECONDS)) {
+                executor.execute(Tasks.noOpTask());
+            }
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAdaptiveThreadCountGrowsWithoutActivity() throws Exception {
+        int blockedTaskCount = 4;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("", blockedTaskCount);
+        try {
+            executor.setAdaptiveThreadCount(1, TimeDuration.millis(1));
+
+            // No more tasks are submitted and no task completes until all of them are started,
+            // so only the periodic sampling can raise the thread count.
+            CountDownLatch allStartedLatch = new CountDownLatch(blockedTaskCount);
+            for (int i = 0; i < blockedTaskCount; i++) {
+                executor.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> {
+                    allStartedLatch.countDown();
+                    allStartedLatch.await();
+                });
+            }
+            allStartedLatch.await();
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAdaptiveThreadCountGrowsForBlockedBatchTasks() throws Exception {
+        int blockedTaskCount = 4;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("", blockedTaskCount);
+        try {
+            executor.setAdaptiveThreadCount(1, TimeDuration.millis(1));
+
+            CountDownLatch allStartedLatch = new CountDownLatch(blockedTaskCount);
+            CountDownLatch completedLatch = new CountDownLatch(blockedTaskCount);
+            List<CancelableTask> blockedTasks = new ArrayList<>();
+            for (int i = 0; i < blockedTaskCount; i++) {
+                blockedTasks.add(cancelToken -> {
+                    allStartedLatch.countDown();
+                    allStartedLatch.await();
+                    completedLatch.countDown();
+                });
+            }
+            executor.executeAll(Cancellation.UNCANCELABLE_TOKEN, blockedTasks);
+
+            List<CancelableTask> noOpTasks = Collections.nCopies(2, cancelToken -> { });
+            while (!completedLatch.await(1, TimeUnit.MILLISECONDS)) {
+                executor.executeAll(Cancellation.UNCANCELABLE_TOKEN, noOpTasks);
+            }
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAdaptiveSamplingStopsWhenIdle() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("", 2);
+        try {
+            executor.setAdaptiveThreadCount(1, TimeDuration.millis(1));
+            assertFalse("scheduledWithoutTasks", executor.isAdaptiveSampleScheduled());
+
+            executor.executeStaged(Tasks.noOpTask()).toCompletableFuture().get();
+            while (executor.isAdaptiveSampleScheduled()) {
+                Thread.sleep(1);
+            }
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAdaptiveThreadCountShrinksWithoutBacklog() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("", 4);
+        try {
+            executor.setAdaptiveThreadCount(4, TimeDuration.millis(1));
+            submitConcurrentTasksAndWait(executor, 4, null);
+
+            executor.setAdaptiveThreadCount(1, TimeDuration.millis(1));
+            while (executor.getThreadCountLimit() > 1) {
+                executor.executeStaged(Tasks.noOpTask()).toCompletableFuture().get();
+                Thread.sleep(1);
+            }
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testDisableAdaptiveThreadCount() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("", 3);
+        try {
+            executor.setAdaptiveThreadCount(1, TimeDuration.seconds(3600));
+            assertEquals(1, executor.getThreadCountLimit());
+
+            executor.disableAdaptiveThreadCount();
+            assertEquals(3, executor.getThreadCountLimit());
+            submitConcurrentTasksAndWait(executor, 3, null);
+        } finally {
+            executor.shutdown();
+            waitTerminateAndTest(executor);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalAdaptiveMinThreadCount() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("");
+        try {
+            executor.setAdaptiveThreadCount(0, TimeDuration.seconds(1));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalAdaptiveSampleInterval() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("");
+        try {
+            executor.setAdaptiveThreadCount(1, TimeDuration.nanos(0));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test(timeout = 50000)
     public void testRecoverFromThreadFactoryException() throws Exception {
         CancelableTask task2 = mock(CancelableTask.class);
@@ -0,0 +1,197 @@
+package org.jtrim2.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jtrim2.utils.TimeDuration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThrottledUpdateTaskExecutorTest {
+    private static final TimeDuration LONG_INTERVAL = TimeDuration.hours(1);
+
+    @Test
+    public void testThrottleExecutesFirstTaskImmediately() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        executor.execute(() -> executed.add("1"));
+        assertEquals(1, wrapped.getScheduledCount());
+        assertEquals(0, wrapped.getDelayNanos(0));
+        // Scheduling might needlessly wait for the next tick of a timer.
+        assertFalse("scheduled", wrapped.isScheduled(0));
+
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("1"), executed);
+
+        // The end of the interval
+        assertEquals(1, wrapped.getScheduledCount());
+        assertTrue(wrapped.getDelayNanos(0) > TimeUnit.MINUTES.toNanos(59));
+    }
+
+    @Test
+    public void testThrottleCoalescesWithinInterval() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        executor.execute(() -> executed.add("1"));
+        wrapped.runScheduled();
+
+        executor.execute(() -> executed.add("2"));
+        executor.execute(() -> executed.add("3"));
+        assertEquals(1, wrapped.getScheduledCount());
+
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("1", "3"), executed);
+    }
+
+    @Test
+    public void testThrottleDeactivatesAfterIdleInterval() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        executor.execute(() -> executed.add("1"));
+        wrapped.runScheduled();
+        wrapped.runScheduled();
+        assertEquals(0, wrapped.getScheduledCount());
+
+        executor.execute(() -> executed.add("2"));
+        assertEquals(1, wrapped.getScheduledCount());
+        assertEquals(0, wrapped.getDelayNanos(0));
+
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("1", "2"), executed);
+    }
+
+    @Test
+    public void testNoConcurrentExecution() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, TimeDuration.nanos(0), UpdateThrottleMode.THROTTLE);
+
+        executor.execute(() -> {
+            executed.add("1");
+            executor.execute(() -> executed.add("2"));
+            assertEquals(0, wrapped.getScheduledCount());
+        });
+        wrapped.runScheduled();
+        assertEquals(1, wrapped.getScheduledCount());
+
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("1", "2"), executed);
+    }
+
+    @Test
+    public void testDebounceWaitsForInterval() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, LONG_INTERVAL, UpdateThrottleMode.DEBOUNCE);
+
+        executor.execute(() -> executed.add("1"));
+        assertEquals(1, wrapped.getScheduledCount());
+        assertEquals(LONG_INTERVAL.toNanos(), wrapped.getDelayNanos(0));
+
+        // Running early (as if the timer was imprecise) must not execute the task.
+        wrapped.runScheduled();
+        assertEquals(0, executed.size());
+        assertEquals(1, wrapped.getScheduledCount());
+        assertTrue(wrapped.getDelayNanos(0) > 0);
+    }
+
+    @Test
+    public void testDebounceExecutesLastTask() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, TimeDuration.nanos(0), UpdateThrottleMode.DEBOUNCE);
+
+        executor.execute(() -> executed.add("1"));
+        executor.execute(() -> executed.add("2"));
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("2"), executed);
+
+        wrapped.runScheduled();
+        assertEquals(0, wrapped.getScheduledCount());
+    }
+
+    @Test
+    public void testRejectedByExecutor() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        wrapped.setRejectTasks(true);
+        executor.execute(() -> executed.add("1"));
+
+        wrapped.setRejectTasks(false);
+        executor.execute(() -> executed.add("2"));
+        assertEquals(1, wrapped.getScheduledCount());
+
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("2"), executed);
+    }
+
+    @Test
+    public void testScheduleFailure() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        List<String> executed = new ArrayList<>();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        RuntimeException scheduleFailure = new RuntimeException("Test failure");
+        wrapped.setScheduleFailure(scheduleFailure);
+        try {
+            executor.execute(() -> executed.add("1"));
+            fail("Expected schedule failure.");
+        } catch (RuntimeException ex) {
+            assertSame(scheduleFailure, ex);
+        }
+
+        wrapped.setScheduleFailure(null);
+        executor.execute(() -> executed.add("2"));
+        assertEquals(1, wrapped.getScheduledCount());
+
+        wrapped.runScheduled();
+        assertEquals(Arrays.asList("2"), executed);
+    }
+
+    @Test
+    public void testTaskFailureKeepsScheduling() {
+        ManualScheduledTaskExecutor wrapped = new ManualScheduledTaskExecutor();
+        UpdateTaskExecutor executor
+                = new ThrottledUpdateTaskExecutor(wrapped, LONG_INTERVAL, UpdateThrottleMode.THROTTLE);
+
+        executor.execute(() -> {
+            throw new RuntimeException("Test failure");
+        });
+        wrapped.runScheduled();
+        assertEquals(1, wrapped.getScheduledCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalInterval() {
+        new ThrottledUpdateTaskExecutor(
+                new ManualScheduledTaskExecutor(),
+                TimeDuration.nanos(-1),
+                UpdateThrottleMode.THROTTLE);
+    }
+
+    @Test
+    public void testToString() {
+        assertNotNull(new ThrottledUpdateTaskExecutor(
+                new ManualScheduledTaskExecutor(),
+                LONG_INTERVAL,
+                UpdateThrottleMode.DEBOUNCE).toString());
+    }
+}
@@ -0,0 +1,146 @@
+package org.jtrim2.executor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jtrim2.cancel.CancelableWaits;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.concurrent.collections.TerminableQueue;
+import org.jtrim2.concurrent.collections.TerminableQueues;
+import org.jtrim2.testutils.UnsafeRunnable;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Checks that the waits of this library do not pin the carrier threads of virtual threads.
+ * These tests require Java 21 or later, and are skipped on older runtimes.
+ */
+public class VirtualThreadPinningTest {
+    private static final String PINNED_EVENT_NAME = "jdk.VirtualThreadPinned";
+
+    @Before
+    public void setUp() {
+        assumeTrue("Virtual threads are not supported.", VirtualThreadFactory.isVirtualThreadSupported());
+    }
+
+    private static void testNoPinning(UnsafeRunnable blockingTask, UnsafeRunnable unblockTask) throws Exception {
+        List<RecordedEvent> pinnedEvents;
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED_EVENT_NAME).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            TaskExecutorService executor = TaskExecutors.newVirtualThreadExecutor("pinning-test", 1);
+            try {
+                CountDownLatch startedLatch = new CountDownLatch(1);
+                CountDownLatch completedLatch = new CountDownLatch(1);
+                executor.execute(Cancellation.UNCANCELABLE_TOKEN, cancelToken -> {
+                    startedLatch.countDown();
+                    blockingTask.run();
+                    completedLatch.countDown();
+                });
+
+                startedLatch.await();
+                // Give the virtual thread time to actually park.
+                Thread.sleep(100);
+                unblockTask.run();
+                completedLatch.await();
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+            }
+
+            recording.stop();
+
+            Path recordingFile = Files.createTempFile("jtrim-pinning-test", ".jfr");
+            try {
+                recording.dump(recordingFile);
+                pinnedEvents = RecordingFile.readAllEvents(recordingFile);
+            } finally {
+                Files.deleteIfExists(recordingFile);
+            }
+        }
+
+        List<RecordedEvent> relevantEvents = pinnedEvents.stream()
+                .filter(event -> PINNED_EVENT_NAME.equals(event.getEventType().getName()))
+                .collect(Collectors.toList());
+        assertEquals("Pinned events: " + relevantEvents, 0, relevantEvents.size());
+    }
+
+    @Test(timeout = 30000)
+    public void testCancelableWaitsAwaitDoesNotPin() throws Exception {
+        Lock lock = new ReentrantLock();
+        Condition condition = lock.newCondition();
+        boolean[] signaled = new boolean[1];
+
+        testNoPinning(() -> {
+            lock.lock();
+            try {
+                while (!signaled[0]) {
+                    CancelableWaits.await(Cancellation.UNCANCELABLE_TOKEN, condition);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }, () -> {
+            lock.lock();
+            try {
+                signaled[0] = true;
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    @Test(timeout = 30000)
+    public void testCancelableWaitsTimedAwaitDoesNotPin() throws Exception {
+        Lock lock = new ReentrantLock();
+        Condition condition = lock.newCondition();
+        boolean[] signaled = new boolean[1];
+
+        testNoPinning(() -> {
+            lock.lock();
+            try {
+                while (!signaled[0]) {
+                    CancelableWaits.await(Cancellation.UNCANCELABLE_TOKEN, 10, TimeUnit.SECONDS, condition);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }, () -> {
+            lock.lock();
+            try {
+                signaled[0] = true;
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    @Test(timeout = 30000)
+    public void testTerminableQueueTakeDoesNotPin() throws Exception {
+        TerminableQueue<String> queue = TerminableQueues.createFifoQueue(1);
+        String[] received = new String[1];
+
+        testNoPinning(() -> {
+            received[0] = queue.take(Cancellation.UNCANCELABLE_TOKEN);
+        }, () -> {
+            queue.put(Cancellation.UNCANCELABLE_TOKEN, "test-element");
+        });
+        assertEquals("test-element", received[0]);
+    }
+}
@@ -0,0 +1,197 @@
+package org.jtrim2.executor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.concurrent.WaitableSignal;
+import org.jtrim2.testutils.executor.ContextAwareExecutorTests;
+import org.jtrim2.testutils.executor.GenericExecutorServiceTests;
+import org.jtrim2.testutils.executor.TestExecutorFactory;
+import org.jtrim2.utils.TimeDuration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class WorkStealingTaskExecutorTest extends CommonThreadPoolTest<WorkStealingTaskExecutor> {
+    public static class GenericTest extends BackgroundExecutorTests {
+        public GenericTest() {
+            super(testFactories());
+        }
+    }
+
+    public static class ContextAwareTest extends ContextAwareExecutorTests<ContextAwareTaskExecutor> {
+        public ContextAwareTest() {
+            super(testFactories());
+        }
+    }
+
+    public WorkStealingTaskExecutorTest() {
+        super(properties -> {
+            WorkStealingTaskExecutor result = new WorkStealingTaskExecutor(
+                    properties.getPoolName(),
+                    properties.getMaxThreadCount(),
+                    properties.getMaxQueueSize(),
+                    TimeDuration.seconds(5),
+                    properties.getThreadFactory()
+            );
+
+            result.setFullQueueHandler(properties.getFullQueueHandler());
+            if (!properties.isNeedShutdown()) {
+                result.dontNeedShutdown();
+            }
+            return result;
+        });
+    }
+
+    private static int getThreadCount() {
+        return BackgroundExecutorTests.getThreadCount();
+    }
+
+    private static Collection<TestExecutorFactory<WorkStealingTaskExecutor>> testFactories() {
+        return GenericExecutorServiceTests.executorServices(Arrays.asList(
+                WorkStealingTaskExecutorTest::create1,
+                WorkStealingTaskExecutorTest::create2,
+                WorkStealingTaskExecutorTest::create3,
+                WorkStealingTaskExecutorTest::create4
+        ));
+    }
+
+    private static WorkStealingTaskExecutor create(
+            String poolName,
+            int maxThreadCount,
+            int maxQueueSize,
+            TimeDuration idleTimeout) {
+
+        return new WorkStealingTaskExecutor(
+                poolName,
+                maxThreadCount,
+                maxQueueSize,
+                idleTimeout,
+                new ExecutorsEx.NamedThreadFactory(false, poolName)
+        );
+    }
+
+    private static WorkStealingTaskExecutor create1() {
+        return create("WorkStealingTaskExecutor-Single", 1, Integer.MAX_VALUE, TimeDuration.seconds(5));
+    }
+
+    private static WorkStealingTaskExecutor create2() {
+        return create("WorkStealingTaskExecutor-Multi", getThreadCount(), Integer.MAX_VALUE, TimeDuration.seconds(5));
+    }
+
+    private static WorkStealingTaskExecutor create3() {
+        return create(
+                "WorkStealingTaskExecutor-Multi-Zero-Timeout",
+                getThreadCount(),
+                Integer.MAX_VALUE,
+                TimeDuration.nanos(0)
+        );
+    }
+
+    private static WorkStealingTaskExecutor create4() {
+        return create(
+                "WorkStealingTaskExecutor-Multi-Short-Buffer",
+                getThreadCount(),
+                1,
+                TimeDuration.seconds(5)
+        );
+    }
+
+    @Test(timeout = 10000)
+    public void testQueuedTasks() throws Exception {
+        testQueuedTasks(null);
+    }
+
+    @Test(timeout = 10000)
+    public void testLocalTasksAreStolen() throws Exception {
+        int threadCount = 4;
+        WorkStealingTaskExecutor executor = create("testLocalTasksAreStolen-pool", threadCount, 1,
+                TimeDuration.seconds(5));
+        AtomicInteger completedCount = new AtomicInteger(0);
+        try {
+            // Each task waits for all the others, so this can only complete if
+            // other workers steal the tasks added to the local queue of the first worker.
+            CountDownLatch allStartedLatch = new CountDownLatch(threadCount);
+            CancelableTask waitAllTask = cancelToken -> {
+                allStartedLatch.countDown();
+                allStartedLatch.await();
+                completedCount.incrementAndGet();
+            };
+
+            WaitableSignal submittedSignal = new WaitableSignal();
+            executor.execute(() -> {
+                for (int i = 0; i < threadCount; i++) {
+                    // The queue size must not be enforced for local submits.
+                    executor.execute(Cancellation.UNCANCELABLE_TOKEN, waitAllTask);
+                }
+                submittedSignal.signal();
+            });
+            submittedSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+        } finally {
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+
+        assertEquals(threadCount, completedCount.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelLocalTask() throws Exception {
+        WorkStealingTaskExecutor executor = create("testCancelLocalTask-pool", 1, Integer.MAX_VALUE,
+                TimeDuration.seconds(5));
+        try {
+            CancellationSource cancelSource = Cancellation.createCancellationSource();
+            CancelableTask canceledTask = mock(CancelableTask.class);
+            AtomicInteger queuedBeforeCancel = new AtomicInteger(-1);
+            AtomicInteger queuedAfterCancel = new AtomicInteger(-1);
+
+            WaitableSignal doneSignal = new WaitableSignal();
+            executor.execute(() -> {
+                executor.execute(cancelSource.getToken(), canceledTask);
+                queuedBeforeCancel.set((int) executor.getNumberOfQueuedTasks());
+                cancelSource.getController().cancel();
+                queuedAfterCancel.set((int) executor.getNumberOfQueuedTasks());
+                doneSignal.signal();
+            });
+            doneSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+
+            assertEquals("queuedBeforeCancel", 1, queuedBeforeCancel.get());
+            assertEquals("queuedAfterCancel", 0, queuedAfterCancel.get());
+            verify(canceledTask, never()).execute(any(CancellationToken.class));
+        } finally {
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCanceledLocalTasksAreSkipped() throws Exception {
+        int taskCount = 1000;
+        WorkStealingTaskExecutor executor = create("testCanceledLocalTasksAreSkipped-pool", 2, Integer.MAX_VALUE,
+                TimeDuration.seconds(5));
+        AtomicInteger executedCount = new AtomicInteger(0);
+        try {
+            WaitableSignal doneSignal = new WaitableSignal();
+            executor.execute(() -> {
+                CancellationSource cancelSource = Cancellation.createCancellationSource();
+                for (int i = 0; i < taskCount; i++) {
+                    CancellationToken cancelToken = i % 2 == 0
+                            ? cancelSource.getToken()
+                            : Cancellation.UNCANCELABLE_TOKEN;
+                    executor.execute(cancelToken, taskCancelToken -> executedCount.incrementAndGet());
+                }
+                cancelSource.getController().cancel();
+                doneSignal.signal();
+            });
+            doneSignal.waitSignal(Cancellation.UNCANCELABLE_TOKEN);
+        } finally {
+            GenericExecutorServiceTests.shutdownTestExecutor(executor);
+        }
+
+        assertTrue("executedCount: " + executedCount.get(), executedCount.get() >= taskCount / 2);
+        assertEquals("queued", 0, executor.getNumberOfQueuedTasks());
+    }
+}
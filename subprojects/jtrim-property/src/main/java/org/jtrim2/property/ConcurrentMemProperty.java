@@ -1,7 +1,7 @@
 package org.jtrim2.property;
 
 import java.util.Objects;
-import org.jtrim2.event.CopyOnTriggerListenerManager;
+import org.jtrim2.event.CopyOnWriteListenerManager;
 import org.jtrim2.event.EventListeners;
 import org.jtrim2.event.ListenerManager;
 import org.jtrim2.event.ListenerRef;
@@ -33,7 +33,7 @@ final class ConcurrentMemProperty<ValueType> implements MutableProperty<ValueTyp
         this.value = verifier.storeValue(value);
         this.verifier = verifier;
         this.publisher = publisher;
-        this.listeners = new CopyOnTriggerListenerManager<>();
+        this.listeners = new CopyOnWriteListenerManager<>();
         this.eventExecutor = new GenericUpdateTaskExecutor(TaskExecutors.inOrderExecutor(eventExecutor));
         this.eventDispatcherTask = () -> {
             EventListeners.dispatchRunnable(listeners);
@@ -1,7 +1,7 @@
 package org.jtrim2.property;
 
 import java.util.Objects;
-import org.jtrim2.event.CopyOnTriggerListenerManager;
+import org.jtrim2.event.CopyOnWriteListenerManager;
 import org.jtrim2.event.EventListeners;
 import org.jtrim2.event.ListenerManager;
 import org.jtrim2.event.ListenerRef;
@@ -25,7 +25,7 @@ final class MemProperty<ValueType> implements MutableProperty<ValueType> {
         this.value = verifier.storeValue(value);
         this.verifier = verifier;
         this.publisher = publisher;
-        this.listeners = new CopyOnTriggerListenerManager<>();
+        this.listeners = new CopyOnWriteListenerManager<>();
     }
 
     @Override
@@ -3,6 +3,7 @@ package org.jtrim2.stream;
 import java.util.Objects;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import org.jtrim2.executor.TaskExecutor;
 import org.jtrim2.utils.ExceptionHelper;
 
@@ -78,6 +79,29 @@ final class ElementMappers {
         };
     }
 
+    public static <T, R> SeqMapper<T, R> parallelContextFreeSeqMapper(
+            Supplier<ExecutorRef> executorRefProvider,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super T, ? extends R> mapper) {
+
+        Objects.requireNonNull(executorRefProvider, "executorRefProvider");
+        ExceptionHelper.checkArgumentInRange(mapperThreadCount, 1, Integer.MAX_VALUE, "mapperThreadCount");
+        ExceptionHelper.checkArgumentInRange(windowSize, 1, Integer.MAX_VALUE, "windowSize");
+        Objects.requireNonNull(mapper, "mapper");
+
+        return (cancelToken, seqProducer, seqConsumer) -> {
+            SeqProducer<R> parallelProducer = ElementProducers.parallelMapSeqProducerContextFree(
+                    executorRefProvider,
+                    mapperThreadCount,
+                    windowSize,
+                    mapper,
+                    seqProducer
+            );
+            seqConsumer.consumeAll(cancelToken, parallelProducer);
+        };
+    }
+
     public static <T, R> SeqGroupMapper<T, R> contextFreeSeqGroupMapper(
             SeqMapper<? super T, ? extends R> seqMapper) {
 
@@ -3,16 +3,20 @@ package org.jtrim2.stream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collector;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.collections.ArraysEx;
 import org.jtrim2.collections.ForEachable;
 import org.jtrim2.executor.TaskExecutor;
 import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
 
 final class ElementProducers {
     public static <T> SeqProducer<T> emptySeqProducer() {
@@ -97,6 +101,48 @@ final class ElementProducers {
         };
     }
 
+    public static <T> SeqProducer<T> rateLimitedSeqProducer(
+            SeqProducer<? extends T> seqProducer,
+            ElementRateLimiter rateLimiter,
+            ToLongFunction<? super T> permitsFunction) {
+
+        Objects.requireNonNull(seqProducer, "seqProducer");
+        Objects.requireNonNull(rateLimiter, "rateLimiter");
+        Objects.requireNonNull(permitsFunction, "permitsFunction");
+
+        if (seqProducer == emptySeqProducer()) {
+            return emptySeqProducer();
+        }
+
+        return (cancelToken, consumer) -> {
+            Objects.requireNonNull(consumer, "consumer");
+
+            seqProducer.transferAll(cancelToken, element -> {
+                rateLimiter.acquire(cancelToken, permitsFunction.applyAsLong(element));
+                consumer.processElement(element);
+            });
+        };
+    }
+
+    public static <T> SeqGroupProducer<T> rateLimitedSeqGroupProducer(
+            SeqGroupProducer<? extends T> seqGroupProducer,
+            ElementRateLimiter rateLimiter,
+            ToLongFunction<? super T> permitsFunction) {
+
+        Objects.requireNonNull(seqGroupProducer, "seqGroupProducer");
+        Objects.requireNonNull(rateLimiter, "rateLimiter");
+        Objects.requireNonNull(permitsFunction, "permitsFunction");
+
+        return (cancelToken, seqConsumer) -> {
+            seqGroupProducer.transferAll(cancelToken, (consumerCancelToken, seqProducer) -> {
+                seqConsumer.consumeAll(
+                        consumerCancelToken,
+                        rateLimitedSeqProducer(seqProducer, rateLimiter, permitsFunction)
+                );
+            });
+        };
+    }
+
     public static <T> SeqProducer<T> peekedSeqProducerContextFree(
             SeqProducer<? extends T> seqProducer,
             ElementConsumer<? super T> peeker) {
@@ -284,6 +330,28 @@ final class ElementProducers {
         };
     }
 
+    public static <T, R> SeqProducer<R> parallelMapSeqProducerContextFree(
+            Supplier<ExecutorRef> executorRefProvider,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super T, ? extends R> mapper,
+            SeqProducer<? extends T> seqProducer) {
+
+        SeqProducer<R> result = new OrderedParallelSeqProducer<>(
+                executorRefProvider,
+                mapperThreadCount,
+                windowSize,
+                mapper,
+                seqProducer
+        );
+
+        if (seqProducer == emptySeqProducer()) {
+            // Nothing to map
+            return emptySeqProducer();
+        }
+        return result;
+    }
+
     public static <T, R> SeqGroupProducer<R> contextFreeMapSeqGroupProducer(
             SeqGroupProducer<? extends T> seqGroupProducer,
             SeqMapper<? super T, ? extends R> seqMapper) {
@@ -456,6 +524,22 @@ final class ElementProducers {
         return new ParallelSeqProducer<>(executorRefProvider, queueSize, seqProducer);
     }
 
+    public static <T> SeqProducer<T> batchedHandoffBackgroundSeqProducer(
+            Supplier<ExecutorRef> executorRefProvider,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay,
+            SeqProducer<? extends T> seqProducer) {
+
+        return new ParallelSeqProducer<>(
+                executorRefProvider,
+                queueSize,
+                handoffBatchSize,
+                maxHandoffDelay,
+                seqProducer
+        );
+    }
+
     public static <T> SeqGroupProducer<T> backgroundSeqGroupProducer(
             String executorName,
             int consumerThreadCount,
@@ -486,6 +570,24 @@ final class ElementProducers {
         return new ParallelSeqGroupProducer<>(executorRefProvider, consumerThreadCount, queueSize, seqGroupProducer);
     }
 
+    public static <T> SeqGroupProducer<T> batchedHandoffBackgroundSeqGroupProducer(
+            Supplier<ExecutorRef> executorRefProvider,
+            int consumerThreadCount,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay,
+            SeqGroupProducer<? extends T> seqGroupProducer) {
+
+        return new ParallelSeqGroupProducer<>(
+                executorRefProvider,
+                consumerThreadCount,
+                queueSize,
+                handoffBatchSize,
+                maxHandoffDelay,
+                seqGroupProducer
+        );
+    }
+
     public static <T> SeqGroupProducer<T> backgroundSeqGroupProducerRetainSequences(
             String executorName,
             int queueSize,
@@ -532,12 +634,27 @@ final class ElementProducers {
     }
 
     private static <T, R, A> SeqConsumer<T> accumulatorSeqConsumer(
-            AtomicReference<A> totalAccRef,
+            Queue<A> idleAccumulators,
             Collector<? super T, A, ? extends R> collector) {
 
+        BiConsumer<A, ? super T> accumulator = collector.accumulator();
         return (cancelToken, seqProducer) -> {
-            A currentAcc = collectSeqAcc(cancelToken, seqProducer, collector);
-            updateAccumulator(collector, totalAccRef, currentAcc);
+            // Accumulators are only shared between sequences not processed concurrently,
+            // so the number of accumulators is limited by the number of concurrently processed
+            // sequences, and there is no need to combine them until all sequences were processed.
+            A resultContainer = idleAccumulators.poll();
+            if (resultContainer == null) {
+                resultContainer = collector.supplier().get();
+            }
+
+            A resultContainerCapture = resultContainer;
+            try {
+                seqProducer.transferAll(cancelToken, element -> {
+                    accumulator.accept(resultContainerCapture, element);
+                });
+            } finally {
+                idleAccumulators.add(resultContainer);
+            }
         };
     }
 
@@ -550,14 +667,23 @@ final class ElementProducers {
         Objects.requireNonNull(seqGroupProducer, "seqGroupProducer");
         Objects.requireNonNull(collector, "collector");
 
-        AtomicReference<A> totalAccRef = new AtomicReference<>(null);
-        seqGroupProducer.transferAll(cancelToken, accumulatorSeqConsumer(totalAccRef, collector));
+        Queue<A> idleAccumulators = new ConcurrentLinkedQueue<>();
+        seqGroupProducer.transferAll(cancelToken, accumulatorSeqConsumer(idleAccumulators, collector));
 
-        A totalAcc = totalAccRef.get();
+        A totalAcc = idleAccumulators.poll();
         if (totalAcc == null) {
             totalAcc = collector.supplier().get();
         }
 
+        BinaryOperator<A> combiner = collector.combiner();
+        while (true) {
+            A partialAcc = idleAccumulators.poll();
+            if (partialAcc == null) {
+                break;
+            }
+            totalAcc = combiner.apply(totalAcc, partialAcc);
+        }
+
         return collector.finisher().apply(totalAcc);
     }
 
@@ -589,20 +715,6 @@ final class ElementProducers {
         return resultContainer;
     }
 
-    private static <A> void updateAccumulator(
-            Collector<?, A, ? > collector,
-            AtomicReference<A> totalAccRef,
-            A partialAcc) {
-
-        A newTotalAcc = Objects.requireNonNull(partialAcc, "partialAcc");
-        do {
-            A currentTotalAcc = totalAccRef.getAndSet(null);
-            if (currentTotalAcc != null) {
-                newTotalAcc = collector.combiner().apply(currentTotalAcc, newTotalAcc);
-            }
-        } while (!totalAccRef.compareAndSet(null, newTotalAcc));
-    }
-
     private static class WrapperException extends RuntimeException {
         private static final long serialVersionUID = 1L;
 
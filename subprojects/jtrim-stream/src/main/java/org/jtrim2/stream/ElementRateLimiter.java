@@ -0,0 +1,217 @@
+package org.jtrim2.stream;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.jtrim2.cancel.CancelableWaits;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
+
+/**
+ * Defines a token bucket limiting the rate of processing elements. The bucket holds at most
+ * {@code burstSize} number of permits, and a new permit is added to the bucket after every
+ * {@code permitInterval} time. Acquiring permits when there are not enough available permits in the
+ * bucket blocks until the permits become available. That is, after an idle period, at most
+ * {@code burstSize} number of permits can be acquired without waiting, but on the long run,
+ * permits cannot be acquired faster than one permit per {@code permitInterval}.
+ * <P>
+ * The same rate limiter might be shared by multiple stream processing pipelines, in which case the
+ * pipelines share the allowed rate as well. Rate limiting stages can be added to pipelines via the
+ * {@link FluentSeqProducer#rateLimited(ElementRateLimiter) FluentSeqProducer.rateLimited} and
+ * {@link FluentSeqGroupProducer#rateLimited(ElementRateLimiter) FluentSeqGroupProducer.rateLimited}
+ * methods.
+ * <P>
+ * Permits are handed out in the order they were requested. In particular, a request for more permits than
+ * available (even more than {@code burstSize}) reserves the permits immediately, and waits until the bucket
+ * is refilled. So, requests for many permits are not starved by requests for fewer permits.
+ *
+ * <h2>Thread safety</h2>
+ * Methods of this class are safe to be accessed from multiple threads concurrently.
+ *
+ * <h3>Synchronization transparency</h3>
+ * Methods of this class are not <I>synchronization transparent</I>, because they might wait for
+ * permits to become available.
+ *
+ * @see FluentSeqProducer#rateLimited(ElementRateLimiter)
+ * @see FluentSeqGroupProducer#rateLimited(ElementRateLimiter)
+ */
+public final class ElementRateLimiter {
+    private final long burstSize;
+    private final long permitIntervalNanos;
+    private final LongSupplier nanoTimeSource;
+    private final NanoSleeper sleeper;
+
+    private final Lock mainLock;
+    // Negative when permits were reserved before being added to the bucket.
+    private long availablePermits;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a new rate limiter with a full bucket.
+     *
+     * @param burstSize the maximum number of permits which can be acquired without waiting
+     *   after an idle period. This argument must be greater than or equal to 1.
+     * @param permitInterval the time after which a new permit is added to the bucket. This
+     *   argument cannot be {@code null} and must be positive.
+     */
+    public ElementRateLimiter(long burstSize, TimeDuration permitInterval) {
+        this(burstSize, permitInterval, System::nanoTime, ElementRateLimiter::sleepNanos);
+    }
+
+    ElementRateLimiter(
+            long burstSize,
+            TimeDuration permitInterval,
+            LongSupplier nanoTimeSource,
+            NanoSleeper sleeper) {
+
+        this.burstSize = ExceptionHelper.checkArgumentInRange(burstSize, 1, Long.MAX_VALUE, "burstSize");
+        this.permitIntervalNanos = ExceptionHelper.checkArgumentInRange(
+                Objects.requireNonNull(permitInterval, "permitInterval").toNanos(),
+                1,
+                Long.MAX_VALUE,
+                "permitInterval"
+        );
+        this.nanoTimeSource = Objects.requireNonNull(nanoTimeSource, "nanoTimeSource");
+        this.sleeper = Objects.requireNonNull(sleeper, "sleeper");
+
+        this.mainLock = new ReentrantLock();
+        this.availablePermits = burstSize;
+        this.lastRefillNanos = nanoTimeSource.getAsLong();
+    }
+
+    /**
+     * Creates a new rate limiter with a full bucket, allowing {@code permitsPerSecond} number of
+     * permits to be acquired per second on the long run. This method is a convenience for the
+     * {@link #ElementRateLimiter(long, TimeDuration) constructor} with
+     * {@code permitInterval = 1 second / permitsPerSecond}.
+     *
+     * @param permitsPerSecond the number of permits added to the bucket per second. This argument must
+     *   be greater than or equal to 1.
+     * @param burstSize the maximum number of permits which can be acquired without waiting
+     *   after an idle period. This argument must be greater than or equal to 1.
+     * @return a new rate limiter with a full bucket. This method never returns {@code null}.
+     */
+    public static ElementRateLimiter perSecond(long permitsPerSecond, long burstSize) {
+        ExceptionHelper.checkArgumentInRange(permitsPerSecond, 1, Long.MAX_VALUE, "permitsPerSecond");
+        long permitIntervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        return new ElementRateLimiter(burstSize, TimeDuration.nanos(permitIntervalNanos));
+    }
+
+    private static void sleepNanos(CancellationToken cancelToken, long nanos) {
+        CancelableWaits.sleep(cancelToken, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Acquires the given number of permits, waiting for them if they are not available yet.
+     * If the waiting is canceled, then the permits are returned to the bucket.
+     *
+     * @param cancelToken the cancellation token signaling that the waiting for the permits should
+     *   be canceled. This argument cannot be {@code null}.
+     * @param permits the number of permits to acquire. This argument must be greater than or equal to zero.
+     *
+     * @throws org.jtrim2.cancel.OperationCanceledException thrown if cancellation was requested
+     *   before the permits could have been acquired
+     */
+    public void acquire(CancellationToken cancelToken, long permits) {
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        ExceptionHelper.checkArgumentInRange(permits, 0, Long.MAX_VALUE, "permits");
+
+        cancelToken.checkCanceled();
+        if (permits == 0) {
+            return;
+        }
+
+        long waitNanos;
+        mainLock.lock();
+        try {
+            waitNanos = reserve(permits, nanoTimeSource.getAsLong());
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        try {
+            sleeper.sleep(cancelToken, waitNanos);
+        } catch (Throwable ex) {
+            release(permits);
+            throw ex;
+        }
+    }
+
+    private long reserve(long permits, long now) {
+        refill(now);
+
+        availablePermits -= permits;
+        if (availablePermits >= 0) {
+            return 0;
+        }
+
+        long missingPermits = -availablePermits;
+        long elapsedSinceRefill = now - lastRefillNanos;
+        return saturatedMultiply(missingPermits, permitIntervalNanos) - elapsedSinceRefill;
+    }
+
+    private void refill(long now) {
+        long elapsedNanos = now - lastRefillNanos;
+        if (elapsedNanos < permitIntervalNanos) {
+            return;
+        }
+
+        long newPermits = elapsedNanos / permitIntervalNanos;
+        if (availablePermits >= burstSize - newPermits) {
+            availablePermits = burstSize;
+            lastRefillNanos = now;
+        } else {
+            availablePermits += newPermits;
+            lastRefillNanos += newPermits * permitIntervalNanos;
+        }
+    }
+
+    private void release(long permits) {
+        mainLock.lock();
+        try {
+            if (availablePermits >= burstSize - permits) {
+                availablePermits = burstSize;
+            } else {
+                availablePermits += permits;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        if (a > Long.MAX_VALUE / b) {
+            return Long.MAX_VALUE;
+        }
+        return a * b;
+    }
+
+    /**
+     * Returns the number of permits which can be acquired without waiting at the moment.
+     * Note that this value might be outdated by the time this method returns, if the rate limiter
+     * is used concurrently.
+     *
+     * @return the number of permits which can be acquired without waiting at the moment.
+     *   The return value is always greater than or equal to zero.
+     */
+    public long getAvailablePermits() {
+        mainLock.lock();
+        try {
+            refill(nanoTimeSource.getAsLong());
+            return Math.max(0, availablePermits);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    interface NanoSleeper {
+        public void sleep(CancellationToken cancelToken, long nanos);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import org.jtrim2.executor.TaskExecutor;
+import org.jtrim2.utils.TimeDuration;
 
 /**
  * Defines a convenient fluent style builder for mappers mapping zero or more
@@ -248,6 +249,127 @@ public final class FluentSeqGroupMapper<T, R> {
         return new ParallelSeqGroupMapper<>(executorRefProvider, consumerThreadCount, queueSize, wrapped).toFluent();
     }
 
+    /**
+     * Returns a mapper resplitting the mapped sequences into {@code consumerThreadCount} number of sequences
+     * and maps each sequence on a new separate thread, moving the elements to the mapper threads in batches.
+     * That is, this method does the same thing as the {@link #inBackground(String, int, int)} method,
+     * except that the elements are moved to the mapper threads in batches the same way as done by the
+     * {@link FluentSeqGroupProducer#toBackground(String, int, int, int, TimeDuration)} method.
+     *
+     * @param executorName the name given to the executor running the mapper tasks. This name will
+     *   appear in the name of the executing thread. This argument cannot be {@code null}.
+     * @param consumerThreadCount the number of threads mapping elements concurrently. This
+     *   argument must be greater than or equal to zero.
+     * @param queueSize the number of extra elements to store aside from what the mapper threads
+     *   are processing. This argument must be greater than or equal to zero. See
+     *   {@link #inBackground(String, int, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the mapper threads.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the mapper threads. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a mapper resplitting the mapped sequences into {@code consumerThreadCount} number of sequences
+     *   and map each sequence on a new separate thread. This method never returns {@code null}.
+     */
+    public FluentSeqGroupMapper<T, R> inBackground(
+            String executorName,
+            int consumerThreadCount,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        Supplier<ExecutorRef> executorRefProvider = ExecutorRef.owned(executorName);
+        return new ParallelSeqGroupMapper<>(
+                executorRefProvider,
+                consumerThreadCount,
+                queueSize,
+                handoffBatchSize,
+                maxHandoffDelay,
+                wrapped
+        ).toFluent();
+    }
+
+    /**
+     * Returns a mapper resplitting the mapped sequences into {@code consumerThreadCount} number of sequences
+     * and maps each sequence on a new separate thread, moving the elements to the mapper threads in batches.
+     * That is, this method does the same thing as the {@link #inBackground(ThreadFactory, int, int)} method,
+     * except that the elements are moved to the mapper threads in batches the same way as done by the
+     * {@link FluentSeqGroupProducer#toBackground(String, int, int, int, TimeDuration)} method.
+     *
+     * @param threadFactory the thread factory creating the threads running the mapper tasks.
+     *   This argument cannot be {@code null}.
+     * @param consumerThreadCount the number of threads mapping elements concurrently. This
+     *   argument must be greater than or equal to zero.
+     * @param queueSize the number of extra elements to store aside from what the mapper threads
+     *   are processing. This argument must be greater than or equal to zero. See
+     *   {@link #inBackground(ThreadFactory, int, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the mapper threads.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the mapper threads. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a mapper resplitting the mapped sequences into {@code consumerThreadCount} number of sequences
+     *   and map each sequence on a new separate thread. This method never returns {@code null}.
+     */
+    public FluentSeqGroupMapper<T, R> inBackground(
+            ThreadFactory threadFactory,
+            int consumerThreadCount,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        Supplier<ExecutorRef> executorRefProvider = ExecutorRef.owned(threadFactory);
+        return new ParallelSeqGroupMapper<>(
+                executorRefProvider,
+                consumerThreadCount,
+                queueSize,
+                handoffBatchSize,
+                maxHandoffDelay,
+                wrapped
+        ).toFluent();
+    }
+
+    /**
+     * Returns a mapper resplitting the mapped sequences into {@code consumerThreadCount} number of sequences
+     * and maps each sequence in a new separate task of the given executor, moving the elements to the mapper
+     * tasks in batches. That is, this method does the same thing as the
+     * {@link #inBackground(TaskExecutor, int, int)} method, except that the elements are moved to the mapper
+     * tasks in batches the same way as done by the
+     * {@link FluentSeqGroupProducer#toBackground(String, int, int, int, TimeDuration)} method.
+     *
+     * @param executor the executor running the mapper tasks. This argument cannot be {@code null}.
+     * @param consumerThreadCount the number of threads mapping elements concurrently. This
+     *   argument must be greater than or equal to zero.
+     * @param queueSize the number of extra elements to store aside from what the mapper threads
+     *   are processing. This argument must be greater than or equal to zero. See
+     *   {@link #inBackground(TaskExecutor, int, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the mapper tasks.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the mapper tasks. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a mapper resplitting the mapped sequences into {@code consumerThreadCount} number of sequences
+     *   and maps each sequence in a new separate task of the given executor. This method never returns
+     *   {@code null}
+     */
+    public FluentSeqGroupMapper<T, R> inBackground(
+            TaskExecutor executor,
+            int consumerThreadCount,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        Supplier<ExecutorRef> executorRefProvider = ExecutorRef.external(executor);
+        return new ParallelSeqGroupMapper<>(
+                executorRefProvider,
+                consumerThreadCount,
+                queueSize,
+                handoffBatchSize,
+                maxHandoffDelay,
+                wrapped
+        ).toFluent();
+    }
+
     /**
      * Returns a mapper mapping each sequences on a background thread. Each sequence will be processed on
      * a separate thread the same way as done by the
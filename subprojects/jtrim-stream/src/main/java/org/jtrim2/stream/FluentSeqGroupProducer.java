@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collector;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
@@ -11,6 +12,7 @@ import org.jtrim2.collections.ForEachable;
 import org.jtrim2.executor.CancelableFunction;
 import org.jtrim2.executor.CancelableTask;
 import org.jtrim2.executor.TaskExecutor;
+import org.jtrim2.utils.TimeDuration;
 
 /**
  * Defines a convenient fluent style builder for producers producing a zero or more
@@ -276,6 +278,49 @@ public final class FluentSeqGroupProducer<T> {
         return ElementProducers.limitSeqGroupProducer(wrapped, maxNumberOfElements).toFluent();
     }
 
+    /**
+     * Returns a producer producing the same elements as this producer, but acquiring a permit from
+     * the given rate limiter before passing each element to the consumer. The rate limiter is shared
+     * by all the sequences of this producer, so the total rate of the elements of all the sequences
+     * is limited. Similarly, if the rate limiter is shared by multiple producers, then they share the
+     * allowed rate as well.
+     * <P>
+     * Waiting for the permits can be canceled via the cancellation token passed to the returned producer.
+     *
+     * @param rateLimiter the rate limiter limiting the rate of the produced elements. This argument
+     *   cannot be {@code null}.
+     * @return a producer producing the same elements as this producer, but limiting the rate of
+     *   the produced elements. This method never returns {@code null}.
+     *
+     * @see #rateLimited(ElementRateLimiter, ToLongFunction)
+     * @see FluentSeqProducer#rateLimited(ElementRateLimiter) FluentSeqProducer.rateLimited
+     */
+    public FluentSeqGroupProducer<T> rateLimited(ElementRateLimiter rateLimiter) {
+        return rateLimited(rateLimiter, element -> 1L);
+    }
+
+    /**
+     * Returns a producer producing the same elements as this producer, but acquiring the given number
+     * of permits from the given rate limiter before passing each element to the consumer. The rate limiter
+     * is shared by all the sequences of this producer. See {@link #rateLimited(ElementRateLimiter)} for
+     * more details.
+     *
+     * @param rateLimiter the rate limiter limiting the rate of the produced elements. This argument
+     *   cannot be {@code null}.
+     * @param permitsFunction the function returning the number of permits to acquire for an element.
+     *   The function must not return a negative value. This argument cannot be {@code null}.
+     * @return a producer producing the same elements as this producer, but limiting the rate of
+     *   the produced elements. This method never returns {@code null}.
+     *
+     * @see #rateLimited(ElementRateLimiter)
+     */
+    public FluentSeqGroupProducer<T> rateLimited(
+            ElementRateLimiter rateLimiter,
+            ToLongFunction<? super T> permitsFunction) {
+
+        return ElementProducers.rateLimitedSeqGroupProducer(wrapped, rateLimiter, permitsFunction).toFluent();
+    }
+
     /**
      * Returns a producer resplitting the produced sequences into {@code consumerThreadCount} number of sequences
      * and processes each sequence on a new separate thread.
@@ -384,6 +429,136 @@ public final class FluentSeqGroupProducer<T> {
                 .toFluent();
     }
 
+    /**
+     * Returns a producer resplitting the produced sequences into {@code consumerThreadCount} number of sequences
+     * and processes each sequence on a new separate thread, moving the elements to the consumer threads in
+     * batches. That is, this method does the same thing as the {@link #toBackground(String, int, int)} method,
+     * except that the elements produced by a sequence are first collected into a local buffer, and are only put
+     * into the queue (shared with the consumers) when the buffer contains {@code handoffBatchSize} elements, or
+     * when the first element in the buffer was produced at least {@code maxHandoffDelay} time ago. This reduces
+     * the cost of synchronization (which might be significant when processing a single element is cheap). The
+     * consumers still receive the elements one by one.
+     * <P>
+     * The elements are never held back in the buffer while a consumer is waiting for elements: An idle consumer
+     * takes the elements directly from the buffer, and the buffer is not filled while there is an idle consumer.
+     * So, batching only happens while all the consumers are busy, and does not delay the elements even if a
+     * sequence stops producing new elements for a while.
+     *
+     * @param executorName the name given to the executor running the processing tasks. This name will
+     *   appear in the name of the executing threads. This argument cannot be {@code null}.
+     * @param consumerThreadCount the number of threads processing elements concurrently. This
+     *   argument must be greater than or equal to zero.
+     * @param queueSize the number of extra elements to store aside from what the consumer threads
+     *   are processing. This argument must be greater than or equal to zero. See
+     *   {@link #toBackground(String, int, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the consumers.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the consumers. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a producer resplitting the produced sequences into {@code consumerThreadCount} number of sequences
+     *   and processes each sequence on a new separate thread. This method never returns {@code null}.
+     */
+    public FluentSeqGroupProducer<T> toBackground(
+            String executorName,
+            int consumerThreadCount,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        return ElementProducers
+                .batchedHandoffBackgroundSeqGroupProducer(
+                        ExecutorRef.owned(executorName),
+                        consumerThreadCount,
+                        queueSize,
+                        handoffBatchSize,
+                        maxHandoffDelay,
+                        wrapped
+                )
+                .toFluent();
+    }
+
+    /**
+     * Returns a producer resplitting the produced sequences into {@code consumerThreadCount} number of sequences
+     * and processes each sequence on a new separate thread, moving the elements to the consumer threads in
+     * batches. That is, this method does the same thing as the {@link #toBackground(ThreadFactory, int, int)}
+     * method, except that the elements are moved to the consumers in batches the same way as done by the
+     * {@link #toBackground(String, int, int, int, TimeDuration)} method.
+     *
+     * @param threadFactory the thread factory creating consumer threads. This argument cannot be {@code null}.
+     * @param consumerThreadCount the number of threads processing elements concurrently. This
+     *   argument must be greater than or equal to zero.
+     * @param queueSize the number of extra elements to store aside from what the consumer threads
+     *   are processing. This argument must be greater than or equal to zero. See
+     *   {@link #toBackground(ThreadFactory, int, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the consumers.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the consumers. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a producer resplitting the produced sequences into {@code consumerThreadCount} number of sequences
+     *   and processes each sequence on a new separate thread. This method never returns {@code null}.
+     */
+    public FluentSeqGroupProducer<T> toBackground(
+            ThreadFactory threadFactory,
+            int consumerThreadCount,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        return ElementProducers
+                .batchedHandoffBackgroundSeqGroupProducer(
+                        ExecutorRef.owned(threadFactory),
+                        consumerThreadCount,
+                        queueSize,
+                        handoffBatchSize,
+                        maxHandoffDelay,
+                        wrapped
+                )
+                .toFluent();
+    }
+
+    /**
+     * Returns a producer resplitting the produced sequences into {@code consumerThreadCount} number of sequences
+     * and processes each sequence in a new separate task of the given executor, moving the elements to the
+     * consumer tasks in batches. That is, this method does the same thing as the
+     * {@link #toBackground(TaskExecutor, int, int)} method, except that the elements are moved to the consumers
+     * in batches the same way as done by the {@link #toBackground(String, int, int, int, TimeDuration)} method.
+     *
+     * @param executor the executor running the consumer tasks. This argument cannot be {@code null}.
+     * @param consumerThreadCount the number of threads processing elements concurrently. This
+     *   argument must be greater than or equal to zero.
+     * @param queueSize the number of extra elements to store aside from what the consumer threads
+     *   are processing. This argument must be greater than or equal to zero. See
+     *   {@link #toBackground(TaskExecutor, int, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the consumers.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the consumers. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a producer resplitting the produced sequences into {@code consumerThreadCount} number of sequences
+     *   and processes each sequence in a new separate task of the given executor. This method never returns
+     *   {@code null}
+     */
+    public FluentSeqGroupProducer<T> toBackground(
+            TaskExecutor executor,
+            int consumerThreadCount,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        return ElementProducers
+                .batchedHandoffBackgroundSeqGroupProducer(
+                        ExecutorRef.external(executor),
+                        consumerThreadCount,
+                        queueSize,
+                        handoffBatchSize,
+                        maxHandoffDelay,
+                        wrapped
+                )
+                .toFluent();
+    }
+
     /**
      * Returns a producer processing each sequence on a background thread while retaining the
      * sequences of this producer. A new thread is spawned for each sequences, so the parallelization
@@ -648,6 +823,13 @@ public final class FluentSeqGroupProducer<T> {
      *     .withCollector(Collectors.toList())
      *     .execute(Cancellation.UNCANCELABLE_TOKEN);
      * }</pre>
+     * <P>
+     * Sequences processed concurrently are accumulated into separate accumulators without any
+     * synchronization, and the accumulators are merged using the combiner of the collector only after
+     * all the sequences were processed. Sequences not processed concurrently might share the same
+     * accumulator. So, the number of accumulators created is at most the number of sequences
+     * processed concurrently (e.g., the number of threads of a {@link #toBackground(String, int, int) toBackground}
+     * stage), and the collector does not need to be thread-safe.
      *
      * @param <R> the type of result of the collection or reduction operation
      * @param collector the collector collecting or reducing the elements of this producer.
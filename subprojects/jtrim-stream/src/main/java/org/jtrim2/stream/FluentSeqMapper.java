@@ -3,6 +3,7 @@ package org.jtrim2.stream;
 import java.util.Objects;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import org.jtrim2.executor.TaskExecutor;
 
 /**
@@ -115,6 +116,104 @@ public final class FluentSeqMapper<T, R> {
         return map(ElementMappers.contextFreeSeqMapper(mapper));
     }
 
+    /**
+     * Returns a mapper further mapping the output elements of this mapper, where the elements are
+     * mapped concurrently on {@code mapperThreadCount} background threads, but the order of the
+     * elements is retained. That is, this method does the same thing as the
+     * {@link FluentSeqProducer#mapContextFreeInParallel(String, int, int, ElementMapper)} method.
+     *
+     * @param <R2> the type of the elements the returned mapper maps element to
+     * @param executorName the name given to the executor running the mapper tasks. This name will
+     *   appear in the name of the executing threads. This argument cannot be {@code null}.
+     * @param mapperThreadCount the number of threads mapping elements concurrently. This
+     *   argument must be greater than or equal to 1.
+     * @param windowSize the maximum number of received elements which were not yet passed to the consumer.
+     *   This argument must be greater than or equal to 1.
+     * @param mapper the mapper further mapping the output elements of this mapper. The mapper might be
+     *   called concurrently from multiple threads. This argument cannot be {@code null}.
+     * @return a mapper further mapping the output elements of this mapper in parallel. This method never
+     *   returns {@code null}.
+     */
+    public <R2> FluentSeqMapper<T, R2> mapContextFreeInParallel(
+            String executorName,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super R, ? extends R2> mapper) {
+
+        Supplier<ExecutorRef> executorRefProvider = ExecutorRef.owned(executorName);
+        return map(ElementMappers.parallelContextFreeSeqMapper(
+                executorRefProvider,
+                mapperThreadCount,
+                windowSize,
+                mapper
+        ));
+    }
+
+    /**
+     * Returns a mapper further mapping the output elements of this mapper, where the elements are
+     * mapped concurrently on {@code mapperThreadCount} background threads, but the order of the
+     * elements is retained. That is, this method does the same thing as the
+     * {@link FluentSeqProducer#mapContextFreeInParallel(ThreadFactory, int, int, ElementMapper)} method.
+     *
+     * @param <R2> the type of the elements the returned mapper maps element to
+     * @param threadFactory the thread factory creating the threads running the mapper tasks.
+     *   This argument cannot be {@code null}.
+     * @param mapperThreadCount the number of threads mapping elements concurrently. This
+     *   argument must be greater than or equal to 1.
+     * @param windowSize the maximum number of received elements which were not yet passed to the consumer.
+     *   This argument must be greater than or equal to 1.
+     * @param mapper the mapper further mapping the output elements of this mapper. The mapper might be
+     *   called concurrently from multiple threads. This argument cannot be {@code null}.
+     * @return a mapper further mapping the output elements of this mapper in parallel. This method never
+     *   returns {@code null}.
+     */
+    public <R2> FluentSeqMapper<T, R2> mapContextFreeInParallel(
+            ThreadFactory threadFactory,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super R, ? extends R2> mapper) {
+
+        Supplier<ExecutorRef> executorRefProvider = ExecutorRef.owned(threadFactory);
+        return map(ElementMappers.parallelContextFreeSeqMapper(
+                executorRefProvider,
+                mapperThreadCount,
+                windowSize,
+                mapper
+        ));
+    }
+
+    /**
+     * Returns a mapper further mapping the output elements of this mapper, where the elements are
+     * mapped concurrently in {@code mapperThreadCount} tasks of the given executor, but the order of the
+     * elements is retained. That is, this method does the same thing as the
+     * {@link FluentSeqProducer#mapContextFreeInParallel(TaskExecutor, int, int, ElementMapper)} method.
+     *
+     * @param <R2> the type of the elements the returned mapper maps element to
+     * @param executor the executor running the mapper tasks. This argument cannot be {@code null}.
+     * @param mapperThreadCount the number of tasks mapping elements concurrently. This
+     *   argument must be greater than or equal to 1.
+     * @param windowSize the maximum number of received elements which were not yet passed to the consumer.
+     *   This argument must be greater than or equal to 1.
+     * @param mapper the mapper further mapping the output elements of this mapper. The mapper might be
+     *   called concurrently from multiple threads. This argument cannot be {@code null}.
+     * @return a mapper further mapping the output elements of this mapper in parallel. This method never
+     *   returns {@code null}.
+     */
+    public <R2> FluentSeqMapper<T, R2> mapContextFreeInParallel(
+            TaskExecutor executor,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super R, ? extends R2> mapper) {
+
+        Supplier<ExecutorRef> executorRefProvider = ExecutorRef.external(executor);
+        return map(ElementMappers.parallelContextFreeSeqMapper(
+                executorRefProvider,
+                mapperThreadCount,
+                windowSize,
+                mapper
+        ));
+    }
+
     /**
      * Returns a mapper mapping the elements on a background thread. That is, this method does the same thing
      * as the {@link FluentSeqProducer#toBackground(String, int)} method.
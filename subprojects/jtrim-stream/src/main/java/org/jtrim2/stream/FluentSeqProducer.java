@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collector;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationToken;
@@ -11,6 +12,7 @@ import org.jtrim2.collections.ForEachable;
 import org.jtrim2.executor.CancelableFunction;
 import org.jtrim2.executor.CancelableTask;
 import org.jtrim2.executor.TaskExecutor;
+import org.jtrim2.utils.TimeDuration;
 
 /**
  * Defines a convenient fluent style builder for producers producing a single
@@ -162,6 +164,131 @@ public final class FluentSeqProducer<T> {
         return ElementProducers.<T, R>mapSeqProducerContextFree(wrapped, mapper).toFluent();
     }
 
+    /**
+     * Returns a producer producing the elements produced by this producer after transformed
+     * by the given mapper, where the elements are mapped concurrently on {@code mapperThreadCount}
+     * background threads. Unlike {@link FluentSeqGroupMapper#inBackground(String, int, int)}, the mapped
+     * elements are produced in the same order as their source elements were produced by this producer.
+     * That is, this method is effectively the same as {@link #mapContextFree(ElementMapper) mapContextFree},
+     * except that the mapping might happen in parallel.
+     * <P>
+     * The returned producer keeps at most {@code windowSize} number of elements which were received but
+     * not yet passed to the consumer (including the ones being mapped and the mapped elements waiting for
+     * a slower mapping of an earlier element). Once the window is full, receiving new elements is blocked
+     * until the earliest element in the window is mapped. So, the window size is a bound on the memory
+     * retained by the mapping, and also a bound on how much the mapping of a slow element can be overtaken
+     * by the mapping of later elements. The window size should be at least {@code mapperThreadCount} (and
+     * preferably somewhat larger), otherwise some mapper threads will necessarily remain idle.
+     * <P>
+     * The mapped elements are passed to the consumer on the thread producing the elements of this producer.
+     * If the mapper fails for an element, then the failure is propagated when the element would have been
+     * passed to the consumer (that is, only after the elements preceding it were passed to the consumer).
+     *
+     * @param <R> the type of the elements produced by the returned producer
+     * @param executorName the name given to the executor running the mapper tasks. This name will
+     *   appear in the name of the executing threads. This argument cannot be {@code null}.
+     * @param mapperThreadCount the number of threads mapping elements concurrently. This
+     *   argument must be greater than or equal to 1.
+     * @param windowSize the maximum number of received elements which were not yet passed to the consumer.
+     *   This argument must be greater than or equal to 1.
+     * @param mapper the mapper mapping the elements of this producer. The mapper might be called concurrently
+     *   from multiple threads. This argument cannot be {@code null}.
+     * @return a producer producing the elements produced by this producer after transformed
+     *   by the given mapper in parallel. This method never returns {@code null}.
+     */
+    public <R> FluentSeqProducer<R> mapContextFreeInParallel(
+            String executorName,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super T, ? extends R> mapper) {
+
+        return ElementProducers
+                .<T, R>parallelMapSeqProducerContextFree(
+                        ExecutorRef.owned(executorName),
+                        mapperThreadCount,
+                        windowSize,
+                        mapper,
+                        wrapped
+                )
+                .toFluent();
+    }
+
+    /**
+     * Returns a producer producing the elements produced by this producer after transformed
+     * by the given mapper, where the elements are mapped concurrently on {@code mapperThreadCount}
+     * background threads. The mapped elements are produced in the same order as their source elements
+     * were produced by this producer. See {@link #mapContextFreeInParallel(String, int, int, ElementMapper)}
+     * for the details.
+     *
+     * @param <R> the type of the elements produced by the returned producer
+     * @param threadFactory the thread factory creating the threads running the mapper tasks.
+     *   This argument cannot be {@code null}.
+     * @param mapperThreadCount the number of threads mapping elements concurrently. This
+     *   argument must be greater than or equal to 1.
+     * @param windowSize the maximum number of received elements which were not yet passed to the consumer.
+     *   This argument must be greater than or equal to 1.
+     * @param mapper the mapper mapping the elements of this producer. The mapper might be called concurrently
+     *   from multiple threads. This argument cannot be {@code null}.
+     * @return a producer producing the elements produced by this producer after transformed
+     *   by the given mapper in parallel. This method never returns {@code null}.
+     */
+    public <R> FluentSeqProducer<R> mapContextFreeInParallel(
+            ThreadFactory threadFactory,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super T, ? extends R> mapper) {
+
+        return ElementProducers
+                .<T, R>parallelMapSeqProducerContextFree(
+                        ExecutorRef.owned(threadFactory),
+                        mapperThreadCount,
+                        windowSize,
+                        mapper,
+                        wrapped
+                )
+                .toFluent();
+    }
+
+    /**
+     * Returns a producer producing the elements produced by this producer after transformed
+     * by the given mapper, where the elements are mapped concurrently in {@code mapperThreadCount}
+     * tasks of the given executor. The mapped elements are produced in the same order as their source
+     * elements were produced by this producer. See
+     * {@link #mapContextFreeInParallel(String, int, int, ElementMapper)} for the details.
+     * <P>
+     * Note that it is normally expected that the executor can run {@code mapperThreadCount} tasks
+     * in parallel (which will run for the whole duration of the whole processing uninterrupted). However,
+     * dead-lock will only arise in case not even a single task submitted to the given executor can start
+     * running.
+     *
+     * @param <R> the type of the elements produced by the returned producer
+     * @param executor the executor running the mapper tasks. This argument cannot be {@code null}.
+     * @param mapperThreadCount the number of tasks mapping elements concurrently. This
+     *   argument must be greater than or equal to 1.
+     * @param windowSize the maximum number of received elements which were not yet passed to the consumer.
+     *   This argument must be greater than or equal to 1.
+     * @param mapper the mapper mapping the elements of this producer. The mapper might be called concurrently
+     *   from multiple threads. This argument cannot be {@code null}.
+     * @return a producer producing the elements produced by this producer after transformed
+     *   by the given mapper in parallel. This method never returns {@code null}.
+     */
+    public <R> FluentSeqProducer<R> mapContextFreeInParallel(
+            TaskExecutor executor,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super T, ? extends R> mapper) {
+
+        return ElementProducers
+                .<T, R>parallelMapSeqProducerContextFree(
+                        ExecutorRef.external(executor),
+                        mapperThreadCount,
+                        windowSize,
+                        mapper,
+                        wrapped
+                )
+                .toFluent();
+    }
+
     /**
      * Returns a producer producing the same elements as this producer but grouped into
      * lists of size {@code batchSize} (except for the final list, which may contain less).
@@ -185,6 +312,103 @@ public final class FluentSeqProducer<T> {
         return ElementProducers.batchSeqProducer(batchSize, wrapped).toFluent();
     }
 
+    /**
+     * Returns a producer producing the same elements as this producer but grouped into
+     * lists of at most {@code maxBatchSize} elements, where a list is also completed if its first element
+     * was received at least {@code maxBatchDelay} time ago. That is, this method is the same as
+     * {@link #batch(int) batch(maxBatchSize)}, except that it also limits how long an element can wait
+     * for its batch to be completed.
+     * <P>
+     * Note that elapsed time is only checked when a new element is received (there is no timer involved).
+     * So, if a batch becomes due, then it is passed to the consumer before the newly received element is
+     * added to a new batch. The last (possibly incomplete) batch is passed to the consumer when the stream
+     * processing ends, or when it is canceled.
+     *
+     * @param maxBatchSize the maximum number of elements to be collected into a produced list.
+     *   This argument must be greater than or equal to 1.
+     * @param maxBatchDelay the time after the first element of a batch was received, after which the batch
+     *   is completed before adding new elements to it. This argument cannot be {@code null} and cannot be
+     *   negative.
+     * @return a producer grouping elements into lists of at most {@code maxBatchSize} elements.
+     *   This method never returns {@code null}.
+     *
+     * @see #batch(int)
+     */
+    public FluentSeqProducer<List<T>> batch(int maxBatchSize, TimeDuration maxBatchDelay) {
+        return WindowedSeqProducers.timedBatchSeqProducer(maxBatchSize, maxBatchDelay, wrapped).toFluent();
+    }
+
+    /**
+     * Returns a producer producing the same elements as this producer but grouped into
+     * lists whose total weight is at most {@code maxBatchWeight}. The weight of each element
+     * is determined by the given function (e.g., the size of the element in bytes). A batch is
+     * completed if adding the next element would exceed the maximum weight, or if its total weight
+     * reached the maximum weight. An element heavier than the maximum weight is produced in a batch
+     * of its own.
+     * <P>
+     * The last (possibly incomplete) batch is passed to the consumer when the stream processing
+     * ends, or when it is canceled.
+     *
+     * @param maxBatchWeight the maximum total weight of the elements collected into a produced list
+     *   (unless the list has only a single element). This argument must be greater than or equal to 1.
+     * @param weightFunction the function returning the weight of an element. The weight must not
+     *   be negative. This argument cannot be {@code null}.
+     * @return a producer grouping elements into lists of limited total weight.
+     *   This method never returns {@code null}.
+     *
+     * @see #batch(int)
+     */
+    public FluentSeqProducer<List<T>> batchByWeight(long maxBatchWeight, ToLongFunction<? super T> weightFunction) {
+        return WindowedSeqProducers.weightedBatchSeqProducer(maxBatchWeight, weightFunction, wrapped).toFluent();
+    }
+
+    /**
+     * Returns a producer producing lists of {@code windowSize} consecutive elements of this producer,
+     * where the first element of each list is {@code step} elements after the first element of the
+     * previous list. That is, if {@code step} is less than {@code windowSize}, then the windows overlap
+     * and if it is greater, then some elements are not included in any of the windows.
+     * <P>
+     * For example, if this producer is producing {@code [1, 2, 3, 4, 5]}, {@code windowSize == 3} and
+     * {@code step == 1}, then the returned producer will produce {@code [[1, 2, 3], [2, 3, 4], [3, 4, 5]]}.
+     * <P>
+     * The last incomplete window is only produced if it contains an element not contained by any of the
+     * previous windows. The last window is also produced if the stream processing is canceled.
+     *
+     * @param windowSize the number of elements to be collected into each (except the last one)
+     *   produced list. This argument must be greater than or equal to 1.
+     * @param step the number of elements between the first elements of two consecutive windows.
+     *   This argument must be greater than or equal to 1.
+     * @return a producer producing the windows of this producer. This method never returns {@code null}.
+     *
+     * @see #batch(int)
+     */
+    public FluentSeqProducer<List<T>> slidingWindow(int windowSize, int step) {
+        return WindowedSeqProducers.slidingWindowSeqProducer(windowSize, step, wrapped).toFluent();
+    }
+
+    /**
+     * Returns a producer producing lists of the elements of this producer received within a time window
+     * of length {@code windowLength}, where each window starts {@code step} time later than the previous
+     * one. The first window starts when the first element is received. Windows without elements are not
+     * produced.
+     * <P>
+     * Note that elapsed time is only checked when a new element is received (there is no timer involved).
+     * So, a window is only passed to the consumer when an element arrives after the end of the window.
+     * The last window which was not yet passed to the consumer is passed when the stream processing ends,
+     * or when it is canceled (if it has an element not contained by any of the previous windows).
+     *
+     * @param windowLength the length of the time windows. This argument cannot be {@code null} and
+     *   must be positive.
+     * @param step the time between the start of two consecutive windows. This argument cannot be
+     *   {@code null} and must be positive.
+     * @return a producer producing the time windows of this producer. This method never returns {@code null}.
+     *
+     * @see #slidingWindow(int, int)
+     */
+    public FluentSeqProducer<List<T>> slidingWindow(TimeDuration windowLength, TimeDuration step) {
+        return WindowedSeqProducers.timedSlidingWindowSeqProducer(windowLength, step, wrapped).toFluent();
+    }
+
     /**
      * Returns a producer producing the same elements as this producer, but doing the
      * given processing action before providing the element for the next processing step.
@@ -244,6 +468,49 @@ public final class FluentSeqProducer<T> {
         return ElementProducers.limitSeqProducer(wrapped, maxNumberOfElements).toFluent();
     }
 
+    /**
+     * Returns a producer producing the same elements as this producer, but acquiring a permit from
+     * the given rate limiter before passing each element to the consumer. That is, elements are
+     * not passed to the consumer faster than the rate allowed by the rate limiter. If the rate limiter
+     * is shared by multiple producers, then they share the allowed rate as well.
+     * <P>
+     * Waiting for the permits can be canceled via the cancellation token passed to the returned producer.
+     *
+     * @param rateLimiter the rate limiter limiting the rate of the produced elements. This argument
+     *   cannot be {@code null}.
+     * @return a producer producing the same elements as this producer, but limiting the rate of
+     *   the produced elements. This method never returns {@code null}.
+     *
+     * @see #rateLimited(ElementRateLimiter, ToLongFunction)
+     */
+    public FluentSeqProducer<T> rateLimited(ElementRateLimiter rateLimiter) {
+        return rateLimited(rateLimiter, element -> 1L);
+    }
+
+    /**
+     * Returns a producer producing the same elements as this producer, but acquiring the given number
+     * of permits from the given rate limiter before passing each element to the consumer. This method is
+     * useful when the cost of processing the elements differ. For example, limiting the number of bytes
+     * sent over the network per second.
+     * <P>
+     * Waiting for the permits can be canceled via the cancellation token passed to the returned producer.
+     *
+     * @param rateLimiter the rate limiter limiting the rate of the produced elements. This argument
+     *   cannot be {@code null}.
+     * @param permitsFunction the function returning the number of permits to acquire for an element.
+     *   The function must not return a negative value. This argument cannot be {@code null}.
+     * @return a producer producing the same elements as this producer, but limiting the rate of
+     *   the produced elements. This method never returns {@code null}.
+     *
+     * @see #rateLimited(ElementRateLimiter)
+     */
+    public FluentSeqProducer<T> rateLimited(
+            ElementRateLimiter rateLimiter,
+            ToLongFunction<? super T> permitsFunction) {
+
+        return ElementProducers.rateLimitedSeqProducer(wrapped, rateLimiter, permitsFunction).toFluent();
+    }
+
     /**
      * Returns a producer moving the consumer to a background thread. The implementation puts the produced elements
      * into a blocking queue, and proceeds to get further elements. This allows the producer and consumer to
@@ -330,6 +597,118 @@ public final class FluentSeqProducer<T> {
                 .toFluent();
     }
 
+    /**
+     * Returns a producer moving the consumer to a background thread, and moving the elements to the
+     * background thread in batches. That is, this method does the same thing as the
+     * {@link #toBackground(String, int)} method, except that the produced elements are first collected
+     * into a local buffer, and are only put into the queue (shared with the consumer) when the buffer contains
+     * {@code handoffBatchSize} elements, or when the first element in the buffer was produced at least
+     * {@code maxHandoffDelay} time ago. This reduces the cost of synchronization (which might be significant
+     * when processing a single element is cheap). The consumer still receives the elements one by one, in the
+     * same order as if they were not batched.
+     * <P>
+     * The elements are never held back in the buffer while the consumer is waiting for elements: An idle consumer
+     * takes the elements directly from the buffer, and the buffer is not filled while the consumer is idle.
+     * So, batching only happens while the consumer is busy, and does not delay the elements even if this producer
+     * stops producing new elements for a while.
+     *
+     * @param executorName the name given to the executor running the consumer task. This name will
+     *   appear in the name of the executing thread. This argument cannot be {@code null}.
+     * @param queueSize the number of extra elements to store aside from what the consumer thread
+     *   is processing. This argument must be greater than or equal to zero. See
+     *   {@link #toBackground(String, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the consumer.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the consumer. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a producer moving the consumer to a background thread. This method never returns {@code null}.
+     */
+    public FluentSeqProducer<T> toBackground(
+            String executorName,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        return ElementProducers
+                .batchedHandoffBackgroundSeqProducer(
+                        ExecutorRef.owned(executorName),
+                        queueSize,
+                        handoffBatchSize,
+                        maxHandoffDelay,
+                        wrapped
+                )
+                .toFluent();
+    }
+
+    /**
+     * Returns a producer moving the consumer to a background thread, and moving the elements to the
+     * background thread in batches. That is, this method does the same thing as the
+     * {@link #toBackground(ThreadFactory, int)} method, except that the elements are moved to the consumer in
+     * batches the same way as done by the {@link #toBackground(String, int, int, TimeDuration)} method.
+     *
+     * @param threadFactory the thread factory creating consumer threads. This argument cannot be {@code null}.
+     * @param queueSize the number of extra elements to store aside from what the consumer thread
+     *   is processing. This argument must be greater than or equal to zero. See
+     *   {@link #toBackground(ThreadFactory, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the consumer.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the consumer. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a producer moving the consumer to a background thread. This method never returns {@code null}.
+     */
+    public FluentSeqProducer<T> toBackground(
+            ThreadFactory threadFactory,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        return ElementProducers
+                .batchedHandoffBackgroundSeqProducer(
+                        ExecutorRef.owned(threadFactory),
+                        queueSize,
+                        handoffBatchSize,
+                        maxHandoffDelay,
+                        wrapped
+                )
+                .toFluent();
+    }
+
+    /**
+     * Returns a producer moving the consumer to a background thread, and moving the elements to the
+     * background thread in batches. That is, this method does the same thing as the
+     * {@link #toBackground(TaskExecutor, int)} method, except that the elements are moved to the consumer in
+     * batches the same way as done by the {@link #toBackground(String, int, int, TimeDuration)} method.
+     *
+     * @param executor the executor running the consumer task. This argument cannot be {@code null}.
+     * @param queueSize the number of extra elements to store aside from what the consumer thread
+     *   is processing. This argument must be greater than or equal to zero. See
+     *   {@link #toBackground(TaskExecutor, int)} for the details.
+     * @param handoffBatchSize the maximum number of elements collected before moving them to the consumer.
+     *   This argument must be greater than or equal to 1. Setting this argument to 1 disables batching.
+     * @param maxHandoffDelay the maximum time the first collected element should wait for other elements
+     *   to be collected, before moving them to the consumer. This argument cannot be {@code null}, and
+     *   cannot be negative.
+     * @return a producer moving the consumer to a background thread. This method never returns {@code null}.
+     */
+    public FluentSeqProducer<T> toBackground(
+            TaskExecutor executor,
+            int queueSize,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay) {
+
+        return ElementProducers
+                .batchedHandoffBackgroundSeqProducer(
+                        ExecutorRef.external(executor),
+                        queueSize,
+                        handoffBatchSize,
+                        maxHandoffDelay,
+                        wrapped
+                )
+                .toFluent();
+    }
+
     /**
      * Returns a {@code ForEachable} providing the elements of this producer. Notice that
      * {@code ForEachable} accepts a {@link java.util.function.Consumer Consumer} which does
@@ -0,0 +1,301 @@
+package org.jtrim2.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancelableWaits;
+import org.jtrim2.cancel.CancellationController;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.concurrent.collections.TerminableQueue;
+import org.jtrim2.concurrent.collections.TerminableQueues;
+import org.jtrim2.concurrent.collections.TerminatedQueueException;
+import org.jtrim2.executor.TaskExecutor;
+import org.jtrim2.utils.ExceptionHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+final class OrderedParallelSeqProducer<T, R> implements SeqProducer<R> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderedParallelSeqProducer.class);
+
+    private final SeqProducer<? extends T> srcSeqProducer;
+    private final Supplier<ExecutorRef> executorProvider;
+    private final int mapperThreadCount;
+    private final int windowSize;
+    private final ElementMapper<? super T, ? extends R> mapper;
+
+    public OrderedParallelSeqProducer(
+            Supplier<ExecutorRef> executorProvider,
+            int mapperThreadCount,
+            int windowSize,
+            ElementMapper<? super T, ? extends R> mapper,
+            SeqProducer<? extends T> srcSeqProducer) {
+
+        this.srcSeqProducer = Objects.requireNonNull(srcSeqProducer, "srcSeqProducer");
+        this.executorProvider = Objects.requireNonNull(executorProvider, "executorProvider");
+        this.mapperThreadCount = ExceptionHelper
+                .checkArgumentInRange(mapperThreadCount, 1, Integer.MAX_VALUE, "mapperThreadCount");
+        this.windowSize = ExceptionHelper
+                .checkArgumentInRange(windowSize, 1, Integer.MAX_VALUE, "windowSize");
+        this.mapper = Objects.requireNonNull(mapper, "mapper");
+    }
+
+    @Override
+    public void transferAll(CancellationToken cancelToken, ElementConsumer<? super R> consumer) throws Exception {
+        Objects.requireNonNull(cancelToken, "cancelToken");
+        Objects.requireNonNull(consumer, "consumer");
+
+        Throwable toThrow = null;
+        ExecutorRef executorRef = executorProvider.get();
+        try {
+            CancellationSource cancellation = Cancellation.createChildCancellationSource(cancelToken);
+            UnsafeOrderedParallelMapper<T, R> parallelMapper = new UnsafeOrderedParallelMapper<>(
+                    mapper,
+                    cancellation.getController(),
+                    executorRef.getExecutor(),
+                    mapperThreadCount,
+                    windowSize
+            );
+
+            parallelMapper.transferAll(cancellation.getToken(), srcSeqProducer, consumer);
+        } catch (Throwable ex) {
+            toThrow = ex;
+        }
+
+        try {
+            executorRef.finishUsage();
+        } catch (Throwable ex) {
+            toThrow = ExceptionCollector.updateException(toThrow, ex);
+        }
+
+        ExceptionHelper.rethrowCheckedIfNotNull(toThrow, Exception.class);
+    }
+
+    private static final class UnsafeOrderedParallelMapper<T, R> {
+        private final ElementMapper<? super T, ? extends R> mapper;
+        private final CancellationController cancelController;
+        private final int mapperThreadCount;
+        private final int windowSize;
+        private final TerminableQueue<MappedSlot<T, R>> queue;
+        private final BackgroundWorkerManager mapperManager;
+        private final ExceptionCollector mapperFailureRef;
+
+        private final Lock windowLock;
+        private final Condition windowChangedSignal;
+        // Elements not yet passed to the consumer in the order of their arrival.
+        private final Deque<MappedSlot<T, R>> window;
+
+        public UnsafeOrderedParallelMapper(
+                ElementMapper<? super T, ? extends R> mapper,
+                CancellationController cancelController,
+                TaskExecutor executor,
+                int mapperThreadCount,
+                int windowSize) {
+
+            this.mapper = Objects.requireNonNull(mapper, "mapper");
+            this.cancelController = Objects.requireNonNull(cancelController, "cancelController");
+            this.mapperThreadCount = mapperThreadCount;
+            this.windowSize = windowSize;
+            // The window limits the number of queued elements, so putting into this queue never blocks.
+            this.queue = TerminableQueues.createFifoQueue(windowSize);
+            this.mapperManager = new BackgroundWorkerManager(
+                    executor,
+                    this::signalWindowChange,
+                    this::setMapperFailure
+            );
+            this.mapperFailureRef = new ExceptionCollector();
+
+            this.windowLock = new ReentrantLock();
+            this.windowChangedSignal = windowLock.newCondition();
+            this.window = new ArrayDeque<>();
+        }
+
+        private void signalWindowChange() {
+            windowLock.lock();
+            try {
+                windowChangedSignal.signalAll();
+            } finally {
+                windowLock.unlock();
+            }
+        }
+
+        private void setMapperFailure(Throwable failure) {
+            try {
+                mapperFailureRef.setFirstFailure(failure);
+                queue.shutdown();
+                cancelController.cancel();
+                signalWindowChange();
+            } catch (Throwable ex) {
+                LOGGER.error("Failed to shutdown mappers.", ex);
+            }
+        }
+
+        private void mapLoop(CancellationToken cancelToken) {
+            while (true) {
+                MappedSlot<T, R> slot;
+                try {
+                    slot = queue.take(cancelToken);
+                } catch (TerminatedQueueException ex) {
+                    break;
+                }
+
+                slot.map(mapper);
+
+                windowLock.lock();
+                try {
+                    slot.completed = true;
+                    windowChangedSignal.signalAll();
+                } finally {
+                    windowLock.unlock();
+                }
+            }
+        }
+
+        private MappedSlot<T, R> pollCompleted(
+                CancellationToken cancelToken,
+                int maxRemaining) throws Exception {
+
+            windowLock.lock();
+            try {
+                while (true) {
+                    MappedSlot<T, R> head = window.peekFirst();
+                    if (head == null) {
+                        return null;
+                    }
+
+                    if (head.completed) {
+                        window.removeFirst();
+                        return head;
+                    }
+
+                    if (window.size() <= maxRemaining) {
+                        return null;
+                    }
+
+                    ExceptionHelper.rethrowCheckedIfNotNull(mapperFailureRef.getLatest(), Exception.class);
+                    CancelableWaits.await(cancelToken, windowChangedSignal);
+                }
+            } finally {
+                windowLock.unlock();
+            }
+        }
+
+        private void emitCompleted(
+                CancellationToken cancelToken,
+                ElementConsumer<? super R> consumer,
+                int maxRemaining) throws Exception {
+
+            while (true) {
+                MappedSlot<T, R> slot = pollCompleted(cancelToken, maxRemaining);
+                if (slot == null) {
+                    break;
+                }
+                cancelToken.checkCanceled();
+                slot.emitTo(consumer);
+            }
+        }
+
+        private void addToWindow(CancellationToken cancelToken, T element) throws Exception {
+            MappedSlot<T, R> slot = new MappedSlot<>(element);
+
+            windowLock.lock();
+            try {
+                window.addLast(slot);
+            } finally {
+                windowLock.unlock();
+            }
+
+            try {
+                queue.put(cancelToken, slot);
+            } catch (TerminatedQueueException ex) {
+                ExceptionHelper.rethrowCheckedIfNotNull(mapperFailureRef.getLatest(), Exception.class);
+                throw new IllegalStateException("Mappers stopped before receiving all elements.", ex);
+            }
+        }
+
+        public void transferAll(
+                CancellationToken cancelToken,
+                SeqProducer<? extends T> srcSeqProducer,
+                ElementConsumer<? super R> consumer) throws Exception {
+
+            Throwable toThrow = null;
+            try {
+                Thread mainThread = Thread.currentThread();
+                mapperManager.startWorkers(cancelToken, mapperThreadCount, taskCancelToken -> {
+                    if (Thread.currentThread() == mainThread) {
+                        String message = "Executor must not execute tasks synchronously to avoid dead-lock.";
+                        setMapperFailure(new IllegalStateException(message));
+                        return;
+                    }
+
+                    mapLoop(taskCancelToken);
+                });
+
+                int maxRemainingBeforeAdd = windowSize - 1;
+                srcSeqProducer.transferAll(cancelToken, element -> {
+                    emitCompleted(cancelToken, consumer, maxRemainingBeforeAdd);
+                    addToWindow(cancelToken, element);
+                });
+                emitCompleted(cancelToken, consumer, 0);
+            } catch (Throwable ex) {
+                toThrow = ex;
+            }
+
+            try {
+                queue.shutdown();
+                queue.clear();
+                mapperManager.waitForWorkers();
+
+                toThrow = mapperFailureRef.consumeLatestAndUpdate(toThrow);
+            } catch (Throwable ex) {
+                toThrow = mapperFailureRef.consumeLatestAndUpdate(toThrow);
+                toThrow = ExceptionCollector.updateException(toThrow, ex);
+            }
+
+            ExceptionHelper.rethrowCheckedIfNotNull(toThrow, Exception.class);
+        }
+    }
+
+    private static final class MappedSlot<T, R> {
+        private T element;
+        private List<R> mappedElements;
+        private Throwable failure;
+        // Guarded by the window lock of the owner.
+        private boolean completed;
+
+        public MappedSlot(T element) {
+            this.element = element;
+            this.mappedElements = null;
+            this.failure = null;
+            this.completed = false;
+        }
+
+        public void map(ElementMapper<? super T, ? extends R> mapper) {
+            List<R> result = new ArrayList<>(1);
+            try {
+                mapper.map(element, result::add);
+                mappedElements = result;
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+            element = null;
+        }
+
+        public void emitTo(ElementConsumer<? super R> consumer) throws Exception {
+            ExceptionHelper.rethrowCheckedIfNotNull(failure, Exception.class);
+
+            List<R> currentMappedElements = mappedElements;
+            mappedElements = null;
+            for (R mappedElement : currentMappedElements) {
+                consumer.processElement(mappedElement);
+            }
+        }
+    }
+}
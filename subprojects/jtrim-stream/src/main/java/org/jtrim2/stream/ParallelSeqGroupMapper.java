@@ -4,12 +4,15 @@ import java.util.Objects;
 import java.util.function.Supplier;
 import org.jtrim2.cancel.CancellationToken;
 import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
 
 final class ParallelSeqGroupMapper<T, R> implements SeqGroupMapper<T, R> {
     private final SeqGroupMapper<? super T, ? extends R> seqGroupMapper;
     private final Supplier<ExecutorRef> executorProvider;
     private final int consumerThreadCount;
     private final int extraQueueCapacity;
+    private final int handoffBatchSize;
+    private final TimeDuration maxHandoffDelay;
 
     public ParallelSeqGroupMapper(
             Supplier<ExecutorRef> executorProvider,
@@ -17,12 +20,26 @@ final class ParallelSeqGroupMapper<T, R> implements SeqGroupMapper<T, R> {
             int extraQueueCapacity,
             SeqGroupMapper<? super T, ? extends R> seqGroupMapper) {
 
+        this(executorProvider, consumerThreadCount, extraQueueCapacity, 1, TimeDuration.nanos(0), seqGroupMapper);
+    }
+
+    public ParallelSeqGroupMapper(
+            Supplier<ExecutorRef> executorProvider,
+            int consumerThreadCount,
+            int extraQueueCapacity,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay,
+            SeqGroupMapper<? super T, ? extends R> seqGroupMapper) {
+
         this.seqGroupMapper = Objects.requireNonNull(seqGroupMapper, "seqGroupMapper");
         this.executorProvider = Objects.requireNonNull(executorProvider, "executorProvider");
         this.consumerThreadCount = ExceptionHelper
                 .checkArgumentInRange(consumerThreadCount, 1, Integer.MAX_VALUE, "consumerThreadCount");
         this.extraQueueCapacity = ExceptionHelper
                 .checkArgumentInRange(extraQueueCapacity, 0, Integer.MAX_VALUE, "extraQueueCapacity");
+        this.handoffBatchSize = ExceptionHelper
+                .checkArgumentInRange(handoffBatchSize, 1, Integer.MAX_VALUE, "handoffBatchSize");
+        this.maxHandoffDelay = Objects.requireNonNull(maxHandoffDelay, "maxHandoffDelay");
     }
 
     @Override
@@ -35,6 +52,8 @@ final class ParallelSeqGroupMapper<T, R> implements SeqGroupMapper<T, R> {
                 executorProvider,
                 consumerThreadCount,
                 extraQueueCapacity,
+                handoffBatchSize,
+                maxHandoffDelay,
                 seqGroupProducer
         );
 
@@ -1,6 +1,15 @@
 package org.jtrim2.stream;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.cancel.CancellationController;
@@ -15,16 +24,23 @@ import org.jtrim2.concurrent.collections.TerminatedQueueException;
 import org.jtrim2.executor.CancelableTask;
 import org.jtrim2.executor.TaskExecutor;
 import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 final class ParallelSeqGroupProducer<T> implements SeqGroupProducer<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(ParallelSeqGroupProducer.class);
 
+    private static final int MAX_POLL_BATCH_SIZE = 64;
+    // The array based queue allocates its full capacity upfront, so it is only used for small queues.
+    private static final int MAX_ARRAY_QUEUE_CAPACITY = 1024;
+
     private final SeqGroupProducer<? extends T> srcSeqGroupProducer;
     private final Supplier<ExecutorRef> executorProvider;
     private final int consumerThreadCount;
     private final int totalQueueCapacity;
+    private final int handoffBatchSize;
+    private final long maxHandoffDelayNanos;
 
     public ParallelSeqGroupProducer(
             Supplier<ExecutorRef> executorProvider,
@@ -32,12 +48,38 @@ final class ParallelSeqGroupProducer<T> implements SeqGroupProducer<T> {
             int extraQueueCapacity,
             SeqGroupProducer<? extends T> srcSeqGroupProducer) {
 
+        this(
+                executorProvider,
+                backgroundThreadCount,
+                extraQueueCapacity,
+                1,
+                TimeDuration.nanos(0),
+                srcSeqGroupProducer
+        );
+    }
+
+    public ParallelSeqGroupProducer(
+            Supplier<ExecutorRef> executorProvider,
+            int backgroundThreadCount,
+            int extraQueueCapacity,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay,
+            SeqGroupProducer<? extends T> srcSeqGroupProducer) {
+
         this.srcSeqGroupProducer = Objects.requireNonNull(srcSeqGroupProducer, "srcSeqGroupProducer");
         this.executorProvider = Objects.requireNonNull(executorProvider, "executorProvider");
         this.consumerThreadCount = ExceptionHelper
                 .checkArgumentInRange(backgroundThreadCount, 1, Integer.MAX_VALUE, "backgroundThreadCount");
         this.totalQueueCapacity = backgroundThreadCount + ExceptionHelper
                 .checkArgumentInRange(extraQueueCapacity, 0, Integer.MAX_VALUE, "extraQueueCapacity");
+        this.handoffBatchSize = ExceptionHelper
+                .checkArgumentInRange(handoffBatchSize, 1, Integer.MAX_VALUE, "handoffBatchSize");
+        this.maxHandoffDelayNanos = ExceptionHelper.checkArgumentInRange(
+                Objects.requireNonNull(maxHandoffDelay, "maxHandoffDelay").toNanos(),
+                0,
+                Long.MAX_VALUE,
+                "maxHandoffDelay"
+        );
     }
 
     @Override
@@ -73,7 +115,9 @@ final class ParallelSeqGroupProducer<T> implements SeqGroupProducer<T> {
                     cancellation.getController(),
                     executorRef.getExecutor(),
                     consumerThreadCount,
-                    totalQueueCapacity
+                    totalQueueCapacity,
+                    handoffBatchSize,
+                    maxHandoffDelayNanos
             );
 
             transferAllTask.transferAll(parallelProducer, cancellation.getToken());
@@ -94,7 +138,13 @@ final class ParallelSeqGroupProducer<T> implements SeqGroupProducer<T> {
         private final SeqGroupProducer<? extends T> srcSeqGroupProducer;
         private final CancellationController cancelController;
         private final int consumerThreadCount;
+        private final int pollBatchSize;
+        private final int handoffBatchSize;
+        private final long maxHandoffDelayNanos;
         private final TerminableQueue<T> queue;
+        // The buffers of the sequences currently being produced, if batching is enabled.
+        private final Set<HandoffBuffer> activeBuffers;
+        private final AtomicInteger idleConsumerCount;
         private final BackgroundWorkerManager queuePollerManager;
         private final ExceptionCollector consumerFailureRef;
         private volatile Throwable producerFailure;
@@ -105,19 +155,36 @@ final class ParallelSeqGroupProducer<T> implements SeqGroupProducer<T> {
                 CancellationController cancelController,
                 TaskExecutor executor,
                 int consumerThreadCount,
-                int totalQueueCapacity) {
+                int totalQueueCapacity,
+                int handoffBatchSize,
+                long maxHandoffDelayNanos) {
 
             this.srcSeqGroupProducer = Objects.requireNonNull(srcSeqGroupProducer, "srcSeqGroupProducer");
             this.cancelController = Objects.requireNonNull(cancelController, "cancelController");
             this.consumerThreadCount = consumerThreadCount;
-            this.queue = TerminableQueues
-                    .withWrappedQueue(ReservablePollingQueues.createFifoQueue(totalQueueCapacity));
+            // A consumer must not take more than its share of the queue, otherwise the others
+            // might be starving while it is processing its batch.
+            this.pollBatchSize = Math.min(MAX_POLL_BATCH_SIZE, totalQueueCapacity / consumerThreadCount);
+            this.handoffBatchSize = handoffBatchSize;
+            this.maxHandoffDelayNanos = maxHandoffDelayNanos;
+            this.queue = createQueue(totalQueueCapacity);
+            this.activeBuffers = ConcurrentHashMap.newKeySet();
+            this.idleConsumerCount = new AtomicInteger(0);
             this.queuePollerManager = new BackgroundWorkerManager(executor, queue::shutdown, this::setConsumerFailure);
             this.consumerFailureRef = new ExceptionCollector();
             this.producerFailure = null;
             this.producerFinishedNormally = false;
         }
 
+        private static <E> TerminableQueue<E> createQueue(int capacity) {
+            if (capacity <= MAX_ARRAY_QUEUE_CAPACITY) {
+                return TerminableQueues.createFifoQueue(capacity);
+            }
+            return TerminableQueues.withWrappedQueue(
+                    ReservablePollingQueues.createFifoQueue(capacity, MAX_ARRAY_QUEUE_CAPACITY)
+            );
+        }
+
         private void setConsumerFailure(Throwable failure) {
             try {
                 consumerFailureRef.setFirstFailure(failure);
@@ -130,17 +197,19 @@ final class ParallelSeqGroupProducer<T> implements SeqGroupProducer<T> {
 
         private void pollLoop(CancellationToken cancelToken, ElementConsumer<? super T> consumer) throws Exception {
             while (true) {
-                ReservedElementRef<T> elementRef;
+                ReservedElementRef<List<T>> batchRef;
                 try {
-                    elementRef = queue.takeButKeepReserved(cancelToken);
+                    batchRef = takeBatch(cancelToken);
                 } catch (TerminatedQueueException ex) {
                     break;
                 }
 
                 try {
-                    consumer.processElement(elementRef.element());
+                    for (T element : batchRef.element()) {
+                        consumer.processElement(element);
+                    }
                 } finally {
-                    elementRef.release();
+                    batchRef.release();
                 }
             }
 
@@ -151,21 +220,84 @@ final class ParallelSeqGroupProducer<T> implements SeqGroupProducer<T> {
             }
         }
 
+        private ReservedElementRef<List<T>> takeBatch(CancellationToken cancelToken) throws TerminatedQueueException {
+            if (handoffBatchSize <= 1) {
+                return queue.takeBatchButKeepReserved(cancelToken, pollBatchSize);
+            }
+
+            ReservedElementRef<List<T>> batchRef = tryTakeBatch(cancelToken);
+            if (batchRef != null) {
+                return batchRef;
+            }
+
+            idleConsumerCount.incrementAndGet();
+            try {
+                // Producers hand off their elements immediately while there is an idle consumer,
+                // but they might have buffered elements before we became idle.
+                for (HandoffBuffer buffer : activeBuffers) {
+                    batchRef = buffer.tryTakeBuffered(cancelToken);
+                    if (batchRef != null) {
+                        return batchRef;
+                    }
+                }
+                return queue.takeBatchButKeepReserved(cancelToken, pollBatchSize);
+            } finally {
+                idleConsumerCount.decrementAndGet();
+            }
+        }
+
+        private ReservedElementRef<List<T>> tryTakeBatch(CancellationToken cancelToken)
+                throws TerminatedQueueException {
+
+            return queue.tryTakeBatchButKeepReserved(cancelToken, pollBatchSize, 0, TimeUnit.NANOSECONDS);
+        }
+
+        private void handOff(CancellationToken cancelToken, T element) throws Exception {
+            try {
+                queue.put(cancelToken, element);
+            } catch (OperationCanceledException | TerminatedQueueException ex) {
+                throw toHandoffFailure(ex);
+            }
+        }
+
+        private void handOffAll(CancellationToken cancelToken, Collection<T> elements) throws Exception {
+            try {
+                queue.putAll(cancelToken, elements);
+            } catch (OperationCanceledException | TerminatedQueueException ex) {
+                throw toHandoffFailure(ex);
+            }
+        }
+
+        private Exception toHandoffFailure(Exception queueFailure) throws Exception {
+            // If there was a failure, then we are cancelling the process, so cancellation exceptions
+            // are no longer relevant.
+            ExceptionHelper.rethrowCheckedIfNotNull(consumerFailureRef.getLatest(), Exception.class);
+
+            if (queueFailure instanceof TerminatedQueueException) {
+                // FIXME: This could happen if there was a late call to this method, or if the consumers did
+                // start pulling elements. We should have a better exception for the latter case.
+                return new Exception("Consumer did not pull elements.");
+            }
+            return queueFailure;
+        }
+
         public void consume(CancellationToken cancelToken) throws Exception {
-            srcSeqGroupProducer.transferAllSimple(cancelToken, element -> {
-                try {
-                    queue.put(cancelToken, element);
-                } catch (OperationCanceledException ex) {
-                    // If there was a failure, then we are cancelling the process, so cancellation exceptions
-                    // are no longer relevant.
-                    ExceptionHelper.rethrowCheckedIfNotNull(consumerFailureRef.getLatest(), Exception.class);
-                    throw ex;
-                } catch (TerminatedQueueException ex) {
-                    ExceptionHelper.rethrowCheckedIfNotNull(consumerFailureRef.getLatest(), Exception.class);
+            if (handoffBatchSize <= 1) {
+                srcSeqGroupProducer.transferAllSimple(cancelToken, element -> {
+                    handOff(cancelToken, element);
+                });
+                return;
+            }
 
-                    // FIXME: This could happen if there was a late call to this method, or if the consumers did
-                    // start pulling elements. We should have a better exception for the latter case.
-                    throw new Exception("Consumer did not pull elements.");
+            // Sequences might be produced concurrently, so each of them needs its own buffer.
+            srcSeqGroupProducer.transferAll(cancelToken, (seqCancelToken, seqProducer) -> {
+                HandoffBuffer buffer = new HandoffBuffer(cancelToken);
+                activeBuffers.add(buffer);
+                try {
+                    seqProducer.transferAll(seqCancelToken, buffer::add);
+                    buffer.flush();
+                } finally {
+                    activeBuffers.remove(buffer);
                 }
             });
         }
@@ -235,6 +367,105 @@ final class ParallelSeqGroupProducer<T> implements SeqGroupProducer<T> {
 
             ExceptionHelper.rethrowCheckedIfNotNull(toThrow, Exception.class);
         }
+
+        private final class HandoffBuffer {
+            private final CancellationToken cancelToken;
+            // Only contended when an idle consumer takes the elements directly from this buffer.
+            // The lock is held while handing off the elements, so that a consumer cannot take
+            // elements from the buffer before the previously handed off elements.
+            private final Lock bufferLock;
+            private final List<T> elements;
+            private long firstElementNanos;
+
+            public HandoffBuffer(CancellationToken cancelToken) {
+                this.cancelToken = cancelToken;
+                this.bufferLock = new ReentrantLock();
+                this.elements = new ArrayList<>(handoffBatchSize);
+                this.firstElementNanos = 0;
+            }
+
+            public void add(T element) throws Exception {
+                boolean flushNeeded;
+                bufferLock.lock();
+                try {
+                    if (elements.isEmpty()) {
+                        firstElementNanos = System.nanoTime();
+                    }
+                    elements.add(element);
+
+                    flushNeeded = elements.size() >= handoffBatchSize
+                            || System.nanoTime() - firstElementNanos >= maxHandoffDelayNanos;
+                } finally {
+                    bufferLock.unlock();
+                }
+
+                // An idle consumer would just wait for the buffered elements, so don't hold them back.
+                if (flushNeeded || idleConsumerCount.get() > 0) {
+                    flush();
+                }
+            }
+
+            public void flush() throws Exception {
+                bufferLock.lock();
+                try {
+                    if (elements.isEmpty()) {
+                        return;
+                    }
+
+                    try {
+                        handOffAll(cancelToken, elements);
+                    } finally {
+                        elements.clear();
+                    }
+                } finally {
+                    bufferLock.unlock();
+                }
+            }
+
+            public ReservedElementRef<List<T>> tryTakeBuffered(CancellationToken consumerCancelToken)
+                    throws TerminatedQueueException {
+
+                // If the lock is held, then the producer is about to hand off the elements anyway.
+                if (!bufferLock.tryLock()) {
+                    return null;
+                }
+                try {
+                    if (elements.isEmpty()) {
+                        return null;
+                    }
+
+                    // The elements handed off before must be processed first.
+                    ReservedElementRef<List<T>> batchRef = tryTakeBatch(consumerCancelToken);
+                    if (batchRef != null) {
+                        return batchRef;
+                    }
+
+                    List<T> batchElements = elements.subList(0, Math.min(elements.size(), pollBatchSize));
+                    List<T> batch = new ArrayList<>(batchElements);
+                    batchElements.clear();
+                    return new UnreservedBatch<>(batch);
+                } finally {
+                    bufferLock.unlock();
+                }
+            }
+        }
+    }
+
+    private static final class UnreservedBatch<T> implements ReservedElementRef<List<T>> {
+        private final List<T> elements;
+
+        public UnreservedBatch(List<T> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public List<T> element() {
+            return elements;
+        }
+
+        @Override
+        public void release() {
+        }
     }
 
     private interface TransferAllAction<T> {
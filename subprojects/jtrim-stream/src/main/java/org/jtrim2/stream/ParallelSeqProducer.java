@@ -2,6 +2,7 @@ package org.jtrim2.stream;
 
 import java.util.function.Supplier;
 import org.jtrim2.cancel.CancellationToken;
+import org.jtrim2.utils.TimeDuration;
 
 final class ParallelSeqProducer<T> implements SeqProducer<T> {
     private final ParallelSeqGroupProducer<T> impl;
@@ -11,10 +12,22 @@ final class ParallelSeqProducer<T> implements SeqProducer<T> {
             int extraQueueCapacity,
             SeqProducer<? extends T> src) {
 
+        this(executorProvider, extraQueueCapacity, 1, TimeDuration.nanos(0), src);
+    }
+
+    public ParallelSeqProducer(
+            Supplier<ExecutorRef> executorProvider,
+            int extraQueueCapacity,
+            int handoffBatchSize,
+            TimeDuration maxHandoffDelay,
+            SeqProducer<? extends T> src) {
+
         this.impl = new ParallelSeqGroupProducer<>(
                 executorProvider,
                 1,
                 extraQueueCapacity,
+                handoffBatchSize,
+                maxHandoffDelay,
                 src.toFluent().toSingleGroupProducer().unwrap()
         );
     }
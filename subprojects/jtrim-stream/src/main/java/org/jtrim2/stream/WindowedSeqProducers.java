@@ -0,0 +1,383 @@
+package org.jtrim2.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.collections.CollectionsEx;
+import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
+
+final class WindowedSeqProducers {
+    public static <T> SeqProducer<List<T>> timedBatchSeqProducer(
+            int maxBatchSize,
+            TimeDuration maxBatchDelay,
+            SeqProducer<? extends T> seqProducer) {
+
+        return timedBatchSeqProducer(maxBatchSize, maxBatchDelay, System::nanoTime, seqProducer);
+    }
+
+    static <T> SeqProducer<List<T>> timedBatchSeqProducer(
+            int maxBatchSize,
+            TimeDuration maxBatchDelay,
+            LongSupplier nanoTimeSource,
+            SeqProducer<? extends T> seqProducer) {
+
+        ExceptionHelper.checkArgumentInRange(maxBatchSize, 1, Integer.MAX_VALUE, "maxBatchSize");
+        long maxBatchDelayNanos = ExceptionHelper.checkArgumentInRange(
+                Objects.requireNonNull(maxBatchDelay, "maxBatchDelay").toNanos(),
+                0,
+                Long.MAX_VALUE,
+                "maxBatchDelay"
+        );
+        Objects.requireNonNull(nanoTimeSource, "nanoTimeSource");
+
+        return windowedSeqProducer(seqProducer, () -> {
+            return new TimedBatchCollector<T>(maxBatchSize, maxBatchDelayNanos, nanoTimeSource);
+        });
+    }
+
+    public static <T> SeqProducer<List<T>> weightedBatchSeqProducer(
+            long maxBatchWeight,
+            ToLongFunction<? super T> weightFunction,
+            SeqProducer<? extends T> seqProducer) {
+
+        ExceptionHelper.checkArgumentInRange(maxBatchWeight, 1, Long.MAX_VALUE, "maxBatchWeight");
+        Objects.requireNonNull(weightFunction, "weightFunction");
+
+        return windowedSeqProducer(seqProducer, () -> {
+            return new WeightedBatchCollector<T>(maxBatchWeight, weightFunction);
+        });
+    }
+
+    public static <T> SeqProducer<List<T>> slidingWindowSeqProducer(
+            int windowSize,
+            int step,
+            SeqProducer<? extends T> seqProducer) {
+
+        ExceptionHelper.checkArgumentInRange(windowSize, 1, Integer.MAX_VALUE, "windowSize");
+        ExceptionHelper.checkArgumentInRange(step, 1, Integer.MAX_VALUE, "step");
+
+        return windowedSeqProducer(seqProducer, () -> new SlidingWindowCollector<T>(windowSize, step));
+    }
+
+    public static <T> SeqProducer<List<T>> timedSlidingWindowSeqProducer(
+            TimeDuration windowLength,
+            TimeDuration step,
+            SeqProducer<? extends T> seqProducer) {
+
+        return timedSlidingWindowSeqProducer(windowLength, step, System::nanoTime, seqProducer);
+    }
+
+    static <T> SeqProducer<List<T>> timedSlidingWindowSeqProducer(
+            TimeDuration windowLength,
+            TimeDuration step,
+            LongSupplier nanoTimeSource,
+            SeqProducer<? extends T> seqProducer) {
+
+        long windowLengthNanos = ExceptionHelper.checkArgumentInRange(
+                Objects.requireNonNull(windowLength, "windowLength").toNanos(),
+                1,
+                Long.MAX_VALUE,
+                "windowLength"
+        );
+        long stepNanos = ExceptionHelper.checkArgumentInRange(
+                Objects.requireNonNull(step, "step").toNanos(),
+                1,
+                Long.MAX_VALUE,
+                "step"
+        );
+        Objects.requireNonNull(nanoTimeSource, "nanoTimeSource");
+
+        return windowedSeqProducer(seqProducer, () -> {
+            return new TimedSlidingWindowCollector<T>(windowLengthNanos, stepNanos, nanoTimeSource);
+        });
+    }
+
+    private static <T> SeqProducer<List<T>> windowedSeqProducer(
+            SeqProducer<? extends T> seqProducer,
+            Supplier<? extends WindowCollector<T>> collectorFactory) {
+
+        Objects.requireNonNull(seqProducer, "seqProducer");
+
+        if (seqProducer == ElementProducers.emptySeqProducer()) {
+            return ElementProducers.emptySeqProducer();
+        }
+
+        return (cancelToken, consumer) -> {
+            WindowCollector<T> collector = collectorFactory.get();
+            try {
+                seqProducer.transferAll(cancelToken, element -> {
+                    collector.add(Objects.requireNonNull(element, "element"), consumer);
+                });
+            } catch (OperationCanceledException ex) {
+                // The elements already received are not dropped just because the rest of the elements
+                // are not needed.
+                try {
+                    collector.flush(consumer);
+                } catch (Throwable flushEx) {
+                    ex.addSuppressed(flushEx);
+                }
+                throw ex;
+            }
+            collector.flush(consumer);
+        };
+    }
+
+    private interface WindowCollector<T> {
+        public void add(T element, ElementConsumer<? super List<T>> consumer) throws Exception;
+
+        public void flush(ElementConsumer<? super List<T>> consumer) throws Exception;
+    }
+
+    private static final class TimedBatchCollector<T> implements WindowCollector<T> {
+        private final int maxBatchSize;
+        private final long maxBatchDelayNanos;
+        private final LongSupplier nanoTimeSource;
+
+        private List<T> batch;
+        private long firstElementNanos;
+
+        public TimedBatchCollector(int maxBatchSize, long maxBatchDelayNanos, LongSupplier nanoTimeSource) {
+            this.maxBatchSize = maxBatchSize;
+            this.maxBatchDelayNanos = maxBatchDelayNanos;
+            this.nanoTimeSource = nanoTimeSource;
+            this.batch = new ArrayList<>();
+            this.firstElementNanos = 0;
+        }
+
+        @Override
+        public void add(T element, ElementConsumer<? super List<T>> consumer) throws Exception {
+            long now = nanoTimeSource.getAsLong();
+            if (!batch.isEmpty() && now - firstElementNanos >= maxBatchDelayNanos) {
+                flush(consumer);
+            }
+
+            if (batch.isEmpty()) {
+                firstElementNanos = now;
+            }
+            batch.add(element);
+
+            if (batch.size() >= maxBatchSize) {
+                flush(consumer);
+            }
+        }
+
+        @Override
+        public void flush(ElementConsumer<? super List<T>> consumer) throws Exception {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<T> completedBatch = batch;
+            batch = new ArrayList<>();
+            consumer.processElement(Collections.unmodifiableList(completedBatch));
+        }
+    }
+
+    private static final class WeightedBatchCollector<T> implements WindowCollector<T> {
+        private final long maxBatchWeight;
+        private final ToLongFunction<? super T> weightFunction;
+
+        private List<T> batch;
+        private long batchWeight;
+
+        public WeightedBatchCollector(long maxBatchWeight, ToLongFunction<? super T> weightFunction) {
+            this.maxBatchWeight = maxBatchWeight;
+            this.weightFunction = weightFunction;
+            this.batch = new ArrayList<>();
+            this.batchWeight = 0;
+        }
+
+        @Override
+        public void add(T element, ElementConsumer<? super List<T>> consumer) throws Exception {
+            long weight = weightFunction.applyAsLong(element);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight (" + weight + ") for element: " + element);
+            }
+
+            if (!batch.isEmpty() && weight > maxBatchWeight - batchWeight) {
+                flush(consumer);
+            }
+
+            batch.add(element);
+            batchWeight += weight;
+
+            if (batchWeight >= maxBatchWeight) {
+                flush(consumer);
+            }
+        }
+
+        @Override
+        public void flush(ElementConsumer<? super List<T>> consumer) throws Exception {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<T> completedBatch = batch;
+            batch = new ArrayList<>();
+            batchWeight = 0;
+            consumer.processElement(Collections.unmodifiableList(completedBatch));
+        }
+    }
+
+    private static final class SlidingWindowCollector<T> implements WindowCollector<T> {
+        private final int windowSize;
+        private final int step;
+
+        // Contains the elements of the current window.
+        private final Deque<T> window;
+        private long nextIndex;
+        private long windowStartIndex;
+        private boolean hasUnemitted;
+
+        public SlidingWindowCollector(int windowSize, int step) {
+            this.windowSize = windowSize;
+            this.step = step;
+            this.window = new ArrayDeque<>();
+            this.nextIndex = 0;
+            this.windowStartIndex = 0;
+            this.hasUnemitted = false;
+        }
+
+        @Override
+        public void add(T element, ElementConsumer<? super List<T>> consumer) throws Exception {
+            long index = nextIndex;
+            nextIndex++;
+
+            if (index < windowStartIndex) {
+                // Between two windows, when the windows do not overlap.
+                return;
+            }
+
+            window.addLast(element);
+            hasUnemitted = true;
+
+            if (window.size() >= windowSize) {
+                List<T> completedWindow = CollectionsEx.readOnlyCopy(window);
+                hasUnemitted = false;
+
+                for (int i = Math.min(step, window.size()); i > 0; i--) {
+                    window.removeFirst();
+                }
+                windowStartIndex += step;
+
+                consumer.processElement(completedWindow);
+            }
+        }
+
+        @Override
+        public void flush(ElementConsumer<? super List<T>> consumer) throws Exception {
+            if (!hasUnemitted) {
+                return;
+            }
+
+            List<T> lastWindow = CollectionsEx.readOnlyCopy(window);
+            window.clear();
+            hasUnemitted = false;
+            consumer.processElement(lastWindow);
+        }
+    }
+
+    private static final class TimedSlidingWindowCollector<T> implements WindowCollector<T> {
+        private final long windowLengthNanos;
+        private final long stepNanos;
+        private final LongSupplier nanoTimeSource;
+
+        // Contains the elements of the current window in the order of their arrival.
+        private final Deque<TimestampedElement<T>> window;
+        private boolean started;
+        private long windowStartNanos;
+        private boolean hasUnemitted;
+
+        public TimedSlidingWindowCollector(long windowLengthNanos, long stepNanos, LongSupplier nanoTimeSource) {
+            this.windowLengthNanos = windowLengthNanos;
+            this.stepNanos = stepNanos;
+            this.nanoTimeSource = nanoTimeSource;
+            this.window = new ArrayDeque<>();
+            this.started = false;
+            this.windowStartNanos = 0;
+            this.hasUnemitted = false;
+        }
+
+        @Override
+        public void add(T element, ElementConsumer<? super List<T>> consumer) throws Exception {
+            long now = nanoTimeSource.getAsLong();
+            if (!started) {
+                started = true;
+                windowStartNanos = now;
+            } else {
+                emitCompletedWindows(now, consumer);
+            }
+
+            if (now - windowStartNanos < 0) {
+                // Between two windows, when the windows do not overlap.
+                return;
+            }
+
+            window.addLast(new TimestampedElement<>(now, element));
+            hasUnemitted = true;
+        }
+
+        private void emitCompletedWindows(long now, ElementConsumer<? super List<T>> consumer) throws Exception {
+            while (now - windowStartNanos >= windowLengthNanos) {
+                if (window.isEmpty()) {
+                    // Skip the empty windows at once, instead of one by one.
+                    long elapsedSinceWindowEnd = now - windowStartNanos - windowLengthNanos;
+                    windowStartNanos += (elapsedSinceWindowEnd / stepNanos + 1) * stepNanos;
+                    break;
+                }
+
+                List<T> completedWindow = currentWindow();
+                hasUnemitted = false;
+
+                windowStartNanos += stepNanos;
+                while (!window.isEmpty() && window.peekFirst().timestampNanos - windowStartNanos < 0) {
+                    window.removeFirst();
+                }
+
+                consumer.processElement(completedWindow);
+            }
+        }
+
+        private List<T> currentWindow() {
+            List<T> result = new ArrayList<>(window.size());
+            for (TimestampedElement<T> element : window) {
+                result.add(element.element);
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        public void flush(ElementConsumer<? super List<T>> consumer) throws Exception {
+            if (!hasUnemitted) {
+                return;
+            }
+
+            List<T> lastWindow = currentWindow();
+            window.clear();
+            hasUnemitted = false;
+            consumer.processElement(lastWindow);
+        }
+    }
+
+    private static final class TimestampedElement<T> {
+        public final long timestampNanos;
+        public final T element;
+
+        public TimestampedElement(long timestampNanos, T element) {
+            this.timestampNanos = timestampNanos;
+            this.element = element;
+        }
+    }
+
+    private WindowedSeqProducers() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,207 @@
+package org.jtrim2.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jtrim2.cancel.Cancellation;
+import org.jtrim2.cancel.CancellationSource;
+import org.jtrim2.cancel.OperationCanceledException;
+import org.jtrim2.utils.TimeDuration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ElementRateLimiterTest {
+    private static final class FakeTime {
+        private final AtomicLong nanosRef;
+        private final List<Long> sleeps;
+        private volatile boolean cancelSleeps;
+
+        public FakeTime() {
+            this.nanosRef = new AtomicLong(1000);
+            this.sleeps = new ArrayList<>();
+            this.cancelSleeps = false;
+        }
+
+        public ElementRateLimiter createLimiter(long burstSize, long permitIntervalNanos) {
+            return new ElementRateLimiter(
+                    burstSize,
+                    TimeDuration.nanos(permitIntervalNanos),
+                    nanosRef::get,
+                    (cancelToken, nanos) -> {
+                        cancelToken.checkCanceled();
+                        if (cancelSleeps) {
+                            throw new OperationCanceledException();
+                        }
+                        sleeps.add(nanos);
+                        nanosRef.addAndGet(nanos);
+                    }
+            );
+        }
+
+        public void setCancelSleeps(boolean cancelSleeps) {
+            this.cancelSleeps = cancelSleeps;
+        }
+
+        public void advance(long nanos) {
+            nanosRef.addAndGet(nanos);
+        }
+
+        public List<Long> getSleeps() {
+            return sleeps;
+        }
+    }
+
+    @Test
+    public void testBurstWithoutWaiting() {
+        FakeTime time = new FakeTime();
+        ElementRateLimiter limiter = time.createLimiter(3, 100);
+
+        assertEquals(3, limiter.getAvailablePermits());
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 2);
+
+        assertEquals(Arrays.asList(), time.getSleeps());
+        assertEquals(0, limiter.getAvailablePermits());
+    }
+
+    @Test
+    public void testWaitsForPermits() {
+        FakeTime time = new FakeTime();
+        ElementRateLimiter limiter = time.createLimiter(2, 100);
+
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 2);
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+
+        assertEquals(Arrays.asList(100L, 100L), time.getSleeps());
+    }
+
+    @Test
+    public void testPartialRefill() {
+        FakeTime time = new FakeTime();
+        ElementRateLimiter limiter = time.createLimiter(1, 100);
+
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+        time.advance(30);
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+
+        assertEquals(Arrays.asList(70L), time.getSleeps());
+    }
+
+    @Test
+    public void testRefillLimitedToBurst() {
+        FakeTime time = new FakeTime();
+        ElementRateLimiter limiter = time.createLimiter(2, 100);
+
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 2);
+        time.advance(10_000);
+
+        assertEquals(2, limiter.getAvailablePermits());
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 3);
+
+        assertEquals(Arrays.asList(100L), time.getSleeps());
+    }
+
+    @Test
+    public void testMorePermitsThanBurst() {
+        FakeTime time = new FakeTime();
+        ElementRateLimiter limiter = time.createLimiter(2, 100);
+
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 5);
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+
+        assertEquals(Arrays.asList(300L, 100L), time.getSleeps());
+    }
+
+    @Test
+    public void testCanceledBeforeWaiting() {
+        FakeTime time = new FakeTime();
+        ElementRateLimiter limiter = time.createLimiter(2, 100);
+
+        CancellationSource cancellation = Cancellation.createCancellationSource();
+        cancellation.getController().cancel();
+        try {
+            limiter.acquire(cancellation.getToken(), 1);
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+            // Expected
+        }
+
+        assertEquals(2, limiter.getAvailablePermits());
+    }
+
+    @Test
+    public void testZeroPermits() {
+        FakeTime time = new FakeTime();
+        ElementRateLimiter limiter = time.createLimiter(1, 100);
+
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 0);
+
+        assertEquals(Arrays.asList(), time.getSleeps());
+    }
+
+    @Test
+    public void testCanceledWaitReleasesPermits() {
+        FakeTime time = new FakeTime();
+        ElementRateLimiter limiter = time.createLimiter(2, 100);
+
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+
+        time.setCancelSleeps(true);
+        try {
+            limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 2);
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+            // Expected
+        }
+        time.setCancelSleeps(false);
+
+        assertEquals(1, limiter.getAvailablePermits());
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+        assertEquals(Arrays.asList(), time.getSleeps());
+    }
+
+    @Test(timeout = 10000)
+    public void testCanceledRealWait() throws Exception {
+        ElementRateLimiter limiter = new ElementRateLimiter(1, TimeDuration.days(1));
+        limiter.acquire(Cancellation.UNCANCELABLE_TOKEN, 1);
+
+        CancellationSource cancellation = Cancellation.createCancellationSource();
+        Thread cancelThread = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            cancellation.getController().cancel();
+        });
+        cancelThread.start();
+        try {
+            limiter.acquire(cancellation.getToken(), 1);
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+            // Expected
+        } finally {
+            cancelThread.join();
+        }
+    }
+
+    @Test
+    public void testPerSecond() {
+        ElementRateLimiter limiter = ElementRateLimiter.perSecond(1000, 5);
+        assertEquals(5, limiter.getAvailablePermits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalBurstSize() {
+        new ElementRateLimiter(0, TimeDuration.seconds(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPermitInterval() {
+        new ElementRateLimiter(1, TimeDuration.nanos(0));
+    }
+}
@@ -13,6 +13,7 @@ import org.jtrim2.cancel.Cancellation;
 import org.jtrim2.executor.SingleThreadedExecutor;
 import org.jtrim2.testutils.TestUtils;
 import org.jtrim2.testutils.executor.TestThreadFactory;
+import org.jtrim2.utils.TimeDuration;
 import org.junit.Test;
 
 import static org.jtrim2.stream.ProducerConsumerTestUtils.*;
@@ -297,6 +298,20 @@ public class FluentSeqGroupMapperTest {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testInBackgroundBatchedHandoff() throws Exception {
+        var threadFactory = new TestThreadFactory("Test-Executor-testInBackgroundBatchedHandoff");
+        testInBackground(
+                mapper -> mapper.inBackground(threadFactory, 1, 0, 4, TimeDuration.seconds(10)),
+                element -> {
+                    if (!threadFactory.isExecutingInThis()) {
+                        String threadName = Thread.currentThread().getName();
+                        throw new IllegalStateException("Expected to run in background, but running in " + threadName);
+                    }
+                }
+        );
+    }
+
     private void testInBackgroundRetainSequences(
             Function<FluentSeqGroupMapper<String, String>, FluentSeqGroupMapper<String, String>> inBackground,
             Consumer<? super String> peekAction
@@ -23,6 +23,7 @@ import org.jtrim2.executor.SingleThreadedExecutor;
 import org.jtrim2.executor.ThreadPoolTaskExecutor;
 import org.jtrim2.testutils.TestUtils;
 import org.jtrim2.testutils.executor.TestThreadFactory;
+import org.jtrim2.utils.TimeDuration;
 import org.junit.Test;
 
 import static org.jtrim2.stream.ProducerConsumerTestUtils.*;
@@ -1198,6 +1199,78 @@ public class FluentSeqGroupProducerTest {
         testCollect((src, cancelToken, collector) -> src.withCollector(collector).execute(cancelToken));
     }
 
+    @Test
+    public void testToBackgroundBatchedHandoffOwned() throws Exception {
+        String executorName = "Test-Executor-testToBackgroundBatchedHandoffOwned";
+        testToBackground(
+                false,
+                producer -> producer.toBackground(executorName, 1, 0, 2, TimeDuration.seconds(10)),
+                element -> {
+                    String threadName = Thread.currentThread().getName();
+                    if (!threadName.contains(executorName)) {
+                        throw new IllegalStateException("Expected to run in background, but running in " + threadName);
+                    }
+                }
+        );
+    }
+
+    @Test
+    public void testToBackgroundBatchedHandoffThreadFactory() throws Exception {
+        var threadFactory = new TestThreadFactory("Test-Executor-testToBackgroundBatchedHandoffThreadFactory");
+        testToBackground(
+                false,
+                producer -> producer.toBackground(threadFactory, 1, 0, 2, TimeDuration.seconds(10)),
+                element -> {
+                    if (!threadFactory.isExecutingInThis()) {
+                        String threadName = Thread.currentThread().getName();
+                        throw new IllegalStateException("Expected to run in background, but running in " + threadName);
+                    }
+                }
+        );
+    }
+
+    @Test(timeout = 20000)
+    public void testToBackgroundBatchedHandoffConcurrent() throws Exception {
+        int threadCount = 4;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor(
+                "Test-Thread-testToBackgroundBatchedHandoffConcurrent",
+                threadCount
+        );
+        try {
+            List<List<String>> srcElement = new ArrayList<>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                List<String> sequence = new ArrayList<>();
+                for (int j = 0; j < 100; j++) {
+                    sequence.add(i + "." + j);
+                }
+                srcElement.add(sequence);
+            }
+            srcElement = Collections.unmodifiableList(srcElement);
+
+            List<String> expected = srcElement
+                    .stream()
+                    .flatMap(List::stream)
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            FluentSeqGroupProducer<String> src = manyIterableProducer(srcElement)
+                    .toFluent()
+                    .toBackground(executor, 2, 3, 8, TimeDuration.seconds(10));
+
+            Collection<String> result = src.collect(
+                    Cancellation.UNCANCELABLE_TOKEN,
+                    Collectors.toCollection(ConcurrentLinkedQueue::new)
+            );
+
+            List<String> sortedResult = new ArrayList<>(result);
+            sortedResult.sort(null);
+            assertEquals(expected, sortedResult);
+        } finally {
+            executor.shutdownAndCancel();
+            executor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+        }
+    }
+
     private void testCollectConcurrent(CollectAction<String, Collection<String>> collectAction) throws Exception {
         int threadCount = 2 * Runtime.getRuntime().availableProcessors();
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor("Test-Thread-testCollectConcurrent", threadCount);
@@ -1241,6 +1314,113 @@ public class FluentSeqGroupProducerTest {
         testCollectConcurrent((src, cancelToken, collector) -> src.withCollector(collector).execute(cancelToken));
     }
 
+    private static Collector<String, List<String>, List<String>> countingListCollector(
+            AtomicInteger supplierCallCount,
+            AtomicInteger combinerCallCount) {
+
+        return Collector.of(
+                () -> {
+                    supplierCallCount.incrementAndGet();
+                    return new ArrayList<>();
+                },
+                List::add,
+                (left, right) -> {
+                    combinerCallCount.incrementAndGet();
+                    left.addAll(right);
+                    return left;
+                }
+        );
+    }
+
+    private void testCollectReusesAccumulator(CollectAction<String, List<String>> collectAction) throws Exception {
+        SeqGroupProducer<String> src = iterableProducer(
+                Arrays.asList("a", "b", "c"),
+                Arrays.asList(),
+                Arrays.asList("d", "e")
+        );
+
+        AtomicInteger supplierCallCount = new AtomicInteger();
+        AtomicInteger combinerCallCount = new AtomicInteger();
+        List<String> result = collectAction.collect(
+                src.toFluent(),
+                Cancellation.UNCANCELABLE_TOKEN,
+                countingListCollector(supplierCallCount, combinerCallCount)
+        );
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), result);
+        assertEquals("supplierCallCount", 1, supplierCallCount.get());
+        assertEquals("combinerCallCount", 0, combinerCallCount.get());
+    }
+
+    @Test
+    public void testCollectReusesAccumulator() throws Exception {
+        testCollectReusesAccumulator(FluentSeqGroupProducer::collect);
+        testCollectReusesAccumulator((src, cancelToken, collector) -> {
+            return src.withCollector(collector).execute(cancelToken);
+        });
+    }
+
+    private void testCollectAccumulatorPerThread(
+            CollectAction<String, List<String>> collectAction) throws Exception {
+
+        int threadCount = 4;
+        int sequenceCount = 50;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor(
+                "Test-Thread-testCollectAccumulatorPerThread",
+                threadCount
+        );
+        try {
+            List<List<String>> srcElement = new ArrayList<>(sequenceCount);
+            for (int i = 0; i < sequenceCount; i++) {
+                List<String> sequence = new ArrayList<>();
+                for (int j = 0; j < 20; j++) {
+                    sequence.add(i + "." + j);
+                }
+                srcElement.add(sequence);
+            }
+            srcElement = Collections.unmodifiableList(srcElement);
+
+            List<String> expected = srcElement
+                    .stream()
+                    .flatMap(List::stream)
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            for (int i = 0; i < 20; i++) {
+                FluentSeqGroupProducer<String> src = manyIterableProducer(srcElement)
+                        .toFluent()
+                        .toBackgroundRetainSequences(executor, 0);
+
+                AtomicInteger supplierCallCount = new AtomicInteger();
+                AtomicInteger combinerCallCount = new AtomicInteger();
+                List<String> result = collectAction.collect(
+                        src,
+                        Cancellation.UNCANCELABLE_TOKEN,
+                        countingListCollector(supplierCallCount, combinerCallCount)
+                );
+
+                List<String> sortedResult = new ArrayList<>(result);
+                sortedResult.sort(null);
+                assertEquals(expected, sortedResult);
+
+                int createdAccumulators = supplierCallCount.get();
+                assertTrue("supplierCallCount: " + createdAccumulators, createdAccumulators <= threadCount + 1);
+                assertEquals(createdAccumulators - 1, combinerCallCount.get());
+            }
+        } finally {
+            executor.shutdownAndCancel();
+            executor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testCollectAccumulatorPerThread() throws Exception {
+        testCollectAccumulatorPerThread(FluentSeqGroupProducer::collect);
+        testCollectAccumulatorPerThread((src, cancelToken, collector) -> {
+            return src.withCollector(collector).execute(cancelToken);
+        });
+    }
+
     private void testCollectEmpty(CollectAction<String, List<String>> collectAction) throws Exception {
         List<String> result = collectAction.collect(
                 SeqGroupProducer.<String>empty().toFluent(),
@@ -1325,6 +1505,23 @@ public class FluentSeqGroupProducerTest {
         assertEquals(expected, collect(producer));
     }
 
+    @Test
+    public void testRateLimitedSharesLimiter() throws Exception {
+        ElementRateLimiter rateLimiter = new ElementRateLimiter(100, TimeDuration.days(1));
+        SeqGroupProducer<String> producer = testLimitSrc()
+                .toFluent()
+                .rateLimited(rateLimiter, String::length)
+                .unwrap();
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b", "c"),
+                Arrays.asList(),
+                Arrays.asList("d", "e")
+        );
+        assertEquals(expected, collect(producer));
+        assertEquals(95, rateLimiter.getAvailablePermits());
+    }
+
     @Test
     public void testLimitMore() throws Exception {
         SeqGroupProducer<String> producer = testLimitSrc()
@@ -142,6 +142,26 @@ public class FluentSeqMapperTest {
         assertEquals(expected, collect(testSrc(), mapper));
     }
 
+    @Test(timeout = 10000)
+    public void testMapContextFreeInParallel() throws Exception {
+        var threadFactory = new TestThreadFactory("Test-Executor-testMapContextFreeInParallel");
+        AtomicReference<RuntimeException> testErrorRef = new AtomicReference<>();
+        SeqMapper<String, String> mapper = simpleTestMapper((String e) -> e + "x")
+                .toFluent()
+                .mapContextFreeInParallel(threadFactory, 3, 4, ElementMapper.oneToOneMapper((String e) -> {
+                    if (!threadFactory.isExecutingInThis()) {
+                        String threadName = Thread.currentThread().getName();
+                        setFirstException(testErrorRef, "Expected to run in background, but running in " + threadName);
+                    }
+                    return e + "y";
+                }))
+                .unwrap();
+
+        List<String> expected = Arrays.asList("axy", "bxy", "cxy", "dxy", "exy", "fxy");
+        assertEquals(expected, collect(testSrc(), mapper));
+        verifyNoException(testErrorRef);
+    }
+
     @Test
     public void testToSingleShotGroupMapper() throws Exception {
         FluentSeqGroupMapper<String, String> mapper = simpleTestMapper((String e) -> e + "x")
@@ -5,6 +5,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
@@ -23,6 +25,7 @@ import org.jtrim2.executor.CancelableTask;
 import org.jtrim2.executor.SingleThreadedExecutor;
 import org.jtrim2.testutils.executor.TestThreadFactory;
 import org.jtrim2.utils.ExceptionHelper;
+import org.jtrim2.utils.TimeDuration;
 import org.junit.Test;
 
 import static org.jtrim2.stream.ProducerConsumerTestUtils.*;
@@ -281,6 +284,124 @@ public class FluentSeqProducerTest {
         assertContentAndCancellation(Arrays.asList("ax", "bx", "cx"), producer);
     }
 
+    @Test
+    public void testMapContextFreeInParallelEmpty() {
+        SeqProducer<String> producer = SeqProducer.<String>empty()
+                .toFluent()
+                .mapContextFreeInParallel("Test-Executor-testMapContextFreeInParallelEmpty", 2, 4, testMapper("x"))
+                .unwrap();
+        assertSame(SeqProducer.<String>empty(), producer);
+    }
+
+    @Test(timeout = 20000)
+    public void testMapContextFreeInParallelKeepsOrder() throws Exception {
+        List<String> src = testStrings(100);
+        var threadFactory = new TestThreadFactory("Test-Executor-testMapContextFreeInParallelKeepsOrder");
+        AtomicReference<RuntimeException> testErrorRef = new AtomicReference<>();
+        SeqProducer<String> producer = SeqProducer.iterableProducer(src)
+                .toFluent()
+                .<String>mapContextFreeInParallel(threadFactory, 4, 8, (element, consumer) -> {
+                    if (!threadFactory.isExecutingInThis()) {
+                        String threadName = Thread.currentThread().getName();
+                        setFirstException(testErrorRef, "Expected to run in background, but running in " + threadName);
+                    }
+                    // Make the earlier elements of each window slower to have them overtaken.
+                    Thread.sleep(8 - src.indexOf(element) % 8);
+                    consumer.processElement(element + "x");
+                    consumer.processElement(element + "y");
+                })
+                .unwrap();
+
+        List<String> expected = new ArrayList<>();
+        src.forEach(element -> {
+            expected.add(element + "x");
+            expected.add(element + "y");
+        });
+        assertEquals(expected, collect(producer));
+        verifyNoException(testErrorRef);
+    }
+
+    @Test(timeout = 20000)
+    public void testMapContextFreeInParallelExternal() throws Exception {
+        SingleThreadedExecutor executor = new SingleThreadedExecutor("Test-Executor-testMapContextFreeInParallel");
+        try {
+            SeqProducer<String> producer = SeqProducer.iterableProducer(Arrays.asList("a", "b", "c", "d"))
+                    .toFluent()
+                    .mapContextFreeInParallel(executor, 1, 2, testMapper("x", "y"))
+                    .unwrap();
+
+            assertEquals(Arrays.asList("ax", "ay", "bx", "by", "cx", "cy", "dx", "dy"), collect(producer));
+        } finally {
+            executor.shutdownAndCancel();
+            executor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testMapContextFreeInParallelLimitsWindow() throws Exception {
+        String executorName = "Test-Executor-testMapContextFreeInParallelLimitsWindow";
+        int windowSize = 3;
+        AtomicInteger producedCount = new AtomicInteger(0);
+        AtomicInteger producedWhileFirstMapped = new AtomicInteger(-1);
+        SeqProducer<String> src = (cancelToken, consumer) -> {
+            for (String element : testStrings(10)) {
+                producedCount.incrementAndGet();
+                consumer.processElement(element);
+            }
+        };
+
+        SeqProducer<String> producer = src
+                .toFluent()
+                .<String>mapContextFreeInParallel(executorName, 2, windowSize, (element, consumer) -> {
+                    if (producedWhileFirstMapped.compareAndSet(-1, 0)) {
+                        Thread.sleep(100);
+                        producedWhileFirstMapped.set(producedCount.get());
+                    }
+                    consumer.processElement(element);
+                })
+                .unwrap();
+
+        assertEquals(testStrings(10), collect(producer));
+        // The source might produce one more element, which is then blocked until the window has space for it.
+        int maxProduced = windowSize + 1;
+        assertTrue("produced: " + producedWhileFirstMapped.get(), producedWhileFirstMapped.get() <= maxProduced);
+    }
+
+    @Test(timeout = 20000)
+    public void testMapContextFreeInParallelFailure() throws Exception {
+        Exception testException = new Exception("testMapContextFreeInParallelFailure");
+        SeqProducer<String> producer = SeqProducer.iterableProducer(Arrays.asList("a", "b", "c", "d"))
+                .toFluent()
+                .<String>mapContextFreeInParallel("Test-Executor-testMapContextFreeInParallelFailure", 2, 4,
+                        (element, consumer) -> {
+                            if ("c".equals(element)) {
+                                throw testException;
+                            }
+                            consumer.processElement(element);
+                        })
+                .unwrap();
+
+        List<String> result = new ArrayList<>();
+        try {
+            producer.transferAll(Cancellation.UNCANCELABLE_TOKEN, result::add);
+            fail("Expected failure.");
+        } catch (Exception ex) {
+            assertSame(testException, ex);
+        }
+        assertEquals(Arrays.asList("a", "b"), result);
+    }
+
+    @Test(timeout = 20000)
+    public void testMapContextFreeInParallelCancelable() throws Exception {
+        SeqProducer<String> producer = cancelableIterableProducer(Arrays.asList("a", "b", "c"))
+                .toFluent()
+                .mapContextFreeInParallel("Test-Executor-testMapContextFreeInParallelCancelable", 2, 2,
+                        testMapper("x"))
+                .unwrap();
+
+        assertContentAndCancellation(Arrays.asList("ax", "bx", "cx"), producer);
+    }
+
     @Test
     public void testBatch0() {
         FluentSeqProducer<String> producer = SeqProducer
@@ -354,6 +475,211 @@ public class FluentSeqProducerTest {
         assertContentAndCancellation(expected, producer);
     }
 
+    @Test
+    public void testTimedBatchEmpty() {
+        SeqProducer<List<String>> producer = SeqProducer.<String>empty()
+                .toFluent()
+                .batch(2, TimeDuration.seconds(1))
+                .unwrap();
+        assertSame(SeqProducer.empty(), producer);
+    }
+
+    @Test
+    public void testTimedBatchBySize() throws Exception {
+        SeqProducer<List<String>> producer = SeqProducer
+                .iterableProducer(Arrays.asList("a", "b", "c", "d", "e"))
+                .toFluent()
+                .batch(2, TimeDuration.days(1))
+                .unwrap();
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("c", "d"),
+                Arrays.asList("e")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testTimedBatchZeroDelay() throws Exception {
+        SeqProducer<List<String>> producer = SeqProducer
+                .iterableProducer(Arrays.asList("a", "b", "c"))
+                .toFluent()
+                .batch(10, TimeDuration.nanos(0))
+                .unwrap();
+
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c")), collect(producer));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimedBatchNegativeDelay() {
+        SeqProducer.iterableProducer(Arrays.asList("a"))
+                .toFluent()
+                .batch(2, TimeDuration.nanos(-1));
+    }
+
+    @Test
+    public void testBatchByWeight() throws Exception {
+        SeqProducer<List<String>> producer = SeqProducer
+                .iterableProducer(Arrays.asList("a", "bb", "c", "dddd", "eeeeeeeeee", "f", "gg"))
+                .toFluent()
+                .batchByWeight(4, String::length)
+                .unwrap();
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "bb", "c"),
+                Arrays.asList("dddd"),
+                Arrays.asList("eeeeeeeeee"),
+                Arrays.asList("f", "gg")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testBatchByWeightZeroWeights() throws Exception {
+        SeqProducer<List<String>> producer = SeqProducer
+                .iterableProducer(Arrays.asList("", "a", "", "b", ""))
+                .toFluent()
+                .batchByWeight(1, String::length)
+                .unwrap();
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("", "a"),
+                Arrays.asList("", "b"),
+                Arrays.asList("")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testBatchByWeightNegativeWeight() throws Exception {
+        SeqProducer<List<String>> producer = SeqProducer
+                .iterableProducer(Arrays.asList("a", "b"))
+                .toFluent()
+                .batchByWeight(4, element -> -1)
+                .unwrap();
+
+        try {
+            collect(producer);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().contains("-1"));
+        }
+    }
+
+    @Test
+    public void testBatchByWeightFlushesOnCancellation() throws Exception {
+        CancellationSource cancellation = Cancellation.createCancellationSource();
+        List<List<String>> result = new ArrayList<>();
+        SeqProducer<String> cancelingProducer = (cancelToken, consumer) -> {
+            consumer.processElement("x");
+            consumer.processElement("y");
+            cancellation.getController().cancel();
+            cancelToken.checkCanceled();
+            consumer.processElement("z");
+        };
+
+        try {
+            cancelingProducer.toFluent()
+                    .batchByWeight(10, String::length)
+                    .unwrap()
+                    .transferAll(cancellation.getToken(), result::add);
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+            // Expected
+        }
+        assertEquals(Arrays.asList(Arrays.asList("x", "y")), result);
+    }
+
+    private static SeqProducer<List<String>> testSlidingWindowProducer(
+            int windowSize,
+            int step,
+            String... element) {
+
+        return SeqProducer
+                .iterableProducer(Arrays.asList(element))
+                .toFluent()
+                .slidingWindow(windowSize, step)
+                .unwrap();
+    }
+
+    @Test
+    public void testSlidingWindowEmpty() {
+        SeqProducer<List<String>> producer = SeqProducer.<String>empty()
+                .toFluent()
+                .slidingWindow(2, 1)
+                .unwrap();
+        assertSame(SeqProducer.empty(), producer);
+    }
+
+    @Test
+    public void testSlidingWindowOverlapping() throws Exception {
+        SeqProducer<List<String>> producer = testSlidingWindowProducer(3, 1, "a", "b", "c", "d", "e");
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b", "c"),
+                Arrays.asList("b", "c", "d"),
+                Arrays.asList("c", "d", "e")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testSlidingWindowPartialLast() throws Exception {
+        SeqProducer<List<String>> producer = testSlidingWindowProducer(3, 2, "a", "b", "c", "d", "e", "f");
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b", "c"),
+                Arrays.asList("c", "d", "e"),
+                Arrays.asList("e", "f")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testSlidingWindowTumbling() throws Exception {
+        SeqProducer<List<String>> producer = testSlidingWindowProducer(2, 2, "a", "b", "c", "d", "e");
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("c", "d"),
+                Arrays.asList("e")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testSlidingWindowHopping() throws Exception {
+        SeqProducer<List<String>> producer = testSlidingWindowProducer(2, 3, "a", "b", "c", "d", "e", "f", "g");
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("d", "e"),
+                Arrays.asList("g")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testSlidingWindowLargerThanSize() throws Exception {
+        SeqProducer<List<String>> producer = testSlidingWindowProducer(4, 1, "a", "b", "c");
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c")), collect(producer));
+    }
+
+    @Test
+    public void testSlidingWindowIsReadOnly() throws Exception {
+        SeqProducer<List<String>> producer = testSlidingWindowProducer(2, 1, "a", "b", "c");
+        List<List<String>> windows = collect(producer);
+
+        try {
+            windows.get(0).add("x");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // Expected
+        }
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("b", "c")), windows);
+    }
+
     @Test
     public void testPeekEmpty() {
         List<String> peeked = new ArrayList<>();
@@ -606,6 +932,96 @@ public class FluentSeqProducerTest {
         }
     }
 
+    @Test
+    public void testToBackgroundBatchedHandoffOwned() throws Exception {
+        String executorName = "Test-Executor-testToBackgroundBatchedHandoffOwned";
+        testToBackground(
+                producer -> producer.toBackground(executorName, 0, 3, TimeDuration.seconds(10)),
+                element -> {
+                    String threadName = Thread.currentThread().getName();
+                    if (!threadName.contains(executorName)) {
+                        throw new IllegalStateException("Expected to run in background, but running in " + threadName);
+                    }
+                }
+        );
+    }
+
+    @Test
+    public void testToBackgroundBatchedHandoffExternal() throws Exception {
+        SingleThreadedExecutor executor = new SingleThreadedExecutor(
+                "Test-Executor-testToBackgroundBatchedHandoffExternal");
+        try {
+            testToBackground(
+                    producer -> producer.toBackground(executor, 0, 3, TimeDuration.seconds(10)),
+                    element -> {
+                        if (!executor.isExecutingInThis()) {
+                            String threadName = Thread.currentThread().getName();
+                            throw new IllegalStateException("Expected to run in background, but running in "
+                                    + threadName);
+                        }
+                    }
+            );
+        } finally {
+            executor.shutdownAndCancel();
+            executor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testToBackgroundBatchedHandoffKeepsOrder() throws Exception {
+        var threadFactory = new TestThreadFactory("Test-Executor-testToBackgroundBatchedHandoffKeepsOrder");
+        SeqProducer<String> producer = SeqProducer.iterableProducer(testStrings(1000))
+                .toFluent()
+                .toBackground(threadFactory, 4, 16, TimeDuration.seconds(10))
+                .unwrap();
+
+        assertEquals(testStrings(1000), collect(producer));
+    }
+
+    @Test(timeout = 20000)
+    public void testToBackgroundBatchedHandoffElapsedDelay() throws Exception {
+        CountDownLatch firstReceivedLatch = new CountDownLatch(1);
+        SeqProducer<String> src = (cancelToken, consumer) -> {
+            consumer.processElement("a");
+            // The consumer could only receive "a", if it was not kept waiting for a full batch.
+            if (!firstReceivedLatch.await(10, TimeUnit.SECONDS)) {
+                throw new AssertionError("Timeout waiting for the first element.");
+            }
+            consumer.processElement("b");
+        };
+
+        var threadFactory = new TestThreadFactory("Test-Executor-testToBackgroundBatchedHandoffElapsedDelay");
+        SeqProducer<String> producer = src
+                .toFluent()
+                .toBackground(threadFactory, 0, 100, TimeDuration.nanos(0))
+                .peekContextFree(element -> firstReceivedLatch.countDown())
+                .unwrap();
+
+        assertEquals(Arrays.asList("a", "b"), collect(producer));
+    }
+
+    @Test(timeout = 20000)
+    public void testToBackgroundBatchedHandoffPausedSource() throws Exception {
+        CountDownLatch firstReceivedLatch = new CountDownLatch(1);
+        SeqProducer<String> src = (cancelToken, consumer) -> {
+            consumer.processElement("a");
+            // The idle consumer must receive "a", even though neither the batch is full nor the delay elapsed.
+            if (!firstReceivedLatch.await(10, TimeUnit.SECONDS)) {
+                throw new AssertionError("Timeout waiting for the first element.");
+            }
+            consumer.processElement("b");
+        };
+
+        var threadFactory = new TestThreadFactory("Test-Executor-testToBackgroundBatchedHandoffPausedSource");
+        SeqProducer<String> producer = src
+                .toFluent()
+                .toBackground(threadFactory, 0, 100, TimeDuration.hours(1))
+                .peekContextFree(element -> firstReceivedLatch.countDown())
+                .unwrap();
+
+        assertEquals(Arrays.asList("a", "b"), collect(producer));
+    }
+
     @Test
     public void testToForEachable() {
         List<String> result = new ArrayList<>();
@@ -859,6 +1275,50 @@ public class FluentSeqProducerTest {
         assertEquals(Arrays.asList("a", "b", "c"), collect(producer));
     }
 
+    @Test
+    public void testRateLimitedEmpty() {
+        SeqProducer<String> producer = SeqProducer.<String>empty()
+                .toFluent()
+                .rateLimited(new ElementRateLimiter(1, TimeDuration.days(1)))
+                .unwrap();
+        assertSame(SeqProducer.empty(), producer);
+    }
+
+    @Test
+    public void testRateLimited() throws Exception {
+        ElementRateLimiter rateLimiter = new ElementRateLimiter(10, TimeDuration.days(1));
+        SeqProducer<String> producer = SeqProducer.copiedArrayProducer("a", "bb", "c")
+                .toFluent()
+                .rateLimited(rateLimiter)
+                .unwrap();
+
+        assertEquals(Arrays.asList("a", "bb", "c"), collect(producer));
+        assertEquals(7, rateLimiter.getAvailablePermits());
+    }
+
+    @Test
+    public void testRateLimitedByPermitsFunction() throws Exception {
+        ElementRateLimiter rateLimiter = new ElementRateLimiter(10, TimeDuration.days(1));
+        SeqProducer<String> producer = SeqProducer.copiedArrayProducer("a", "bb", "c")
+                .toFluent()
+                .rateLimited(rateLimiter, String::length)
+                .unwrap();
+
+        assertEquals(Arrays.asList("a", "bb", "c"), collect(producer));
+        assertEquals(6, rateLimiter.getAvailablePermits());
+    }
+
+    @Test(timeout = 10000)
+    public void testRateLimitedCancelable() throws Exception {
+        ElementRateLimiter rateLimiter = new ElementRateLimiter(2, TimeDuration.days(1));
+        SeqProducer<String> producer = SeqProducer.copiedArrayProducer("a", "b", "c", "d")
+                .toFluent()
+                .rateLimited(rateLimiter)
+                .unwrap();
+
+        assertEquals(Arrays.asList("a", "b"), collectCanceled(2, producer));
+    }
+
     private interface CollectAction<T, R> {
         public R collect(
                 FluentSeqProducer<T> producer,
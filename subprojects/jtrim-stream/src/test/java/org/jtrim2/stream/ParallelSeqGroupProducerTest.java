@@ -171,6 +171,22 @@ public class ParallelSeqGroupProducerTest {
         }
     }
 
+    @Test(timeout = 30000)
+    public void testHugeQueueCapacity() throws Exception {
+        List<String> elements = testStrings(elementCount);
+
+        try (TestConsumerFactory consumerFactory = new TestConsumerFactory()) {
+            setupDefaults(consumerFactory);
+            // Would fail with OutOfMemoryError if the queue was allocated upfront.
+            consumerFactory.setQueueSize(Integer.MAX_VALUE - consumerThreadCount);
+            consumerFactory.setSyncConsumerThreads(true);
+
+            consumerFactory.startProducerTest(Cancellation.UNCANCELABLE_TOKEN, submitTasksLogic.producer(elements));
+
+            verifySuccessfulCompletion(consumerFactory, elements);
+        }
+    }
+
     @Test(timeout = 30000)
     public void testNormalRunWithLateSubmit() throws Exception {
         List<String> elements = testStrings(elementCount);
@@ -0,0 +1,181 @@
+package org.jtrim2.stream;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jtrim2.utils.TimeDuration;
+import org.junit.Test;
+
+import static org.jtrim2.stream.SeqProducerTest.*;
+import static org.junit.Assert.*;
+
+public class WindowedSeqProducersTest {
+    private static final class TimedElement {
+        private final long nanos;
+        private final String element;
+
+        public TimedElement(long nanos, String element) {
+            this.nanos = nanos;
+            this.element = element;
+        }
+    }
+
+    private static TimedElement at(long nanos, String element) {
+        return new TimedElement(nanos, element);
+    }
+
+    private static SeqProducer<String> timedProducer(AtomicLong timeRef, TimedElement... elements) {
+        List<TimedElement> elementsCopy = Arrays.asList(elements.clone());
+        return (cancelToken, consumer) -> {
+            for (TimedElement element : elementsCopy) {
+                timeRef.set(element.nanos);
+                consumer.processElement(element.element);
+            }
+        };
+    }
+
+    private static SeqProducer<List<String>> timedBatchProducer(
+            int maxBatchSize,
+            long maxBatchDelayNanos,
+            TimedElement... elements) {
+
+        AtomicLong timeRef = new AtomicLong();
+        return WindowedSeqProducers.timedBatchSeqProducer(
+                maxBatchSize,
+                TimeDuration.nanos(maxBatchDelayNanos),
+                timeRef::get,
+                timedProducer(timeRef, elements)
+        );
+    }
+
+    private static SeqProducer<List<String>> timedSlidingWindowProducer(
+            long windowLengthNanos,
+            long stepNanos,
+            TimedElement... elements) {
+
+        AtomicLong timeRef = new AtomicLong();
+        return WindowedSeqProducers.timedSlidingWindowSeqProducer(
+                TimeDuration.nanos(windowLengthNanos),
+                TimeDuration.nanos(stepNanos),
+                timeRef::get,
+                timedProducer(timeRef, elements)
+        );
+    }
+
+    @Test
+    public void testTimedBatchByDelay() throws Exception {
+        SeqProducer<List<String>> producer = timedBatchProducer(10, 100,
+                at(0, "a"),
+                at(50, "b"),
+                at(100, "c"),
+                at(150, "d"),
+                at(500, "e")
+        );
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("c", "d"),
+                Arrays.asList("e")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testTimedBatchBySizeAndDelay() throws Exception {
+        SeqProducer<List<String>> producer = timedBatchProducer(2, 100,
+                at(0, "a"),
+                at(10, "b"),
+                at(20, "c"),
+                at(200, "d"),
+                at(210, "e")
+        );
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("c"),
+                Arrays.asList("d", "e")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testTimedBatchTimeOverflow() throws Exception {
+        SeqProducer<List<String>> producer = timedBatchProducer(10, 100,
+                at(Long.MAX_VALUE - 10, "a"),
+                at(Long.MAX_VALUE, "b"),
+                at(Long.MIN_VALUE + 100, "c")
+        );
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("c")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testTimedTumblingWindow() throws Exception {
+        SeqProducer<List<String>> producer = timedSlidingWindowProducer(100, 100,
+                at(0, "a"),
+                at(99, "b"),
+                at(100, "c"),
+                at(250, "d"),
+                at(260, "e")
+        );
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("c"),
+                Arrays.asList("d", "e")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testTimedSlidingWindow() throws Exception {
+        SeqProducer<List<String>> producer = timedSlidingWindowProducer(100, 50,
+                at(0, "a"),
+                at(60, "b"),
+                at(120, "c"),
+                at(130, "d")
+        );
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("b", "c", "d")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testTimedSlidingWindowSkipsEmptyWindows() throws Exception {
+        SeqProducer<List<String>> producer = timedSlidingWindowProducer(100, 50,
+                at(0, "a"),
+                at(1000, "b"),
+                at(1010, "c")
+        );
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a"),
+                Arrays.asList("b", "c")
+        );
+        assertEquals(expected, collect(producer));
+    }
+
+    @Test
+    public void testTimedHoppingWindow() throws Exception {
+        SeqProducer<List<String>> producer = timedSlidingWindowProducer(100, 200,
+                at(0, "a"),
+                at(50, "b"),
+                at(150, "c"),
+                at(210, "d"),
+                at(320, "e")
+        );
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("d")
+        );
+        assertEquals(expected, collect(producer));
+    }
+}